@@ -0,0 +1,30 @@
+package br.net.dd.netherwingcore.common.configuration;
+
+/**
+ * A {@link Setting} holding a numeric value as a flag, enabled for any value but 0.
+ */
+public final class BooleanSetting extends Setting {
+
+    private final boolean defaultValue;
+    private volatile boolean value;
+
+    BooleanSetting(String key, boolean defaultValue) {
+        super(key);
+        this.defaultValue = defaultValue;
+        this.value = defaultValue;
+    }
+
+    @Override
+    void resolve(ConfigSnapshot snapshot) {
+        value = snapshot.getBoolean(getKey(), defaultValue);
+    }
+
+    /**
+     * Returns the current value.
+     *
+     * @return the configured value, or the default
+     */
+    public boolean get() {
+        return value;
+    }
+}
@@ -1,5 +1,14 @@
 package br.net.dd.netherwingcore.common.configuration;
 
+import br.net.dd.netherwingcore.common.logging.Log;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 /**
  * This class represents a singleton Config responsible for managing the application's {@link Configuration}.
  *
@@ -12,13 +21,39 @@ package br.net.dd.netherwingcore.common.configuration;
  *   <li>Prior to calling {@link #get()}, initialize the config using {@link #loadConfig(ConfigurationSample)}.</li>
  *   <li>Attempting to access the configuration before initialization will result in an {@link IllegalStateException}.</li>
  * </ul>
+ *
+ * <p>Values are read from a {@link ConfigSnapshot} built when the configuration is loaded. Code that reads a value
+ * often should keep a {@link Setting} handle, e.g. {@code static final IntSetting PORT = Config.intSetting("Port", 80)},
+ * which always holds the current value.</p>
+ *
+ * <p>{@link #reload()}, called by the file watcher started with {@link #startWatching()}, reads the configuration file
+ * again, swaps the snapshot at once, updates the handles and notifies the {@link ConfigListener}s of the keys that
+ * changed. Values read once at startup, such as ports, still need a restart.</p>
  */
 public class Config {
 
-    private static Configuration configuration;
+    private static final Log logger = Log.getLogger(Config.class.getSimpleName());
+
+    private static volatile Configuration configuration;
 
     private static Config instance;
 
+    private static volatile ConfigSnapshot snapshot;
+
+    private static final List<Setting> settings = new CopyOnWriteArrayList<>();
+
+    private static final List<Subscription> listeners = new CopyOnWriteArrayList<>();
+
+    private static ConfigurationSample loadedSample;
+
+    private static ConfigWatcher watcher;
+
+    /**
+     * A registered listener, with the keys it is interested in, or none for every change.
+     */
+    private record Subscription(ConfigListener listener, String[] keys) {
+    }
+
     /**
      * Private constructor to prevent direct instantiation of the class.
      */
@@ -34,11 +69,134 @@ public class Config {
      */
     @SuppressWarnings("InstantiationOfUtilityClass")
     public static void loadConfig(ConfigurationSample sample) {
-        if (instance == null) {
-            instance = new Config();
+        synchronized (Config.class) {
+            if (instance == null) {
+                instance = new Config();
+            }
+            ConfigurationController controller = new ConfigurationController(sample);
+            configuration = controller.getConfiguration();
+            snapshot = controller.getSnapshot();
+            settings.forEach(setting -> setting.resolve(snapshot));
+            loadedSample = sample;
+        }
+        Log.configure();
+    }
+
+    /**
+     * Reads the configuration file again and puts its values in use if they changed. The snapshot is swapped at once,
+     * so readers see either all the old values or all the new ones. The {@link Setting} handles and the logging
+     * levels are updated, then the listeners of the changed keys are called on this thread.
+     *
+     * <p>If the file is missing or cannot be read, the current configuration is kept.</p>
+     *
+     * @return true if the configuration was reloaded, even without changes, false if the current one was kept.
+     * @throws IllegalStateException If the config has not been initialized via {@link #loadConfig(ConfigurationSample)}.
+     */
+    public static boolean reload() {
+        ConfigChange change;
+
+        synchronized (Config.class) {
+            if (loadedSample == null) {
+                throw new IllegalStateException("Cache not initialized. Call loadConfig() first.");
+            }
+
+            // Read the file directly rather than through a ConfigurationController, which exits when the file is
+            // missing: editors that save by deleting and renaming leave it missing for a moment.
+            Path file = ConfigurationController.getConfigurationFile(loadedSample);
+            ConfigFileParser parser;
+            try {
+                parser = ConfigFileParser.open(file);
+            } catch (NoSuchFileException e) {
+                logger.warn("Configuration file {} is missing, keeping the current configuration.", file);
+                return false;
+            } catch (IOException e) {
+                logger.warn("Configuration file {} could not be read, keeping the current configuration: {}",
+                        file, e.getMessage());
+                return false;
+            }
+
+            Configuration reloaded = loadedSample.createSample();
+            ConfigSnapshot previous = snapshot;
+            ConfigSnapshot current = parser.parse(reloaded);
+            if (parser.getErrorCount() > 0) {
+                logger.warn("{} malformed line(s) in {} were skipped.", parser.getErrorCount(), file.getFileName());
+            }
+
+            Set<String> changedKeys = previous.changedKeys(current);
+            if (changedKeys.isEmpty()) {
+                return true;
+            }
+
+            loadedSample.setConfiguration(reloaded);
+            configuration = reloaded;
+            snapshot = current;
+            settings.forEach(setting -> setting.resolve(current));
+            change = new ConfigChange(previous, current, changedKeys);
+        }
+
+        Log.configure();
+        logger.info("Configuration reloaded, changed: {}", String.join(", ", change.changedKeys()));
+
+        for (Subscription subscription : listeners) {
+            if (subscription.keys().length == 0 || change.changed(subscription.keys())) {
+                try {
+                    subscription.listener().configChanged(change);
+                } catch (RuntimeException e) {
+                    logger.error("Configuration listener failed: {}", e);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Registers a listener called after each reload that changes one of the given keys, or any key if none is given.
+     *
+     * @param listener The listener.
+     * @param keys     The keys the listener is interested in.
+     */
+    public static void addListener(ConfigListener listener, String... keys) {
+        listeners.add(new Subscription(listener, keys.clone()));
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener The listener to remove.
+     */
+    public static void removeListener(ConfigListener listener) {
+        listeners.removeIf(subscription -> subscription.listener() == listener);
+    }
+
+    /**
+     * Starts watching the configuration file, reloading it whenever it changes.
+     *
+     * @throws IllegalStateException If the config has not been initialized via {@link #loadConfig(ConfigurationSample)}.
+     */
+    public static synchronized void startWatching() {
+        if (loadedSample == null) {
+            throw new IllegalStateException("Cache not initialized. Call loadConfig() first.");
+        }
+        if (watcher != null) {
+            return;
+        }
+
+        try {
+            watcher = new ConfigWatcher(ConfigurationController.getConfigurationFile(loadedSample));
+            watcher.start();
+        } catch (IOException e) {
+            logger.error("Cannot watch the configuration file, changes need a restart: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Stops watching the configuration file.
+     */
+    public static synchronized void stopWatching() {
+        if (watcher != null) {
+            watcher.stop();
+            watcher = null;
         }
-        ConfigurationController controller = new ConfigurationController(sample);
-        configuration = controller.getConfiguration();
     }
 
     /**
@@ -51,10 +209,8 @@ public class Config {
      * @throws IllegalStateException If the config has not been initialized via {@link #loadConfig(ConfigurationSample)}.
      */
     public static Integer get(String key, Integer defaultValue) {
-        if (instance == null) {
-            throw new IllegalStateException("Cache not initialized. Call loadConfig() first.");
-        }
-        return configuration.get(key, defaultValue);
+        ConfigSnapshot current = snapshot();
+        return current.isInt(key) ? Integer.valueOf(current.getInt(key, 0)) : defaultValue;
     }
 
     /**
@@ -67,10 +223,78 @@ public class Config {
      * @throws IllegalStateException If the config has not been initialized via {@link #loadConfig(ConfigurationSample)}.
      */
     public static String get(String key, String defaultValue) {
-        if (instance == null) {
+        return snapshot().getString(key, defaultValue);
+    }
+
+    /**
+     * Retrieves the snapshot of the configuration values currently in use.
+     *
+     * @return The current {@link ConfigSnapshot}.
+     * @throws IllegalStateException If the config has not been initialized via {@link #loadConfig(ConfigurationSample)}.
+     */
+    public static ConfigSnapshot snapshot() {
+        ConfigSnapshot current = snapshot;
+        if (current == null) {
             throw new IllegalStateException("Cache not initialized. Call loadConfig() first.");
         }
-        return configuration.get(key, defaultValue);
+        return current;
+    }
+
+    /**
+     * Creates a handle on a numeric value, read as an int.
+     *
+     * @param key          The configuration key.
+     * @param defaultValue The value used when the key has no numeric value, or before the config is loaded.
+     * @return The handle, to be kept in a static final field.
+     */
+    public static IntSetting intSetting(String key, int defaultValue) {
+        return register(new IntSetting(key, defaultValue));
+    }
+
+    /**
+     * Creates a handle on a numeric value, read as a long.
+     *
+     * @param key          The configuration key.
+     * @param defaultValue The value used when the key has no numeric value, or before the config is loaded.
+     * @return The handle, to be kept in a static final field.
+     */
+    public static LongSetting longSetting(String key, long defaultValue) {
+        return register(new LongSetting(key, defaultValue));
+    }
+
+    /**
+     * Creates a handle on a numeric value, read as a flag enabled for any value but 0.
+     *
+     * @param key          The configuration key.
+     * @param defaultValue The value used when the key has no numeric value, or before the config is loaded.
+     * @return The handle, to be kept in a static final field.
+     */
+    public static BooleanSetting booleanSetting(String key, boolean defaultValue) {
+        return register(new BooleanSetting(key, defaultValue));
+    }
+
+    /**
+     * Creates a handle on a text value, read without its surrounding quotes.
+     *
+     * @param key          The configuration key.
+     * @param defaultValue The value used when the key has no text value, or before the config is loaded.
+     * @return The handle, to be kept in a static final field.
+     */
+    public static TextSetting textSetting(String key, String defaultValue) {
+        return register(new TextSetting(key, defaultValue));
+    }
+
+    /**
+     * Keeps a handle up to date with the snapshots to come, and resolves it against the current one if any.
+     */
+    private static <T extends Setting> T register(T setting) {
+        synchronized (Config.class) {
+            settings.add(setting);
+            if (snapshot != null) {
+                setting.resolve(snapshot);
+            }
+        }
+        return setting;
     }
 
     /**
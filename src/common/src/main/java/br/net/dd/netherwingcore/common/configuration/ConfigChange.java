@@ -0,0 +1,28 @@
+package br.net.dd.netherwingcore.common.configuration;
+
+import java.util.Set;
+
+/**
+ * Describes a reload of the configuration, as passed to the {@link ConfigListener}s.
+ *
+ * @param previous    the values before the reload
+ * @param current     the values now in use
+ * @param changedKeys the keys whose value changed
+ */
+public record ConfigChange(ConfigSnapshot previous, ConfigSnapshot current, Set<String> changedKeys) {
+
+    /**
+     * Checks whether any of the given keys changed.
+     *
+     * @param keys the keys
+     * @return true if at least one of them changed
+     */
+    public boolean changed(String... keys) {
+        for (String key : keys) {
+            if (changedKeys.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
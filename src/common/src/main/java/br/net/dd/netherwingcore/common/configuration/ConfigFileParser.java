@@ -0,0 +1,250 @@
+package br.net.dd.netherwingcore.common.configuration;
+
+import br.net.dd.netherwingcore.common.configuration.fields.Type;
+import br.net.dd.netherwingcore.common.configuration.fields.Value;
+import br.net.dd.netherwingcore.common.configuration.structs.Group;
+import br.net.dd.netherwingcore.common.configuration.structs.Item;
+import br.net.dd.netherwingcore.common.configuration.structs.Section;
+import br.net.dd.netherwingcore.common.logging.Log;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads a configuration file in a single pass over its characters and builds the {@link ConfigSnapshot} of its
+ * values directly.
+ *
+ * <p>The file is made of {@code Key = Value} lines. A {@code #} starts a comment, either at the start of a line or
+ * after a value, and lines starting with {@code [} name a section and are skipped. A value may be quoted, in which
+ * case it may contain {@code #} and {@code [}; quoted values keep their quotes, as {@link ConfigSnapshot#getString}
+ * always returned them. The type of a value is the one its key is declared with in the sample, not guessed from the
+ * text, and keys the sample does not declare are ignored.</p>
+ *
+ * <p>Malformed lines are reported with their line number and skipped, and the rest of the file is still read.</p>
+ */
+final class ConfigFileParser {
+
+    private static final Log logger = Log.getLogger(ConfigFileParser.class.getSimpleName());
+
+    private final String source;
+    private final String text;
+    private final int length;
+    private int line;
+    private int valueCount;
+    private int errorCount;
+
+    private ConfigFileParser(String source, String text) {
+        this.source = source;
+        this.text = text;
+        this.length = text.length();
+    }
+
+    /**
+     * Reads a configuration file in memory, ready to be parsed.
+     *
+     * @param file the configuration file
+     * @return the parser of the file
+     * @throws IOException if the file cannot be read
+     */
+    static ConfigFileParser open(Path file) throws IOException {
+        return new ConfigFileParser(String.valueOf(file.getFileName()),
+                new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses the file. The values found are set on the items of the configuration, and the snapshot returned holds
+     * them over the defaults of the configuration.
+     *
+     * @param configuration the configuration declaring the keys, with their default values
+     * @return the snapshot of the values of the configuration
+     */
+    ConfigSnapshot parse(Configuration configuration) {
+        Map<String, Value> declared = declaredValues(configuration);
+        ConfigSnapshot.Builder builder = new ConfigSnapshot.Builder(ConfigSnapshot.of(configuration));
+        Map<String, Integer> assignedLines = new HashMap<>();
+
+        line = 1;
+        int position = length > 0 && text.charAt(0) == '\uFEFF' ? 1 : 0;
+
+        while (position < length) {
+            position = skipBlanks(position);
+            if (position >= length) {
+                break;
+            }
+
+            char c = text.charAt(position);
+            if (c == '#' || c == '[' || isLineEnd(c)) {
+                position = nextLine(position);
+                continue;
+            }
+
+            // Key
+            int keyStart = position;
+            while (position < length && !isBlank(c = text.charAt(position)) && c != '=' && c != '#' && !isLineEnd(c)) {
+                position++;
+            }
+            int keyEnd = position;
+
+            position = skipBlanks(position);
+            if (position >= length || text.charAt(position) != '=') {
+                error("expected '=' after " + text.substring(keyStart, keyEnd));
+                position = nextLine(position);
+                continue;
+            }
+            if (keyStart == keyEnd) {
+                error("missing key before '='");
+                position = nextLine(position);
+                continue;
+            }
+
+            // Value
+            position = skipBlanks(position + 1);
+            int valueStart = position;
+            int valueEnd;
+            if (position < length && text.charAt(position) == '"') {
+                position++;
+                while (position < length && (c = text.charAt(position)) != '"' && !isLineEnd(c)) {
+                    position++;
+                }
+                if (position >= length || text.charAt(position) != '"') {
+                    error("missing closing quote");
+                    position = nextLine(position);
+                    continue;
+                }
+                valueEnd = ++position;
+
+                position = skipBlanks(position);
+                if (position < length && (c = text.charAt(position)) != '#' && !isLineEnd(c)) {
+                    error("unexpected text after the quoted value");
+                    position = nextLine(position);
+                    continue;
+                }
+            } else {
+                while (position < length && (c = text.charAt(position)) != '#' && !isLineEnd(c)) {
+                    position++;
+                }
+                valueEnd = position;
+                while (valueEnd > valueStart && isBlank(text.charAt(valueEnd - 1))) {
+                    valueEnd--;
+                }
+            }
+
+            assign(declared, builder, assignedLines, keyStart, keyEnd, valueStart, valueEnd);
+            position = nextLine(position);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Stores a value read from the file, typed as its key is declared.
+     */
+    private void assign(Map<String, Value> declared, ConfigSnapshot.Builder builder, Map<String, Integer> assignedLines,
+                        int keyStart, int keyEnd, int valueStart, int valueEnd) {
+        String key = text.substring(keyStart, keyEnd);
+        Value value = declared.get(key);
+        if (value == null) {
+            logger.debug("{}:{}: {} is not a known setting, ignored.", source, line, key);
+            return;
+        }
+
+        Integer previousLine = assignedLines.put(key, line);
+        if (previousLine != null) {
+            logger.warn("{}:{}: {} is set again, replacing the value of line {}.", source, line, key, previousLine);
+        } else {
+            valueCount++;
+        }
+
+        String raw = text.substring(valueStart, valueEnd);
+        value.setValue(raw);
+
+        if (value.getType() != Type.NUMBER) {
+            builder.putText(key, value.getType(), raw);
+            return;
+        }
+        try {
+            builder.putNumber(key, raw, Long.parseLong(text, valueStart, valueEnd, 10));
+        } catch (NumberFormatException e) {
+            logger.warn("{}:{}: {} = {} is not a number, the default is used instead.", source, line, key, raw);
+            builder.putInvalidNumber(key, raw);
+        }
+    }
+
+    /**
+     * Indexes the value fields of the configuration by key. The first item of a key wins.
+     */
+    private static Map<String, Value> declaredValues(Configuration configuration) {
+        Map<String, Value> declared = new HashMap<>();
+        for (Section section : configuration.getSections()) {
+            for (Group group : section.getGroups()) {
+                for (Item item : group.getItems()) {
+                    String key = ConfigSnapshot.keyOf(item);
+                    Value value = item.getValue();
+                    if (key != null && value != null) {
+                        declared.putIfAbsent(key, value);
+                    }
+                }
+            }
+        }
+        return declared;
+    }
+
+    private void error(String message) {
+        errorCount++;
+        logger.error("{}:{}: {}, line skipped.", source, line, message);
+    }
+
+    /**
+     * Returns the position after the end of the current line, counting it.
+     */
+    private int nextLine(int position) {
+        while (position < length && !isLineEnd(text.charAt(position))) {
+            position++;
+        }
+        if (position < length) {
+            if (text.charAt(position) == '\r' && position + 1 < length && text.charAt(position + 1) == '\n') {
+                position++;
+            }
+            position++;
+            line++;
+        }
+        return position;
+    }
+
+    private int skipBlanks(int position) {
+        while (position < length && isBlank(text.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean isBlank(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    private static boolean isLineEnd(char c) {
+        return c == '\n' || c == '\r';
+    }
+
+    /**
+     * Returns the number of known settings the file sets.
+     *
+     * @return the number of values read
+     */
+    int getValueCount() {
+        return valueCount;
+    }
+
+    /**
+     * Returns the number of malformed lines that were skipped.
+     *
+     * @return the number of errors
+     */
+    int getErrorCount() {
+        return errorCount;
+    }
+}
@@ -0,0 +1,19 @@
+package br.net.dd.netherwingcore.common.configuration;
+
+/**
+ * Receives the changes made to the configuration file while the server runs.
+ *
+ * <p>Listeners are registered with {@link Config#addListener(ConfigListener, String...)} and called on the thread that
+ * reloaded the configuration, once the new values are in use. They should only apply the new values, and hand
+ * anything slow over to their own threads.</p>
+ */
+@FunctionalInterface
+public interface ConfigListener {
+
+    /**
+     * Called after the configuration has been reloaded with different values.
+     *
+     * @param change the previous and current values, and the keys that changed
+     */
+    void configChanged(ConfigChange change);
+}
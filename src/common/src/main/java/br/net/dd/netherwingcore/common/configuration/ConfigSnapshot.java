@@ -0,0 +1,238 @@
+package br.net.dd.netherwingcore.common.configuration;
+
+import br.net.dd.netherwingcore.common.configuration.fields.Field;
+import br.net.dd.netherwingcore.common.configuration.fields.Key;
+import br.net.dd.netherwingcore.common.configuration.fields.Type;
+import br.net.dd.netherwingcore.common.configuration.fields.Value;
+import br.net.dd.netherwingcore.common.configuration.structs.Group;
+import br.net.dd.netherwingcore.common.configuration.structs.Item;
+import br.net.dd.netherwingcore.common.configuration.structs.Section;
+import br.net.dd.netherwingcore.common.logging.Log;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable, flat index of the values of a {@link Configuration}, built once when the configuration is loaded.
+ *
+ * <p>Looking a value up is a single hash lookup: numbers are parsed when the snapshot is built, not on every read,
+ * and nothing walks the sections, groups and items of the configuration. As with {@link Configuration}, a value is
+ * only returned when its type matches the accessor, and the first item of a key wins.</p>
+ */
+public final class ConfigSnapshot {
+
+    private static final Log logger = Log.getLogger(ConfigSnapshot.class.getSimpleName());
+
+    /**
+     * A value of the index. Numbers that cannot be parsed are kept as text of type NUMBER, and are never returned.
+     */
+    private record Entry(Type type, String text, long number, boolean parsed) {
+    }
+
+    private final Map<String, Entry> entries;
+
+    private ConfigSnapshot(Map<String, Entry> entries) {
+        this.entries = Map.copyOf(entries);
+    }
+
+    /**
+     * Builds the index of a configuration.
+     *
+     * @param configuration the configuration, with the values read from the configuration file
+     * @return the snapshot of its values
+     */
+    public static ConfigSnapshot of(Configuration configuration) {
+        Map<String, Entry> entries = new HashMap<>();
+
+        for (Section section : configuration.getSections()) {
+            for (Group group : section.getGroups()) {
+                for (Item item : group.getItems()) {
+                    String key = keyOf(item);
+                    Value value = item.getValue();
+                    if (key != null && value != null && value.getValue() != null && !entries.containsKey(key)) {
+                        entries.put(key, entryOf(key, value));
+                    }
+                }
+            }
+        }
+        return new ConfigSnapshot(entries);
+    }
+
+    /**
+     * Returns the key of an item, or null if it has none.
+     */
+    static String keyOf(Item item) {
+        for (Field field : item.fields()) {
+            if (field instanceof Key) {
+                return field.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static Entry entryOf(String key, Value value) {
+        String text = value.getValue();
+        if (value.getType() != Type.NUMBER) {
+            return new Entry(value.getType(), text, 0, false);
+        }
+        try {
+            return new Entry(Type.NUMBER, text, Long.parseLong(text.trim()), true);
+        } catch (NumberFormatException e) {
+            logger.warn("Configuration value {} = {} is not a number, the default is used instead.", key, text);
+            return new Entry(Type.NUMBER, text, 0, false);
+        }
+    }
+
+    /**
+     * Collects the values of a new snapshot, starting from the values of an existing one. Used by the
+     * {@link ConfigFileParser} to lay the values read from the file over the defaults of the sample.
+     */
+    static final class Builder {
+
+        private final Map<String, Entry> entries;
+
+        Builder(ConfigSnapshot base) {
+            this.entries = new HashMap<>(base.entries);
+        }
+
+        void putText(String key, Type type, String text) {
+            entries.put(key, new Entry(type, text, 0, false));
+        }
+
+        void putNumber(String key, String text, long number) {
+            entries.put(key, new Entry(Type.NUMBER, text, number, true));
+        }
+
+        /**
+         * Stores a numeric value that could not be parsed, so the accessors return their default for it.
+         */
+        void putInvalidNumber(String key, String text) {
+            entries.put(key, new Entry(Type.NUMBER, text, 0, false));
+        }
+
+        ConfigSnapshot build() {
+            return new ConfigSnapshot(entries);
+        }
+    }
+
+    /**
+     * Checks whether a key has a numeric value that fits in an int.
+     *
+     * @param key the key
+     * @return true if {@link #getInt(String, int)} returns the configured value
+     */
+    public boolean isInt(String key) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.parsed() && entry.number() == (int) entry.number();
+    }
+
+    /**
+     * Checks whether a key has a text value.
+     *
+     * @param key the key
+     * @return true if {@link #getString(String, String)} returns the configured value
+     */
+    public boolean isText(String key) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.type() == Type.TEXT;
+    }
+
+    /**
+     * Returns a numeric value as an int.
+     *
+     * @param key          the key
+     * @param defaultValue the value returned if the key has no numeric value, or one too large for an int
+     * @return the value
+     */
+    public int getInt(String key, int defaultValue) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.parsed() && entry.number() == (int) entry.number()
+                ? (int) entry.number()
+                : defaultValue;
+    }
+
+    /**
+     * Returns a numeric value as a long.
+     *
+     * @param key          the key
+     * @param defaultValue the value returned if the key has no numeric value
+     * @return the value
+     */
+    public long getLong(String key, long defaultValue) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.parsed() ? entry.number() : defaultValue;
+    }
+
+    /**
+     * Returns a numeric value as a flag, true for any value but 0.
+     *
+     * @param key          the key
+     * @param defaultValue the value returned if the key has no numeric value
+     * @return the value
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.parsed() ? entry.number() != 0 : defaultValue;
+    }
+
+    /**
+     * Returns a text value as written in the configuration file, quotes included.
+     *
+     * @param key          the key
+     * @param defaultValue the value returned if the key has no text value
+     * @return the value
+     */
+    public String getString(String key, String defaultValue) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.type() == Type.TEXT ? entry.text() : defaultValue;
+    }
+
+    /**
+     * Returns a text value without its surrounding quotes.
+     *
+     * @param key          the key
+     * @param defaultValue the value returned if the key has no text value
+     * @return the value
+     */
+    public String getText(String key, String defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        return value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")
+                ? value.substring(1, value.length() - 1)
+                : value;
+    }
+
+    /**
+     * Lists the keys whose value differs between this snapshot and another one, including keys only one of them has.
+     *
+     * @param other the other snapshot
+     * @return the keys that changed
+     */
+    public Set<String> changedKeys(ConfigSnapshot other) {
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            if (!entry.getValue().equals(other.entries.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (String key : other.entries.keySet()) {
+            if (!entries.containsKey(key)) {
+                changed.add(key);
+            }
+        }
+        return Set.copyOf(changed);
+    }
+
+    /**
+     * Returns the number of keys of the snapshot.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return entries.size();
+    }
+}
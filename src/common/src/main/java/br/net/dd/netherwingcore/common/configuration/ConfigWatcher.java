@@ -0,0 +1,96 @@
+package br.net.dd.netherwingcore.common.configuration;
+
+import br.net.dd.netherwingcore.common.logging.Log;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the configuration file and reloads the configuration when it changes.
+ *
+ * <p>Editors usually write a file in several steps, so the reload waits until the directory has been quiet for
+ * {@value #SETTLE_MILLIS} ms after the last event on the file.</p>
+ */
+final class ConfigWatcher {
+
+    private static final Log logger = Log.getLogger(ConfigWatcher.class.getSimpleName());
+
+    private static final long SETTLE_MILLIS = 500;
+
+    private final Path file;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    /**
+     * Registers a watch on the directory of the configuration file.
+     *
+     * @param file the configuration file
+     * @throws IOException if the directory cannot be watched
+     */
+    ConfigWatcher(Path file) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.watchService = this.file.getFileSystem().newWatchService();
+        this.file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = Thread.ofPlatform().name("ConfigWatcher").daemon(true).unstarted(this::run);
+    }
+
+    void start() {
+        thread.start();
+        logger.info("Watching {} for changes", file);
+    }
+
+    void stop() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.error("Failed to stop watching {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                if (!concernsFile(watchService.take())) {
+                    continue;
+                }
+
+                // Let the writer finish before reading the file.
+                WatchKey key;
+                while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    concernsFile(key);
+                }
+
+                try {
+                    Config.reload();
+                } catch (RuntimeException e) {
+                    logger.error("Failed to reload {}: {}", file, e);
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Stopped.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Consumes the events of a key and tells whether one of them is about the configuration file.
+     */
+    private boolean concernsFile(WatchKey key) {
+        boolean concerned = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context())) {
+                concerned = true;
+            }
+        }
+        key.reset();
+        return concerned;
+    }
+}
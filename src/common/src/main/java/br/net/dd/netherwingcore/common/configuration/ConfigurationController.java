@@ -6,11 +6,11 @@ import br.net.dd.netherwingcore.common.logging.Log;
 import br.net.dd.netherwingcore.common.utilities.Util;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static br.net.dd.netherwingcore.common.serialization.FileManager.*;
@@ -45,6 +45,11 @@ public class ConfigurationController {
      */
     private final Configuration configuration;
 
+    /**
+     * The index of the configuration values, built while reading the configuration file.
+     */
+    private ConfigSnapshot snapshot;
+
     /**
      * Initializes the `ConfigurationController` by validating the existence of a configuration file.
      * If a configuration file does not exist, it creates one using the data from the given {@link ConfigurationSample}.
@@ -53,11 +58,8 @@ public class ConfigurationController {
      *                            and metadata for handling the file.
      */
     public ConfigurationController(ConfigurationSample configurationSample) {
-        String jarLocation = Util.getJarLocation();
-        String filePath = jarLocation + File.separator + configurationSample.getFileName();
-        String distFilePath = jarLocation + File.separator + configurationSample.getFileName() + ".dist";
-        Path configurationFilePath = Path.of(filePath);
-        Path configurationDistFilePath = Path.of(distFilePath);
+        Path configurationFilePath = getConfigurationFile(configurationSample);
+        Path configurationDistFilePath = Path.of(configurationFilePath + ".dist");
 
         this.configuration = configurationSample.getConfiguration();
 
@@ -91,8 +93,31 @@ public class ConfigurationController {
     }
 
     /**
-     * Loads a configuration file from a specified path and parses its key-value pairs.
-     * The parsed values are then applied to the fields of corresponding configuration items.
+     * Retrieves the index of the configuration values, as read from the configuration file, or the defaults of the
+     * configuration if the file could not be read.
+     *
+     * @return The {@link ConfigSnapshot} of the configuration.
+     */
+    public ConfigSnapshot getSnapshot() {
+        if (snapshot == null) {
+            snapshot = ConfigSnapshot.of(configuration);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the path of the configuration file of a sample, next to the running jar.
+     *
+     * @param configurationSample The sample whose file name is used.
+     * @return The {@link Path} of the configuration file.
+     */
+    public static Path getConfigurationFile(ConfigurationSample configurationSample) {
+        return Path.of(Util.getJarLocation() + File.separator + configurationSample.getFileName());
+    }
+
+    /**
+     * Loads a configuration file from a specified path and parses its key-value pairs with the {@link ConfigFileParser}.
+     * The parsed values are applied to the fields of corresponding configuration items, and indexed in the snapshot.
      *
      * @param configurationFilePath The {@link Path} to the configuration file to be loaded.
      */
@@ -100,25 +125,19 @@ public class ConfigurationController {
 
         logger.log("Loading configuration file: " + configurationFilePath.toString());
 
-        Map<Key, Value> configurations = read(configurationFilePath);
-
-        if (configurations != null) {
+        ConfigFileParser parser;
+        try {
+            parser = ConfigFileParser.open(configurationFilePath);
+        } catch (IOException e) {
+            logger.log("An error occurred while reading the configuration file: " + e.getMessage());
+            return;
+        }
 
-            System.out.println(configurations.size() + " configurations loaded.");
+        snapshot = parser.parse(configuration != null ? configuration : new Configuration());
+        System.out.println(parser.getValueCount() + " configurations loaded.");
 
-            if (configuration != null) {
-                configurations.forEach( (key, value) -> {
-                    Item item = configuration.get(key);
-                    if (item != null) {
-                        List<Field> fields = List.of(item.fields());
-                        fields.forEach(field -> {
-                            if (field instanceof Value) {
-                                ((Value) field).setValue(value.getValue());
-                            }
-                        });
-                    }
-                });
-            }
+        if (parser.getErrorCount() > 0) {
+            logger.warn("{} malformed line(s) in {} were skipped.", parser.getErrorCount(), configurationFilePath.getFileName());
         }
 
     }
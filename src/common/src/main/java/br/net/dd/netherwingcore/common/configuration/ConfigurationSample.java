@@ -54,4 +54,13 @@ public abstract class ConfigurationSample {
         this.configuration = configuration;
     }
 
+    /**
+     * Creates a new configuration holding the default values, which the values of the configuration file are then
+     * applied to. Called again when the configuration is reloaded, so that keys removed from the file return to their
+     * defaults; every call must therefore build a new instance rather than return the current one.
+     *
+     * @return a new {@link Configuration} instance with the default values.
+     */
+    public abstract Configuration createSample();
+
 }
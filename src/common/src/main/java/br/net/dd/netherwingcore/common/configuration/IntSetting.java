@@ -0,0 +1,30 @@
+package br.net.dd.netherwingcore.common.configuration;
+
+/**
+ * A {@link Setting} holding a numeric value as an int.
+ */
+public final class IntSetting extends Setting {
+
+    private final int defaultValue;
+    private volatile int value;
+
+    IntSetting(String key, int defaultValue) {
+        super(key);
+        this.defaultValue = defaultValue;
+        this.value = defaultValue;
+    }
+
+    @Override
+    void resolve(ConfigSnapshot snapshot) {
+        value = snapshot.getInt(getKey(), defaultValue);
+    }
+
+    /**
+     * Returns the current value.
+     *
+     * @return the configured value, or the default
+     */
+    public int get() {
+        return value;
+    }
+}
@@ -0,0 +1,30 @@
+package br.net.dd.netherwingcore.common.configuration;
+
+/**
+ * A {@link Setting} holding a numeric value as a long.
+ */
+public final class LongSetting extends Setting {
+
+    private final long defaultValue;
+    private volatile long value;
+
+    LongSetting(String key, long defaultValue) {
+        super(key);
+        this.defaultValue = defaultValue;
+        this.value = defaultValue;
+    }
+
+    @Override
+    void resolve(ConfigSnapshot snapshot) {
+        value = snapshot.getLong(getKey(), defaultValue);
+    }
+
+    /**
+     * Returns the current value.
+     *
+     * @return the configured value, or the default
+     */
+    public long get() {
+        return value;
+    }
+}
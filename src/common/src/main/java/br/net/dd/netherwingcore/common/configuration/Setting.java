@@ -0,0 +1,38 @@
+package br.net.dd.netherwingcore.common.configuration;
+
+/**
+ * A handle on a single configuration value, created through {@link Config} and meant to be kept in a static final
+ * field.
+ *
+ * <p>The value is resolved when the configuration is loaded, and again whenever it is replaced, so reading it is a
+ * single volatile read with no lookup or parsing. Until the configuration is loaded a handle returns its default.</p>
+ */
+public abstract class Setting {
+
+    private final String key;
+
+    /**
+     * Constructs a handle on a key.
+     *
+     * @param key the configuration key
+     */
+    Setting(String key) {
+        this.key = key;
+    }
+
+    /**
+     * Returns the configuration key of this handle.
+     *
+     * @return the key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Reads the value of the key from a new snapshot.
+     *
+     * @param snapshot the snapshot now in use
+     */
+    abstract void resolve(ConfigSnapshot snapshot);
+}
@@ -0,0 +1,30 @@
+package br.net.dd.netherwingcore.common.configuration;
+
+/**
+ * A {@link Setting} holding a text value, without the quotes it may have in the configuration file.
+ */
+public final class TextSetting extends Setting {
+
+    private final String defaultValue;
+    private volatile String value;
+
+    TextSetting(String key, String defaultValue) {
+        super(key);
+        this.defaultValue = defaultValue;
+        this.value = defaultValue;
+    }
+
+    @Override
+    void resolve(ConfigSnapshot snapshot) {
+        value = snapshot.getText(getKey(), defaultValue);
+    }
+
+    /**
+     * Returns the current value.
+     *
+     * @return the configured value, or the default
+     */
+    public String get() {
+        return value;
+    }
+}
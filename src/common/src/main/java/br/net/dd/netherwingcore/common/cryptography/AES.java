@@ -6,6 +6,7 @@ import javax.crypto.*;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
@@ -18,11 +19,24 @@ import java.util.Arrays;
  *
  * <p>
  * Features:
- * - Supports AES-128 encryption mode.
+ * - Supports AES-128, AES-192 and AES-256 keys.
  * - Provides wrappers for key, IV, and tag with automatic validation.
  * - Handles encryption and decryption integrity checks.
  * - Includes optional processing without integrity verification (uses AES/CTR mode).
  * </p>
+ *
+ * <p>
+ * Packets are processed in place with {@link #process(byte[], ByteBuffer, byte[])}, which takes the IV and tag as
+ * plain arrays the caller reuses and never copies the data, so the only allocations left per packet are the ones the
+ * JCE makes to start a new GCM operation.
+ * </p>
+ *
+ * <p>
+ * GCM, CTR and the single-block cipher used for header peeks are separate instances created once per object, so a
+ * peek never disturbs the GCM state {@link #process(byte[], ByteBuffer, byte[])} relies on.
+ * {@link #peekDecrypt(byte[], byte[], int, int)} decrypts only the few bytes of a packet header by generating the
+ * GCM keystream for them directly, with no cipher re-initialization and no allocation.
+ * </p>
  */
 public class AES {
 
@@ -32,14 +46,20 @@ public class AES {
     public static final int KEY_SIZE_BYTES = 16;
     public static final int TAG_SIZE_BYTES = 12;
 
+    private static final int BLOCK_SIZE_BYTES = 16;
+
+    // GCM encrypts the first block of data with counter 2, counter 1 being reserved for the tag
+    private static final int GCM_FIRST_DATA_COUNTER = 2;
+
     /**
      * Represents an AES key encapsulating its byte data and validation logic.
-     * Ensures the key length conforms to {@link AES#KEY_SIZE_BYTES}.
+     * Ensures the key length is one of the AES key sizes, {@link AES#KEY_SIZE_BYTES} for AES-128 up to 32 bytes for
+     * AES-256.
      */
     public record Key(byte[] data) {
         public Key(byte[] data) {
-            if (data.length != KEY_SIZE_BYTES) {
-                throw new IllegalArgumentException("Key must be " + KEY_SIZE_BYTES + " bytes long");
+            if (data.length != KEY_SIZE_BYTES && data.length != 24 && data.length != 32) {
+                throw new IllegalArgumentException("Key must be " + KEY_SIZE_BYTES + ", 24 or 32 bytes long");
             }
             this.data = data.clone();
         }
@@ -89,7 +109,7 @@ public class AES {
     public record Tag(byte[] data) {
         public Tag(byte[] data) {
             if (data.length != TAG_SIZE_BYTES) {
-                throw new IllegalArgumentException("IV must be " + TAG_SIZE_BYTES + " bytes long");
+                throw new IllegalArgumentException("Tag must be " + TAG_SIZE_BYTES + " bytes long");
             }
             this.data = data.clone();
         }
@@ -108,9 +128,19 @@ public class AES {
     }
 
     private final boolean encrypting;
+    private int keySizeBytes;
     private Cipher cipher;
+    private Cipher ctrCipher;
+    private Cipher blockCipher;
     private SecretKey secretKey;
 
+    // Scratch space reused by every packet: the end of a ciphertext with its tag
+    private byte[] finalBlock = new byte[BLOCK_SIZE_BYTES + TAG_SIZE_BYTES];
+
+    // Scratch space for header peeks: the counter block and the keystream generated from it
+    private final byte[] counterBlock = new byte[BLOCK_SIZE_BYTES];
+    private final byte[] keystream = new byte[BLOCK_SIZE_BYTES];
+
     /**
      * Constructs an AES instance for encryption or decryption.
      *
@@ -143,9 +173,12 @@ public class AES {
         if (keySizeBits != 128 && keySizeBits != 192 && keySizeBits != 256) {
             throw new IllegalArgumentException("Invalid AES key size: " + keySizeBits);
         }
+        this.keySizeBytes = keySizeBits / 8;
 
         try {
             this.cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            this.ctrCipher = Cipher.getInstance("AES/CTR/NoPadding");
+            this.blockCipher = Cipher.getInstance("AES/ECB/NoPadding");
 
         } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
             throw new RuntimeException(e);
@@ -156,13 +189,20 @@ public class AES {
      * Initializes the AES instance with the specified key.
      *
      * @param key the AES key as a byte array.
-     * @throws IllegalArgumentException if the key length is not {@link AES#KEY_SIZE_BYTES}.
+     * @throws IllegalArgumentException if the key length does not match the key size of this instance.
      */
     public void init(byte[] key) {
-        if (key.length != KEY_SIZE_BYTES) {
-            throw new IllegalArgumentException("Key must be " + KEY_SIZE_BYTES + " bytes");
+        if (key.length != keySizeBytes) {
+            throw new IllegalArgumentException("Key must be " + keySizeBytes + " bytes");
+        }
+        this.secretKey = new SecretKeySpec(key, "AES");
+
+        try {
+            // The block cipher only ever encrypts counter blocks, so it is keyed once here and reused by every peek
+            this.blockCipher.init(Cipher.ENCRYPT_MODE, this.secretKey);
+        } catch (InvalidKeyException e) {
+            throw new IllegalArgumentException(e);
         }
-        this.init(new Key(key));
     }
 
     /**
@@ -171,62 +211,107 @@ public class AES {
      * @param key the AES key encapsulated in a {@link Key} object.
      */
     public void init(Key key) {
-        this.secretKey = new SecretKeySpec(key.data(), "AES");
+        this.init(key.data());
     }
 
     /**
      * Processes encryption or decryption for AES using the specified IV and Tag.
      *
      * @param iv the initialization vector used for AES GCM mode.
-     * @param data the input data for encryption or decryption.
+     * @param data the input data for encryption or decryption, replaced by the output.
      * @param length the length of the data to process.
      * @param tag the output tag (for encryption) or input tag (for decryption).
      * @return true if the operation succeeds, false otherwise.
      */
     public boolean process(IV iv, byte[] data, int length, Tag tag) {
+        return process(iv.data, ByteBuffer.wrap(data, 0, length), tag.data);
+    }
+
+    /**
+     * Encrypts or decrypts in place the bytes of a buffer between its position and limit, using AES GCM.
+     *
+     * <p>Only the remaining bytes are read or written; the bytes of the backing array outside them are never touched,
+     * even temporarily, so other packets sharing the array are safe.</p>
+     *
+     * @param iv the initialization vector, {@link AES#IV_SIZE_BYTES} long, which the caller may reuse once this
+     *           method returns.
+     * @param data a heap buffer whose remaining bytes are replaced by the output; its position and limit are left
+     *             as is.
+     * @param tag receives the tag (for encryption) or holds the expected tag (for decryption),
+     *            {@link AES#TAG_SIZE_BYTES} long.
+     * @return true if the operation succeeds, false otherwise, including when the tag does not match.
+     */
+    public boolean process(byte[] iv, ByteBuffer data, byte[] tag) {
         try {
-            if (iv.data.length != IV_SIZE_BYTES) {
-                logger.log("AES process error: The IV should be size "+ IV_SIZE_BYTES +", but it's size "+ iv.data.length +".");
+            if (iv.length != IV_SIZE_BYTES) {
+                logger.log("AES process error: The IV should be size "+ IV_SIZE_BYTES +", but it's size "+ iv.length +".");
+                return false;
+            }
+            if (tag.length != TAG_SIZE_BYTES) {
+                logger.log("AES process error: The TAG should be size "+ TAG_SIZE_BYTES +", but it's size "+ tag.length +".");
                 return false;
             }
-            if (tag.data.length != TAG_SIZE_BYTES) {
-                logger.log("AES process error: The TAG should be size "+ TAG_SIZE_BYTES +", but it's size "+ tag.data.length +".");
+            if (!data.hasArray()) {
+                logger.log("AES process error: The data should be in a heap buffer.");
                 return false;
             }
 
-            GCMParameterSpec gcmSpec = new GCMParameterSpec(TAG_SIZE_BYTES * 8, iv.data);
+            byte[] array = data.array();
+            int offset = data.arrayOffset() + data.position();
+            int length = data.remaining();
+
+            // The JCE needs a new parameter spec for every GCM operation
+            GCMParameterSpec gcmSpec = new GCMParameterSpec(TAG_SIZE_BYTES * 8, iv);
             if (this.encrypting) {
                 this.cipher.init(Cipher.ENCRYPT_MODE, this.secretKey, gcmSpec);
+                encrypt(array, offset, length, tag);
             } else {
                 this.cipher.init(Cipher.DECRYPT_MODE, this.secretKey, gcmSpec);
-            }
-
-            byte[] output = this.cipher.doFinal(Arrays.copyOf(data, length));
-
-            if(this.encrypting) {
-                // Extract the tag from the last TAG_SIZE_BYTES
-                System.arraycopy(output, output.length - TAG_SIZE_BYTES, tag.data, 0, TAG_SIZE_BYTES);
-                // Copy the ciphertext back to data
-                byte[] ciphertext = Arrays.copyOf(output, output.length - TAG_SIZE_BYTES);
-                System.arraycopy(ciphertext, 0, data, 0, ciphertext.length);
-            } else {
-                // In the decryption, 'data' must contain ciphertext+tag
-                // The result is plaintext
-                System.arraycopy(output, 0, data, 0, output.length);
+                decrypt(array, offset, length, tag);
             }
 
             return true;
 
         } catch (IllegalBlockSizeException | BadPaddingException | InvalidKeyException |
-                 InvalidAlgorithmParameterException e) {
+                 InvalidAlgorithmParameterException | ShortBufferException e) {
             logger.log("AES process error: " + e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Encrypts whole blocks in place, then takes the rest of the ciphertext and the tag from the final block.
+     */
+    private void encrypt(byte[] array, int offset, int length, byte[] tag)
+            throws ShortBufferException, IllegalBlockSizeException, BadPaddingException {
+        int written = this.cipher.update(array, offset, length, array, offset);
+
+        int finalSize = this.cipher.getOutputSize(0);
+        if (finalSize > finalBlock.length) {
+            finalBlock = new byte[finalSize];
+        }
+        int last = this.cipher.doFinal(finalBlock, 0) - TAG_SIZE_BYTES;
+
+        System.arraycopy(finalBlock, 0, array, offset + written, last);
+        System.arraycopy(finalBlock, last, tag, 0, TAG_SIZE_BYTES);
+    }
+
+    /**
+     * Decrypts in place, then checks the tag. The bytes after the ciphertext are never touched, since they belong to
+     * the caller.
+     */
+    private void decrypt(byte[] array, int offset, int length, byte[] tag)
+            throws ShortBufferException, IllegalBlockSizeException, BadPaddingException {
+        int written = this.cipher.update(array, offset, length, array, offset);
+        this.cipher.doFinal(tag, 0, TAG_SIZE_BYTES, array, offset + written);
+    }
+
     /**
      * Processes decryption without integrity checks using AES CTR (Counter Mode).
      *
+     * <p>The counter starts where GCM starts encrypting data, so the output matches what {@link #process} would
+     * produce for the same IV. The data is decrypted in place.</p>
+     *
      * <p>Note: This mode does not provide data authenticity or integrity validation.</p>
      *
      * @param iv the initialization vector for AES CTR mode.
@@ -250,26 +335,78 @@ public class AES {
             }
 
             // We use AES/CTR/NoPadding to simulate "no integrity"
-            this.cipher = Cipher.getInstance("AES/CTR/NoPadding");
-            IvParameterSpec ivSpec = new IvParameterSpec(iv.data);
-            this.cipher.init(Cipher.DECRYPT_MODE, this.secretKey, ivSpec);
-
-            byte[] input = Arrays.copyOf(data, partialLength);
-            byte[] result = this.cipher.doFinal(input);
-
-            // Copy the result back to the original buffer.
-            System.arraycopy(result, 0, data, 0, result.length);
+            writeCounterBlock(iv.data, GCM_FIRST_DATA_COUNTER);
+            this.ctrCipher.init(Cipher.DECRYPT_MODE, this.secretKey, new IvParameterSpec(counterBlock));
+            this.ctrCipher.doFinal(data, 0, partialLength, data, 0);
 
             return true;
 
-        } catch (NoSuchPaddingException | NoSuchAlgorithmException | InvalidAlgorithmParameterException |
-                 InvalidKeyException | IllegalBlockSizeException | BadPaddingException e) {
+        } catch (InvalidAlgorithmParameterException | InvalidKeyException | IllegalBlockSizeException |
+                 BadPaddingException | ShortBufferException e) {
             logger.log("AES processNoIntegrityCheck error: " + e.getMessage());
             return  false;
         }
     }
 
-}
+    /**
+     * Decrypts in place the first bytes of a GCM ciphertext without checking its integrity, to read a packet header
+     * before the whole packet is available.
+     *
+     * <p>The keystream is generated block by block from the counter GCM uses for the data, so only the blocks covering
+     * the requested bytes are computed. Headers fit in a single block.</p>
+     *
+     * <p>Note: This mode does not provide data authenticity or integrity validation.</p>
+     *
+     * @param iv the initialization vector of the packet, {@link AES#IV_SIZE_BYTES} long, which the caller may reuse
+     *           once this method returns.
+     * @param data the array holding the ciphertext.
+     * @param offset the offset of the first byte of the ciphertext.
+     * @param length the number of bytes to decrypt.
+     * @return true if the operation is successful, false otherwise.
+     */
+    public boolean peekDecrypt(byte[] iv, byte[] data, int offset, int length) {
+        if (encrypting) {
+            logger.log("AES peekDecrypt error: Integrity check is required when encrypting.");
+            return false;
+        }
+        if (iv.length != IV_SIZE_BYTES) {
+            logger.log("AES peekDecrypt error: The IV should be size "+ IV_SIZE_BYTES +", but it's size "+ iv.length +".");
+            return false;
+        }
+        if (offset < 0 || length < 0 || length > data.length - offset) {
+            logger.log("AES peekDecrypt error: The range exceeds data length.");
+            return false;
+        }
+
+        try {
+            int counter = GCM_FIRST_DATA_COUNTER;
+            for (int done = 0; done < length; done += BLOCK_SIZE_BYTES, counter++) {
+                writeCounterBlock(iv, counter);
+                this.blockCipher.update(counterBlock, 0, BLOCK_SIZE_BYTES, keystream, 0);
+
+                int n = Math.min(BLOCK_SIZE_BYTES, length - done);
+                for (int i = 0; i < n; i++) {
+                    data[offset + done + i] ^= keystream[i];
+                }
+            }
+            return true;
 
+        } catch (ShortBufferException | IllegalStateException e) {
+            logger.log("AES peekDecrypt error: " + e.getMessage());
+            return false;
+        }
+    }
 
+    /**
+     * Writes into the counter block scratch array the IV followed by a 32-bit big-endian block counter, as GCM does
+     * for 96-bit IVs.
+     */
+    private void writeCounterBlock(byte[] iv, int counter) {
+        System.arraycopy(iv, 0, counterBlock, 0, IV_SIZE_BYTES);
+        counterBlock[12] = (byte) (counter >>> 24);
+        counterBlock[13] = (byte) (counter >>> 16);
+        counterBlock[14] = (byte) (counter >>> 8);
+        counterBlock[15] = (byte) counter;
+    }
 
+}
@@ -0,0 +1,415 @@
+package br.net.dd.netherwingcore.common.cryptography;
+
+import java.util.Arrays;
+
+/**
+ * Argon2 (RFC 9106) computed over a memory area that is kept between hashes.
+ *
+ * <p>password4j allocates the whole memory of an Argon2 hash (128 MiB with the {@link Argon2Hash} defaults) for every
+ * call and leaves it to the garbage collector. An engine instead owns one block array, grown to the largest hash it
+ * has computed, and every later hash reuses it. Blocks need no clearing between hashes: the first pass writes each
+ * block before anything reads it. Lanes are filled one after the other, which gives the same result as filling them
+ * concurrently.</p>
+ *
+ * <p>Instances are not thread-safe; {@link Argon2VerifyService} gives each of its workers its own engine.</p>
+ */
+final class Argon2Engine {
+
+    /**
+     * The Argon2 variants, with the identifier used in the hash input and the name used in encoded hashes.
+     */
+    enum Type {
+        D(0, "argon2d"),
+        I(1, "argon2i"),
+        ID(2, "argon2id");
+
+        private final int id;
+        private final String encodedName;
+
+        Type(int id, String encodedName) {
+            this.id = id;
+            this.encodedName = encodedName;
+        }
+
+        String encodedName() {
+            return encodedName;
+        }
+
+        static Type fromEncodedName(String name) {
+            for (Type type : values()) {
+                if (type.encodedName.equals(name)) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+    static final int VERSION_10 = 0x10;
+    static final int VERSION_13 = 0x13;
+
+    private static final int BLOCK_BYTES = 1024;
+    private static final int QWORDS_IN_BLOCK = BLOCK_BYTES / Long.BYTES;
+    private static final int SYNC_POINTS = 4;
+    private static final int PREHASH_DIGEST_BYTES = 64;
+    private static final long LOW_32 = 0xFFFFFFFFL;
+    private static final byte[] EMPTY = new byte[0];
+
+    // Indices of the eight row and eight column rounds of the compression function
+    private static final int[][] ROUNDS = new int[16][];
+
+    static {
+        for (int i = 0; i < 8; i++) {
+            int[] row = new int[16];
+            int[] column = new int[16];
+            for (int j = 0; j < 16; j++) {
+                row[j] = 16 * i + j;
+                column[j] = 2 * i + (j & 1) + 16 * (j >>> 1);
+            }
+            ROUNDS[i] = row;
+            ROUNDS[8 + i] = column;
+        }
+    }
+
+    private final Blake2b blake2b = new Blake2b();
+
+    private long[] memory = new long[0];
+
+    // Scratch blocks of the compression function and of data-independent addressing
+    private final long[] blockR = new long[QWORDS_IN_BLOCK];
+    private final long[] blockTmp = new long[QWORDS_IN_BLOCK];
+    private final long[] zeroBlock = new long[QWORDS_IN_BLOCK];
+    private final long[] inputBlock = new long[QWORDS_IN_BLOCK];
+    private final long[] addressBlock = new long[QWORDS_IN_BLOCK];
+
+    // Scratch bytes: the pre-hash digest followed by two block indices, the final block, and H' chaining values
+    private final byte[] prehash = new byte[PREHASH_DIGEST_BYTES + 2 * Integer.BYTES];
+    private final byte[] blockBytes = new byte[BLOCK_BYTES];
+    private final byte[] chain = new byte[Blake2b.MAX_OUTPUT_BYTES];
+
+    // Parameters of the hash being computed
+    private int lanes;
+    private int laneLength;
+    private int segmentLength;
+    private int memoryBlocks;
+    private int passes;
+    private Type type;
+    private int version;
+
+    /**
+     * Frees the memory kept from the previous hash. The next hash allocates it again.
+     */
+    void release() {
+        memory = new long[0];
+    }
+
+    /**
+     * Returns the number of memory blocks, each 1 KiB, a hash with the given cost actually uses.
+     *
+     * @param memoryKiB the requested memory cost in KiB.
+     * @param lanes     the number of lanes.
+     * @return the number of blocks.
+     */
+    static long blocksFor(int memoryKiB, int lanes) {
+        long blocks = Math.max(memoryKiB, 2L * SYNC_POINTS * lanes);
+        return blocks / (SYNC_POINTS * (long) lanes) * SYNC_POINTS * lanes;
+    }
+
+    /**
+     * Computes an Argon2 hash without secret or associated data.
+     *
+     * @param type       the Argon2 variant.
+     * @param version    {@link #VERSION_10} or {@link #VERSION_13}.
+     * @param memoryKiB  the memory cost in KiB.
+     * @param iterations the number of passes over the memory.
+     * @param lanes      the degree of parallelism.
+     * @param password   the password bytes.
+     * @param salt       the salt bytes.
+     * @param out        receives the hash; its length is the hash length.
+     */
+    void hash(Type type, int version, int memoryKiB, int iterations, int lanes,
+              byte[] password, byte[] salt, byte[] out) {
+        hash(type, version, memoryKiB, iterations, lanes, password, salt, EMPTY, EMPTY, out);
+    }
+
+    /**
+     * Computes an Argon2 hash.
+     *
+     * @param type           the Argon2 variant.
+     * @param version        {@link #VERSION_10} or {@link #VERSION_13}.
+     * @param memoryKiB      the memory cost in KiB.
+     * @param iterations     the number of passes over the memory.
+     * @param lanes          the degree of parallelism.
+     * @param password       the password bytes.
+     * @param salt           the salt bytes.
+     * @param secret         the secret key bytes, possibly empty.
+     * @param associatedData the associated data bytes, possibly empty.
+     * @param out            receives the hash; its length is the hash length.
+     */
+    void hash(Type type, int version, int memoryKiB, int iterations, int lanes,
+              byte[] password, byte[] salt, byte[] secret, byte[] associatedData, byte[] out) {
+        if (lanes < 1 || iterations < 1 || out.length < 4 || (version != VERSION_10 && version != VERSION_13)) {
+            throw new IllegalArgumentException("Invalid Argon2 parameters");
+        }
+
+        long blocks = blocksFor(memoryKiB, lanes);
+        if (blocks * QWORDS_IN_BLOCK > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Argon2 memory cost too large: " + memoryKiB + " KiB");
+        }
+
+        this.type = type;
+        this.version = version;
+        this.lanes = lanes;
+        this.passes = iterations;
+        this.memoryBlocks = (int) blocks;
+        this.segmentLength = memoryBlocks / (lanes * SYNC_POINTS);
+        this.laneLength = segmentLength * SYNC_POINTS;
+
+        if (memory.length < memoryBlocks * QWORDS_IN_BLOCK) {
+            memory = new long[memoryBlocks * QWORDS_IN_BLOCK];
+        }
+
+        blake2b.init(PREHASH_DIGEST_BYTES)
+                .updateInt(lanes)
+                .updateInt(out.length)
+                .updateInt(memoryKiB)
+                .updateInt(iterations)
+                .updateInt(version)
+                .updateInt(type.id)
+                .updateInt(password.length).update(password)
+                .updateInt(salt.length).update(salt)
+                .updateInt(secret.length).update(secret)
+                .updateInt(associatedData.length).update(associatedData)
+                .doFinal(prehash, 0);
+
+        fillFirstBlocks();
+
+        for (int pass = 0; pass < passes; pass++) {
+            for (int slice = 0; slice < SYNC_POINTS; slice++) {
+                for (int lane = 0; lane < lanes; lane++) {
+                    fillSegment(pass, lane, slice);
+                }
+            }
+        }
+
+        finish(out);
+    }
+
+    /**
+     * Computes the first two blocks of every lane from the pre-hash digest.
+     */
+    private void fillFirstBlocks() {
+        for (int lane = 0; lane < lanes; lane++) {
+            writeIntLE(prehash, PREHASH_DIGEST_BYTES + Integer.BYTES, lane);
+            for (int block = 0; block < 2; block++) {
+                writeIntLE(prehash, PREHASH_DIGEST_BYTES, block);
+                hashLong(blockBytes, BLOCK_BYTES, prehash, prehash.length);
+                int offset = (lane * laneLength + block) * QWORDS_IN_BLOCK;
+                for (int i = 0; i < QWORDS_IN_BLOCK; i++) {
+                    memory[offset + i] = Blake2b.readLong(blockBytes, i * Long.BYTES);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills one segment of one lane, following the reference implementation's fill_segment.
+     */
+    private void fillSegment(int pass, int lane, int slice) {
+        boolean dataIndependent = type == Type.I
+                || (type == Type.ID && pass == 0 && slice < SYNC_POINTS / 2);
+
+        if (dataIndependent) {
+            Arrays.fill(inputBlock, 0);
+            inputBlock[0] = pass;
+            inputBlock[1] = lane;
+            inputBlock[2] = slice;
+            inputBlock[3] = memoryBlocks;
+            inputBlock[4] = passes;
+            inputBlock[5] = type.id;
+        }
+
+        int startingIndex = 0;
+        if (pass == 0 && slice == 0) {
+            startingIndex = 2;
+            if (dataIndependent) {
+                nextAddresses();
+            }
+        }
+
+        int currentOffset = lane * laneLength + slice * segmentLength + startingIndex;
+        int previousOffset = currentOffset % laneLength == 0 ? currentOffset + laneLength - 1 : currentOffset - 1;
+
+        for (int i = startingIndex; i < segmentLength; i++, currentOffset++, previousOffset++) {
+            if (currentOffset % laneLength == 1) {
+                previousOffset = currentOffset - 1;
+            }
+
+            long pseudoRandom;
+            if (dataIndependent) {
+                if (i % QWORDS_IN_BLOCK == 0) {
+                    nextAddresses();
+                }
+                pseudoRandom = addressBlock[i % QWORDS_IN_BLOCK];
+            } else {
+                pseudoRandom = memory[previousOffset * QWORDS_IN_BLOCK];
+            }
+
+            int referenceLane = (int) ((pseudoRandom >>> 32) % lanes);
+            if (pass == 0 && slice == 0) {
+                referenceLane = lane;
+            }
+            int referenceIndex = indexAlpha(pass, slice, i, pseudoRandom & LOW_32, referenceLane == lane);
+
+            boolean withXor = version != VERSION_10 && pass != 0;
+            fillBlock(memory, previousOffset * QWORDS_IN_BLOCK,
+                    memory, (laneLength * referenceLane + referenceIndex) * QWORDS_IN_BLOCK,
+                    memory, currentOffset * QWORDS_IN_BLOCK, withXor);
+        }
+    }
+
+    /**
+     * Maps a pseudo-random value to the index, within its lane, of the block to reference.
+     */
+    private int indexAlpha(int pass, int slice, int index, long pseudoRandom, boolean sameLane) {
+        long referenceAreaSize;
+        if (pass == 0) {
+            if (slice == 0) {
+                referenceAreaSize = index - 1;
+            } else if (sameLane) {
+                referenceAreaSize = (long) slice * segmentLength + index - 1;
+            } else {
+                referenceAreaSize = (long) slice * segmentLength + (index == 0 ? -1 : 0);
+            }
+        } else {
+            if (sameLane) {
+                referenceAreaSize = laneLength - segmentLength + index - 1;
+            } else {
+                referenceAreaSize = laneLength - segmentLength + (index == 0 ? -1 : 0);
+            }
+        }
+
+        long relativePosition = (pseudoRandom * pseudoRandom) >>> 32;
+        relativePosition = referenceAreaSize - 1 - ((referenceAreaSize * relativePosition) >>> 32);
+
+        long startPosition = 0;
+        if (pass != 0) {
+            startPosition = slice == SYNC_POINTS - 1 ? 0 : (long) (slice + 1) * segmentLength;
+        }
+
+        return (int) ((startPosition + relativePosition) % laneLength);
+    }
+
+    /**
+     * Generates the next block of reference addresses for data-independent addressing.
+     */
+    private void nextAddresses() {
+        inputBlock[6]++;
+        fillBlock(zeroBlock, 0, inputBlock, 0, addressBlock, 0, false);
+        fillBlock(zeroBlock, 0, addressBlock, 0, addressBlock, 0, false);
+    }
+
+    /**
+     * The Argon2 compression function: next = G(previous, reference), XORed into next's old value when requested.
+     */
+    private void fillBlock(long[] previous, int previousOffset, long[] reference, int referenceOffset,
+                           long[] next, int nextOffset, boolean withXor) {
+        for (int i = 0; i < QWORDS_IN_BLOCK; i++) {
+            long r = reference[referenceOffset + i] ^ previous[previousOffset + i];
+            blockR[i] = r;
+            blockTmp[i] = withXor ? r ^ next[nextOffset + i] : r;
+        }
+
+        for (int[] round : ROUNDS) {
+            mix(round[0], round[4], round[8], round[12]);
+            mix(round[1], round[5], round[9], round[13]);
+            mix(round[2], round[6], round[10], round[14]);
+            mix(round[3], round[7], round[11], round[15]);
+            mix(round[0], round[5], round[10], round[15]);
+            mix(round[1], round[6], round[11], round[12]);
+            mix(round[2], round[7], round[8], round[13]);
+            mix(round[3], round[4], round[9], round[14]);
+        }
+
+        for (int i = 0; i < QWORDS_IN_BLOCK; i++) {
+            next[nextOffset + i] = blockTmp[i] ^ blockR[i];
+        }
+    }
+
+    /**
+     * The BLAKE2b mixing function with the multiplications Argon2 adds to it.
+     */
+    private void mix(int a, int b, int c, int d) {
+        long va = blockR[a];
+        long vb = blockR[b];
+        long vc = blockR[c];
+        long vd = blockR[d];
+
+        va = blaMka(va, vb);
+        vd = Long.rotateRight(vd ^ va, 32);
+        vc = blaMka(vc, vd);
+        vb = Long.rotateRight(vb ^ vc, 24);
+        va = blaMka(va, vb);
+        vd = Long.rotateRight(vd ^ va, 16);
+        vc = blaMka(vc, vd);
+        vb = Long.rotateRight(vb ^ vc, 63);
+
+        blockR[a] = va;
+        blockR[b] = vb;
+        blockR[c] = vc;
+        blockR[d] = vd;
+    }
+
+    private static long blaMka(long x, long y) {
+        return x + y + 2 * (x & LOW_32) * (y & LOW_32);
+    }
+
+    /**
+     * XORs the last block of every lane together and hashes the result into the output.
+     */
+    private void finish(byte[] out) {
+        int lastOffset = (laneLength - 1) * QWORDS_IN_BLOCK;
+        System.arraycopy(memory, lastOffset, blockTmp, 0, QWORDS_IN_BLOCK);
+        for (int lane = 1; lane < lanes; lane++) {
+            int offset = lastOffset + lane * laneLength * QWORDS_IN_BLOCK;
+            for (int i = 0; i < QWORDS_IN_BLOCK; i++) {
+                blockTmp[i] ^= memory[offset + i];
+            }
+        }
+        for (int i = 0; i < QWORDS_IN_BLOCK; i++) {
+            Blake2b.writeLong(blockBytes, i * Long.BYTES, blockTmp[i]);
+        }
+        hashLong(out, out.length, blockBytes, BLOCK_BYTES);
+    }
+
+    /**
+     * The variable-length hash function H' of Argon2, writing {@code outLength} bytes at the start of {@code out}.
+     */
+    private void hashLong(byte[] out, int outLength, byte[] in, int inLength) {
+        if (outLength <= Blake2b.MAX_OUTPUT_BYTES) {
+            blake2b.init(outLength).updateInt(outLength).update(in, 0, inLength).doFinal(out, 0);
+            return;
+        }
+
+        int half = Blake2b.MAX_OUTPUT_BYTES / 2;
+        blake2b.init(Blake2b.MAX_OUTPUT_BYTES).updateInt(outLength).update(in, 0, inLength).doFinal(chain, 0);
+        System.arraycopy(chain, 0, out, 0, half);
+        int position = half;
+        int remaining = outLength - half;
+
+        while (remaining > Blake2b.MAX_OUTPUT_BYTES) {
+            blake2b.init(Blake2b.MAX_OUTPUT_BYTES).update(chain, 0, Blake2b.MAX_OUTPUT_BYTES).doFinal(chain, 0);
+            System.arraycopy(chain, 0, out, position, half);
+            position += half;
+            remaining -= half;
+        }
+        blake2b.init(remaining).update(chain, 0, Blake2b.MAX_OUTPUT_BYTES).doFinal(out, position);
+    }
+
+    private static void writeIntLE(byte[] b, int offset, int value) {
+        b[offset] = (byte) value;
+        b[offset + 1] = (byte) (value >>> 8);
+        b[offset + 2] = (byte) (value >>> 16);
+        b[offset + 3] = (byte) (value >>> 24);
+    }
+}
@@ -9,6 +9,9 @@ import java.util.Optional;
 
 /**
  * Utility class for hashing and verifying passwords using the Argon2 algorithm.
+ *
+ * <p>Every call allocates the full memory cost of the hash on the calling thread. Servers handling many logins at
+ * once should go through {@link Argon2VerifyService}, which bounds the threads and memory used.</p>
  */
 public final class Argon2Hash
 {
@@ -0,0 +1,376 @@
+package br.net.dd.netherwingcore.common.cryptography;
+
+import br.net.dd.netherwingcore.common.configuration.Config;
+import br.net.dd.netherwingcore.common.logging.Log;
+import br.net.dd.netherwingcore.common.metric.Counter;
+import br.net.dd.netherwingcore.common.metric.Histogram;
+import br.net.dd.netherwingcore.common.metric.Metric;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Hashes and verifies Argon2 passwords on a bounded pool of worker threads, so a wave of logins cannot exhaust the
+ * heap or take over the threads that serve requests.
+ *
+ * <p>Each worker owns an {@link Argon2Engine} whose block memory is reused from one hash to the next. The number of
+ * workers is the smaller of {@code Argon2.Threads} (the number of processors when 0) and the number of
+ * {@link Argon2Hash#DEFAULT_MEMORY_COST} sized areas that fit in {@code Argon2.MemoryPercent} percent of the maximum
+ * heap, so the memory held by the service never exceeds that budget. A hash whose memory cost does not fit in the
+ * share of one worker is refused rather than allocated. If the budget cannot hold even one such area, a single worker
+ * is started with the whole budget, and hashes with the default memory cost are refused.</p>
+ *
+ * <p>Requests wait in a queue of {@code Argon2.QueueSize} entries and carry a deadline: a request still queued when
+ * its deadline passes completes with a {@link TimeoutException} and is never computed, and a full queue rejects new
+ * requests with a {@link RejectedExecutionException}. New hashes use {@code Argon2.Parallelism} lanes; verification
+ * uses whatever parameters the encoded hash holds.</p>
+ */
+public final class Argon2VerifyService {
+
+    private static final Log logger = Log.getLogger(Argon2VerifyService.class.getSimpleName());
+
+    private static final Histogram VERIFY_LATENCY = Metric.histogram("argon2.verify_us");
+    private static final Histogram QUEUE_WAIT = Metric.histogram("argon2.queue_wait_us");
+    private static final Counter REJECTED = Metric.counter("argon2.rejected");
+    private static final Counter EXPIRED = Metric.counter("argon2.expired");
+
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    private static volatile Argon2VerifyService instance;
+
+    /**
+     * A queued hash or verification.
+     */
+    private record Request(String password, byte[] salt, String encodedHash, long enqueuedAt, long deadline,
+                           CompletableFuture<Object> result) {
+    }
+
+    /**
+     * The parts of an encoded hash such as {@code $argon2id$v=19$m=131072,t=10,p=1$<salt>$<hash>}.
+     */
+    private record EncodedHash(Argon2Engine.Type type, int version, int memoryKiB, int iterations, int lanes,
+                               byte[] salt, byte[] hash) {
+    }
+
+    private final BlockingQueue<Request> queue;
+    private final Thread[] workers;
+    private final int lanes;
+    private final long maxMemoryKiBPerWorker;
+    private volatile boolean running = true;
+
+    /**
+     * Creates a service and starts its workers.
+     *
+     * @param threads       the maximum number of workers, or 0 for one per processor.
+     * @param memoryPercent the share of the maximum heap, in percent, the workers may hold.
+     * @param queueSize     the maximum number of requests waiting for a worker.
+     * @param lanes         the number of lanes used for new hashes.
+     */
+    public Argon2VerifyService(int threads, int memoryPercent, int queueSize, int lanes) {
+        long budgetKiB = Runtime.getRuntime().maxMemory() / 1024 * Math.clamp(memoryPercent, 1, 100) / 100;
+        long areas = budgetKiB / Argon2Hash.DEFAULT_MEMORY_COST;
+        if (areas == 0) {
+            logger.error("Argon2.MemoryPercent leaves {} KiB, less than the {} KiB of one hash: hashes with the default"
+                    + " memory cost will be refused. Raise Argon2.MemoryPercent or the maximum heap size.",
+                    budgetKiB, Argon2Hash.DEFAULT_MEMORY_COST);
+            areas = 1;
+        }
+        int workerCount = (int) Math.min(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), areas);
+
+        this.maxMemoryKiBPerWorker = budgetKiB / workerCount;
+        this.lanes = Math.max(1, lanes);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+        this.workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = Thread.ofPlatform().name("Argon2-", i).daemon(true).start(this::work);
+        }
+
+        Metric.gauge("argon2.queue_depth", queue::size);
+        logger.debug("Argon2 service started ({} workers, {} KiB each, {} lanes)",
+                workerCount, maxMemoryKiBPerWorker, this.lanes);
+    }
+
+    /**
+     * Returns the shared service, created on first use from {@code Argon2.Threads}, {@code Argon2.MemoryPercent},
+     * {@code Argon2.QueueSize} and {@code Argon2.Parallelism}.
+     *
+     * @return the shared service.
+     */
+    public static Argon2VerifyService getInstance() {
+        Argon2VerifyService service = instance;
+        if (service == null) {
+            synchronized (Argon2VerifyService.class) {
+                service = instance;
+                if (service == null) {
+                    service = new Argon2VerifyService(
+                            Config.get("Argon2.Threads", 0),
+                            Config.get("Argon2.MemoryPercent", 25),
+                            Config.get("Argon2.QueueSize", 256),
+                            Config.get("Argon2.Parallelism", Argon2Hash.PARALLELISM));
+                    instance = service;
+                }
+            }
+        }
+        return service;
+    }
+
+    /**
+     * Verifies a password against an encoded hash, with the default deadline.
+     *
+     * @param password    The password to verify.
+     * @param encodedHash The encoded hash to compare against.
+     * @return a future completed with true if the password matches the hash, false otherwise.
+     */
+    public CompletableFuture<Boolean> verify(String password, String encodedHash) {
+        return verify(password, encodedHash, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Verifies a password against an encoded hash.
+     *
+     * @param password    The password to verify.
+     * @param encodedHash The encoded hash to compare against.
+     * @param timeout     The time after which the request is abandoned if it has not completed.
+     * @return a future completed with true if the password matches the hash, false otherwise, or completed
+     * exceptionally with a {@link TimeoutException} or {@link RejectedExecutionException}.
+     */
+    public CompletableFuture<Boolean> verify(String password, String encodedHash, Duration timeout) {
+        return submit(password, null, encodedHash, timeout).thenApply(Boolean.class::cast);
+    }
+
+    /**
+     * Hashes a password with the default iterations and memory cost and the configured number of lanes.
+     *
+     * @param password  The password to hash.
+     * @param saltBytes The salt to use for hashing.
+     * @return a future completed with the encoded hash, or an empty Optional if the parameters are invalid.
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Optional<String>> hash(String password, byte[] saltBytes) {
+        return submit(password, saltBytes.clone(), null, DEFAULT_TIMEOUT).thenApply(r -> (Optional<String>) r);
+    }
+
+    /**
+     * Queues a request, or fails it at once if the queue is full.
+     */
+    private CompletableFuture<Object> submit(String password, byte[] salt, String encodedHash, Duration timeout) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        long now = System.nanoTime();
+        Request request = new Request(password, salt, encodedHash, now, now + timeout.toNanos(), result);
+
+        if (!running || !queue.offer(request)) {
+            REJECTED.increment();
+            result.completeExceptionally(new RejectedExecutionException("Argon2 queue is full"));
+            return result;
+        }
+        return result.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * The loop of a worker thread.
+     */
+    private void work() {
+        Argon2Engine engine = new Argon2Engine();
+        while (running) {
+            Request request;
+            try {
+                request = queue.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            long start = System.nanoTime();
+            QUEUE_WAIT.record((start - request.enqueuedAt()) / 1000);
+            if (request.result().isDone()) {
+                continue;
+            }
+            if (start - request.deadline() > 0) {
+                EXPIRED.increment();
+                request.result().completeExceptionally(new TimeoutException("Argon2 request expired in queue"));
+                continue;
+            }
+
+            try {
+                if (request.encodedHash() != null) {
+                    request.result().complete(verify(engine, request.password(), request.encodedHash()));
+                    VERIFY_LATENCY.record((System.nanoTime() - start) / 1000);
+                } else {
+                    request.result().complete(hash(engine, request.password(), request.salt()));
+                }
+            } catch (RuntimeException e) {
+                logger.error("Argon2 request failed: {}", e.getMessage());
+                request.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Verifies a password on the calling worker. Hashes in a format the engine does not handle are passed to
+     * {@link Argon2Hash#verify(String, String)} if their memory cost can be read and fits, after the engine of the
+     * worker has freed its memory, since that library allocates its own.
+     */
+    private boolean verify(Argon2Engine engine, String password, String encodedHash) {
+        EncodedHash parsed = parse(encodedHash);
+        if (parsed == null) {
+            long[] cost = readCost(encodedHash);
+            if (cost == null || !fits(cost[0], cost[1])) {
+                return false;
+            }
+            engine.release();
+            return Argon2Hash.verify(password, encodedHash);
+        }
+        if (!fits(parsed.memoryKiB(), parsed.lanes())) {
+            return false;
+        }
+
+        byte[] computed = new byte[parsed.hash().length];
+        engine.hash(parsed.type(), parsed.version(), parsed.memoryKiB(), parsed.iterations(), parsed.lanes(),
+                password.getBytes(StandardCharsets.UTF_8), parsed.salt(), computed);
+        return MessageDigest.isEqual(computed, parsed.hash());
+    }
+
+    /**
+     * Hashes a password on the calling worker, in the format {@link Argon2Hash} produces.
+     */
+    private Optional<String> hash(Argon2Engine engine, String password, byte[] salt) {
+        if (!fits(Argon2Hash.DEFAULT_MEMORY_COST, lanes)) {
+            return Optional.empty();
+        }
+
+        byte[] computed = new byte[Argon2Hash.HASH_LEN];
+        engine.hash(Argon2Engine.Type.ID, Argon2Engine.VERSION_13, Argon2Hash.DEFAULT_MEMORY_COST,
+                Argon2Hash.DEFAULT_ITERATIONS, lanes, password.getBytes(StandardCharsets.UTF_8), salt, computed);
+
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        String encoded = "$" + Argon2Engine.Type.ID.encodedName() + "$v=" + Argon2Engine.VERSION_13
+                + "$m=" + Argon2Hash.DEFAULT_MEMORY_COST + ",t=" + Argon2Hash.DEFAULT_ITERATIONS + ",p=" + lanes
+                + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(computed);
+
+        if (encoded.length() >= Argon2Hash.ENCODED_HASH_LEN) {
+            return Optional.empty();
+        }
+        return Optional.of(encoded);
+    }
+
+    /**
+     * Checks that a hash fits in the memory share of one worker, so no engine ever grows past it.
+     */
+    private boolean fits(long memoryKiB, long hashLanes) {
+        if (memoryKiB < 1 || hashLanes < 1 || memoryKiB > Integer.MAX_VALUE || hashLanes > Integer.MAX_VALUE) {
+            return false;
+        }
+        long blocks = Argon2Engine.blocksFor((int) memoryKiB, (int) hashLanes);
+        if (blocks > maxMemoryKiBPerWorker) {
+            logger.warn("Argon2 hash needs {} KiB, more than the {} KiB allowed per worker",
+                    blocks, maxMemoryKiBPerWorker);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parses an encoded Argon2 hash, returning null if it is not in the PHC format. A hash without a version field is
+     * of version 1.0, as written by the first Argon2 implementations.
+     */
+    private static EncodedHash parse(String encodedHash) {
+        String[] parts = encodedHash.split("\\$");
+        boolean versioned = parts.length == 6 && parts[2].startsWith("v=");
+        if ((!versioned && parts.length != 5) || !parts[0].isEmpty()) {
+            return null;
+        }
+
+        Argon2Engine.Type type = Argon2Engine.Type.fromEncodedName(parts[1]);
+        if (type == null) {
+            return null;
+        }
+
+        try {
+            int version = versioned ? Integer.parseInt(parts[2].substring(2)) : Argon2Engine.VERSION_10;
+            int first = versioned ? 3 : 2;
+            int memoryKiB = -1;
+            int iterations = -1;
+            int hashLanes = -1;
+            for (String parameter : parts[first].split(",")) {
+                int separator = parameter.indexOf('=');
+                if (separator < 0) {
+                    return null;
+                }
+                int value = Integer.parseInt(parameter.substring(separator + 1));
+                switch (parameter.substring(0, separator)) {
+                    case "m" -> memoryKiB = value;
+                    case "t" -> iterations = value;
+                    case "p" -> hashLanes = value;
+                    default -> {
+                        return null;
+                    }
+                }
+            }
+            if (memoryKiB < 1 || iterations < 1 || hashLanes < 1
+                    || (version != Argon2Engine.VERSION_10 && version != Argon2Engine.VERSION_13)) {
+                return null;
+            }
+
+            Base64.Decoder decoder = Base64.getDecoder();
+            byte[] hash = decoder.decode(parts[first + 2]);
+            if (hash.length < 4) {
+                return null;
+            }
+            return new EncodedHash(type, version, memoryKiB, iterations, hashLanes, decoder.decode(parts[first + 1]),
+                    hash);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the memory cost and lanes of a hash the engine does not handle, from its {@code m=...,p=...} field.
+     *
+     * @return the memory cost in KiB and the number of lanes, or null if the hash has no such field
+     */
+    private static long[] readCost(String encodedHash) {
+        for (String part : encodedHash.split("\\$")) {
+            if (!part.startsWith("m=")) {
+                continue;
+            }
+            long memoryKiB = -1;
+            long hashLanes = -1;
+            for (String parameter : part.split(",")) {
+                try {
+                    if (parameter.startsWith("m=")) {
+                        memoryKiB = Long.parseLong(parameter.substring(2));
+                    } else if (parameter.startsWith("p=")) {
+                        hashLanes = Long.parseLong(parameter.substring(2));
+                    }
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            return memoryKiB > 0 && hashLanes > 0 ? new long[]{memoryKiB, hashLanes} : null;
+        }
+        return null;
+    }
+
+    /**
+     * Stops the workers. Queued requests are rejected.
+     */
+    public void shutdown() {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        Request request;
+        while ((request = queue.poll()) != null) {
+            request.result().completeExceptionally(new RejectedExecutionException("Argon2 service stopped"));
+        }
+        Metric.removeGauge("argon2.queue_depth");
+    }
+}
@@ -0,0 +1,185 @@
+package br.net.dd.netherwingcore.common.cryptography;
+
+/**
+ * Unkeyed BLAKE2b (RFC 7693), the hash Argon2 is built on.
+ *
+ * <p>An instance keeps its state and block buffer between uses: {@link #init(int)} starts a new digest, so one object
+ * serves every hash of an {@link Argon2Engine} without allocating. Instances are not thread-safe.</p>
+ */
+final class Blake2b {
+
+    static final int MAX_OUTPUT_BYTES = 64;
+
+    private static final int BLOCK_BYTES = 128;
+
+    private static final long[] IV = {
+            0x6a09e667f3bcc908L, 0xbb67ae8584caa73bL, 0x3c6ef372fe94f82bL, 0xa54ff53a5f1d36f1L,
+            0x510e527fade682d1L, 0x9b05688c2b3e6c1fL, 0x1f83d9abfb41bd6bL, 0x5be0cd19137e2179L
+    };
+
+    private static final byte[][] SIGMA = {
+            {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15},
+            {14, 10, 4, 8, 9, 15, 13, 6, 1, 12, 0, 2, 11, 7, 5, 3},
+            {11, 8, 12, 0, 5, 2, 15, 13, 10, 14, 3, 6, 7, 1, 9, 4},
+            {7, 9, 3, 1, 13, 12, 11, 14, 2, 6, 5, 10, 4, 0, 15, 8},
+            {9, 0, 5, 7, 2, 4, 10, 15, 14, 1, 11, 12, 6, 8, 3, 13},
+            {2, 12, 6, 10, 0, 11, 8, 3, 4, 13, 7, 5, 15, 14, 1, 9},
+            {12, 5, 1, 15, 14, 13, 4, 10, 0, 7, 6, 3, 9, 2, 8, 11},
+            {13, 11, 7, 14, 12, 1, 3, 9, 5, 0, 15, 4, 8, 6, 2, 10},
+            {6, 15, 14, 9, 11, 3, 0, 8, 12, 2, 13, 7, 1, 4, 10, 5},
+            {10, 2, 8, 4, 7, 6, 1, 5, 15, 11, 9, 14, 3, 12, 13, 0},
+            {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15},
+            {14, 10, 4, 8, 9, 15, 13, 6, 1, 12, 0, 2, 11, 7, 5, 3}
+    };
+
+    private final long[] h = new long[8];
+    private final long[] v = new long[16];
+    private final long[] m = new long[16];
+    private final byte[] buffer = new byte[BLOCK_BYTES];
+    private int buffered;
+    private long counterLow;
+    private long counterHigh;
+    private int outputBytes;
+
+    /**
+     * Starts a new digest.
+     *
+     * @param outputBytes the digest length, 1 to {@link #MAX_OUTPUT_BYTES}.
+     * @return this instance.
+     */
+    Blake2b init(int outputBytes) {
+        if (outputBytes < 1 || outputBytes > MAX_OUTPUT_BYTES) {
+            throw new IllegalArgumentException("Invalid BLAKE2b output length: " + outputBytes);
+        }
+        this.outputBytes = outputBytes;
+        System.arraycopy(IV, 0, h, 0, 8);
+        h[0] ^= 0x01010000L ^ outputBytes;
+        buffered = 0;
+        counterLow = 0;
+        counterHigh = 0;
+        return this;
+    }
+
+    /**
+     * Adds bytes to the digest.
+     */
+    Blake2b update(byte[] data, int offset, int length) {
+        while (length > 0) {
+            // The last block must be compressed by doFinal, so a full buffer is only flushed once more data arrives
+            if (buffered == BLOCK_BYTES) {
+                incrementCounter(BLOCK_BYTES);
+                compress(buffer, 0, false);
+                buffered = 0;
+            }
+            int n = Math.min(length, BLOCK_BYTES - buffered);
+            System.arraycopy(data, offset, buffer, buffered, n);
+            buffered += n;
+            offset += n;
+            length -= n;
+        }
+        return this;
+    }
+
+    /**
+     * Adds bytes to the digest.
+     */
+    Blake2b update(byte[] data) {
+        return update(data, 0, data.length);
+    }
+
+    /**
+     * Adds a 32-bit value to the digest, in little-endian order as Argon2 encodes its parameters.
+     */
+    Blake2b updateInt(int value) {
+        for (int i = 0; i < Integer.BYTES; i++) {
+            if (buffered == BLOCK_BYTES) {
+                incrementCounter(BLOCK_BYTES);
+                compress(buffer, 0, false);
+                buffered = 0;
+            }
+            buffer[buffered++] = (byte) (value >>> (i * 8));
+        }
+        return this;
+    }
+
+    /**
+     * Completes the digest and writes it into the given array.
+     *
+     * @param out    the array receiving the digest.
+     * @param offset the offset of the first digest byte.
+     */
+    void doFinal(byte[] out, int offset) {
+        incrementCounter(buffered);
+        for (int i = buffered; i < BLOCK_BYTES; i++) {
+            buffer[i] = 0;
+        }
+        compress(buffer, 0, true);
+
+        for (int i = 0; i < outputBytes; i++) {
+            out[offset + i] = (byte) (h[i >>> 3] >>> ((i & 7) * 8));
+        }
+    }
+
+    private void incrementCounter(int bytes) {
+        counterLow += bytes;
+        if (Long.compareUnsigned(counterLow, bytes) < 0) {
+            counterHigh++;
+        }
+    }
+
+    private void compress(byte[] block, int offset, boolean last) {
+        for (int i = 0; i < 16; i++) {
+            m[i] = readLong(block, offset + i * 8);
+        }
+        System.arraycopy(h, 0, v, 0, 8);
+        System.arraycopy(IV, 0, v, 8, 8);
+        v[12] ^= counterLow;
+        v[13] ^= counterHigh;
+        if (last) {
+            v[14] = ~v[14];
+        }
+
+        for (byte[] s : SIGMA) {
+            mix(0, 4, 8, 12, m[s[0]], m[s[1]]);
+            mix(1, 5, 9, 13, m[s[2]], m[s[3]]);
+            mix(2, 6, 10, 14, m[s[4]], m[s[5]]);
+            mix(3, 7, 11, 15, m[s[6]], m[s[7]]);
+            mix(0, 5, 10, 15, m[s[8]], m[s[9]]);
+            mix(1, 6, 11, 12, m[s[10]], m[s[11]]);
+            mix(2, 7, 8, 13, m[s[12]], m[s[13]]);
+            mix(3, 4, 9, 14, m[s[14]], m[s[15]]);
+        }
+
+        for (int i = 0; i < 8; i++) {
+            h[i] ^= v[i] ^ v[i + 8];
+        }
+    }
+
+    private void mix(int a, int b, int c, int d, long x, long y) {
+        v[a] += v[b] + x;
+        v[d] = Long.rotateRight(v[d] ^ v[a], 32);
+        v[c] += v[d];
+        v[b] = Long.rotateRight(v[b] ^ v[c], 24);
+        v[a] += v[b] + y;
+        v[d] = Long.rotateRight(v[d] ^ v[a], 16);
+        v[c] += v[d];
+        v[b] = Long.rotateRight(v[b] ^ v[c], 63);
+    }
+
+    static long readLong(byte[] b, int offset) {
+        return (b[offset] & 0xFFL)
+                | (b[offset + 1] & 0xFFL) << 8
+                | (b[offset + 2] & 0xFFL) << 16
+                | (b[offset + 3] & 0xFFL) << 24
+                | (b[offset + 4] & 0xFFL) << 32
+                | (b[offset + 5] & 0xFFL) << 40
+                | (b[offset + 6] & 0xFFL) << 48
+                | (b[offset + 7] & 0xFFL) << 56;
+    }
+
+    static void writeLong(byte[] b, int offset, long value) {
+        for (int i = 0; i < 8; i++) {
+            b[offset + i] = (byte) (value >>> (i * 8));
+        }
+    }
+}
@@ -1,17 +1,61 @@
 package br.net.dd.netherwingcore.common.cryptography;
 
 import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Utility class for cryptographic hashing using Java's MessageDigest.
  * Provides a flexible interface for creating and using various hash algorithms.
+ *
+ * <p>Looking up a {@link MessageDigest} provider is synchronized and slow under concurrency, so one-shot hashes
+ * {@link #borrow(DigestCreator)} a digest from a small pool per algorithm and {@link #release(DigestCreator,
+ * MessageDigest)} it when done, which also works for virtual threads, unlike a per-thread cache. A
+ * {@link GenericHash} creates its digest once and reuses it after every {@link GenericHash#finalizeDigest()}, and
+ * {@link GenericHash#digestInto(byte[], int)} writes the result into a caller's array without allocating.</p>
  */
 public final class CryptoHash {
 
+    // Idle digests, keyed by the creator of their algorithm
+    private static final Map<DigestCreator, InstancePool<MessageDigest>> POOLS = new ConcurrentHashMap<>();
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private CryptoHash() {}
+
+    /**
+     * Takes a digest of the given algorithm from the pool, reset and ready for use. It belongs to the caller until it
+     * is handed back with {@link #release(DigestCreator, MessageDigest)}, normally from a {@code finally} block.
+     *
+     * @param creator the DigestCreator of the algorithm, such as {@link Algorithms#SHA256}
+     * @return a digest for that algorithm
+     */
+    public static MessageDigest borrow(DigestCreator creator) {
+        MessageDigest md = POOLS.computeIfAbsent(creator, CryptoHash::newPool).borrow();
+        md.reset();
+        return md;
+    }
+
+    /**
+     * Hands a digest taken with {@link #borrow(DigestCreator)} back to the pool. It must not be used afterwards.
+     *
+     * @param creator the DigestCreator the digest was borrowed with
+     * @param md      the digest
+     */
+    public static void release(DigestCreator creator, MessageDigest md) {
+        POOLS.computeIfAbsent(creator, CryptoHash::newPool).release(md);
+    }
+
+    private static InstancePool<MessageDigest> newPool(DigestCreator creator) {
+        return new InstancePool<>(creator::create, InstancePool.DEFAULT_CAPACITY);
+    }
+
     /**
      * Functional interface for creating MessageDigest instances.
      */
@@ -27,8 +71,8 @@ public final class CryptoHash {
         private final DigestCreator creator;
         private final int digestLength;
 
-        private MessageDigest md;
-        private byte[] digest;
+        private final MessageDigest md;
+        private final byte[] digest;
 
         /**
          * Constructs a GenericHash with the specified DigestCreator and digest length.
@@ -41,6 +85,10 @@ public final class CryptoHash {
             this.digestLength = digestLength;
             this.md = creator.create();
             this.digest = new byte[digestLength];
+            if (md.getDigestLength() != digestLength) {
+                throw new IllegalStateException(
+                        "Digest length mismatch: got " + md.getDigestLength() + " expected " + digestLength);
+            }
         }
 
         /**
@@ -49,10 +97,18 @@ public final class CryptoHash {
          * @return a new GenericHash instance with the same state
          */
         public GenericHash copy() {
-            GenericHash h = new GenericHash(this.creator, this.digestLength);
-            h.md = cloneDigest(this.md);
-            h.digest = Arrays.copyOf(this.digest, this.digest.length);
-            return h;
+            return new GenericHash(this.creator, this.digestLength, cloneDigest(this.md),
+                    Arrays.copyOf(this.digest, this.digest.length));
+        }
+
+        /**
+         * Constructs a GenericHash around an existing digest state, without looking up a provider.
+         */
+        private GenericHash(DigestCreator creator, int digestLength, MessageDigest md, byte[] digest) {
+            this.creator = creator;
+            this.digestLength = digestLength;
+            this.md = md;
+            this.digest = digest;
         }
 
         /**
@@ -99,16 +155,26 @@ public final class CryptoHash {
          * @return this GenericHash instance for chaining
          */
         public GenericHash finalizeDigest() {
-            byte[] out = md.digest(); // This also resets the MessageDigest state, so we can reuse it for the next computation
-            if (out.length != digestLength) {
-                throw new IllegalStateException(
-                        "Digest length mismatch: got " + out.length + " expected " + digestLength);
-            }
-            this.digest = out;
-            this.md = creator.create();
+            digestInto(digest, 0);
             return this;
         }
 
+        /**
+         * Finalizes the digest computation into the given array and resets the internal state for reuse. Nothing is
+         * allocated, and the digest returned by {@link #getDigest()} is left unchanged.
+         *
+         * @param out    the array receiving the digest
+         * @param offset the offset of the first digest byte, with room for the digest length after it
+         */
+        public void digestInto(byte[] out, int offset) {
+            try {
+                // This also resets the MessageDigest state, so we can reuse it for the next computation
+                md.digest(out, offset, digestLength);
+            } catch (DigestException e) {
+                throw new IllegalArgumentException("No room for the digest at offset " + offset, e);
+            }
+        }
+
         /**
          * Returns a copy of the computed digest.
          *
@@ -127,10 +193,13 @@ public final class CryptoHash {
          * @return a byte array containing the computed digest
          */
         public static byte[] getDigestOf(DigestCreator creator, int digestLength, byte[] data) {
-            return new GenericHash(creator, digestLength)
-                    .update(data)
-                    .finalizeDigest()
-                    .getDigest();
+            Objects.requireNonNull(data, "data");
+            MessageDigest md = borrow(creator);
+            try {
+                return checkLength(md.digest(data), digestLength);
+            } finally {
+                release(creator, md);
+            }
         }
 
         /**
@@ -142,18 +211,33 @@ public final class CryptoHash {
          * @return a byte array containing the computed digest
          */
         public static byte[] getDigestOf(DigestCreator creator, int digestLength, Object... parts) {
-            GenericHash h = new GenericHash(creator, digestLength);
-            for (Object p : parts) {
-                if (p == null) continue;
-                if (p instanceof byte[] b) {
-                    h.update(b);
-                } else if (p instanceof String s) {
-                    h.update(s);
-                } else {
-                    throw new IllegalArgumentException("Unsupported part type: " + p.getClass().getName());
+            MessageDigest md = borrow(creator);
+            try {
+                for (Object p : parts) {
+                    if (p == null) continue;
+                    if (p instanceof byte[] b) {
+                        md.update(b);
+                    } else if (p instanceof String s) {
+                        md.update(s.getBytes(StandardCharsets.UTF_8));
+                    } else {
+                        throw new IllegalArgumentException("Unsupported part type: " + p.getClass().getName());
+                    }
                 }
+                return checkLength(md.digest(), digestLength);
+            } finally {
+                release(creator, md);
+            }
+        }
+
+        /**
+         * Checks that a digest has the expected length.
+         */
+        private static byte[] checkLength(byte[] out, int digestLength) {
+            if (out.length != digestLength) {
+                throw new IllegalStateException(
+                        "Digest length mismatch: got " + out.length + " expected " + digestLength);
             }
-            return h.finalizeDigest().getDigest();
+            return out;
         }
 
         /**
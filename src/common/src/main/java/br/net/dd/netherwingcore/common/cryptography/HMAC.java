@@ -1,4 +1,255 @@
 package br.net.dd.netherwingcore.common.cryptography;
 
-public class HMAC {
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Utility class for keyed hashing (HMAC) using Java's Mac, the counterpart of {@link CryptoHash}.
+ *
+ * <p>As with digests, provider lookup is slow under concurrency, so one-shot MACs {@link #borrow(MacCreator, byte[])}
+ * a Mac from a small pool per algorithm and {@link #release(MacCreator, Mac)} it when done, and a
+ * {@link GenericHMAC} keeps its Mac, keyed once, for every message it authenticates.</p>
+ */
+public final class HMAC {
+
+    /**
+     * Functional interface for creating Mac instances.
+     */
+    @FunctionalInterface
+    public interface MacCreator {
+        Mac create();
+    }
+
+    // Idle Macs, keyed by the creator of their algorithm
+    private static final Map<MacCreator, InstancePool<Mac>> POOLS = new ConcurrentHashMap<>();
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private HMAC() {}
+
+    /**
+     * Takes a Mac of the given algorithm from the pool, initialized with the given key. It belongs to the caller until
+     * it is handed back with {@link #release(MacCreator, Mac)}, normally from a {@code finally} block.
+     *
+     * @param creator the MacCreator of the algorithm, such as {@link Algorithms#SHA256}
+     * @param key     the key to authenticate with
+     * @return a Mac for that algorithm
+     */
+    public static Mac borrow(MacCreator creator, byte[] key) {
+        InstancePool<Mac> pool = POOLS.computeIfAbsent(creator, HMAC::newPool);
+        Mac mac = pool.borrow();
+        try {
+            init(mac, key);
+        } catch (IllegalArgumentException e) {
+            pool.release(mac);
+            throw e;
+        }
+        return mac;
+    }
+
+    /**
+     * Hands a Mac taken with {@link #borrow(MacCreator, byte[])} back to the pool. It must not be used afterwards.
+     *
+     * @param creator the MacCreator the Mac was borrowed with
+     * @param mac     the Mac
+     */
+    public static void release(MacCreator creator, Mac mac) {
+        POOLS.computeIfAbsent(creator, HMAC::newPool).release(mac);
+    }
+
+    private static InstancePool<Mac> newPool(MacCreator creator) {
+        return new InstancePool<>(creator::create, InstancePool.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Computes the MAC of the given data with a pooled Mac and writes it into the given array.
+     *
+     * @param creator the MacCreator of the algorithm
+     * @param key     the key to authenticate with
+     * @param data    the data to authenticate
+     * @param out     the array receiving the MAC
+     * @param offset  the offset of the first MAC byte, with room for the MAC length after it
+     */
+    public static void digestInto(MacCreator creator, byte[] key, byte[] data, byte[] out, int offset) {
+        Mac mac = borrow(creator, key);
+        try {
+            mac.update(data);
+            doFinal(mac, out, offset);
+        } finally {
+            release(creator, mac);
+        }
+    }
+
+    /**
+     * Static utility method to compute the MAC of the given parts, byte arrays or UTF-8 strings.
+     *
+     * @param creator the MacCreator of the algorithm
+     * @param key     the key to authenticate with
+     * @param parts   the data to authenticate
+     * @return a byte array containing the MAC
+     */
+    public static byte[] getDigestOf(MacCreator creator, byte[] key, Object... parts) {
+        Mac mac = borrow(creator, key);
+        try {
+            for (Object p : parts) {
+                if (p == null) continue;
+                if (p instanceof byte[] b) {
+                    mac.update(b);
+                } else if (p instanceof String s) {
+                    mac.update(s.getBytes(StandardCharsets.UTF_8));
+                } else {
+                    throw new IllegalArgumentException("Unsupported part type: " + p.getClass().getName());
+                }
+            }
+            return mac.doFinal();
+        } finally {
+            release(creator, mac);
+        }
+    }
+
+    /**
+     * GenericHMAC class that wraps a keyed Mac instance and provides a convenient API for authenticating data.
+     */
+    public static final class GenericHMAC {
+        private final Mac mac;
+        private final byte[] digest;
+
+        /**
+         * Constructs a GenericHMAC with the specified MacCreator and key.
+         *
+         * @param creator the MacCreator to create the Mac instance
+         * @param key     the key to authenticate with
+         */
+        public GenericHMAC(MacCreator creator, byte[] key) {
+            Objects.requireNonNull(creator, "creator");
+            Objects.requireNonNull(key, "key");
+            this.mac = creator.create();
+            init(this.mac, key);
+            this.digest = new byte[mac.getMacLength()];
+        }
+
+        /**
+         * Updates the MAC with the specified byte array.
+         *
+         * @param data the data to update the MAC with
+         * @return this GenericHMAC instance for chaining
+         */
+        public GenericHMAC update(byte[] data) {
+            Objects.requireNonNull(data, "data");
+            mac.update(data);
+            return this;
+        }
+
+        /**
+         * Updates the MAC with a portion of the specified byte array.
+         *
+         * @param data   the data to update the MAC with
+         * @param offset the starting offset in the data
+         * @param len    the number of bytes to use from the data
+         * @return this GenericHMAC instance for chaining
+         */
+        public GenericHMAC update(byte[] data, int offset, int len) {
+            Objects.requireNonNull(data, "data");
+            mac.update(data, offset, len);
+            return this;
+        }
+
+        /**
+         * Updates the MAC with the specified string, using UTF-8 encoding.
+         *
+         * @param s the string to update the MAC with
+         * @return this GenericHMAC instance for chaining
+         */
+        public GenericHMAC update(String s) {
+            Objects.requireNonNull(s, "s");
+            mac.update(s.getBytes(StandardCharsets.UTF_8));
+            return this;
+        }
+
+        /**
+         * Finalizes the MAC computation and resets the internal state for reuse with the same key.
+         *
+         * @return this GenericHMAC instance for chaining
+         */
+        public GenericHMAC finalizeDigest() {
+            digestInto(digest, 0);
+            return this;
+        }
+
+        /**
+         * Finalizes the MAC computation into the given array and resets the internal state for reuse with the same
+         * key. Nothing is allocated, and the MAC returned by {@link #getDigest()} is left unchanged.
+         *
+         * @param out    the array receiving the MAC
+         * @param offset the offset of the first MAC byte, with room for the MAC length after it
+         */
+        public void digestInto(byte[] out, int offset) {
+            doFinal(mac, out, offset);
+        }
+
+        /**
+         * Returns a copy of the computed MAC.
+         *
+         * @return a byte array containing the MAC
+         */
+        public byte[] getDigest() {
+            return Arrays.copyOf(digest, digest.length);
+        }
+    }
+
+    /**
+     * Predefined MacCreators and their corresponding MAC lengths for common algorithms.
+     */
+    public static final class Algorithms {
+        public static final MacCreator SHA1 = () -> get("HmacSHA1");
+        public static final MacCreator SHA256 = () -> get("HmacSHA256");
+
+        public static final int SHA1_LEN = CryptoHash.Algorithms.SHA1_LEN;
+        public static final int SHA256_LEN = CryptoHash.Algorithms.SHA256_LEN;
+
+        /**
+         * Utility method to get a Mac instance for the specified algorithm.
+         *
+         * @param algo the name of the algorithm (e.g., "HmacSHA1", "HmacSHA256")
+         * @return a Mac instance for the specified algorithm
+         */
+        private static Mac get(String algo) {
+            try {
+                return Mac.getInstance(algo);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Algorithm unavailable.: " + algo, e);
+            }
+        }
+    }
+
+    /**
+     * Keys a Mac, which also resets it.
+     */
+    private static void init(Mac mac, byte[] key) {
+        try {
+            mac.init(new SecretKeySpec(key, mac.getAlgorithm()));
+        } catch (InvalidKeyException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + mac.getAlgorithm() + " key", e);
+        }
+    }
+
+    /**
+     * Finalizes a Mac into the given array, which also resets it.
+     */
+    private static void doFinal(Mac mac, byte[] out, int offset) {
+        try {
+            mac.doFinal(out, offset);
+        } catch (ShortBufferException e) {
+            throw new IllegalArgumentException("No room for the MAC at offset " + offset, e);
+        }
+    }
 }
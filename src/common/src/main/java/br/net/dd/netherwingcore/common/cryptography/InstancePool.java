@@ -0,0 +1,67 @@
+package br.net.dd.netherwingcore.common.cryptography;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A small bounded pool of reusable instances, such as the {@link java.security.MessageDigest}s of
+ * {@link CryptoHash} and the {@link javax.crypto.Mac}s of {@link HMAC}.
+ *
+ * <p>An instance is borrowed for one computation and released right after it, so the pool holds about as many
+ * instances as computations run at the same time, whatever the number of threads. A thread-local cache would instead
+ * create one per thread, which with virtual threads means one per task, and never reuse it. Borrowing from an empty
+ * pool creates a new instance, and instances released to a full pool are left to the garbage collector.</p>
+ *
+ * @param <T> the type of the pooled instances
+ */
+final class InstancePool<T> {
+
+    /** Default number of idle instances kept, enough for every core to run a computation. */
+    static final int DEFAULT_CAPACITY = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final Supplier<T> factory;
+    private final int capacity;
+    private final ConcurrentLinkedQueue<T> idle;
+    private final AtomicInteger idleCount; // ConcurrentLinkedQueue.size() walks the whole queue
+
+    /**
+     * Constructs an empty pool.
+     *
+     * @param factory  creates the instances
+     * @param capacity the most idle instances kept
+     */
+    InstancePool(Supplier<T> factory, int capacity) {
+        this.factory = factory;
+        this.capacity = capacity;
+        this.idle = new ConcurrentLinkedQueue<>();
+        this.idleCount = new AtomicInteger();
+    }
+
+    /**
+     * Takes an idle instance, or creates one if none is left. The caller must reset it before use.
+     *
+     * @return an instance only the caller uses until it is released
+     */
+    T borrow() {
+        T instance = idle.poll();
+        if (instance == null) {
+            return factory.get();
+        }
+        idleCount.decrementAndGet();
+        return instance;
+    }
+
+    /**
+     * Hands an instance back. It must not be used by the caller afterwards.
+     *
+     * @param instance the instance, as returned by {@link #borrow()}
+     */
+    void release(T instance) {
+        if (idleCount.incrementAndGet() > capacity) {
+            idleCount.decrementAndGet();
+            return;
+        }
+        idle.offer(instance);
+    }
+}
@@ -1,14 +1,20 @@
 package br.net.dd.netherwingcore.common.cryptography;
 
+import br.net.dd.netherwingcore.common.configuration.Config;
 import br.net.dd.netherwingcore.common.utilities.CryptographyData;
 
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.TrustManagerFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.*;
 import java.security.cert.CertificateException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 /**
  * The SSLContextImpl class is a singleton implementation responsible for
@@ -21,6 +27,11 @@ import java.security.cert.CertificateException;
  * SSL context for use in applications.
  * </p>
  *
+ * <p>The server side SSL parameters (protocols, cipher suites) are computed once here and shared by every
+ * engine through {@link #getServerParameters()}. The server session cache is sized from {@code SSL.SessionCacheSize}
+ * and {@code SSL.SessionTimeout}, and session tickets are enabled with {@code SSL.SessionTickets}, so reconnecting
+ * clients can resume their session instead of paying for a full handshake.</p>
+ *
  * <p>The class throws runtime exceptions for missing resources, invalid configurations,
  * or problems during initialization, ensuring all required settings and files
  * are properly loaded.</p>
@@ -40,6 +51,21 @@ public class SSLContextImpl {
     public static final String CERTIFICATE_KEY = "/netherwingcore.key"; // Path to the private key file
     private static final String PROTOCOL = "TLS"; // The SSL/TLS protocol to use
 
+    // Protocols enabled on server engines; older versions are insecure.
+    private static final String[] SERVER_PROTOCOLS = {"TLSv1.3", "TLSv1.2"};
+
+    // Cipher suites compatible with Battle.net, in order of preference. The TLS_AES_* suites are only used by TLSv1.3.
+    private static final String[] SERVER_CIPHER_SUITES = {
+            "TLS_AES_256_GCM_SHA384",
+            "TLS_AES_128_GCM_SHA256",
+            "TLS_ECDHE_RSA_WITH_AES_256_GCM_SHA384",
+            "TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256",
+            "TLS_RSA_WITH_AES_256_GCM_SHA384",
+            "TLS_RSA_WITH_AES_128_GCM_SHA256"
+    };
+
+    private final SSLParameters serverParameters; // Parameters applied to every server engine
+
     /**
      * Private constructor to initialize the SSLContext. This constructor loads
      * the specified keystore, initializes the KeyManager and TrustManager, and
@@ -50,6 +76,11 @@ public class SSLContextImpl {
      */
     private SSLContextImpl() {
 
+        // Read by the JSSE provider when it is first loaded, so it must be set before creating the context.
+        if (Config.get("SSL.SessionTickets", 1) == 1) {
+            System.setProperty("jdk.tls.server.enableSessionTicketExtension", "true");
+        }
+
         try (InputStream inputStream = SSLContextImpl.class.getResourceAsStream(KEYSTORE_PATH)) {
             if (inputStream == null) {
                 throw new RuntimeException("keystore.jks file not found inside the JAR!");
@@ -83,6 +114,12 @@ public class SSLContextImpl {
             sslContext = SSLContext.getInstance(PROTOCOL);
             sslContext.init(keyManagerFactory.getKeyManagers(), trustManagerFactory.getTrustManagers(), null);
 
+            SSLSessionContext sessionContext = sslContext.getServerSessionContext();
+            sessionContext.setSessionCacheSize(Config.get("SSL.SessionCacheSize", 20480));
+            sessionContext.setSessionTimeout(Config.get("SSL.SessionTimeout", 86400));
+
+            serverParameters = createServerParameters(sslContext);
+
         } catch (CertificateException | IOException | NoSuchAlgorithmException | UnrecoverableKeyException |
                  KeyManagementException | KeyStoreException e) {
             throw new RuntimeException(e);
@@ -104,6 +141,58 @@ public class SSLContextImpl {
 
     }
 
+    /**
+     * Provides the SSL parameters for server engines created from {@link #get()}: the supported subset of the
+     * preferred protocols and cipher suites, with the server's cipher suite order enforced and no client
+     * authentication. The instance is shared and must not be modified; pass it to
+     * {@link javax.net.ssl.SSLEngine#setSSLParameters(SSLParameters)}, which copies it.
+     *
+     * @return The shared server {@link SSLParameters}.
+     */
+    public static SSLParameters getServerParameters() {
+        get();
+        return instance.serverParameters;
+    }
+
+    /**
+     * Builds the server SSL parameters, keeping only the preferred protocols and cipher suites that the
+     * context supports.
+     *
+     * @param sslContext The initialized context.
+     * @return The server {@link SSLParameters}.
+     */
+    private static SSLParameters createServerParameters(SSLContext sslContext) {
+        SSLParameters supported = sslContext.getSupportedSSLParameters();
+
+        SSLParameters parameters = sslContext.getDefaultSSLParameters();
+        parameters.setProtocols(retainSupported(SERVER_PROTOCOLS, supported.getProtocols()));
+
+        String[] cipherSuites = retainSupported(SERVER_CIPHER_SUITES, supported.getCipherSuites());
+        if (cipherSuites.length > 0) {
+            parameters.setCipherSuites(cipherSuites);
+        }
+
+        parameters.setUseCipherSuitesOrder(true);
+        parameters.setEndpointIdentificationAlgorithm(null);
+        parameters.setNeedClientAuth(false);
+        parameters.setWantClientAuth(false);
+        return parameters;
+    }
+
+    /**
+     * Returns the preferred values that are also supported, in preference order.
+     */
+    private static String[] retainSupported(String[] preferred, String[] supported) {
+        Set<String> supportedSet = Set.of(supported);
+        List<String> retained = new ArrayList<>(preferred.length);
+        for (String value : preferred) {
+            if (supportedSet.contains(value)) {
+                retained.add(value);
+            }
+        }
+        return retained.toArray(new String[0]);
+    }
+
     /**
      * Retrieves a resource file (certificate or private key) as an {@link InputStream}.
      *
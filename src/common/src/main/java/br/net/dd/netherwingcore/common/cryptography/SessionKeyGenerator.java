@@ -1,4 +1,107 @@
 package br.net.dd.netherwingcore.common.cryptography;
 
-public class SessionKeyGenerator {
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.util.Objects;
+
+/**
+ * Java rewrite of Trinity::Crypto::SessionKeyGenerator: stretches a seed into any number of key bytes.
+ *
+ * <p>The seed is split in two halves whose digests {@code o1} and {@code o2} stay fixed, and the output is the chain of
+ * digests {@code o0 = H(o1 | o0 | o2)}, starting from a zeroed {@code o0}. Every digest is computed with a digest
+ * borrowed from the {@link CryptoHash#borrow(CryptoHash.DigestCreator) pool} straight into the generator's buffers,
+ * so generating keys allocates nothing. Instances are not thread-safe.</p>
+ */
+public final class SessionKeyGenerator {
+
+    private final CryptoHash.DigestCreator creator;
+    private final byte[] o0;
+    private final byte[] o1;
+    private final byte[] o2;
+    private int position;
+
+    /**
+     * Constructs a generator from a seed.
+     *
+     * @param creator      the DigestCreator of the hash algorithm, such as {@link CryptoHash.Algorithms#SHA256}
+     * @param digestLength the digest length of that algorithm
+     * @param seed         the seed, typically the SRP6 session key
+     */
+    public SessionKeyGenerator(CryptoHash.DigestCreator creator, int digestLength, byte[] seed) {
+        this.creator = Objects.requireNonNull(creator, "creator");
+        Objects.requireNonNull(seed, "seed");
+        this.o0 = new byte[digestLength];
+        this.o1 = new byte[digestLength];
+        this.o2 = new byte[digestLength];
+
+        int half = seed.length / 2;
+        MessageDigest md = CryptoHash.borrow(creator);
+        try {
+            md.update(seed, 0, half);
+            digestInto(md, o1);
+            md.update(seed, half, seed.length - half);
+            digestInto(md, o2);
+        } finally {
+            CryptoHash.release(creator, md);
+        }
+
+        nextBlock();
+    }
+
+    /**
+     * Writes the next key bytes into the given array.
+     *
+     * @param out    the array receiving the key bytes
+     * @param offset the offset of the first key byte
+     * @param length the number of key bytes to generate
+     */
+    public void generate(byte[] out, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, out.length);
+        while (length > 0) {
+            if (position == o0.length) {
+                nextBlock();
+            }
+            int n = Math.min(length, o0.length - position);
+            System.arraycopy(o0, position, out, offset, n);
+            position += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Returns the next key bytes in a new array.
+     *
+     * @param length the number of key bytes to generate
+     * @return the key bytes
+     */
+    public byte[] generate(int length) {
+        byte[] out = new byte[length];
+        generate(out, 0, length);
+        return out;
+    }
+
+    /**
+     * Replaces o0 with H(o1 | o0 | o2).
+     */
+    private void nextBlock() {
+        MessageDigest md = CryptoHash.borrow(creator);
+        try {
+            md.update(o1);
+            md.update(o0);
+            md.update(o2);
+            digestInto(md, o0);
+        } finally {
+            CryptoHash.release(creator, md);
+        }
+        position = 0;
+    }
+
+    private static void digestInto(MessageDigest md, byte[] out) {
+        try {
+            md.digest(out, 0, out.length);
+        } catch (DigestException e) {
+            throw new IllegalStateException("Digest length mismatch for " + md.getAlgorithm(), e);
+        }
+    }
 }
@@ -0,0 +1,176 @@
+package br.net.dd.netherwingcore.common.cryptography.authentication;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Modular exponentiation of a fixed base, {@code g^e mod N}, from a table precomputed once per base and modulus.
+ *
+ * <p>The exponent is split into 8-bit digits, and the table holds {@code g^(d * 2^(8i)) mod N} for every digit value
+ * {@code d} and position {@code i}. A power is then the product of one table entry per non-zero digit: 32
+ * multiplications for a 256-bit exponent, with no squaring. {@link BigInteger#multiply} followed by
+ * {@link BigInteger#mod} is slower than {@link BigInteger#modPow} at that count, so the table is kept in Montgomery
+ * form and multiplied with a fixed-width Montgomery product on 32-bit limbs.</p>
+ *
+ * <p>Instances are immutable and thread-safe. The modulus must be odd.</p>
+ */
+final class FixedBaseModPow {
+
+    private static final int WINDOW_BITS = 8;
+    private static final int DIGITS = 1 << WINDOW_BITS;
+    private static final long LIMB_MASK = 0xFFFFFFFFL;
+
+    private final BigInteger base;
+    private final BigInteger modulus;
+    private final int limbs;
+    private final int[] n;
+    private final int nPrime;
+    private final int[] montgomeryOne;
+
+    // table[i][d] = base^(d << (WINDOW_BITS * i)) * R mod N, as little-endian limbs
+    private final int[][][] table;
+
+    /**
+     * Precomputes the table for exponents up to the bit length of the modulus.
+     *
+     * @param base    the fixed base.
+     * @param modulus the odd modulus.
+     */
+    FixedBaseModPow(BigInteger base, BigInteger modulus) {
+        if (!modulus.testBit(0) || modulus.signum() <= 0) {
+            throw new IllegalArgumentException("Modulus must be odd and positive");
+        }
+        this.base = base;
+        this.modulus = modulus;
+        this.limbs = (modulus.bitLength() + 31) / 32;
+        this.n = toLimbs(modulus);
+        this.nPrime = negativeInverse(n[0]);
+
+        BigInteger r = BigInteger.ONE.shiftLeft(32 * limbs).mod(modulus);
+        this.montgomeryOne = toLimbs(r);
+
+        int rows = (modulus.bitLength() + WINDOW_BITS - 1) / WINDOW_BITS;
+        this.table = new int[rows][DIGITS][];
+        BigInteger rowBase = base.mod(modulus);
+        for (int i = 0; i < rows; i++) {
+            BigInteger power = BigInteger.ONE;
+            for (int d = 0; d < DIGITS; d++) {
+                table[i][d] = toLimbs(power.multiply(r).mod(modulus));
+                power = power.multiply(rowBase).mod(modulus);
+            }
+            // power is now rowBase^DIGITS, the base of the next row
+            rowBase = power;
+        }
+    }
+
+    /**
+     * Returns {@code base^exponent mod modulus}.
+     *
+     * @param exponent a non-negative exponent; exponents longer than the modulus fall back to
+     *                 {@link BigInteger#modPow}.
+     * @return the power.
+     */
+    BigInteger pow(BigInteger exponent) {
+        if (exponent.signum() < 0 || exponent.bitLength() > table.length * WINDOW_BITS) {
+            return base.modPow(exponent, modulus);
+        }
+
+        byte[] digits = exponent.toByteArray();
+        long[] scratch = new long[limbs + 2];
+        int[] accumulator = montgomeryOne.clone();
+        int rows = Math.min(table.length, digits.length);
+        for (int i = 0; i < rows; i++) {
+            int digit = digits[digits.length - 1 - i] & 0xFF;
+            if (digit != 0) {
+                multiply(accumulator, table[i][digit], scratch);
+            }
+        }
+
+        // Leaving Montgomery form is a product with plain 1
+        int[] one = new int[limbs];
+        one[0] = 1;
+        multiply(accumulator, one, scratch);
+        return fromLimbs(accumulator);
+    }
+
+    /**
+     * Replaces {@code a} with the Montgomery product {@code a * b / R mod N} (CIOS method).
+     */
+    private void multiply(int[] a, int[] b, long[] t) {
+        Arrays.fill(t, 0);
+        long n0 = n[0] & LIMB_MASK;
+        for (int i = 0; i < limbs; i++) {
+            long ai = a[i] & LIMB_MASK;
+            long carry = 0;
+            for (int j = 0; j < limbs; j++) {
+                long s = t[j] + ai * (b[j] & LIMB_MASK) + carry;
+                t[j] = s & LIMB_MASK;
+                carry = s >>> 32;
+            }
+            long s = t[limbs] + carry;
+            t[limbs] = s & LIMB_MASK;
+            t[limbs + 1] = s >>> 32;
+
+            long m = (t[0] * (nPrime & LIMB_MASK)) & LIMB_MASK;
+            carry = (t[0] + m * n0) >>> 32;
+            for (int j = 1; j < limbs; j++) {
+                s = t[j] + m * (n[j] & LIMB_MASK) + carry;
+                t[j - 1] = s & LIMB_MASK;
+                carry = s >>> 32;
+            }
+            s = t[limbs] + carry;
+            t[limbs - 1] = s & LIMB_MASK;
+            t[limbs] = t[limbs + 1] + (s >>> 32);
+            t[limbs + 1] = 0;
+        }
+
+        boolean subtract = t[limbs] != 0 || compareToModulus(t) >= 0;
+        long borrow = 0;
+        for (int i = 0; i < limbs; i++) {
+            long value = subtract ? t[i] - (n[i] & LIMB_MASK) - borrow : t[i];
+            borrow = subtract && value < 0 ? 1 : 0;
+            a[i] = (int) value;
+        }
+    }
+
+    private int compareToModulus(long[] t) {
+        for (int i = limbs - 1; i >= 0; i--) {
+            long ni = n[i] & LIMB_MASK;
+            if (t[i] != ni) {
+                return t[i] < ni ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns {@code -x^-1 mod 2^32} for an odd {@code x}, by Newton iteration.
+     */
+    private static int negativeInverse(int x) {
+        int inverse = x;
+        for (int i = 0; i < 5; i++) {
+            inverse *= 2 - x * inverse;
+        }
+        return -inverse;
+    }
+
+    private int[] toLimbs(BigInteger value) {
+        int[] result = new int[limbs];
+        for (int i = 0; i < limbs; i++) {
+            result[i] = value.shiftRight(32 * i).intValue();
+        }
+        return result;
+    }
+
+    private static BigInteger fromLimbs(int[] value) {
+        byte[] bytes = new byte[value.length * Integer.BYTES];
+        for (int i = 0; i < value.length; i++) {
+            int limb = value[value.length - 1 - i];
+            bytes[4 * i] = (byte) (limb >>> 24);
+            bytes[4 * i + 1] = (byte) (limb >>> 16);
+            bytes[4 * i + 2] = (byte) (limb >>> 8);
+            bytes[4 * i + 3] = (byte) limb;
+        }
+        return new BigInteger(1, bytes);
+    }
+}
@@ -1,9 +1,14 @@
 package br.net.dd.netherwingcore.common.cryptography.authentication;
 
+import br.net.dd.netherwingcore.common.cryptography.CryptoHash;
+
 import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.SecureRandom;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * SRP6 (Secure Remote Password protocol version 6) implementation for cryptographic operations.
@@ -31,6 +36,8 @@ public class SRP6 {
      */
     private static final BigInteger DEFAULT_G = BigInteger.valueOf(7);
 
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     /**
      * Represents a fixed-length salt used in SRP computations.
      * The salt is critical for protecting against brute-force attacks by being incorporated into hash calculations.
@@ -58,8 +65,7 @@ public class SRP6 {
          */
         public Salt() {
             this.value = new byte[SALT_LENGTH];
-            SecureRandom random = new SecureRandom();
-            random.nextBytes(this.value);
+            RANDOM.nextBytes(this.value);
         }
 
         /**
@@ -90,6 +96,11 @@ public class SRP6 {
      * Base class for SRP6 computations. Handles the protocol's mathematical operations
      * with parameters such as prime modulus (N), generator (g), salt, and verifier.
      * Provides methods for private and public values and client evidence verification.
+     *
+     * <p>Every value is hashed as the bytes {@link BigInteger#toByteArray()} gives for it. Values that come out of a
+     * digest are kept as byte arrays and fed to the next digest in that encoding directly, instead of going through a
+     * {@link BigInteger} and back. {@code g^b mod N} comes from a {@link FixedBaseModPow} table built once per
+     * {@code (N, g)} pair, and the SHA-1 digest is borrowed from the {@link CryptoHash#borrow pool}.</p>
      */
     public static class SRP6Base {
 
@@ -102,6 +113,9 @@ public class SRP6 {
         protected final BigInteger B;        // Public value for the server
         protected boolean _used;             // Indicates if this instance has been used
 
+        private final Group group;           // Precomputed values of (N, g)
+        private final byte[] bBytes;         // B as hashed
+
         /**
          * Constructs an SRP6Base instance with the provided parameters.
          *
@@ -118,8 +132,10 @@ public class SRP6 {
             this.k = k;
             this.v = verifier;
             this.s = salt;
+            this.group = Group.of(N, g);
             this.b = calculatePrivateB(N);
-            this.B = calculatePublicB(N, g, k, b, v);
+            this.B = calculatePublicB(N, k, b, v);
+            this.bBytes = B.toByteArray();
             this._used = false;
         }
 
@@ -130,10 +146,9 @@ public class SRP6 {
          * @return A private random value (b).
          */
         private BigInteger calculatePrivateB(BigInteger N) {
-            SecureRandom random = new SecureRandom();
             BigInteger b;
             do {
-                b = new BigInteger(N.bitLength(), random);
+                b = new BigInteger(N.bitLength(), RANDOM);
             } while (b.compareTo(BigInteger.ZERO) <= 0 || b.compareTo(N.subtract(BigInteger.ONE)) >= 0);
             return b;
         }
@@ -142,14 +157,13 @@ public class SRP6 {
          * Calculates the public value (B) for the server.
          *
          * @param N The SRP modulus.
-         * @param g The SRP generator.
          * @param k The SRP multiplier parameter.
          * @param b The private value (b).
          * @param v The password verifier.
          * @return Public value (B).
          */
-        private BigInteger calculatePublicB(BigInteger N, BigInteger g, BigInteger k, BigInteger b, BigInteger v) {
-            return g.modPow(b, N).add(v.multiply(k)).mod(N);
+        private BigInteger calculatePublicB(BigInteger N, BigInteger k, BigInteger b, BigInteger v) {
+            return group.gPow().pow(b).add(v.multiply(k)).mod(N);
         }
 
         /**
@@ -174,75 +188,158 @@ public class SRP6 {
                 return null;
             }
 
-            BigInteger u = calculateU(A);
-            BigInteger S = A.multiply(v.modPow(u, N)).modPow(b, N);
-            BigInteger K = hashInterleave(S);
-
-            BigInteger NgHash = hashXor(hash(N), hash(g));
-            BigInteger ourM = hash(new BigInteger[]{NgHash, new BigInteger(s.getValue()), A, B, K});
+            MessageDigest sha1 = CryptoHash.borrow(CryptoHash.Algorithms.SHA1);
+            try {
+                byte[] aBytes = A.toByteArray();
 
-            if (ourM.equals(clientM1)) {
-                return K;
-            }
+                sha1.update(aBytes);
+                sha1.update(bBytes);
+                BigInteger u = new BigInteger(1, sha1.digest());
 
-            return null;
-        }
+                BigInteger S = A.multiply(v.modPow(u, N)).modPow(b, N);
+                byte[] K = hashInterleave(sha1, S.toByteArray());
 
-        private BigInteger calculateU(BigInteger A) {
-            return hash(new BigInteger[]{A, B});
-        }
+                sha1.update(group.ngHash());
+                updateSigned(sha1, s.value);
+                sha1.update(aBytes);
+                sha1.update(bBytes);
+                updateUnsigned(sha1, K);
+                BigInteger ourM = new BigInteger(1, sha1.digest());
 
-        private BigInteger hash(BigInteger... values) {
-            try {
-                MessageDigest digest = MessageDigest.getInstance("SHA-1");
-                for (BigInteger value : values) {
-                    digest.update(value.toByteArray());
+                if (ourM.equals(clientM1)) {
+                    return new BigInteger(1, K);
                 }
-                return new BigInteger(1, digest.digest());
-            } catch (Exception e) {
-                throw new RuntimeException("Failed hashing", e);
+
+                return null;
+            } finally {
+                CryptoHash.release(CryptoHash.Algorithms.SHA1, sha1);
             }
         }
 
-        private BigInteger hashXor(BigInteger hash1, BigInteger hash2) {
-            byte[] h1 = hash1.toByteArray();
-            byte[] h2 = hash2.toByteArray();
-            byte[] result = new byte[Math.max(h1.length, h2.length)];
+        /**
+         * Hashes the even and odd bytes of S separately and interleaves the two digests, each taken in its
+         * {@link BigInteger#toByteArray()} encoding, into the magnitude of K.
+         *
+         * <p>As in the SHA_Interleave function of RFC 2945, the leading zero bytes of S are removed first, and then
+         * the first byte as well if an odd number is left, so both halves have the same length.</p>
+         */
+        private static byte[] hashInterleave(MessageDigest sha1, byte[] sBytes) {
+            int start = 0;
+            while (start < sBytes.length && sBytes[start] == 0) {
+                start++;
+            }
+            if ((sBytes.length - start) % 2 != 0) {
+                start++;
+            }
+
+            int half = (sBytes.length - start) / 2;
+            byte[] evenChunks = new byte[half];
+            byte[] oddChunks = new byte[half];
+
+            for (int i = 0; i < half; i++) {
+                evenChunks[i] = sBytes[start + 2 * i];
+                oddChunks[i] = sBytes[start + 2 * i + 1];
+            }
+
+            updateUnsigned(sha1, evenChunks);
+            byte[] hashEven = toSignedMagnitude(sha1.digest());
+            updateUnsigned(sha1, oddChunks);
+            byte[] hashOdd = toSignedMagnitude(sha1.digest());
+
+            byte[] result = new byte[hashEven.length + hashOdd.length];
 
-            for (int i = 0; i < result.length; i++) {
-                byte a = (i < h1.length) ? h1[h1.length - 1 - i] : 0;
-                byte b = (i < h2.length) ? h2[h2.length - 1 - i] : 0;
-                result[result.length - 1 - i] = (byte) (a ^ b);
+            for (int i = 0; i < result.length / 2; i++) {
+                result[2 * i] = i < hashEven.length ? hashEven[i] : 0;
+                result[2 * i + 1] = i < hashOdd.length ? hashOdd[i] : 0;
             }
 
-            return new BigInteger(1, result);
+            return result;
         }
+    }
 
-        private BigInteger hashInterleave(BigInteger S) {
-            byte[] sBytes = S.toByteArray();
-            byte[] evenChunks = new byte[sBytes.length / 2];
-            byte[] oddChunks = new byte[sBytes.length / 2];
+    /**
+     * Values derived from the modulus and generator alone, shared by every SRP6 object using them.
+     *
+     * @param gPow   the fixed-base exponentiation table of g modulo N.
+     * @param ngHash {@code H(N) xor H(g)}, as hashed into the client evidence.
+     */
+    private record Group(FixedBaseModPow gPow, byte[] ngHash) {
+
+        private static final Map<List<BigInteger>, Group> GROUPS = new ConcurrentHashMap<>();
+
+        static Group of(BigInteger N, BigInteger g) {
+            return GROUPS.computeIfAbsent(List.of(N, g), key -> {
+                MessageDigest sha1 = CryptoHash.borrow(CryptoHash.Algorithms.SHA1);
+                byte[] h1;
+                byte[] h2;
+                try {
+                    h1 = toSignedMagnitude(sha1.digest(N.toByteArray()));
+                    h2 = toSignedMagnitude(sha1.digest(g.toByteArray()));
+                } finally {
+                    CryptoHash.release(CryptoHash.Algorithms.SHA1, sha1);
+                }
+                byte[] xor = new byte[Math.max(h1.length, h2.length)];
 
-            for (int i = 0; i < sBytes.length; i++) {
-                if (i % 2 == 0) {
-                    evenChunks[i / 2] = sBytes[i];
-                } else {
-                    oddChunks[i / 2] = sBytes[i];
+                for (int i = 0; i < xor.length; i++) {
+                    byte a = (i < h1.length) ? h1[h1.length - 1 - i] : 0;
+                    byte b = (i < h2.length) ? h2[h2.length - 1 - i] : 0;
+                    xor[xor.length - 1 - i] = (byte) (a ^ b);
                 }
-            }
 
-            BigInteger hashEven = hash(new BigInteger[]{new BigInteger(1, evenChunks)});
-            BigInteger hashOdd = hash(new BigInteger[]{new BigInteger(1, oddChunks)});
+                return new Group(new FixedBaseModPow(g, N), toSignedMagnitude(xor));
+            });
+        }
+    }
 
-            byte[] result = new byte[hashEven.toByteArray().length + hashOdd.toByteArray().length];
+    /**
+     * Feeds a digest the bytes {@link BigInteger#toByteArray()} gives for the non-negative number with the given
+     * big-endian magnitude: no leading zeros, but a zero sign byte when the top bit is set.
+     */
+    private static void updateUnsigned(MessageDigest digest, byte[] magnitude) {
+        int start = 0;
+        while (start < magnitude.length && magnitude[start] == 0) {
+            start++;
+        }
+        if (start == magnitude.length || magnitude[start] < 0) {
+            digest.update((byte) 0);
+        }
+        digest.update(magnitude, start, magnitude.length - start);
+    }
 
-            for (int i = 0; i < result.length / 2; i++) {
-                result[2 * i] = hashEven.toByteArray()[i];
-                result[2 * i + 1] = hashOdd.toByteArray()[i];
-            }
+    /**
+     * Feeds a digest the bytes {@link BigInteger#toByteArray()} gives for the two's-complement big-endian number in
+     * the given array, which drops redundant sign bytes.
+     */
+    private static void updateSigned(MessageDigest digest, byte[] value) {
+        if (value.length == 0) {
+            digest.update((byte) 0);
+            return;
+        }
+        int start = 0;
+        while (start < value.length - 1
+                && ((value[start] == 0 && value[start + 1] >= 0) || (value[start] == -1 && value[start + 1] < 0))) {
+            start++;
+        }
+        digest.update(value, start, value.length - start);
+    }
 
-            return new BigInteger(1, result);
+    /**
+     * Returns what {@code new BigInteger(1, magnitude).toByteArray()} returns, without the {@link BigInteger}.
+     */
+    private static byte[] toSignedMagnitude(byte[] magnitude) {
+        int start = 0;
+        while (start < magnitude.length && magnitude[start] == 0) {
+            start++;
+        }
+        if (start == magnitude.length) {
+            return new byte[1];
+        }
+        if (magnitude[start] < 0) {
+            byte[] result = new byte[magnitude.length - start + 1];
+            System.arraycopy(magnitude, start, result, 1, magnitude.length - start);
+            return result;
         }
+        return start == 0 ? magnitude : Arrays.copyOfRange(magnitude, start, magnitude.length);
     }
 
     /**
@@ -264,12 +361,8 @@ public class SRP6 {
         }
 
         private static BigInteger hash(String input) {
-            try {
-                MessageDigest digest = MessageDigest.getInstance("SHA-1");
-                return new BigInteger(1, digest.digest(input.getBytes()));
-            } catch (Exception e) {
-                throw new RuntimeException("Failed hashing", e);
-            }
+            return new BigInteger(1, CryptoHash.GenericHash.getDigestOf(CryptoHash.Algorithms.SHA1,
+                    CryptoHash.Algorithms.SHA1_LEN, input.getBytes()));
         }
     }
 
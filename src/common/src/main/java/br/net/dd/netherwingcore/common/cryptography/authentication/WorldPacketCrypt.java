@@ -3,7 +3,6 @@ package br.net.dd.netherwingcore.common.cryptography.authentication;
 import br.net.dd.netherwingcore.common.cryptography.AES;
 
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.util.Arrays;
 
 /**
@@ -13,6 +12,9 @@ import java.util.Arrays;
  *
  * It also handles initialization vectors (IVs) and counters for the encryption
  * and decryption processes to ensure data integrity and security.
+ *
+ * <p>The {@link ByteBuffer} methods encrypt and decrypt the packet buffer in place. The IV of each direction is
+ * written into an array kept for the life of the connection, so no object is created per packet.</p>
  */
 public class WorldPacketCrypt {
 
@@ -63,10 +65,23 @@ public class WorldPacketCrypt {
          * @param magic   An integer magic constant to differentiate IVs.
          */
         public WorldPacketCryptIV(long counter, int magic) {
-            // Initialize the IV using little-endian order.
-            ByteBuffer buffer = ByteBuffer.wrap(value).order(ByteOrder.LITTLE_ENDIAN);
-            buffer.putLong(counter); // 8 bytes
-            buffer.putInt(magic); // 4 bytes
+            write(value, counter, magic);
+        }
+
+        /**
+         * Writes the IV of a counter and magic value into an existing array, in little-endian order.
+         *
+         * @param iv      The array receiving the IV, {@link #SIZE} bytes long.
+         * @param counter A long value used as part of the IV.
+         * @param magic   An integer magic constant to differentiate IVs.
+         */
+        public static void write(byte[] iv, long counter, int magic) {
+            for (int i = 0; i < Long.BYTES; i++) {
+                iv[i] = (byte) (counter >>> (i * 8));
+            }
+            for (int i = 0; i < Integer.BYTES; i++) {
+                iv[Long.BYTES + i] = (byte) (magic >>> (i * 8));
+            }
         }
 
         /**
@@ -83,9 +98,16 @@ public class WorldPacketCrypt {
     private final AES clientDecrypt;
     private final AES serverEncrypt;
 
+    private static final int CLIENT_MAGIC = 0x544E4C43;
+    private static final int SERVER_MAGIC = 0x52565253;
+
     // Counters for client and server encryption/decryption
-    private Integer clientCounter;
-    private Integer serverCounter;
+    private long clientCounter;
+    private long serverCounter;
+
+    // IV of the current packet in each direction, rewritten for every packet
+    private final byte[] clientIV = new byte[WorldPacketCryptIV.SIZE];
+    private final byte[] serverIV = new byte[WorldPacketCryptIV.SIZE];
 
     // Tracks whether the cryptographic system is initialized
     private boolean initialized;
@@ -123,9 +145,23 @@ public class WorldPacketCrypt {
      * @return {@code true} if the data can be successfully decrypted; {@code false} otherwise.
      */
     public boolean peekDecryptRecv(byte[] data, int length) {
+        return peekDecryptRecv(data, 0, length);
+    }
+
+    /**
+     * Decrypts in place only the first bytes of the next received packet, such as its size and opcode, without
+     * checking its integrity or advancing the client counter. The packet is later decrypted in full by
+     * {@link #decryptRecv(ByteBuffer, byte[])}.
+     *
+     * @param data   The array holding the encrypted packet.
+     * @param offset The offset of the first encrypted byte.
+     * @param length The number of bytes to decrypt, usually the header size.
+     * @return {@code true} if the bytes were decrypted; {@code false} otherwise.
+     */
+    public boolean peekDecryptRecv(byte[] data, int offset, int length) {
         if (initialized) {
-            WorldPacketCryptIV iv = new WorldPacketCryptIV(clientCounter, 0x544E4C43);
-            if (!clientDecrypt.processNoIntegrityCheck(new AES.IV(iv.value), data, length)) {
+            WorldPacketCryptIV.write(clientIV, clientCounter, CLIENT_MAGIC);
+            if (!clientDecrypt.peekDecrypt(clientIV, data, offset, length)) {
                 return false;
             }
         }
@@ -142,9 +178,9 @@ public class WorldPacketCrypt {
      * @return {@code true} if decryption is successful; {@code false} otherwise.
      */
     public boolean decryptRecv(byte[] data, int length, AES.Tag tag) {
-        if  (initialized) {
-            WorldPacketCryptIV iv = new WorldPacketCryptIV(clientCounter, 0x544E4C43);
-            if (!clientDecrypt.process(new AES.IV(iv.value), data, length, tag)) {
+        if (initialized) {
+            WorldPacketCryptIV.write(clientIV, clientCounter, CLIENT_MAGIC);
+            if (!clientDecrypt.process(new AES.IV(clientIV), data, length, tag)) {
                 return false;
             }
         } else {
@@ -155,6 +191,28 @@ public class WorldPacketCrypt {
         return true;
     }
 
+    /**
+     * Decrypts in place the received data between the position and limit of a buffer, using the current client
+     * counter and verification tag.
+     *
+     * @param data The heap buffer holding the data to be decrypted; its position and limit are left as is.
+     * @param tag  The cryptographic tag used for integrity verification, {@link AES#TAG_SIZE_BYTES} long.
+     * @return {@code true} if decryption is successful; {@code false} otherwise.
+     */
+    public boolean decryptRecv(ByteBuffer data, byte[] tag) {
+        if (initialized) {
+            WorldPacketCryptIV.write(clientIV, clientCounter, CLIENT_MAGIC);
+            if (!clientDecrypt.process(clientIV, data, tag)) {
+                return false;
+            }
+        } else {
+            Arrays.fill(tag, (byte) 0);
+        }
+
+        clientCounter++;
+        return true;
+    }
+
     /**
      * Encrypts the given data using the current server counter and verification tag.
      *
@@ -165,8 +223,8 @@ public class WorldPacketCrypt {
      */
     public boolean encryptSend(byte[] data, int length, AES.Tag tag) {
         if (initialized) {
-            WorldPacketCryptIV iv = new WorldPacketCryptIV(serverCounter, 0x52565253);
-            if (!serverEncrypt.process(new AES.IV(iv.value), data, length, tag)) {
+            WorldPacketCryptIV.write(serverIV, serverCounter, SERVER_MAGIC);
+            if (!serverEncrypt.process(new AES.IV(serverIV), data, length, tag)) {
                 return false;
             }
         } else {
@@ -177,6 +235,27 @@ public class WorldPacketCrypt {
         return true;
     }
 
+    /**
+     * Encrypts in place the data between the position and limit of a buffer, using the current server counter.
+     *
+     * @param data The heap buffer holding the data to be encrypted; its position and limit are left as is.
+     * @param tag  Receives the cryptographic tag used for integrity verification, {@link AES#TAG_SIZE_BYTES} long.
+     * @return {@code true} if encryption is successful; {@code false} otherwise.
+     */
+    public boolean encryptSend(ByteBuffer data, byte[] tag) {
+        if (initialized) {
+            WorldPacketCryptIV.write(serverIV, serverCounter, SERVER_MAGIC);
+            if (!serverEncrypt.process(serverIV, data, tag)) {
+                return false;
+            }
+        } else {
+            Arrays.fill(tag, (byte) 0);
+        }
+
+        serverCounter++;
+        return true;
+    }
+
     /**
      * Checks whether the cryptographic system has been initialized.
      *
@@ -0,0 +1,330 @@
+package br.net.dd.netherwingcore.common.logging;
+
+import br.net.dd.netherwingcore.common.configuration.Config;
+import br.net.dd.netherwingcore.common.utilities.Util;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes log messages to the console and to log files from a single background thread.
+ *
+ * <p>Logging threads only append the formatted message to a lock-free {@link LogRingBuffer}. The writer thread drains
+ * it in batches, prints each batch to the console at once and appends it to the log files of the
+ * {@link LogFileRegistry}, which stay open, roll over and are flushed on an interval, so no logging thread ever waits
+ * on a file or on another logging thread.</p>
+ *
+ * <p>When the buffer is full, {@code Log.AsyncOverflow} decides what happens to new messages: the caller waits for
+ * room ({@link OverflowPolicy#BLOCK}), the message is dropped ({@link OverflowPolicy#DROP}), or only messages less
+ * severe than {@code Log.AsyncOverflowLevel} are dropped while the others wait ({@link OverflowPolicy#DROP_BELOW_LEVEL}).
+ * Dropped messages are counted and reported by the writer. Until the configuration is loaded, with {@code Log.Async}
+ * disabled, or once the appender is shut down, messages are written synchronously by the calling thread.</p>
+ *
+ * <p>The appender is set up by {@link #configure()} once the configuration is loaded. The overflow settings are applied
+ * again on every reload, while {@code Log.Async} and {@code Log.AsyncQueueSize} need a restart.</p>
+ */
+public final class AsyncAppender {
+
+    private static final int BATCH_SIZE = 512;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long SHUTDOWN_TIMEOUT_MS = 2000;
+
+    /**
+     * What happens to a message logged while the buffer is full.
+     */
+    public enum OverflowPolicy {
+        /** The logging thread waits until the writer makes room. */
+        BLOCK,
+        /** The message is dropped. */
+        DROP,
+        /** Messages less severe than the configured level are dropped, the others wait. */
+        DROP_BELOW_LEVEL
+    }
+
+    private static final class Holder {
+        private static final AsyncAppender INSTANCE = new AsyncAppender();
+    }
+
+    private final LongAdder dropped;
+    private final LogFileRegistry files;
+    private final Thread writer;
+    private LogRingBuffer<LogEvent> buffer; // Published to the logging threads by the write to running
+    private volatile OverflowPolicy overflowPolicy;
+    private volatile int overflowSeverity;
+    private volatile boolean running;
+    private volatile boolean sleeping;
+    private boolean configured;
+
+    /**
+     * Creates the appender, which writes synchronously until {@link #configure()} starts its writer thread.
+     */
+    private AsyncAppender() {
+        this.dropped = new LongAdder();
+        this.files = LogFileRegistry.getInstance();
+        this.writer = Thread.ofPlatform().name("LogWriter").daemon(true).unstarted(this::run);
+        this.overflowPolicy = OverflowPolicy.BLOCK;
+        this.overflowSeverity = Level.WARNING.getSeverity();
+    }
+
+    /**
+     * Returns the singleton instance of the AsyncAppender.
+     *
+     * @return the singleton instance
+     */
+    public static AsyncAppender getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Applies the {@code Log.Async*} settings, called by {@link Log#configure()} whenever the configuration is loaded.
+     *
+     * <p>The first call closes the log files opened while the configuration was loading, so they are opened again
+     * under {@code LogsDir}, and starts the writer thread with a buffer of {@code Log.AsyncQueueSize} messages if
+     * {@code Log.Async} is enabled. Later calls only apply the overflow policy.</p>
+     */
+    synchronized void configure() {
+        OverflowPolicy[] policies = OverflowPolicy.values();
+        overflowPolicy = policies[Math.clamp(config("Log.AsyncOverflow", 0), 0, policies.length - 1)];
+        overflowSeverity = config("Log.AsyncOverflowLevel", Level.WARNING.getSeverity());
+
+        if (configured) {
+            return;
+        }
+        configured = true;
+        files.closeAll();
+
+        if (config("Log.Async", 1) == 1) {
+            buffer = new LogRingBuffer<>(config("Log.AsyncQueueSize", 8192));
+            running = true;
+            writer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "LogWriter-Shutdown"));
+        }
+    }
+
+    /**
+     * Queues a message for the writer thread, applying the overflow policy if the buffer is full.
+     *
+     * @param level the level of the message
+     * @param text  the formatted message
+     * @param files the names of the log files the message is also written to
+     */
+    void append(Level level, String text, String[] files) {
+        append(new LogEvent(level, text, files));
+    }
+
+    /**
+     * Queues an event for the writer thread, applying the overflow policy if the buffer is full. Structured events
+     * are also written to the {@link BinaryLogSink}.
+     *
+     * @param event the event
+     */
+    void append(LogEvent event) {
+        // The writer itself may log; it must never wait on its own buffer.
+        if (!running || Thread.currentThread() == writer) {
+            writeDirect(event);
+            return;
+        }
+
+        if (!buffer.offer(event) && !handleOverflow(event)) {
+            dropped.increment();
+            return;
+        }
+
+        if (!running) {
+            // Stopped while queueing: the writer may have made its final pass before the event was claimed.
+            drainStopped();
+        } else if (sleeping) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Writes on the calling thread the messages queued after the writer made its final pass. Waits for the writer to
+     * finish first, so the buffer keeps a single consumer at a time.
+     */
+    private void drainStopped() {
+        try {
+            writer.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        synchronized (buffer) {
+            if (writer.isAlive()) {
+                return;
+            }
+            LogEvent event;
+            while ((event = buffer.poll()) != null) {
+                writeDirect(event);
+            }
+        }
+    }
+
+    /**
+     * Applies the overflow policy to a message that did not fit in the buffer.
+     *
+     * @return true if the message was eventually queued or written, false if it must be dropped
+     */
+    private boolean handleOverflow(LogEvent event) {
+        OverflowPolicy policy = overflowPolicy;
+        if (policy == OverflowPolicy.DROP) {
+            return false;
+        }
+        if (policy == OverflowPolicy.DROP_BELOW_LEVEL && event.level().getSeverity() < overflowSeverity) {
+            return false;
+        }
+
+        while (!buffer.offer(event)) {
+            if (!running) {
+                writeDirect(event);
+                return true;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * Stops the writer thread once it has written every queued message, and closes the log files. Messages logged
+     * afterwards are written synchronously.
+     */
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+
+        try {
+            writer.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the number of messages dropped because the buffer was full, since the writer last reported them.
+     *
+     * @return the number of dropped messages
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Main loop of the writer thread: drains the buffer in batches and parks when it is empty.
+     */
+    private void run() {
+        StringBuilder console = new StringBuilder();
+
+        // Once stopped, also waits for the messages claimed by logging threads that saw the appender still running.
+        while (running || !buffer.isDrained()) {
+            int count = 0;
+            LogEvent event;
+            while (count < BATCH_SIZE && (event = buffer.poll()) != null) {
+                console.append(event.text()).append(System.lineSeparator());
+                for (String file : event.files()) {
+                    files.get(file).write(event.text());
+                }
+                if (event.isStructured()) {
+                    BinaryLogSink.getInstance().write(event);
+                }
+                count++;
+            }
+
+            if (count > 0) {
+                flush(console);
+                continue;
+            }
+
+            reportDropped();
+            files.flushIfDue();
+
+            if (!running) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            sleeping = true;
+            if (running && buffer.isEmpty()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            sleeping = false;
+        }
+
+        reportDropped();
+        files.closeAll();
+        BinaryLogSink.getInstance().close();
+    }
+
+    /**
+     * Writes a batch to the console and clears it, then writes out the log files whose flush interval elapsed.
+     */
+    private void flush(StringBuilder console) {
+        System.out.print(console);
+        System.out.flush();
+        console.setLength(0);
+
+        files.flushIfDue();
+    }
+
+    /**
+     * Writes a line about the messages dropped since the last report, if any.
+     */
+    private void reportDropped() {
+        long count = dropped.sumThenReset();
+        if (count > 0) {
+            System.out.println("[ " + Level.WARNING + " ] " + count + " log messages dropped, the log queue was full");
+        }
+    }
+
+    /**
+     * Writes a message on the calling thread, as done when the appender is disabled or stopped.
+     */
+    private static void writeDirect(LogEvent event) {
+        System.out.println(event.text());
+        for (String name : event.files()) {
+            RollingLogFile file = LogFileRegistry.getInstance().get(name);
+            file.write(event.text());
+            file.flush();
+        }
+        if (event.isStructured()) {
+            BinaryLogSink.getInstance().write(event);
+        }
+    }
+
+    /**
+     * Resolves a log file name against {@code LogsDir}, or the location of the running jar if it is not set. Called
+     * once per file, when the {@link LogFileRegistry} opens it; files opened before the configuration is loaded are
+     * resolved again by {@link #configure()}.
+     */
+    static Path resolve(String fileName) {
+        String logsDir;
+        try {
+            logsDir = Config.get("LogsDir", "").replace("\"", "");
+        } catch (IllegalStateException e) {
+            logsDir = "";
+        }
+        if (logsDir.isEmpty()) {
+            logsDir = Util.getJarLocation();
+        }
+        return new File(logsDir + File.separator + fileName).toPath();
+    }
+
+    /**
+     * Reads a setting, falling back to its default if the configuration is not loaded yet.
+     */
+    private static int config(String key, int defaultValue) {
+        try {
+            return Config.get(key, defaultValue);
+        } catch (IllegalStateException e) {
+            return defaultValue;
+        }
+    }
+}
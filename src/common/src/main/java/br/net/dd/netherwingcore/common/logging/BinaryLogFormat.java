@@ -0,0 +1,123 @@
+package br.net.dd.netherwingcore.common.logging;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+/**
+ * Layout of the segments written by the {@link BinaryLogSink} and read by the {@link BinaryLogReader}.
+ *
+ * <p>A segment starts with a header of {@value #HEADER_SIZE} bytes: the magic number {@value #MAGIC}, the format
+ * version as a short, two reserved bytes and the creation time in epoch milliseconds. Records follow, each one an int
+ * with the length of the rest of the record, then a type byte:</p>
+ * <ul>
+ *   <li>{@link #RECORD_LOGGER}: an int id followed by the logger name;</li>
+ *   <li>{@link #RECORD_TEMPLATE}: an int id followed by the message template;</li>
+ *   <li>{@link #RECORD_EVENT}: the time in epoch microseconds as a long, the level severity as a byte, the logger
+ *   and template ids as ints, the number of arguments as an unsigned byte and the arguments.</li>
+ * </ul>
+ *
+ * <p>Logger names and templates are defined once per segment, before the first event that uses them, so every
+ * segment can be decoded on its own. Each argument is a tag byte followed by its value: nothing for
+ * {@link #ARG_NULL}, a long for {@link #ARG_LONG}, a double for {@link #ARG_DOUBLE}, a byte for {@link #ARG_BOOLEAN},
+ * and an int length followed by the bytes for {@link #ARG_BYTES} and for {@link #ARG_STRING}, which is UTF-8.
+ * A segment ends with its last record once closed; one left by a crash keeps its mapped size, padded with zeros,
+ * so a record length of zero also marks the end of the data. All values are big-endian.</p>
+ */
+public final class BinaryLogFormat {
+
+    /** Magic number at the start of every segment, "NWBL". */
+    public static final int MAGIC = 0x4E57424C;
+    /** Version of the format described here. */
+    public static final short VERSION = 1;
+    /** Size of the segment header. */
+    public static final int HEADER_SIZE = 16;
+    /** File extension of the segments. */
+    public static final String EXTENSION = ".nwlog";
+
+    public static final byte RECORD_LOGGER = 1;
+    public static final byte RECORD_TEMPLATE = 2;
+    public static final byte RECORD_EVENT = 3;
+
+    public static final byte ARG_NULL = 0;
+    public static final byte ARG_LONG = 1;
+    public static final byte ARG_DOUBLE = 2;
+    public static final byte ARG_BOOLEAN = 3;
+    public static final byte ARG_STRING = 4;
+    public static final byte ARG_BYTES = 5;
+
+    /** Most arguments an event can carry; the rest are dropped. */
+    public static final int MAX_ARGUMENTS = 255;
+
+    private BinaryLogFormat() {
+    }
+
+    /**
+     * Converts the arguments of a log call into values that can be stored as they are and written later: suppliers
+     * are called, integral numbers become longs, other numbers doubles, byte arrays are copied and anything else
+     * but strings and booleans is converted to its string form. {@link LogFile}s are left out.
+     *
+     * @param values the arguments of the log call
+     * @return the values to write
+     */
+    public static Object[] capture(Object[] values) {
+        int count = 0;
+        for (Object value : values) {
+            if (!(value instanceof LogFile)) {
+                count++;
+            }
+        }
+
+        Object[] arguments = new Object[Math.min(count, MAX_ARGUMENTS)];
+        int index = 0;
+        for (Object value : values) {
+            if (value instanceof LogFile) {
+                continue;
+            }
+            if (index == arguments.length) {
+                break;
+            }
+            arguments[index++] = captureValue(value instanceof Supplier<?> supplier ? supplier.get() : value);
+        }
+        return arguments;
+    }
+
+    private static Object captureValue(Object value) {
+        return switch (value) {
+            case null -> null;
+            case Byte b -> b.longValue();
+            case Short s -> s.longValue();
+            case Integer i -> i.longValue();
+            case Long l -> l;
+            case Float f -> f.doubleValue();
+            case Double d -> d;
+            case Boolean b -> b;
+            case String s -> s;
+            case byte[] bytes -> bytes.clone();
+            default -> String.valueOf(value);
+        };
+    }
+
+    /**
+     * Writes a length-prefixed string.
+     *
+     * @param buffer the buffer to write to
+     * @param value  the string
+     */
+    static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    /**
+     * Reads a length-prefixed string.
+     *
+     * @param buffer the buffer to read from
+     * @return the string
+     */
+    static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,105 @@
+package br.net.dd.netherwingcore.common.logging;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static br.net.dd.netherwingcore.common.logging.BinaryLogFormat.*;
+
+/**
+ * Decodes the segments written by the {@link BinaryLogSink}.
+ *
+ * <p>Reading stops at the end of the written data. A truncated or damaged record ends the segment as well, so a
+ * segment still being written, or left behind by a crash, can be read up to its last complete record.</p>
+ */
+public final class BinaryLogReader {
+
+    private BinaryLogReader() {
+    }
+
+    /**
+     * Reads every event of a segment, in the order they were written.
+     *
+     * @param segment  the segment file
+     * @param consumer receives the events
+     * @return the number of events read
+     * @throws IOException if the file cannot be read or is not a binary log segment
+     */
+    public static long read(Path segment, Consumer<BinaryLogRecord> consumer) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException(segment + " is not a binary log segment");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException(segment + " has unsupported format version " + version);
+        }
+        buffer.position(HEADER_SIZE);
+
+        Map<Integer, String> loggers = new HashMap<>();
+        Map<Integer, String> templates = new HashMap<>();
+        long count = 0;
+
+        while (buffer.remaining() >= Integer.BYTES) {
+            int length = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                break;
+            }
+
+            ByteBuffer record = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+
+            try {
+                byte type = record.get();
+                switch (type) {
+                    case RECORD_LOGGER -> loggers.put(record.getInt(), getString(record));
+                    case RECORD_TEMPLATE -> templates.put(record.getInt(), getString(record));
+                    case RECORD_EVENT -> {
+                        consumer.accept(readEvent(record, loggers, templates));
+                        count++;
+                    }
+                    default -> {
+                        // Record of a newer writer, skipped.
+                    }
+                }
+            } catch (BufferUnderflowException e) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    private static BinaryLogRecord readEvent(ByteBuffer record, Map<Integer, String> loggers, Map<Integer, String> templates) {
+        long epochMicros = record.getLong();
+        Level level = Level.fromSeverity(record.get());
+        String logger = loggers.getOrDefault(record.getInt(), "?");
+        String template = templates.getOrDefault(record.getInt(), "?");
+
+        Object[] arguments = new Object[Byte.toUnsignedInt(record.get())];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = switch (record.get()) {
+                case ARG_LONG -> record.getLong();
+                case ARG_DOUBLE -> record.getDouble();
+                case ARG_BOOLEAN -> record.get() != 0;
+                case ARG_STRING -> getString(record);
+                case ARG_BYTES -> {
+                    byte[] bytes = new byte[record.getInt()];
+                    record.get(bytes);
+                    yield bytes;
+                }
+                default -> null;
+            };
+        }
+        return new BinaryLogRecord(epochMicros, level, logger, template, arguments);
+    }
+}
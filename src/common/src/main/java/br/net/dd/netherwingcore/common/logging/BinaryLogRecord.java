@@ -0,0 +1,53 @@
+package br.net.dd.netherwingcore.common.logging;
+
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * A log event decoded from a binary log segment.
+ *
+ * @param epochMicros the time of the event, in microseconds since the epoch
+ * @param level       the level of the event, or null if the severity is unknown
+ * @param logger      the name of the logger
+ * @param template    the message template, with "{}" placeholders
+ * @param arguments   the arguments, as Long, Double, Boolean, String or byte[] values, or null
+ */
+public record BinaryLogRecord(long epochMicros, Level level, String logger, String template, Object[] arguments) {
+
+    /**
+     * Returns the time of the event.
+     *
+     * @return the time of the event
+     */
+    public Instant timestamp() {
+        return Instant.ofEpochSecond(Math.floorDiv(epochMicros, 1_000_000L), Math.floorMod(epochMicros, 1_000_000L) * 1000L);
+    }
+
+    /**
+     * Returns the message, with each placeholder of the template replaced by the next argument, the way
+     * {@link Log} formats it. Byte arrays are written in hexadecimal.
+     *
+     * @return the formatted message
+     */
+    public String message() {
+        StringBuilder builder = new StringBuilder(template.length() + 32);
+        int argumentIndex = 0;
+        int start = 0;
+        int placeholder;
+        while (argumentIndex < arguments.length && (placeholder = template.indexOf("{}", start)) >= 0) {
+            builder.append(template, start, placeholder).append(argumentText(arguments[argumentIndex++]));
+            start = placeholder + 2;
+        }
+        return builder.append(template, start, template.length()).toString();
+    }
+
+    /**
+     * Returns the text form of an argument.
+     *
+     * @param argument the argument
+     * @return its text form
+     */
+    public static String argumentText(Object argument) {
+        return argument instanceof byte[] bytes ? HexFormat.of().formatHex(bytes) : String.valueOf(argument);
+    }
+}
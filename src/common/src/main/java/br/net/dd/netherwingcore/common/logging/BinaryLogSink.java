@@ -0,0 +1,315 @@
+package br.net.dd.netherwingcore.common.logging;
+
+import br.net.dd.netherwingcore.common.configuration.Config;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import static br.net.dd.netherwingcore.common.logging.BinaryLogFormat.*;
+
+/**
+ * Writes log events as compact binary records, in the {@link BinaryLogFormat}, to rolling memory-mapped segments.
+ *
+ * <p>Instead of the formatted text, an event stores its time, level, logger and template ids and its arguments, so
+ * a constant banner line costs a few bytes and a hex dump its raw bytes. Segments are named
+ * {@code <Log.BinaryFile>-<date>-<time>-<sequence>.nwlog} in the logs directory and mapped in memory
+ * {@code Log.BinarySegmentSize} megabytes at a time, so writing an event is a copy into the page cache. Mapping does
+ * not allocate disk space up front: on most file systems the file is sparse until written. When a segment is full or
+ * the sink is closed, it is unmapped and trimmed to its content; with {@code Log.BinaryMaxSegments} set the oldest
+ * segments written by this process are then deleted.</p>
+ *
+ * <p>Events reach the sink through the {@link AsyncAppender}, normally from its writer thread only. The methods are
+ * synchronized for the cases where messages are written by the logging threads themselves.</p>
+ */
+public final class BinaryLogSink {
+
+    private static final DateTimeFormatter FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final int LOGGER_ID_OFFSET = Integer.BYTES + 1 + Long.BYTES + 1;
+    private static final int TEMPLATE_ID_OFFSET = LOGGER_ID_OFFSET + Integer.BYTES;
+
+    private static final class Holder {
+        private static final BinaryLogSink INSTANCE = new BinaryLogSink();
+    }
+
+    private final String filePrefix;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final Map<String, Integer> loggerIds;
+    private final Map<String, Integer> templateIds;
+    private final Deque<Path> segments;
+    private final LongAdder dropped;
+    private ByteBuffer scratch;
+    // The arena owns the mapping, so closing it unmaps the segment at once. Shared, as any logging thread may write.
+    private FileChannel channel;
+    private Arena arena;
+    private MemorySegment mapping;
+    private ByteBuffer segment;
+    private Path segmentPath;
+    private int sequence;
+    private boolean failed;
+
+    /**
+     * Creates the sink according to the {@code Log.Binary*} settings. The first segment is created by the first event.
+     */
+    private BinaryLogSink() {
+        String prefix;
+        try {
+            prefix = Config.get("Log.BinaryFile", "Server").replace("\"", "");
+        } catch (IllegalStateException e) {
+            prefix = "Server";
+        }
+        this.filePrefix = prefix.isEmpty() ? "Server" : prefix;
+        this.segmentSize = Math.clamp(config("Log.BinarySegmentSize", 64), 1, 1024) * 1024 * 1024;
+        this.maxSegments = Math.max(0, config("Log.BinaryMaxSegments", 0));
+        this.loggerIds = new HashMap<>();
+        this.templateIds = new HashMap<>();
+        this.segments = new ArrayDeque<>();
+        this.dropped = new LongAdder();
+        this.scratch = ByteBuffer.allocate(4096);
+    }
+
+    /**
+     * Returns the singleton instance of the BinaryLogSink.
+     *
+     * @return the singleton instance
+     */
+    public static BinaryLogSink getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Appends an event to the current segment, starting a new one if it does not fit. Events larger than a whole
+     * segment are dropped.
+     *
+     * @param event the event, which must carry a template
+     */
+    synchronized void write(LogEvent event) {
+        if (failed) {
+            dropped.increment();
+            return;
+        }
+
+        try {
+            if (segment == null) {
+                openSegment();
+            }
+
+            encode(event);
+            int size = scratch.position();
+            if (size + definitionsSize(event) > segment.remaining()) {
+                if (size > segmentSize - HEADER_SIZE) {
+                    dropped.increment();
+                    return;
+                }
+                rollSegment();
+                if (size + definitionsSize(event) > segment.remaining()) {
+                    dropped.increment();
+                    return;
+                }
+            }
+
+            scratch.putInt(LOGGER_ID_OFFSET, define(loggerIds, RECORD_LOGGER, event.logger()));
+            scratch.putInt(TEMPLATE_ID_OFFSET, define(templateIds, RECORD_TEMPLATE, event.template()));
+            segment.put(scratch.flip());
+        } catch (IOException e) {
+            failed = true;
+            System.err.println("Binary log disabled, failed to create a segment: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Closes the current segment, as done when the appender stops. A later event starts a new segment.
+     */
+    public synchronized void close() {
+        closeSegment();
+    }
+
+    /**
+     * Returns the number of events that could not be written.
+     *
+     * @return the number of dropped events
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Encodes an event into the scratch buffer, with its ids left to be filled in, growing the buffer as needed.
+     */
+    private void encode(LogEvent event) {
+        while (true) {
+            scratch.clear();
+            try {
+                scratch.putInt(0).put(RECORD_EVENT)
+                        .putLong(event.epochMicros())
+                        .put((byte) event.level().getSeverity())
+                        .putInt(0).putInt(0)
+                        .put((byte) event.arguments().length);
+                for (Object argument : event.arguments()) {
+                    putArgument(argument);
+                }
+                scratch.putInt(0, scratch.position() - Integer.BYTES);
+                return;
+            } catch (BufferOverflowException e) {
+                if (scratch.capacity() >= segmentSize) {
+                    // Larger than a segment, the size check drops it.
+                    scratch.position(scratch.limit());
+                    return;
+                }
+                scratch = ByteBuffer.allocate(Math.min(scratch.capacity() * 2, segmentSize));
+            }
+        }
+    }
+
+    private void putArgument(Object argument) {
+        switch (argument) {
+            case null -> scratch.put(ARG_NULL);
+            case Long value -> scratch.put(ARG_LONG).putLong(value);
+            case Double value -> scratch.put(ARG_DOUBLE).putDouble(value);
+            case Boolean value -> scratch.put(ARG_BOOLEAN).put((byte) (value ? 1 : 0));
+            case byte[] bytes -> scratch.put(ARG_BYTES).putInt(bytes.length).put(bytes);
+            default -> {
+                scratch.put(ARG_STRING);
+                putString(scratch, argument.toString());
+            }
+        }
+    }
+
+    /**
+     * Returns the size of the definition records the event still needs in the current segment.
+     */
+    private int definitionsSize(LogEvent event) {
+        int size = 0;
+        if (!loggerIds.containsKey(event.logger())) {
+            size += definitionSize(event.logger());
+        }
+        if (!templateIds.containsKey(event.template())) {
+            size += definitionSize(event.template());
+        }
+        return size;
+    }
+
+    private static int definitionSize(String value) {
+        return Integer.BYTES + 1 + Integer.BYTES + Integer.BYTES + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Returns the id of a logger name or template in the current segment, writing its definition first if needed.
+     */
+    private int define(Map<String, Integer> ids, byte type, String value) {
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+
+        id = ids.size() + 1;
+        ids.put(value, id);
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        segment.putInt(1 + Integer.BYTES + Integer.BYTES + bytes.length)
+                .put(type)
+                .putInt(id)
+                .putInt(bytes.length)
+                .put(bytes);
+        return id;
+    }
+
+    /**
+     * Creates and maps a new segment, and writes its header.
+     */
+    private void openSegment() throws IOException {
+        segmentPath = AsyncAppender.resolve(filePrefix + "-" + LocalDateTime.now().format(FILE_DATE_FORMAT)
+                + "-" + (++sequence) + EXTENSION);
+
+        channel = FileChannel.open(segmentPath,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        arena = Arena.ofShared();
+        try {
+            mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize, arena);
+        } catch (IOException e) {
+            arena.close();
+            channel.close();
+            channel = null;
+            arena = null;
+            throw e;
+        }
+        segment = mapping.asByteBuffer();
+
+        segment.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putLong(System.currentTimeMillis());
+        loggerIds.clear();
+        templateIds.clear();
+        segments.addLast(segmentPath);
+    }
+
+    /**
+     * Writes the current segment to disk, unmaps it and trims it to its content. The mapping must be gone before the
+     * file is truncated, which Windows refuses for a mapped file.
+     */
+    private void closeSegment() {
+        if (channel == null) {
+            return;
+        }
+
+        long length = segment.position();
+        mapping.force();
+        arena.close();
+        try {
+            channel.truncate(length);
+        } catch (IOException e) {
+            System.err.println("Failed to trim binary log segment " + segmentPath + ": " + e.getMessage());
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // The content was forced to disk above.
+        }
+        channel = null;
+        arena = null;
+        mapping = null;
+        segment = null;
+    }
+
+    /**
+     * Closes the current segment, starts the next one and deletes the oldest ones beyond the retention limit, which
+     * are all unmapped by then.
+     */
+    private void rollSegment() throws IOException {
+        closeSegment();
+        openSegment();
+
+        while (maxSegments > 0 && segments.size() > maxSegments) {
+            Path oldest = segments.removeFirst();
+            try {
+                Files.deleteIfExists(oldest);
+            } catch (IOException e) {
+                System.err.println("Failed to delete binary log segment " + oldest + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads a setting, falling back to its default if the configuration is not loaded yet.
+     */
+    private static int config(String key, int defaultValue) {
+        try {
+            return Config.get(key, defaultValue);
+        } catch (IllegalStateException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -25,7 +25,6 @@ public class DebugMessage extends Message {
      * @param message The debug message content to be logged or processed.
      */
     public DebugMessage(String message) {
-        super(message);
-        level = Level.DEBUG;
+        super(message, Level.DEBUG);
     }
 }
@@ -25,7 +25,6 @@ public class ErrorMessage extends Message {
      * @param message The content of the error message.
      */
     public ErrorMessage(String message) {
-        super(message);
-        level = Level.ERROR;
+        super(message, Level.ERROR);
     }
 }
@@ -20,7 +20,6 @@ public class FatalErrorMessage extends Message {
      * @param message the details of the fatal error message
      */
     public FatalErrorMessage(String message) {
-        super(message);
-        level = Level.FATAL_ERROR;
+        super(message, Level.FATAL_ERROR);
     }
 }
@@ -18,7 +18,6 @@ public class InformationMessage extends Message {
      * @param message the text of the informational message
      */
     public InformationMessage(String message) {
-        super(message);
-        level = Level.INFORMATION;
+        super(message, Level.INFORMATION);
     }
 }
@@ -18,42 +18,73 @@ public enum Level {
     /**
      * General information about the operation of the system, used for non-critical log messages.
      */
-    INFORMATION,
+    INFORMATION(3),
 
     /**
      * Represents a warning that indicates a potential issue in the system,
      * but does not stop its operation.
      */
-    WARNING,
+    WARNING(4),
 
     /**
      * Represents an error that causes an operation to fail, but
      * the system continues running.
      */
-    ERROR,
+    ERROR(5),
 
     /**
      * Represents a severe error that affects the system's ability to continue operating.
      * This level is used for critical issues.
      */
-    FATAL_ERROR,
+    FATAL_ERROR(6),
 
     /**
      * Represents debug-level information used for development and troubleshooting purposes.
      */
-    DEBUG,
+    DEBUG(2),
 
     /**
      * Represents trace-level information that provides detailed insights into the application's execution flow.
      * This level is typically used for very fine-grained logging, such as method entry and exit points,
      * variable values, and other detailed information that can help trace the execution of the application.
      */
-    TRACE,
+    TRACE(1),
 
     /**
      * Represents log messages that are intended to be output to the console.
      * This level is used for messages that should be visible in the console output,
      * regardless of the configured log file targets.
      */
-    CONSOLE
+    CONSOLE(7);
+
+    private final int severity;
+
+    Level(int severity) {
+        this.severity = severity;
+    }
+
+    /**
+     * Returns the severity of this level, from 1 ({@link #TRACE}) to 6 ({@link #FATAL_ERROR}), matching the LogLevel
+     * values of the configuration file. {@link #CONSOLE} messages rank above every other level.
+     *
+     * @return the severity of this level
+     */
+    public int getSeverity() {
+        return severity;
+    }
+
+    /**
+     * Returns the level of a severity, as returned by {@link #getSeverity()}.
+     *
+     * @param severity the severity
+     * @return the level with that severity, or null if there is none
+     */
+    public static Level fromSeverity(int severity) {
+        for (Level level : values()) {
+            if (level.severity == severity) {
+                return level;
+            }
+        }
+        return null;
+    }
 }
@@ -1,27 +1,51 @@
 package br.net.dd.netherwingcore.common.logging;
 
 import br.net.dd.netherwingcore.common.configuration.Config;
-import br.net.dd.netherwingcore.common.serialization.FileManager;
 import br.net.dd.netherwingcore.common.utilities.DataFormat;
-import br.net.dd.netherwingcore.common.utilities.Util;
 
-import java.io.File;
-import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * Provides functionalities for logging messages to various log files with different severity levels.
  * The logging framework supports structured messages with details like logging level and file targets.
  * This class handles the construction, formatting, and writing of log messages.
+ *
+ * <p>Messages below the threshold of their logger are discarded before anything is formatted or allocated. The
+ * threshold is the global {@code Log.Level}, unless the logger has its own entry in {@code Log.LoggerLevels} or was
+ * given one with {@link #setLevel(Level)}. Both use the LogLevel values of the configuration file (0 disables the
+ * logger, 1 is trace up to 6 for fatal). Arguments that are expensive to compute can be passed as {@link Supplier}s,
+ * which are only called when the message is actually logged.</p>
+ *
+ * <p>With {@code Log.Binary} enabled, messages are also written to the {@link BinaryLogSink} as their template and
+ * arguments. Set to 2, the binary log replaces the text log files while messages are still printed to the console.</p>
  */
 public class Log {
 
-    private boolean debugEnabled = false;
+    private static final int INHERIT = -1;
+    private static final int DISABLED = 0;
+    private static final String[] NO_FILES = new String[0];
+    private static final int BINARY_DISABLED = 0;
+    private static final int BINARY_ONLY = 2;
+
+    private static final Map<String, Log> loggers = new ConcurrentHashMap<>();
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern(DataFormat.REGEX_DATE_LOG_EVENT);
+
+    private static volatile int globalThreshold = Level.INFORMATION.getSeverity();
+    private static volatile Map<String, Integer> loggerThresholds = Map.of();
+    private static volatile boolean showClassName = true;
+    private static volatile int binaryMode = BINARY_DISABLED;
+
     private final String className;
+    private volatile int threshold;
 
     /**
      * Private constructor to prevent instantiation of the Log class.
@@ -32,17 +56,32 @@ public class Log {
     private Log(String className) {
         // Private constructor to prevent instantiation
         this.className = className;
+        this.threshold = configuredThreshold(className);
     }
 
     /**
      * Factory method to obtain a logger instance for a specific class.
-     * This method creates and returns a new Log instance associated with the provided class name.
+     * Loggers are shared by name, so a level set on one applies to every user of that name.
      *
      * @param className The name of the class for which the logger is being created. This is typically the simple name of the class (e.g., MyClass.class.getSimpleName()).
-     * @return A new Log instance that can be used for logging messages related to the specified class.
+     * @return The Log instance that can be used for logging messages related to the specified class.
      */
     public static Log getLogger(String className) {
-        return new Log(className);
+        return loggers.computeIfAbsent(className, Log::new);
+    }
+
+    /**
+     * Reads the logging thresholds from the configuration again, for the global level and for every logger without a
+     * level set through {@link #setLevel(Level)}, and applies the {@code Log.Async*} settings to the
+     * {@link AsyncAppender}. Called once the configuration is loaded, and after every reload.
+     */
+    public static void configure() {
+        globalThreshold = config("Log.Level", Level.INFORMATION.getSeverity());
+        showClassName = config("Log.ShowClassName", 1) == 1;
+        binaryMode = config("Log.Binary", BINARY_DISABLED);
+        loggerThresholds = parseLoggerLevels(config("Log.LoggerLevels", ""));
+        loggers.values().forEach(logger -> logger.threshold = configuredThreshold(logger.className));
+        AsyncAppender.getInstance().configure();
     }
 
     /**
@@ -64,7 +103,21 @@ public class Log {
      *                   using these parameters before logging.
      */
     public void info(String message, Object... parameters) {
-        processLog(message, Level.INFORMATION, parameters);
+        if (isEnabled(Level.INFORMATION)) {
+            processLog(message, Level.INFORMATION, parameters);
+        }
+    }
+
+    /**
+     * Same as {@link #info(String, Object...)}, with arguments computed only if the message is logged.
+     *
+     * @param message    The message template.
+     * @param parameters Suppliers of the values of the placeholders.
+     */
+    public void info(String message, Supplier<?>... parameters) {
+        if (isEnabled(Level.INFORMATION)) {
+            processLog(message, Level.INFORMATION, parameters);
+        }
     }
 
     /**
@@ -76,7 +129,21 @@ public class Log {
      *                   using these parameters before logging.
      */
     public void warn(String message, Object... parameters) {
-        processLog(message, Level.WARNING, parameters);
+        if (isEnabled(Level.WARNING)) {
+            processLog(message, Level.WARNING, parameters);
+        }
+    }
+
+    /**
+     * Same as {@link #warn(String, Object...)}, with arguments computed only if the message is logged.
+     *
+     * @param message    The message template.
+     * @param parameters Suppliers of the values of the placeholders.
+     */
+    public void warn(String message, Supplier<?>... parameters) {
+        if (isEnabled(Level.WARNING)) {
+            processLog(message, Level.WARNING, parameters);
+        }
     }
 
     /**
@@ -88,7 +155,21 @@ public class Log {
      *                   using these parameters before logging.
      */
     public void error(String message, Object... parameters) {
-        processLog(message, Level.ERROR, parameters);
+        if (isEnabled(Level.ERROR)) {
+            processLog(message, Level.ERROR, parameters);
+        }
+    }
+
+    /**
+     * Same as {@link #error(String, Object...)}, with arguments computed only if the message is logged.
+     *
+     * @param message    The message template.
+     * @param parameters Suppliers of the values of the placeholders.
+     */
+    public void error(String message, Supplier<?>... parameters) {
+        if (isEnabled(Level.ERROR)) {
+            processLog(message, Level.ERROR, parameters);
+        }
     }
 
     /**
@@ -100,7 +181,21 @@ public class Log {
      *                   using these parameters before logging.
      */
     public void fatal(String message, Object... parameters) {
-        processLog(message, Level.FATAL_ERROR, parameters);
+        if (isEnabled(Level.FATAL_ERROR)) {
+            processLog(message, Level.FATAL_ERROR, parameters);
+        }
+    }
+
+    /**
+     * Same as {@link #fatal(String, Object...)}, with arguments computed only if the message is logged.
+     *
+     * @param message    The message template.
+     * @param parameters Suppliers of the values of the placeholders.
+     */
+    public void fatal(String message, Supplier<?>... parameters) {
+        if (isEnabled(Level.FATAL_ERROR)) {
+            processLog(message, Level.FATAL_ERROR, parameters);
+        }
     }
 
     /**
@@ -112,7 +207,21 @@ public class Log {
      *                   using these parameters before logging.
      */
     public void debug(String message, Object... parameters) {
-        processLog(message, Level.DEBUG, parameters);
+        if (isEnabled(Level.DEBUG)) {
+            processLog(message, Level.DEBUG, parameters);
+        }
+    }
+
+    /**
+     * Same as {@link #debug(String, Object...)}, with arguments computed only if the message is logged.
+     *
+     * @param message    The message template.
+     * @param parameters Suppliers of the values of the placeholders.
+     */
+    public void debug(String message, Supplier<?>... parameters) {
+        if (isEnabled(Level.DEBUG)) {
+            processLog(message, Level.DEBUG, parameters);
+        }
     }
 
     /**
@@ -123,12 +232,29 @@ public class Log {
      * @param parameters Optional parameters to format the message. If provided, the message will be formatted
      *                   using these parameters before logging.
      */
-    public void trace(String message, Object... parameters) { processLog( message, Level.TRACE, parameters); }
+    public void trace(String message, Object... parameters) {
+        if (isEnabled(Level.TRACE)) {
+            processLog(message, Level.TRACE, parameters);
+        }
+    }
+
+    /**
+     * Same as {@link #trace(String, Object...)}, with arguments computed only if the message is logged.
+     *
+     * @param message    The message template.
+     * @param parameters Suppliers of the values of the placeholders.
+     */
+    public void trace(String message, Supplier<?>... parameters) {
+        if (isEnabled(Level.TRACE)) {
+            processLog(message, Level.TRACE, parameters);
+        }
+    }
 
     /**
      * Logs a message with additional details such as logging level and target files.
      * This method processes an array of {@link Detail} objects to determine the message,
-     * severity level, and the files where the logs will be written.
+     * severity level, and the files where the logs will be written. The message is written
+     * to the console and the files by the {@link AsyncAppender}.
      * <p>
      * For example:
      * - {@link Message} can specify the log message and its {@link Level}.
@@ -139,42 +265,31 @@ public class Log {
      *                Supported details are {@link Message} and {@link LogFile}.
      */
     public void log(Detail... details) {
-        AtomicReference<String> message = new AtomicReference<>("No message provided.");
+        String message = "No message provided.";
+        Level level = Level.CONSOLE;
         List<String> logFileNames = new ArrayList<>();
 
-        // Process each detail to extract message, logging level, and file paths
-        Arrays.stream(details).forEach(detail -> {
-
-            if (detail instanceof Message) {
-                message.set(((Message) detail).getMessage());
+        // Process each detail to extract message, logging level, and file names
+        for (Detail detail : details) {
+            if (detail instanceof Message logMessage) {
+                message = logMessage.getMessage();
+                if (logMessage.getLevel() != null) {
+                    level = logMessage.getLevel();
+                }
             }
-            if (detail instanceof LogFile) {
-                logFileNames.addAll(Arrays.asList(((LogFile) detail).filename()));
+            if (detail instanceof LogFile logFile) {
+                logFileNames.addAll(Arrays.asList(logFile.filename()));
             }
-        });
-
-        // Log the message to the console (for demonstration purposes)
-        System.out.println(message.get());
-
-        // Write the log message to the specified files
-        logFileNames.forEach(fileName -> {
-
-            String logsDir = Config.get("LogsDir", "").replace("\"", "");
-            if (logsDir.isEmpty()) {
-                logsDir = Util.getJarLocation();
-            }
-
-            Path filePath = new File(logsDir + File.separator + fileName).toPath();
-
-            FileManager.write(message.get(), filePath);
-        });
+        }
 
+        // Hand the message to the writer thread, which prints it and writes it to the specified files.
+        AsyncAppender.getInstance().append(level, message, logFileNames.toArray(new String[0]));
     }
 
     /**
-     * Processes a log message by determining its severity level, formatting it with provided parameters,
-     * and preparing it for logging. This method constructs the final log message based on the input text,
-     * logging level, and any additional parameters that may be included in the values array.
+     * Processes a log message by formatting it with provided parameters and handing it to the {@link AsyncAppender},
+     * together with the names of the log files found among the values. Nothing but the formatted text and the event
+     * queued for the writer is allocated, and no stack trace is captured unless an exception is one of the values.
      *
      * @param text   The base message text to be logged, which may contain placeholders for parameters.
      * @param level  The severity level of the log message (e.g., ERROR, WARNING, INFO).
@@ -183,43 +298,51 @@ public class Log {
      *               construct the final log entry appropriately.
      */
     private void processLog(String text, Level level, Object[] values) {
+        int binary = binaryMode;
+        String[] files = NO_FILES;
 
-        ArrayList<Detail> detailsList = new ArrayList<>();
-        AtomicReference<Message> message = new AtomicReference<>();
-        ArrayList<String> parameters = new ArrayList<>();
-
-        Arrays.stream(values).iterator().forEachRemaining(detail -> {
-            if (detail instanceof LogFile) {
-                detailsList.add((Detail) detail);
-            } else {
-                parameters.add(String.valueOf(detail));
+        for (Object value : values) {
+            if (value instanceof LogFile logFile && binary != BINARY_ONLY) {
+                files = files.length == 0 ? logFile.filename() : concat(files, logFile.filename());
             }
-        });
-
-        String formatMessage = formatMessage(text, level, parameters.toArray());
-
-        if (level == Level.ERROR) {
-            detailsList.add(new ErrorMessage(formatMessage));
-        } else if (level == Level.FATAL_ERROR) {
-            detailsList.add(new FatalErrorMessage(formatMessage));
-        } else if (level == Level.WARNING) {
-            detailsList.add(new WarningMessage(formatMessage));
-        } else if (level == Level.DEBUG) {
-            detailsList.add(new DebugMessage(formatMessage));
-        } else if (level == Level.TRACE) {
-            detailsList.add(new TraceMessage(formatMessage));
-        } else {
-            detailsList.add(new InformationMessage(formatMessage));
         }
 
-        Detail[] detailsListArray = detailsList.toArray(new Detail[0]);
+        if (binary == BINARY_DISABLED) {
+            AsyncAppender.getInstance().append(level, formatMessage(text, level, values), files);
+            return;
+        }
 
-        log(detailsListArray);
+        // Suppliers are called once, for both the text and the binary record.
+        Object[] resolved = resolveSuppliers(values);
+        Instant now = Instant.now();
+        AsyncAppender.getInstance().append(new LogEvent(level, formatMessage(text, level, resolved), files,
+                now.getEpochSecond() * 1_000_000L + now.getNano() / 1000, className, text,
+                BinaryLogFormat.capture(resolved)));
+    }
+
+    /**
+     * Returns the values with every {@link Supplier} replaced by the value it returns, or the same array if none is.
+     */
+    private static Object[] resolveSuppliers(Object[] values) {
+        Object[] resolved = values;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] instanceof Supplier<?> supplier) {
+                if (resolved == values) {
+                    // The array may be a Supplier[] from the Supplier overloads.
+                    resolved = Arrays.copyOf(values, values.length, Object[].class);
+                }
+                resolved[i] = supplier.get();
+            }
+        }
+        return resolved;
     }
 
     /**
      * Formats a log message by replacing placeholders with provided parameters and prefixing it with the logging level.
-     * The method takes a message template, a logging level, and an array of parameters to replace placeholders in the message.
+     * The template is scanned once; each "{}" is replaced by the next parameter that is not a {@link LogFile}, with
+     * {@link Supplier}s replaced by the value they return. Extra placeholders are left as they are. The stack trace of
+     * an exception is appended to the message, whether it filled a placeholder or is the last parameter with no
+     * placeholder left for it.
      *
      * @param message    The message template containing placeholders (e.g., "{}") for parameter substitution.
      * @param level      The logging level to prefix the message with (e.g., "INFO", "ERROR").
@@ -228,55 +351,154 @@ public class Log {
      * @return A formatted string that includes the logging level and the message with all placeholders replaced by their respective parameter values.
      */
     private String formatMessage(String message, Level level, Object... parameters) {
+        StringBuilder builder = new StringBuilder(message.length() + 64);
 
-        AtomicReference<String> messageRef = new AtomicReference<>(message);
+        if (level != Level.CONSOLE) {
+            builder.append(DATE_FORMAT.format(ZonedDateTime.now())).append(" - [ ").append(level).append(" ]");
+            if (showClassName) {
+                builder.append('[').append(className).append("] - ");
+            }
+        }
 
-        Integer debugMode = Config.get("Log.Debug", 1);
+        int parameterIndex = 0;
+        int start = 0;
+        int placeholder;
+        Throwable thrown = null;
+        while ((placeholder = message.indexOf("{}", start)) >= 0) {
+            while (parameterIndex < parameters.length && parameters[parameterIndex] instanceof LogFile) {
+                parameterIndex++;
+            }
+            if (parameterIndex == parameters.length) {
+                break;
+            }
 
-        String showClassName = "";
-        if (Config.get("Log.ShowClassName", 1) == 1) {
-            showClassName = "[" + className + "] - ";
+            builder.append(message, start, placeholder);
+            Object parameter = parameters[parameterIndex++];
+            if (parameter instanceof Supplier<?> supplier) {
+                parameter = supplier.get();
+            }
+            if (parameter instanceof Throwable throwable) {
+                thrown = throwable;
+            }
+            builder.append(parameter);
+            start = placeholder + 2;
         }
+        builder.append(message, start, message.length());
 
-        if (level != Level.CONSOLE) {
-            String formattedDate = DataFormat.format(new Date(), DataFormat.REGEX_DATE_LOG_EVENT);
-            messageRef.set(formattedDate + " - [ " + level + " ]" + showClassName + messageRef.get());
+        if (parameterIndex < parameters.length && parameters[parameters.length - 1] instanceof Throwable throwable) {
+            appendStackTrace(builder, throwable, true);
+        } else if (thrown != null) {
+            // The placeholder already shows the exception itself, only its frames and causes are missing.
+            appendStackTrace(builder, thrown, false);
         }
 
-        Arrays.stream(parameters).iterator().forEachRemaining(param -> {
-            String value = "";
-            if (param instanceof Exception) {
-                StackTraceElement[] stackTrace = ((Exception) param).getStackTrace();
-                AtomicReference<String> stackTraceRef = new AtomicReference<>("");
-                Arrays.stream(stackTrace).iterator().forEachRemaining(stackTraceElement -> {
-                    stackTraceRef.set(stackTraceRef.get() + stackTraceElement.toString() + "\n");
-                });
-                value = stackTraceRef.get();
-            } else {
-                value = String.valueOf(param);
+        return builder.toString();
+    }
+
+    /**
+     * Appends an exception, unless the message already shows it, and its causes to a message, one stack frame per
+     * line.
+     */
+    private static void appendStackTrace(StringBuilder builder, Throwable throwable, boolean header) {
+        for (Throwable current = throwable; current != null; current = current.getCause()) {
+            if (current != throwable) {
+                builder.append(System.lineSeparator()).append("Caused by: ").append(current);
+            } else if (header) {
+                builder.append(System.lineSeparator()).append(current);
+            }
+            for (StackTraceElement element : current.getStackTrace()) {
+                builder.append(System.lineSeparator()).append("\tat ").append(element);
             }
+        }
+    }
 
-            messageRef.set(
-                    messageRef.get().replaceFirst("\\{}", value)
-            );
-        });
-        return messageRef.get();
+    private static String[] concat(String[] first, String[] second) {
+        String[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
     }
 
     /**
-     * Getters and setters for the debugEnabled field, which indicates whether debug logging is enabled.
-     * This allows for dynamic control over the logging level, enabling or disabling debug messages as needed.
+     * Checks whether messages of the given level pass the threshold of this logger.
+     *
+     * @param level The level to check.
+     * @return true if messages of that level are logged.
+     */
+    public boolean isEnabled(Level level) {
+        int effective = threshold == INHERIT ? globalThreshold : threshold;
+        return level == Level.CONSOLE || (effective != DISABLED && level.getSeverity() >= effective);
+    }
+
+    /**
+     * Checks whether debug messages are logged, to guard code that only prepares debug output.
+     *
+     * @return true if debug messages are logged.
      */
     public boolean isDebugEnabled() {
-        return debugEnabled;
+        return isEnabled(Level.DEBUG);
+    }
+
+    /**
+     * Checks whether trace messages are logged, to guard code that only prepares trace output.
+     *
+     * @return true if trace messages are logged.
+     */
+    public boolean isTraceEnabled() {
+        return isEnabled(Level.TRACE);
     }
 
     /**
-     * Sets the debugEnabled field to enable or disable debug logging.
+     * Sets the threshold of this logger, overriding the configuration.
      *
-     * @param debugEnabled A boolean value indicating whether debug logging should be enabled (true) or disabled (false).
+     * @param level The lowest level logged, or null to follow the configuration again.
      */
-    public void setDebugEnabled(boolean debugEnabled) {
-        this.debugEnabled = debugEnabled;
+    public void setLevel(Level level) {
+        this.threshold = level == null ? configuredThreshold(className) : level.getSeverity();
+    }
+
+    /**
+     * Returns the threshold configured for a logger name, or {@link #INHERIT} to use the global one.
+     */
+    private static int configuredThreshold(String className) {
+        return loggerThresholds.getOrDefault(className, INHERIT);
+    }
+
+    /**
+     * Parses the {@code Log.LoggerLevels} setting, a list of {@code name=level} entries separated by commas or spaces.
+     * Malformed entries are ignored.
+     */
+    private static Map<String, Integer> parseLoggerLevels(String setting) {
+        Map<String, Integer> thresholds = new HashMap<>();
+        for (String entry : setting.replace("\"", "").split("[,\\s]+")) {
+            int separator = entry.indexOf('=');
+            if (separator <= 0) {
+                continue;
+            }
+            try {
+                thresholds.put(entry.substring(0, separator), Integer.parseInt(entry.substring(separator + 1)));
+            } catch (NumberFormatException ignored) {
+                // Not a level, keep the global threshold for this logger.
+            }
+        }
+        return Map.copyOf(thresholds);
+    }
+
+    /**
+     * Reads a setting, falling back to its default if the configuration is not loaded yet.
+     */
+    private static int config(String key, int defaultValue) {
+        try {
+            return Config.get(key, defaultValue);
+        } catch (IllegalStateException e) {
+            return defaultValue;
+        }
+    }
+
+    private static String config(String key, String defaultValue) {
+        try {
+            return Config.get(key, defaultValue);
+        } catch (IllegalStateException e) {
+            return defaultValue;
+        }
     }
 }
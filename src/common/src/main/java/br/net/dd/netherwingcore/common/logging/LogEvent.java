@@ -0,0 +1,32 @@
+package br.net.dd.netherwingcore.common.logging;
+
+/**
+ * A formatted log message waiting to be written by the {@link AsyncAppender}.
+ *
+ * <p>Events for the {@link BinaryLogSink} also carry what the message was made of; the others have no template.</p>
+ *
+ * @param level       the level of the message
+ * @param text        the formatted message
+ * @param files       the names of the log files the message is also written to, possibly empty
+ * @param epochMicros the time of the message, in microseconds since the epoch, for the binary log
+ * @param logger      the name of the logger, for the binary log
+ * @param template    the message template, or null if the message is not written to the binary log
+ * @param arguments   the arguments as captured by {@link BinaryLogFormat#capture(Object[])}, for the binary log
+ */
+record LogEvent(Level level, String text, String[] files,
+                long epochMicros, String logger, String template, Object[] arguments) {
+
+    /**
+     * Creates an event that is only written as text.
+     */
+    LogEvent(Level level, String text, String[] files) {
+        this(level, text, files, 0, null, null, null);
+    }
+
+    /**
+     * Returns whether the event is written to the binary log.
+     */
+    boolean isStructured() {
+        return template != null;
+    }
+}
@@ -0,0 +1,154 @@
+package br.net.dd.netherwingcore.common.logging;
+
+import br.net.dd.netherwingcore.common.configuration.BooleanSetting;
+import br.net.dd.netherwingcore.common.configuration.Config;
+import br.net.dd.netherwingcore.common.configuration.IntSetting;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps one {@link RollingLogFile} per text log file name, so a file is resolved against {@code LogsDir} and opened
+ * once, then stays open for the life of the process.
+ *
+ * <p>The files roll over when they would grow past {@code Log.FileMaxSize} megabytes and, with
+ * {@code Log.FileRotateDaily}, when the day changes. With {@code Log.FileCompress} the rolled over files are
+ * compressed with gzip by a background thread. Buffered lines are written to the files every
+ * {@code Log.FileFlushInterval} milliseconds by the {@link AsyncAppender}, rather than after every line. The settings
+ * apply from the next line written after the configuration is loaded or reloaded.</p>
+ */
+public final class LogFileRegistry {
+
+    private static final IntSetting MAX_SIZE_MB = Config.intSetting("Log.FileMaxSize", 100);
+    private static final BooleanSetting ROTATE_DAILY = Config.booleanSetting("Log.FileRotateDaily", true);
+    private static final BooleanSetting COMPRESS = Config.booleanSetting("Log.FileCompress", true);
+    private static final IntSetting FLUSH_INTERVAL_MS = Config.intSetting("Log.FileFlushInterval", 1000);
+
+    private static final class Holder {
+        private static final LogFileRegistry INSTANCE = new LogFileRegistry();
+    }
+
+    private final Map<String, RollingLogFile> files;
+    private ExecutorService compressor;
+
+    private LogFileRegistry() {
+        this.files = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the singleton instance of the LogFileRegistry.
+     *
+     * @return the singleton instance
+     */
+    public static LogFileRegistry getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Returns the writer of a log file, creating it on first use.
+     *
+     * @param name the log file name, resolved against {@code LogsDir}
+     * @return the writer of the file
+     */
+    RollingLogFile get(String name) {
+        return files.computeIfAbsent(name, key -> new RollingLogFile(this, key, AsyncAppender.resolve(key)));
+    }
+
+    /**
+     * Writes the buffered lines of the files whose flush interval elapsed.
+     */
+    void flushIfDue() {
+        long now = System.nanoTime();
+        for (RollingLogFile file : files.values()) {
+            file.flushIfDue(now);
+        }
+    }
+
+    /**
+     * Writes the buffered lines of every file.
+     */
+    public void flush() {
+        for (RollingLogFile file : files.values()) {
+            file.flush();
+        }
+    }
+
+    /**
+     * Writes the buffered lines and closes every file. Files written to afterwards are opened again.
+     */
+    void closeAll() {
+        for (String name : files.keySet().toArray(new String[0])) {
+            RollingLogFile file = files.remove(name);
+            if (file != null) {
+                file.close();
+            }
+        }
+    }
+
+    /**
+     * Queues a file that was rolled over for compression, if enabled.
+     *
+     * @param rotated the rolled over file
+     */
+    void rotated(Path rotated) {
+        if (!COMPRESS.get()) {
+            return;
+        }
+        synchronized (this) {
+            if (compressor == null) {
+                compressor = Executors.newSingleThreadExecutor(
+                        Thread.ofPlatform().name("LogCompressor").daemon(true).factory());
+            }
+        }
+        compressor.execute(() -> compress(rotated));
+    }
+
+    /**
+     * Compresses a file to {@code <file>.gz} and deletes it. A partial archive is removed if compression fails.
+     */
+    private static void compress(Path source) {
+        Path target = source.resolveSibling(source.getFileName() + ".gz");
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(target), 64 * 1024)) {
+            in.transferTo(out);
+        } catch (IOException e) {
+            System.err.println("Failed to compress log file " + source + ": " + e.getMessage());
+            try {
+                Files.deleteIfExists(target);
+            } catch (IOException ignored) {
+                // The uncompressed file is kept, so nothing is lost.
+            }
+            return;
+        }
+
+        try {
+            Files.delete(source);
+        } catch (IOException e) {
+            System.err.println("Failed to delete compressed log file " + source + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the size a file may reach before it rolls over, in bytes, or 0 for no limit.
+     */
+    long getMaxSize() {
+        return Math.max(0, MAX_SIZE_MB.get()) * 1024L * 1024L;
+    }
+
+    boolean isRotateDaily() {
+        return ROTATE_DAILY.get();
+    }
+
+    long getFlushIntervalNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, FLUSH_INTERVAL_MS.get()));
+    }
+}
@@ -0,0 +1,117 @@
+package br.net.dd.netherwingcore.common.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded, lock-free multi-producer / single-consumer ring buffer.
+ *
+ * <p>Each slot carries a sequence number telling whose turn it is: a producer may fill slot {@code i} for position
+ * {@code p} once its sequence equals {@code p}, and publishes the element by setting it to {@code p + 1}; the consumer
+ * takes it when the sequence is {@code p + 1} and hands the slot back to the producers of the next lap by setting it
+ * to {@code p + capacity}. Producers only contend on a single CAS of the tail position, and never on the consumer.</p>
+ *
+ * @param <E> the type of the elements
+ */
+final class LogRingBuffer<E> {
+
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail;
+    private long head; // Only touched by the consumer
+
+    /**
+     * Constructs an empty ring buffer.
+     *
+     * @param capacity the number of slots, rounded up to a power of two
+     */
+    LogRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+
+        this.elements = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.tail = new AtomicLong();
+        this.head = 0;
+    }
+
+    /**
+     * Appends an element. Safe to call from any number of threads.
+     *
+     * @param element the element to append
+     * @return true if the element was appended, false if the buffer is full
+     */
+    boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long sequence = sequences.getAcquire(index);
+            long difference = sequence - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements[index] = element;
+                    sequences.setRelease(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                // Another producer claimed this position first.
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Takes the oldest element. Must only be called by the single consumer thread.
+     *
+     * @return the oldest element, or null if the buffer is empty
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        int index = (int) (head & mask);
+        if (sequences.getAcquire(index) != head + 1) {
+            return null;
+        }
+
+        E element = (E) elements[index];
+        elements[index] = null;
+        sequences.setRelease(index, head + elements.length);
+        head++;
+        return element;
+    }
+
+    /**
+     * Returns whether the buffer looks empty. Exact only when called by the consumer with no producer running.
+     *
+     * @return true if no element is waiting
+     */
+    boolean isEmpty() {
+        return sequences.getAcquire((int) (head & mask)) != head + 1;
+    }
+
+    /**
+     * Returns whether every position claimed by a producer has been taken, including those claimed but not yet
+     * published. Must only be called by the consumer thread.
+     *
+     * @return true if no element is waiting or being appended
+     */
+    boolean isDrained() {
+        return tail.get() == head;
+    }
+
+    /**
+     * Returns the number of slots of the buffer.
+     *
+     * @return the capacity
+     */
+    int capacity() {
+        return elements.length;
+    }
+}
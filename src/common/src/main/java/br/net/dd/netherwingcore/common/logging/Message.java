@@ -1,30 +1,60 @@
 package br.net.dd.netherwingcore.common.logging;
 
 /**
- * Represents a custom exception that can encapsulate additional details, including
- * a logging level. This class extends {@code Exception} and implements the {@code Detail} interface.
- * It can be used to associate specific log levels with exception messages.
+ * Represents a log message together with its logging level. This class implements the {@code Detail} interface,
+ * so it can be passed to {@link Log#log(Detail...)} along with other details such as {@link LogFile}.
+ *
+ * <p>Messages are immutable. They are plain values, not exceptions: creating one captures no stack trace, which only
+ * happens when an exception is actually passed to a logger as an argument.</p>
  */
-public class Message extends Exception implements Detail{
+public class Message implements Detail {
 
-    // Represents the log level associated with this exception.
-    Level level;
+    // The text of this message.
+    private final String message;
+
+    // Represents the log level associated with this message.
+    private final Level level;
 
     /**
-     * Constructs a new {@code Message} exception with the specified detail message.
+     * Constructs a new {@code Message} without a logging level.
      *
-     * @param message The detail message, which is saved for later retrieval by the {@link #getMessage()} method.
+     * @param message The text of the message, which is saved for later retrieval by the {@link #getMessage()} method.
      */
     public Message(String message) {
-        super(message);
+        this(message, null);
     }
 
     /**
-     * Retrieves the log level associated with this exception.
+     * Constructs a new {@code Message} with the specified logging level.
      *
-     * @return The logging level defined in this exception. May be null if it has not been set.
+     * @param message The text of the message, which is saved for later retrieval by the {@link #getMessage()} method.
+     * @param level   The logging level of the message, or null for none.
+     */
+    protected Message(String message, Level level) {
+        this.message = message;
+        this.level = level;
+    }
+
+    /**
+     * Retrieves the text of this message.
+     *
+     * @return The text of the message.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Retrieves the log level associated with this message.
+     *
+     * @return The logging level defined in this message. May be null if it has not been set.
      */
     public Level getLevel() {
         return level;
     }
+
+    @Override
+    public String toString() {
+        return message;
+    }
 }
@@ -0,0 +1,208 @@
+package br.net.dd.netherwingcore.common.logging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * A text log file kept open by the {@link LogFileRegistry}, which buffers its lines and rolls over to a new file by
+ * size or by day.
+ *
+ * <p>Lines are encoded straight into a buffer that is written to the file when it is full or when
+ * {@link #flushIfDue(long)} finds the flush interval elapsed. When the file would grow past its size limit, or the
+ * day it was started on is over, it is renamed to {@code <name>.<date>.<n>} and handed to the registry to be
+ * compressed, and a new file is started under the original name.</p>
+ *
+ * <p>This class must not log through {@link Log}, as it runs on the log writer thread; failures go to the standard
+ * error stream.</p>
+ */
+final class RollingLogFile {
+
+    private static final DateTimeFormatter ROTATED_DATE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final LogFileRegistry registry;
+    private final String name;
+    private final Path path;
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder;
+    private FileChannel channel;
+    private long size; // Bytes in the file, without the buffered ones
+    private LocalDate day;
+    private long nextDayMillis;
+    private long lastFlushNanos;
+
+    RollingLogFile(LogFileRegistry registry, String name, Path path) {
+        this.registry = registry;
+        this.name = name;
+        this.path = path;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.lastFlushNanos = System.nanoTime();
+    }
+
+    /**
+     * Appends a line, rolling the file over first if it is full or from a previous day.
+     *
+     * @param text the line, without its line separator
+     */
+    synchronized void write(String text) {
+        try {
+            if (channel == null) {
+                open();
+            }
+
+            long current = size + buffer.position();
+            long expected = (long) text.length() + LINE_SEPARATOR.length;
+            if ((registry.isRotateDaily() && System.currentTimeMillis() >= nextDayMillis)
+                    || (registry.getMaxSize() > 0 && current > 0 && current + expected > registry.getMaxSize())) {
+                rotate();
+            }
+
+            encode(text);
+            put(LINE_SEPARATOR);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Writes the buffered lines to the file if the flush interval elapsed since the last flush.
+     *
+     * @param now the current {@link System#nanoTime()}
+     */
+    synchronized void flushIfDue(long now) {
+        if (buffer.position() > 0 && now - lastFlushNanos >= registry.getFlushIntervalNanos()) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the buffered lines to the file.
+     */
+    synchronized void flush() {
+        lastFlushNanos = System.nanoTime();
+        try {
+            drain();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Writes the buffered lines and closes the file. A later write opens it again.
+     */
+    synchronized void close() {
+        flush();
+        closeChannel();
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        size = channel.size();
+
+        // A file left by an earlier run belongs to the day it was last written.
+        Instant started = size > 0 ? Files.getLastModifiedTime(path).toInstant() : Instant.now();
+        startDay(LocalDate.ofInstant(started, ZoneId.systemDefault()));
+    }
+
+    private void startDay(LocalDate date) {
+        day = date;
+        nextDayMillis = date.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Renames the current file, queues it for compression and starts a new one.
+     */
+    private void rotate() throws IOException {
+        drain();
+        closeChannel();
+
+        String prefix = name + "." + day.format(ROTATED_DATE_FORMAT) + ".";
+        Path rotated;
+        int index = 1;
+        do {
+            rotated = path.resolveSibling(prefix + index++);
+        } while (Files.exists(rotated) || Files.exists(rotated.resolveSibling(rotated.getFileName() + ".gz")));
+
+        Files.move(path, rotated);
+        registry.rotated(rotated);
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        size = 0;
+        startDay(LocalDate.now());
+    }
+
+    /**
+     * Encodes a line into the buffer, writing the buffer out whenever it fills up.
+     */
+    private void encode(String text) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                drain();
+                continue;
+            }
+            if (encoder.flush(buffer).isOverflow()) {
+                drain();
+                encoder.flush(buffer);
+            }
+            return;
+        }
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        if (buffer.remaining() < bytes.length) {
+            drain();
+        }
+        buffer.put(bytes);
+    }
+
+    /**
+     * Writes the content of the buffer to the file.
+     */
+    private void drain() throws IOException {
+        if (buffer.position() == 0 || channel == null) {
+            return;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            size += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void fail(IOException e) {
+        System.err.println("Failed to write log file " + name + ": " + e.getMessage());
+        buffer.clear();
+        closeChannel();
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Nothing left to do with a channel that fails to close.
+            }
+            channel = null;
+        }
+    }
+}
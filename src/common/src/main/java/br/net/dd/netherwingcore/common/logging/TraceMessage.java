@@ -26,7 +26,6 @@ public class TraceMessage extends Message {
      * @param message The content of the trace message.
      */
     public TraceMessage(String message) {
-        super(message);
-        level = Level.TRACE;
+        super(message, Level.TRACE);
     }
 }
@@ -26,7 +26,6 @@ public class WarningMessage extends Message {
      * @param message The content of the warning message.
      */
     public WarningMessage(String message) {
-        super(message);
-        level = Level.WARNING;
+        super(message, Level.WARNING);
     }
 }
@@ -0,0 +1,67 @@
+package br.net.dd.netherwingcore.common.metric;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing counter, safe to update from any number of threads.
+ *
+ * <p>Backed by a {@link LongAdder}, so concurrent increments from network workers do not contend on a single
+ * memory location; reading the value sums the internal cells and is meant for exporters and diagnostics.</p>
+ */
+public final class Counter {
+
+    private final String name;
+    private final LongAdder value;
+
+    /**
+     * Constructs a counter starting at zero. Counters are normally obtained through {@link Metric#counter(String)}
+     * so they can be exported by name.
+     *
+     * @param name the name of the counter
+     */
+    public Counter(String name) {
+        this.name = name;
+        this.value = new LongAdder();
+    }
+
+    /**
+     * Adds one to the counter.
+     */
+    public void increment() {
+        value.increment();
+    }
+
+    /**
+     * Adds the given amount to the counter.
+     *
+     * @param amount the amount to add
+     */
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    /**
+     * Resets the counter to zero.
+     */
+    public void reset() {
+        value.reset();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long get() {
+        return value.sum();
+    }
+
+    /**
+     * Returns a one-line summary of the counter, suitable for logging.
+     *
+     * @return the summary string
+     */
+    @Override
+    public String toString() {
+        return name + " value=" + get();
+    }
+}
@@ -0,0 +1,45 @@
+package br.net.dd.netherwingcore.common.metric;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A value sampled when metrics are exported, such as the number of open sessions or the depth of a queue.
+ *
+ * <p>Nothing is recorded on the hot path: the owner of the value registers a supplier once, and exporters call it
+ * when they read the gauge. The supplier must be cheap and safe to call from any thread.</p>
+ */
+public final class Gauge {
+
+    private final String name;
+    private final LongSupplier supplier;
+
+    /**
+     * Constructs a gauge. Gauges are normally registered through {@link Metric#gauge(String, LongSupplier)} so they
+     * can be exported by name.
+     *
+     * @param name     the name of the gauge
+     * @param supplier supplies the current value
+     */
+    public Gauge(String name, LongSupplier supplier) {
+        this.name = name;
+        this.supplier = supplier;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long get() {
+        return supplier.getAsLong();
+    }
+
+    /**
+     * Returns a one-line summary of the gauge, suitable for logging.
+     *
+     * @return the summary string
+     */
+    @Override
+    public String toString() {
+        return name + " value=" + get();
+    }
+}
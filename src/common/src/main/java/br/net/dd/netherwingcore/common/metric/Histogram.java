@@ -0,0 +1,191 @@
+package br.net.dd.netherwingcore.common.metric;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with logarithmic bucketing, in the spirit of HdrHistogram.
+ *
+ * <p>Every power-of-two range is split into {@value #SUB_BUCKET_COUNT} linear sub-buckets, so any recorded value
+ * is kept with a relative error below roughly 6% while the whole positive {@code long} range fits in a fixed array
+ * of counters. Recording is a single atomic increment and is safe from any number of threads; reading percentiles
+ * walks the bucket array and is meant for exporters and diagnostics, not for hot paths.</p>
+ *
+ * <p>The histogram is unit-agnostic: callers decide whether they record nanoseconds, microseconds or bytes,
+ * and should name the metric accordingly (e.g. {@code bnet.handshake.latency_us}).</p>
+ */
+public final class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final String name;
+    private final AtomicLongArray buckets;
+    private final LongAdder count;
+    private final LongAdder sum;
+    private final AtomicLong max;
+
+    /**
+     * Constructs an empty histogram. Histograms are normally obtained through {@link Metric#histogram(String)}
+     * so they can be exported by name.
+     *
+     * @param name the name of the histogram
+     */
+    public Histogram(String name) {
+        this.name = name;
+        this.buckets = new AtomicLongArray(BUCKET_COUNT);
+        this.count = new LongAdder();
+        this.sum = new LongAdder();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * Records a single value. Negative values are clamped to zero.
+     *
+     * @param value the value to record
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+
+        buckets.incrementAndGet(indexOf(value));
+        count.increment();
+        sum.add(value);
+
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Returns the value below which the given fraction of the recorded values fall. The returned value is the
+     * upper bound of the bucket holding that rank, so it never under-reports latency.
+     *
+     * @param percentile the percentile to compute, between 0 and 100
+     * @return the value at the given percentile, or 0 if nothing has been recorded
+     */
+    public long percentile(double percentile) {
+        return percentiles(percentile)[0];
+    }
+
+    /**
+     * Returns several percentiles at once, computed from a single snapshot of the buckets, as exporters do.
+     *
+     * @param percentiles the percentiles to compute, each between 0 and 100
+     * @return the value at each percentile, in the same order, or 0s if nothing has been recorded
+     * @see #percentile(double)
+     */
+    public long[] percentiles(double... percentiles) {
+        long total = 0;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+
+        long[] values = new long[percentiles.length];
+        if (total == 0) {
+            return values;
+        }
+
+        long currentMax = max.get();
+        for (int p = 0; p < percentiles.length; p++) {
+            long rank = (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentiles[p])) / 100.0 * total);
+            rank = Math.max(1, rank);
+
+            values[p] = currentMax;
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    values[p] = Math.min(upperBoundOf(i), currentMax);
+                    break;
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Clears every recorded value.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     *
+     * @return the mean, or 0 if nothing has been recorded
+     */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Returns a one-line summary of the histogram, suitable for logging.
+     *
+     * @return the summary string
+     */
+    @Override
+    public String toString() {
+        long[] values = percentiles(50, 90, 99);
+        return name + " count=" + getCount()
+                + " mean=" + Math.round(getMean())
+                + " p50=" + values[0]
+                + " p90=" + values[1]
+                + " p99=" + values[2]
+                + " max=" + getMax();
+    }
+
+    /**
+     * Maps a value to its bucket. Values below {@code 2 * SUB_BUCKET_COUNT} get an exact bucket each; above that,
+     * every power of two is split into {@code SUB_BUCKET_COUNT} buckets of equal width.
+     */
+    private static int indexOf(long value) {
+        if (value < (SUB_BUCKET_COUNT << 1)) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * Returns the highest value that maps to the given bucket.
+     */
+    private static long upperBoundOf(int index) {
+        if (index < (SUB_BUCKET_COUNT << 1)) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long subBucket = (index & (SUB_BUCKET_COUNT - 1)) + SUB_BUCKET_COUNT;
+        long upper = ((subBucket + 1) << shift) - 1;
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+}
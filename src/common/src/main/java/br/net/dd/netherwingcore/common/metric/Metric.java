@@ -1,4 +1,102 @@
 package br.net.dd.netherwingcore.common.metric;
 
-public class Metric {
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-wide registry of named metrics.
+ *
+ * <p>Metrics are created lazily on first lookup and live for the whole process, so callers are expected to
+ * resolve them once and keep the instance in a {@code static final} field:</p>
+ * <pre>
+ *     private static final Histogram HANDSHAKE_LATENCY = Metric.histogram("bnet.handshake.latency_us");
+ *     ...
+ *     HANDSHAKE_LATENCY.record(elapsedMicros);
+ * </pre>
+ *
+ * <p>Gauges are the exception: they sample a value owned by a component, so the component registers them when it
+ * starts and removes them when it stops. The registered metrics are published by the {@link MetricExporter}.</p>
+ */
+public final class Metric {
+
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private static final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private Metric() {
+    }
+
+    /**
+     * Returns the counter registered under the given name, creating it if needed.
+     *
+     * @param name the metric name
+     * @return the counter for that name
+     */
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, Counter::new);
+    }
+
+    /**
+     * Returns the histogram registered under the given name, creating it if needed.
+     *
+     * @param name the metric name
+     * @return the histogram for that name
+     */
+    public static Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, Histogram::new);
+    }
+
+    /**
+     * Registers a gauge under the given name, replacing any gauge registered under the same name.
+     *
+     * @param name     the metric name
+     * @param supplier supplies the current value, called whenever the gauge is read
+     * @return the registered gauge
+     */
+    public static Gauge gauge(String name, LongSupplier supplier) {
+        Gauge gauge = new Gauge(name, supplier);
+        gauges.put(name, gauge);
+        return gauge;
+    }
+
+    /**
+     * Unregisters a gauge, as done by its owner when it stops.
+     *
+     * @param name the metric name
+     */
+    public static void removeGauge(String name) {
+        gauges.remove(name);
+    }
+
+    /**
+     * Returns a read-only view of every registered counter, keyed by name.
+     *
+     * @return the registered counters
+     */
+    public static Map<String, Counter> getCounters() {
+        return Collections.unmodifiableMap(counters);
+    }
+
+    /**
+     * Returns a read-only view of every registered histogram, keyed by name.
+     *
+     * @return the registered histograms
+     */
+    public static Map<String, Histogram> getHistograms() {
+        return Collections.unmodifiableMap(histograms);
+    }
+
+    /**
+     * Returns a read-only view of every registered gauge, keyed by name.
+     *
+     * @return the registered gauges
+     */
+    public static Map<String, Gauge> getGauges() {
+        return Collections.unmodifiableMap(gauges);
+    }
 }
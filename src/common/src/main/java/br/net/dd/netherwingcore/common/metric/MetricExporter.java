@@ -0,0 +1,207 @@
+package br.net.dd.netherwingcore.common.metric;
+
+import br.net.dd.netherwingcore.common.configuration.Config;
+import br.net.dd.netherwingcore.common.logging.Log;
+import br.net.dd.netherwingcore.common.utilities.Util;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically writes every registered metric, in the InfluxDB line protocol (see {@link MetricFormat}), to the
+ * target set by {@code Metric.ExportTarget}:
+ * <ul>
+ *   <li>{@code file:<path>} appends to a file, relative to the location of the running jar unless absolute;</li>
+ *   <li>{@code udp:<host>:<port>} sends datagrams of whole lines, e.g. to a Telegraf or InfluxDB UDP listener;</li>
+ *   <li>{@code tcp:<host>:<port>} writes to a connection, opened again on the next export if it breaks.</li>
+ * </ul>
+ *
+ * <p>The export runs every {@code Metric.ExportInterval} seconds on its own daemon thread. Reading the metrics only
+ * sums their counters, so the threads updating them are never held up.</p>
+ */
+public final class MetricExporter {
+
+    private static final Log logger = Log.getLogger(MetricExporter.class.getSimpleName());
+
+    private static final int MAX_DATAGRAM_SIZE = 1400;
+
+    private static final class Holder {
+        private static final MetricExporter INSTANCE = new MetricExporter();
+    }
+
+    private ScheduledExecutorService scheduler;
+    private String target;
+    private ByteChannel channel;
+    private boolean failing;
+
+    private MetricExporter() {
+    }
+
+    /**
+     * Returns the singleton instance of the MetricExporter.
+     *
+     * @return the singleton instance
+     */
+    public static MetricExporter getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Starts exporting according to the {@code Metric.Export*} settings. Does nothing if no target is set or the
+     * exporter is already running.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+
+        int interval = Config.get("Metric.ExportInterval", 10);
+        String configured = Config.get("Metric.ExportTarget", "").replace("\"", "").trim();
+        if (interval <= 0 || configured.isEmpty()) {
+            return;
+        }
+
+        target = configured;
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("MetricExporter").daemon(true).factory());
+        scheduler.scheduleAtFixedRate(this::export, interval, interval, TimeUnit.SECONDS);
+        logger.info("Exporting metrics to {} every {} seconds", target, interval);
+    }
+
+    /**
+     * Stops the exporter, after a last export so the final values are not lost.
+     */
+    public void stop() {
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = scheduler;
+            scheduler = null;
+        }
+        if (running == null) {
+            return;
+        }
+
+        // Waits outside the lock, which a running export holds.
+        running.shutdown();
+        try {
+            running.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this) {
+            export();
+            closeChannel();
+        }
+    }
+
+    /**
+     * Writes the current value of every metric to the target.
+     */
+    private synchronized void export() {
+        try {
+            StringBuilder lines = new StringBuilder(4096);
+            MetricFormat.appendLineProtocol(lines, System.currentTimeMillis() * 1_000_000L);
+            if (lines.isEmpty()) {
+                return;
+            }
+
+            if (channel == null) {
+                channel = open(target);
+            }
+            if (channel instanceof DatagramChannel) {
+                sendDatagrams(lines);
+            } else {
+                ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            }
+
+            if (failing) {
+                failing = false;
+                logger.info("Exporting metrics to {} again", target);
+            }
+        } catch (IOException | RuntimeException e) {
+            // A runtime exception would also cancel the periodic export, so it is handled alike.
+            if (!failing) {
+                failing = true;
+                logger.warn("Failed to export metrics to {}: {}", target, e.getMessage());
+            }
+            closeChannel();
+        }
+    }
+
+    /**
+     * Sends the lines in datagrams of at most {@value #MAX_DATAGRAM_SIZE} bytes, never splitting a line.
+     */
+    private void sendDatagrams(StringBuilder lines) throws IOException {
+        int start = 0;
+        while (start < lines.length()) {
+            int end = start;
+            int next;
+            while ((next = lines.indexOf("\n", end) + 1) > 0 && (next - start <= MAX_DATAGRAM_SIZE || end == start)) {
+                end = next;
+            }
+            if (end == start) {
+                end = lines.length();
+            }
+            channel.write(ByteBuffer.wrap(lines.substring(start, end).getBytes(StandardCharsets.UTF_8)));
+            start = end;
+        }
+    }
+
+    /**
+     * Opens the channel described by a target.
+     *
+     * @throws IllegalArgumentException if the target is not valid
+     */
+    private static ByteChannel open(String target) throws IOException {
+        int colon = target.indexOf(':');
+        String scheme = colon < 0 ? "" : target.substring(0, colon);
+        String address = target.substring(colon + 1);
+
+        return switch (scheme) {
+            case "file" -> {
+                Path path = Path.of(address);
+                if (!path.isAbsolute()) {
+                    path = Path.of(Util.getJarLocation()).resolve(path);
+                }
+                yield FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            case "udp" -> DatagramChannel.open().connect(socketAddress(address));
+            case "tcp" -> SocketChannel.open(socketAddress(address));
+            default -> throw new IllegalArgumentException("unknown target " + target + ", expected file:, udp: or tcp:");
+        };
+    }
+
+    private static InetSocketAddress socketAddress(String address) {
+        int colon = address.lastIndexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("expected <host>:<port> in " + address);
+        }
+        return new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Opened again on the next export.
+            }
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package br.net.dd.netherwingcore.common.metric;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Renders the registered metrics in the text formats understood by monitoring systems.
+ *
+ * <p>Two formats are supported:</p>
+ * <ul>
+ *   <li>The InfluxDB line protocol, one line per metric with a nanosecond timestamp, written by the
+ *   {@link MetricExporter} to a file or a socket.</li>
+ *   <li>The Prometheus text exposition format, served over HTTP for Prometheus to scrape. Dots in metric names become
+ *   underscores there, counters get the {@code _total} suffix and histograms are exposed as summaries.</li>
+ * </ul>
+ *
+ * <p>Metrics are written in name order, so two exports of the same metrics are laid out alike.</p>
+ */
+public final class MetricFormat {
+
+    private static final double[] QUANTILES = {50, 90, 99};
+    private static final String[] QUANTILE_LABELS = {"0.5", "0.9", "0.99"};
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private MetricFormat() {
+    }
+
+    /**
+     * Appends every registered metric in the InfluxDB line protocol.
+     *
+     * <p>Counters and gauges have a single {@code value} field; histograms have {@code count}, {@code sum},
+     * {@code mean}, {@code p50}, {@code p90}, {@code p99} and {@code max}.</p>
+     *
+     * @param out            the builder to append to
+     * @param timestampNanos the timestamp of the lines, in nanoseconds since the epoch
+     */
+    public static void appendLineProtocol(StringBuilder out, long timestampNanos) {
+        for (Counter counter : sorted(Metric.getCounters()).values()) {
+            appendMeasurement(out, counter.getName());
+            out.append(" value=").append(counter.get()).append('i');
+            out.append(' ').append(timestampNanos).append('\n');
+        }
+        for (Gauge gauge : sorted(Metric.getGauges()).values()) {
+            appendMeasurement(out, gauge.getName());
+            out.append(" value=").append(gauge.get()).append('i');
+            out.append(' ').append(timestampNanos).append('\n');
+        }
+        for (Histogram histogram : sorted(Metric.getHistograms()).values()) {
+            long[] values = histogram.percentiles(QUANTILES);
+            appendMeasurement(out, histogram.getName());
+            out.append(" count=").append(histogram.getCount()).append('i')
+                    .append(",sum=").append(histogram.getSum()).append('i')
+                    .append(",mean=").append(histogram.getMean())
+                    .append(",p50=").append(values[0]).append('i')
+                    .append(",p90=").append(values[1]).append('i')
+                    .append(",p99=").append(values[2]).append('i')
+                    .append(",max=").append(histogram.getMax()).append('i');
+            out.append(' ').append(timestampNanos).append('\n');
+        }
+    }
+
+    /**
+     * Appends every registered metric in the Prometheus text exposition format (version 0.0.4).
+     *
+     * @param out the builder to append to
+     */
+    public static void appendPrometheus(StringBuilder out) {
+        for (Counter counter : sorted(Metric.getCounters()).values()) {
+            String name = prometheusName(counter.getName()) + "_total";
+            out.append("# TYPE ").append(name).append(" counter\n");
+            out.append(name).append(' ').append(counter.get()).append('\n');
+        }
+        for (Gauge gauge : sorted(Metric.getGauges()).values()) {
+            String name = prometheusName(gauge.getName());
+            out.append("# TYPE ").append(name).append(" gauge\n");
+            out.append(name).append(' ').append(gauge.get()).append('\n');
+        }
+        for (Histogram histogram : sorted(Metric.getHistograms()).values()) {
+            String name = prometheusName(histogram.getName());
+            long[] values = histogram.percentiles(QUANTILES);
+            out.append("# TYPE ").append(name).append(" summary\n");
+            for (int i = 0; i < values.length; i++) {
+                out.append(name).append("{quantile=\"").append(QUANTILE_LABELS[i]).append("\"} ")
+                        .append(values[i]).append('\n');
+            }
+            out.append(name).append("_sum ").append(histogram.getSum()).append('\n');
+            out.append(name).append("_count ").append(histogram.getCount()).append('\n');
+        }
+    }
+
+    /**
+     * Turns a metric name into a valid Prometheus name, replacing every character outside {@code [a-zA-Z0-9_:]}
+     * with an underscore.
+     *
+     * @param name the metric name, e.g. {@code bnet.rpc.AuthenticationService.Logon.calls}
+     * @return the Prometheus name, e.g. {@code bnet_rpc_AuthenticationService_Logon_calls}
+     */
+    public static String prometheusName(String name) {
+        StringBuilder builder = new StringBuilder(name.length() + 1);
+        if (name.isEmpty() || Character.isDigit(name.charAt(0))) {
+            builder.append('_');
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '_' || c == ':';
+            builder.append(valid ? c : '_');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Appends a measurement name, escaping the characters the line protocol gives a meaning to.
+     */
+    private static void appendMeasurement(StringBuilder out, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == ',' || c == ' ' || c == '\\') {
+                out.append('\\');
+            }
+            out.append(c == '\n' ? ' ' : c);
+        }
+    }
+
+    private static <T> Map<String, T> sorted(Map<String, T> metrics) {
+        return new TreeMap<>(metrics);
+    }
+}
@@ -199,6 +199,16 @@ public class MessageBuffer {
         return result;
     }
 
+    /**
+     * Returns a view of the active portion of the buffer (from the current read position to the current write
+     * position) without copying it. The view has its own position and limit, but shares the underlying bytes.
+     *
+     * @return A ByteBuffer view over the active data in the buffer.
+     */
+    public ByteBuffer asByteBuffer() {
+        return buffer.slice(readPosition, getActiveSize());
+    }
+
     /**
      * Ensures that the buffer has enough capacity to accommodate the required number of bytes. If not, it resizes the buffer.
      *
@@ -0,0 +1,73 @@
+package br.net.dd.netherwingcore.common.cryptography;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks {@link Argon2Engine} against the test vectors of RFC 9106, section 5.
+ */
+class Argon2EngineTest {
+
+    private static final byte[] PASSWORD = filled(32, 0x01);
+    private static final byte[] SALT = filled(16, 0x02);
+    private static final byte[] SECRET = filled(8, 0x03);
+    private static final byte[] ASSOCIATED_DATA = filled(12, 0x04);
+
+    @Test
+    void argon2d() {
+        assertEquals("512b391b6f1162975371d30919734294f868e3be3984f3c1a13a4db9fabe4acb",
+                rfcVector(Argon2Engine.Type.D));
+    }
+
+    @Test
+    void argon2i() {
+        assertEquals("c814d9d1dc7f37aa13f0d77f2494bda1c8de6b016dd388d29952a4c4672b6ce8",
+                rfcVector(Argon2Engine.Type.I));
+    }
+
+    @Test
+    void argon2id() {
+        assertEquals("0d640df58d78766c08c037a34a8b53c9d01ef0452d75b65eb52520e96b01e659",
+                rfcVector(Argon2Engine.Type.ID));
+    }
+
+    @Test
+    void version10() {
+        // From the reference implementation's tests: argon2i v1.0, "password", "somesalt", t=2, m=64 MiB, p=1.
+        byte[] out = new byte[32];
+        new Argon2Engine().hash(Argon2Engine.Type.I, Argon2Engine.VERSION_10, 1 << 16, 2, 1,
+                "password".getBytes(StandardCharsets.UTF_8), "somesalt".getBytes(StandardCharsets.UTF_8), out);
+
+        assertEquals("f6c4db4a54e2a370627aff3db6176b94a2a209a62c8e36152711802f7b30c694", HexFormat.of().formatHex(out));
+    }
+
+    @Test
+    void engineReuse() {
+        // A larger hash followed by a smaller one runs over a memory area that is not cleared in between.
+        Argon2Engine engine = new Argon2Engine();
+        byte[] out = new byte[32];
+        engine.hash(Argon2Engine.Type.ID, Argon2Engine.VERSION_13, 1024, 1, 2, PASSWORD, SALT, out);
+
+        engine.hash(Argon2Engine.Type.ID, Argon2Engine.VERSION_13, 32, 3, 4, PASSWORD, SALT, SECRET, ASSOCIATED_DATA,
+                out);
+
+        assertEquals("0d640df58d78766c08c037a34a8b53c9d01ef0452d75b65eb52520e96b01e659", HexFormat.of().formatHex(out));
+    }
+
+    private static String rfcVector(Argon2Engine.Type type) {
+        byte[] out = new byte[32];
+        new Argon2Engine().hash(type, Argon2Engine.VERSION_13, 32, 3, 4, PASSWORD, SALT, SECRET, ASSOCIATED_DATA, out);
+        return HexFormat.of().formatHex(out);
+    }
+
+    private static byte[] filled(int length, int value) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) value);
+        return bytes;
+    }
+}
@@ -0,0 +1,58 @@
+package br.net.dd.netherwingcore.common.cryptography;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that hashes made by {@link Argon2VerifyService} and by {@link Argon2Hash} (password4j) verify with each
+ * other, with the default parameters.
+ */
+class Argon2VerifyServiceTest {
+
+    private static final String PASSWORD = "correct horse battery staple";
+    private static final byte[] SALT = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static Argon2VerifyService service;
+
+    @BeforeAll
+    static void start() {
+        // A single worker allowed the whole heap, so a hash with the default memory cost always fits.
+        service = new Argon2VerifyService(1, 100, 4, Argon2Hash.PARALLELISM);
+    }
+
+    @AfterAll
+    static void stop() {
+        service.shutdown();
+    }
+
+    @Test
+    void verifiesArgon2HashOutput() throws Exception {
+        String encoded = Argon2Hash.hash(PASSWORD, SALT).orElseThrow();
+
+        assertTrue(service.verify(PASSWORD, encoded).get());
+        assertFalse(service.verify(PASSWORD + "!", encoded).get());
+    }
+
+    @Test
+    void hashVerifiesWithArgon2Hash() throws Exception {
+        String encoded = service.hash(PASSWORD, SALT).get().orElseThrow();
+
+        assertTrue(Argon2Hash.verify(PASSWORD, encoded));
+        assertFalse(Argon2Hash.verify(PASSWORD + "!", encoded));
+    }
+
+    @Test
+    void verifiesVersion10() throws Exception {
+        // From the reference implementation's tests; the encoding has no version field.
+        String encoded = "$argon2i$m=65536,t=2,p=1$c29tZXNhbHQ$9sTbSlTio3Biev89thdrlKKiCaYsjjYVJxGAL3swxpQ";
+
+        assertTrue(service.verify("password", encoded).get());
+        assertFalse(service.verify("passwore", encoded).get());
+    }
+}
@@ -0,0 +1,36 @@
+package br.net.dd.netherwingcore.common.cryptography;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks {@link Blake2b} against the example of RFC 7693, appendix A.
+ */
+class Blake2bTest {
+
+    private static final String ABC_512 = "ba80a53f981c4d0d6a2797b69f12f6e94c212f14685ac4b74b12bb6fdbffa2d1"
+            + "7d87c5392aab792dc252d5de4533cc9518d38aa8dbf1925ab92386edd4009923";
+
+    @Test
+    void abc() {
+        byte[] out = new byte[Blake2b.MAX_OUTPUT_BYTES];
+        new Blake2b().init(Blake2b.MAX_OUTPUT_BYTES).update("abc".getBytes(StandardCharsets.US_ASCII)).doFinal(out, 0);
+
+        assertEquals(ABC_512, HexFormat.of().formatHex(out));
+    }
+
+    @Test
+    void reuseAfterFinal() {
+        // A second hash on the same instance must not see the state of the first.
+        Blake2b blake2b = new Blake2b();
+        byte[] out = new byte[Blake2b.MAX_OUTPUT_BYTES];
+        blake2b.init(Blake2b.MAX_OUTPUT_BYTES).update(new byte[300]).doFinal(out, 0);
+        blake2b.init(Blake2b.MAX_OUTPUT_BYTES).update("abc".getBytes(StandardCharsets.US_ASCII)).doFinal(out, 0);
+
+        assertEquals(ABC_512, HexFormat.of().formatHex(out));
+    }
+}
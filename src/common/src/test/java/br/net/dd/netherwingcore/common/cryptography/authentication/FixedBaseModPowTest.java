@@ -0,0 +1,87 @@
+package br.net.dd.netherwingcore.common.cryptography.authentication;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks {@link FixedBaseModPow} against {@link BigInteger#modPow} around the 32-bit limb boundaries.
+ */
+class FixedBaseModPowTest {
+
+    private static final int[] MODULUS_BITS = {31, 32, 33, 255, 256, 257};
+
+    private final Random random = new Random(0x5EED);
+
+    @Test
+    void matchesModPow() {
+        for (int bits : MODULUS_BITS) {
+            for (BigInteger modulus : moduli(bits)) {
+                for (BigInteger base : bases(modulus)) {
+                    FixedBaseModPow pow = new FixedBaseModPow(base, modulus);
+                    for (BigInteger exponent : exponents(modulus)) {
+                        assertEquals(base.modPow(exponent, modulus), pow.pow(exponent),
+                                base + "^" + exponent + " mod " + modulus);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void matchesModPowForSrp6Group() {
+        BigInteger modulus = new BigInteger(
+                "894B645E89E1535BBDAD5B8B290650530801B18EBFBF5E8FAB3C82872A3E9BB7", 16);
+        BigInteger base = BigInteger.valueOf(7);
+        FixedBaseModPow pow = new FixedBaseModPow(base, modulus);
+
+        for (int i = 0; i < 200; i++) {
+            BigInteger exponent = new BigInteger(256, random);
+            assertEquals(base.modPow(exponent, modulus), pow.pow(exponent));
+        }
+    }
+
+    /**
+     * Returns odd moduli of exactly the given bit length: the smallest, the largest and a random one.
+     */
+    private List<BigInteger> moduli(int bits) {
+        BigInteger smallest = BigInteger.ONE.shiftLeft(bits - 1).setBit(0);
+        BigInteger largest = BigInteger.ONE.shiftLeft(bits).subtract(BigInteger.ONE);
+        BigInteger randomModulus = new BigInteger(bits, random).setBit(bits - 1).setBit(0);
+        return List.of(smallest, largest, randomModulus);
+    }
+
+    private List<BigInteger> bases(BigInteger modulus) {
+        return List.of(BigInteger.ZERO, BigInteger.TWO, modulus.subtract(BigInteger.ONE),
+                modulus.add(BigInteger.valueOf(3)), randomBelow(modulus));
+    }
+
+    private List<BigInteger> exponents(BigInteger modulus) {
+        List<BigInteger> exponents = new ArrayList<>(List.of(
+                BigInteger.ZERO,
+                BigInteger.ONE,
+                BigInteger.valueOf(255),
+                BigInteger.valueOf(256),
+                modulus.subtract(BigInteger.ONE),
+                modulus,
+                // Longer than the table, computed with modPow
+                modulus.shiftLeft(8)));
+        for (int i = 0; i < 20; i++) {
+            exponents.add(randomBelow(modulus));
+        }
+        return exponents;
+    }
+
+    private BigInteger randomBelow(BigInteger bound) {
+        BigInteger value;
+        do {
+            value = new BigInteger(bound.bitLength(), random);
+        } while (value.compareTo(bound) >= 0);
+        return value;
+    }
+}
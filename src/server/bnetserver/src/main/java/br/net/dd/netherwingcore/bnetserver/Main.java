@@ -8,6 +8,7 @@ import br.net.dd.netherwingcore.common.Banner;
 import br.net.dd.netherwingcore.common.configuration.Config;
 import br.net.dd.netherwingcore.common.logging.Log;
 import br.net.dd.netherwingcore.common.logging.LogFile;
+import br.net.dd.netherwingcore.common.metric.MetricExporter;
 import br.net.dd.netherwingcore.database.updater.DBUpdater;
 
 public class Main {
@@ -21,6 +22,10 @@ public class Main {
 
         logger = Log.getLogger(Main.class.getSimpleName());
 
+        if (Config.get("Config.AutoReload", 1) == 1) {
+            Config.startWatching();
+        }
+
         Banner.show("NetherwingCore BNet Server", "bnetserver.log", "");
 
         // Run database updates before starting the server.
@@ -34,6 +39,7 @@ public class Main {
                 Config.get("BattlenetPort", 1119)
         )) {
             logger.info("NetherwingCore BNet Server started successfully.");
+            MetricExporter.getInstance().start();
         } else {
             logger.fatal("Failed to start NetherwingCore BNet Server.");
             return;
@@ -48,6 +54,8 @@ public class Main {
     }
 
     public static void stopServices() {
+        Config.stopWatching();
+        MetricExporter.getInstance().stop();
         LoginRESTService.stop();
         socketManager.stop();
         logger.info("NetherwingCore BNet Server stopped successfully.", new  LogFile("bnetserver.log"));
@@ -66,6 +66,7 @@ public class BnetConfigSample extends ConfigurationSample {
      *
      * @return A {@link Configuration} instance representing the sample configuration for the NetherwingCore Auth Server.
      */
+    @Override
     public Configuration createSample() {
 
         return new Configuration(new Description("NetherwingCore Auth Server configuration file"), "bnetserver")
@@ -103,6 +104,14 @@ public class BnetConfigSample extends ConfigurationSample {
                                         new Value("30", NUMBER),
                                         new DefaultValue("30")
                                 ))
+                        ).addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Reload this file when it changes, without restarting the server."),
+                                        new ImportantNote("Ports and bind addresses are only read at startup."),
+                                        new Key("Config.AutoReload"),
+                                        new Value("1", NUMBER),
+                                        new DefaultValue("1 - (Enabled)", "0 - (Disabled)")
+                                ))
                         ).addGroup(new Group()
                                 .addItem(new Item(
                                         new Description("TCP port to reach the auth server for battle.net connections."),
@@ -147,6 +156,99 @@ public class BnetConfigSample extends ConfigurationSample {
                                         new Value("\"0.0.0.0\"", TEXT),
                                         new DefaultValue("\"0.0.0.0\" - (Bind to all IPs on the system)")
                                 ))
+                        ).addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Number of network worker threads handling battle.net sessions.",
+                                                "Each worker runs its own selector; sessions are pinned to one worker for their lifetime."),
+                                        new Key("Network.Threads"),
+                                        new Value("0", NUMBER),
+                                        new DefaultValue("0  - (One worker per available processor)", "1+ - (Fixed number of workers)")
+                                ))
+                        ).addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Number of threads running the expensive steps of TLS handshakes (key exchange, signing).",
+                                                "Keeps handshake storms from stalling reads for established sessions."),
+                                        new Key("Network.HandshakeThreads"),
+                                        new Value("0", NUMBER),
+                                        new DefaultValue("0  - (One virtual thread per handshake task)", "1+ - (Fixed pool of platform threads)")
+                                ))
+                        ).addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Maximum number of idle network buffers kept for reuse by sessions.",
+                                                "Sessions only hold buffers while data is in flight; each buffer is about 32 KB of direct memory."),
+                                        new Key("Network.BufferPoolSize"),
+                                        new Value("1024", NUMBER),
+                                        new DefaultValue("1024")
+                                ))
+                        ).addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Time (in milliseconds) without any traffic after which a session is closed."),
+                                        new Key("Network.IdleTimeout"),
+                                        new Value("30000", NUMBER),
+                                        new DefaultValue("30000 - (30 seconds)")
+                                ))
+                        ).addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Time (in milliseconds) a client may stay silent after the TLS handshake",
+                                                "before sending its first request."),
+                                        new Key("Network.PostHandshakeTimeout"),
+                                        new Value("5000", NUMBER),
+                                        new DefaultValue("5000 - (5 seconds)")
+                                ))
+                        ).addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Run RPC calls on virtual threads instead of the network worker threads.",
+                                                "The calls of a session still run one at a time, and responses are sent in request order."),
+                                        new Key("Network.AsyncDispatch"),
+                                        new Value("0", NUMBER),
+                                        new DefaultValue("0 - (Disabled, calls run on the network worker)", "1 - (Enabled, request payloads are copied)")
+                                ))
+                        ).addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Maximum number of RPC calls a single session may have in flight with Network.AsyncDispatch.",
+                                                "Once reached, the session's socket is no longer read until a call completes."),
+                                        new Key("Network.MaxInFlightRequests"),
+                                        new Value("32", NUMBER),
+                                        new DefaultValue("32")
+                                ))
+                        ).addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Sustained number of new connections per second accepted from a single IP address.",
+                                                "Connections above this rate are closed before the TLS handshake starts."),
+                                        new Key("Network.ConnectionRate"),
+                                        new Value("5", NUMBER),
+                                        new DefaultValue("5", "0 - (Disabled)")
+                                ))
+                        ).addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Number of connections a single IP address may open back to back before Network.ConnectionRate applies."),
+                                        new Key("Network.ConnectionBurst"),
+                                        new Value("10", NUMBER),
+                                        new DefaultValue("10")
+                                ))
+                        ).addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Maximum number of TLS handshakes in progress at the same time.",
+                                                "New connections are closed right away while the limit is reached."),
+                                        new Key("Network.MaxPendingHandshakes"),
+                                        new Value("256", NUMBER),
+                                        new DefaultValue("256", "0 - (No limit)")
+                                ))
+                        ).addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Drop connections from IP addresses banned in the login database.",
+                                                "The bans are cached in memory and reloaded every Network.IpBanRefreshInterval seconds."),
+                                        new Key("Network.IpBanCheck"),
+                                        new Value("0", NUMBER),
+                                        new DefaultValue("0 - (Disabled)", "1 - (Enabled)")
+                                ))
+                        ).addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Time (in seconds) between two reloads of the cached IP bans."),
+                                        new Key("Network.IpBanRefreshInterval"),
+                                        new Value("60", NUMBER),
+                                        new DefaultValue("60 - (1 minute)")
+                                ))
                         ).addGroup(new Group()
                                 .addItem(new Item(
                                         new Description("Certificates file. Both PEM (.crt) and PKCS#12 (.pfx) formats are supported"),
@@ -171,6 +273,28 @@ public class BnetConfigSample extends ConfigurationSample {
                                         new Value("\"\"", TEXT),
                                         new DefaultValue("\"\"")
                                 ))
+                        ).addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Issue TLS session tickets, letting reconnecting clients resume their session",
+                                                "without a full handshake even after it left the server session cache."),
+                                        new Key("SSL.SessionTickets"),
+                                        new Value("1", NUMBER),
+                                        new DefaultValue("1 - (Enabled)", "0 - (Disabled, only the session cache is used)")
+                                ))
+                        ).addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Maximum number of TLS sessions kept in the server session cache."),
+                                        new Key("SSL.SessionCacheSize"),
+                                        new Value("20480", NUMBER),
+                                        new DefaultValue("20480", "0 - (No limit)")
+                                ))
+                        ).addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Time (in seconds) a TLS session can be resumed after it was created."),
+                                        new Key("SSL.SessionTimeout"),
+                                        new Value("86400", NUMBER),
+                                        new DefaultValue("86400 - (24 hours)")
+                                ))
                         ).addGroup(new Group()
                                 .addItem(new Item(
                                         new Description("Processors mask for Windows and Linux based multi-processor systems."),
@@ -309,6 +433,36 @@ public class BnetConfigSample extends ConfigurationSample {
                                         new Value("", TEXT),
                                         new DefaultValue("<blank> - (Store TOTP secrets unencrypted)")
                                 ))
+                        ).addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Maximum number of threads hashing and verifying Argon2 passwords.",
+                                                "Fewer are started if their memory does not fit in Argon2.MemoryPercent."),
+                                        new ImportantNote("Not used yet: the login handler does not hash or verify passwords with Argon2,",
+                                                "so the Argon2.* settings have no effect until it does."),
+                                        new Key("Argon2.Threads"),
+                                        new Value("0", NUMBER),
+                                        new DefaultValue("0  - (One per processor)")
+                                ))
+                                .addItem(new Item(
+                                        new Description("Share of the maximum heap, in percent, the Argon2 threads may hold.",
+                                                "Each thread keeps about 128 MB for the default password hashes."),
+                                        new Key("Argon2.MemoryPercent"),
+                                        new Value("25", NUMBER),
+                                        new DefaultValue("25")
+                                ))
+                                .addItem(new Item(
+                                        new Description("Maximum number of Argon2 requests waiting for a thread, further requests are refused."),
+                                        new Key("Argon2.QueueSize"),
+                                        new Value("256", NUMBER),
+                                        new DefaultValue("256")
+                                ))
+                                .addItem(new Item(
+                                        new Description("Number of lanes (degree of parallelism) of new Argon2 password hashes."),
+                                        new ImportantNote("Existing hashes keep the value they were created with."),
+                                        new Key("Argon2.Parallelism"),
+                                        new Value("1", NUMBER),
+                                        new DefaultValue("1")
+                                ))
                         )
                 ).addSection(new Section(new Description("UPDATE SETTINGS"))
                         .addGroup(new Group()
@@ -428,6 +582,125 @@ public class BnetConfigSample extends ConfigurationSample {
                                         new Value("2,2,0,Bnet.log,w", TEXT),
                                         new DefaultValue("2,2,0,Bnet.log,w")
                                 ))
+                        ).addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Lowest LogLevel written by the loggers. Less severe messages are discarded before they are formatted."),
+                                        new Example("0 - (Disabled)", "2 - (Debug)"),
+                                        new Key("Log.Level"),
+                                        new Value("3", NUMBER),
+                                        new DefaultValue("3 - (Info)")
+                                ))
+                                .addItem(new Item(
+                                        new Description("LogLevel of single loggers, overriding Log.Level for them."),
+                                        new Example("\"Session=2,ServiceDispatcher=1\""),
+                                        new Key("Log.LoggerLevels"),
+                                        new Value("\"\"", TEXT),
+                                        new DefaultValue("\"\"")
+                                ))
+                        ).addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Write log messages from a background thread instead of the logging thread."),
+                                        new Key("Log.Async"),
+                                        new Value("1", NUMBER),
+                                        new DefaultValue("1 - (Enabled)", "0 - (Disabled)")
+                                ))
+                                .addItem(new Item(
+                                        new Description("Number of log messages that can wait for the background writer."),
+                                        new Key("Log.AsyncQueueSize"),
+                                        new Value("8192", NUMBER),
+                                        new DefaultValue("8192")
+                                ))
+                                .addItem(new Item(
+                                        new Description("What happens to a log message when the queue is full."),
+                                        new Key("Log.AsyncOverflow"),
+                                        new Value("0", NUMBER),
+                                        new DefaultValue("0 - (Wait for room in the queue)",
+                                                "1 - (Drop the message)",
+                                                "2 - (Drop the message if less severe than Log.AsyncOverflowLevel, wait otherwise)")
+                                ))
+                                .addItem(new Item(
+                                        new Description("Lowest LogLevel that is never dropped with Log.AsyncOverflow = 2."),
+                                        new Key("Log.AsyncOverflowLevel"),
+                                        new Value("4", NUMBER),
+                                        new DefaultValue("4 - (Warn)")
+                                ))
+                        ).addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Size (in megabytes) a log file may reach before it is rolled over to <name>.<date>.<n>."),
+                                        new Key("Log.FileMaxSize"),
+                                        new Value("100", NUMBER),
+                                        new DefaultValue("100", "0 - (No limit)")
+                                ))
+                                .addItem(new Item(
+                                        new Description("Roll the log files over when the day changes."),
+                                        new Key("Log.FileRotateDaily"),
+                                        new Value("1", NUMBER),
+                                        new DefaultValue("1 - (Enabled)", "0 - (Disabled)")
+                                ))
+                                .addItem(new Item(
+                                        new Description("Compress the rolled over log files with gzip, from a background thread."),
+                                        new Key("Log.FileCompress"),
+                                        new Value("1", NUMBER),
+                                        new DefaultValue("1 - (Enabled)", "0 - (Disabled)")
+                                ))
+                                .addItem(new Item(
+                                        new Description("Time (in milliseconds) between two writes of the buffered lines to the log files."),
+                                        new Key("Log.FileFlushInterval"),
+                                        new Value("1000", NUMBER),
+                                        new DefaultValue("1000 - (1 second)", "0 - (After every batch of messages)")
+                                ))
+                        ).addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Also write log messages as compact binary records, decoded with the logdecoder tool."),
+                                        new Key("Log.Binary"),
+                                        new Value("0", NUMBER),
+                                        new DefaultValue("0 - (Disabled)",
+                                                "1 - (Enabled)",
+                                                "2 - (Enabled, replaces the text log files; the console is unchanged)")
+                                ))
+                                .addItem(new Item(
+                                        new Description("Name prefix of the binary log segments, created in LogsDir."),
+                                        new Key("Log.BinaryFile"),
+                                        new Value("\"Bnet\"", TEXT),
+                                        new DefaultValue("\"Bnet\"")
+                                ))
+                                .addItem(new Item(
+                                        new Description("Size of each binary log segment, in megabytes (1 - 1024)."),
+                                        new Key("Log.BinarySegmentSize"),
+                                        new Value("64", NUMBER),
+                                        new DefaultValue("64")
+                                ))
+                                .addItem(new Item(
+                                        new Description("Number of binary log segments kept, the oldest are deleted."),
+                                        new Key("Log.BinaryMaxSegments"),
+                                        new Value("0", NUMBER),
+                                        new DefaultValue("0 - (Keep all)")
+                                ))
+                        )
+                ).addSection(new Section(new Description("METRICS"))
+                        .addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Where the metrics are exported, in the InfluxDB line protocol."),
+                                        new Example("\"file:metrics.log\" - (Appended to a file, next to the server unless absolute)",
+                                                "\"udp:127.0.0.1:8089\" - (Sent as datagrams, e.g. to Telegraf)",
+                                                "\"tcp:127.0.0.1:8094\" - (Written to a connection)"),
+                                        new Key("Metric.ExportTarget"),
+                                        new Value("\"\"", TEXT),
+                                        new DefaultValue("\"\" - (Disabled)")
+                                ))
+                                .addItem(new Item(
+                                        new Description("Time (in seconds) between two metric exports."),
+                                        new Key("Metric.ExportInterval"),
+                                        new Value("10", NUMBER),
+                                        new DefaultValue("10")
+                                ))
+                        ).addGroup(new Group()
+                                .addItem(new Item(
+                                        new Description("Serve the metrics in the Prometheus text format at /bnetserver/metrics/ on the REST login port."),
+                                        new Key("Metric.PrometheusEndpoint"),
+                                        new Value("0", NUMBER),
+                                        new DefaultValue("0 - (Disabled)", "1 - (Enabled)")
+                                ))
                         )
                 );
     }
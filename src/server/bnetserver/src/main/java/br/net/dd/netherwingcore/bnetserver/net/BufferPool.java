@@ -0,0 +1,88 @@
+package br.net.dd.netherwingcore.bnetserver.net;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A shared pool of equally sized direct {@link ByteBuffer}s used for the SSL and framing buffers of sessions.
+ *
+ * <p>Sessions lease buffers only while they actually have data in flight (a partially received record, decrypted
+ * bytes not yet framed, encrypted bytes not yet written) and give them back as soon as they drain, so idle
+ * connections hold no buffer memory at all. Buffers of a different size than the pool's, such as the ones a session
+ * allocates to hold an unusually large frame, are simply dropped on release.</p>
+ */
+public final class BufferPool {
+
+    private final int bufferSize;
+    private final int maxPooledBuffers;
+    private final Queue<ByteBuffer> freeBuffers;
+    private final AtomicInteger pooledBuffers;
+
+    /**
+     * Constructs an empty pool. Buffers are allocated on demand and at most {@code maxPooledBuffers} released
+     * buffers are kept for reuse.
+     *
+     * @param bufferSize       the capacity of every buffer handed out by the pool
+     * @param maxPooledBuffers the maximum number of idle buffers kept in the pool
+     */
+    public BufferPool(int bufferSize, int maxPooledBuffers) {
+        this.bufferSize = bufferSize;
+        this.maxPooledBuffers = maxPooledBuffers;
+        this.freeBuffers = new ConcurrentLinkedQueue<>();
+        this.pooledBuffers = new AtomicInteger();
+    }
+
+    /**
+     * Leases a cleared buffer from the pool, allocating a new one if the pool is empty.
+     *
+     * @return a direct buffer of {@link #getBufferSize()} bytes, ready for writing
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = freeBuffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        pooledBuffers.decrementAndGet();
+        return buffer.clear();
+    }
+
+    /**
+     * Returns a buffer to the pool. The caller must not touch the buffer afterwards. Buffers that were not handed out
+     * by this pool, or that would exceed the pool's capacity, are left to the garbage collector.
+     *
+     * @param buffer the buffer to give back, may be null
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || buffer.capacity() != bufferSize) {
+            return;
+        }
+
+        if (pooledBuffers.incrementAndGet() > maxPooledBuffers) {
+            pooledBuffers.decrementAndGet();
+            return;
+        }
+
+        buffer.clear();
+        freeBuffers.offer(buffer);
+    }
+
+    /**
+     * Returns the capacity of the buffers handed out by this pool.
+     *
+     * @return the buffer size in bytes
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Returns the number of idle buffers currently kept in the pool.
+     *
+     * @return the number of pooled buffers
+     */
+    public int getPooledCount() {
+        return pooledBuffers.get();
+    }
+}
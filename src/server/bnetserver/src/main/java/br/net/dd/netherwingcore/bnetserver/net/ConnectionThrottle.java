@@ -0,0 +1,167 @@
+package br.net.dd.netherwingcore.bnetserver.net;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether a freshly accepted connection is worth a TLS handshake.
+ *
+ * <p>Two limits apply, both checked before any {@code SSLEngine} or buffer is created for the connection:</p>
+ * <ul>
+ *     <li>a token bucket per remote address, refilled at {@code connectionsPerSecond} and holding up to
+ *     {@code burst} tokens. Each bucket is a single {@link AtomicLong} holding the time at which it will be full
+ *     again (the "theoretical arrival time" of the generic cell rate algorithm), so taking a token is one CAS;</li>
+ *     <li>a global cap on the number of handshakes in progress, released by the session once its handshake
+ *     completes or it is closed.</li>
+ * </ul>
+ *
+ * <p>Buckets that are full again carry no state worth keeping and are swept periodically by the acceptor. The limits
+ * can be changed while connections are being accepted with {@link #reconfigure(int, int, int)}.</p>
+ */
+final class ConnectionThrottle {
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * The limits in use, replaced as a whole so that the rate and the burst window always match.
+     */
+    private record Limits(long emissionIntervalNanos, long burstWindowNanos, int maxPendingHandshakes) {
+
+        static Limits of(int connectionsPerSecond, int burst, int maxPendingHandshakes) {
+            long emissionIntervalNanos = connectionsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / connectionsPerSecond : 0;
+            return new Limits(emissionIntervalNanos, emissionIntervalNanos * Math.max(1, burst), maxPendingHandshakes);
+        }
+    }
+
+    private volatile Limits limits;
+    private final Map<InetAddress, AtomicLong> buckets;
+    private final AtomicInteger pendingHandshakes;
+    private long nextSweep;
+
+    /**
+     * Constructs a throttle.
+     *
+     * @param connectionsPerSecond the sustained connection rate allowed per address, 0 to disable the per-address limit
+     * @param burst                the number of connections an address may open back to back
+     * @param maxPendingHandshakes the maximum number of handshakes in progress, 0 for no limit
+     */
+    ConnectionThrottle(int connectionsPerSecond, int burst, int maxPendingHandshakes) {
+        this.limits = Limits.of(connectionsPerSecond, burst, maxPendingHandshakes);
+        this.buckets = new ConcurrentHashMap<>();
+        this.pendingHandshakes = new AtomicInteger();
+        this.nextSweep = System.nanoTime() + SWEEP_INTERVAL_NANOS;
+    }
+
+    /**
+     * Takes a token from the bucket of the given address.
+     *
+     * @param address the remote address of the connection
+     * @param now     the current {@link System#nanoTime()}
+     * @return true if the connection is within the rate of its address
+     */
+    boolean tryAcquire(InetAddress address, long now) {
+        Limits current = limits;
+        long emissionIntervalNanos = current.emissionIntervalNanos();
+        if (emissionIntervalNanos == 0) {
+            return true;
+        }
+
+        AtomicLong bucket = buckets.get(address);
+        if (bucket == null) {
+            AtomicLong created = new AtomicLong(now);
+            bucket = buckets.putIfAbsent(address, created);
+            if (bucket == null) {
+                bucket = created;
+            }
+        }
+
+        while (true) {
+            long fullAt = bucket.get();
+            long nextFullAt = (fullAt - now > 0 ? fullAt : now) + emissionIntervalNanos;
+            if (nextFullAt - now > current.burstWindowNanos()) {
+                return false;
+            }
+            if (bucket.compareAndSet(fullAt, nextFullAt)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Replaces the limits. Buckets and reserved handshake slots are kept, so the new limits apply from the next
+     * connection.
+     *
+     * @param connectionsPerSecond the sustained connection rate allowed per address, 0 to disable the per-address limit
+     * @param burst                the number of connections an address may open back to back
+     * @param maxPendingHandshakes the maximum number of handshakes in progress, 0 for no limit
+     */
+    void reconfigure(int connectionsPerSecond, int burst, int maxPendingHandshakes) {
+        this.limits = Limits.of(connectionsPerSecond, burst, maxPendingHandshakes);
+    }
+
+    /**
+     * Reserves a handshake slot.
+     *
+     * @return true if a slot was reserved, false if too many handshakes are in progress
+     */
+    boolean tryBeginHandshake() {
+        int maxPendingHandshakes = limits.maxPendingHandshakes();
+        if (maxPendingHandshakes <= 0) {
+            pendingHandshakes.incrementAndGet();
+            return true;
+        }
+
+        while (true) {
+            int pending = pendingHandshakes.get();
+            if (pending >= maxPendingHandshakes) {
+                return false;
+            }
+            if (pendingHandshakes.compareAndSet(pending, pending + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a handshake slot reserved by {@link #tryBeginHandshake()}. Safe to call from any thread.
+     */
+    void endHandshake() {
+        pendingHandshakes.decrementAndGet();
+    }
+
+    /**
+     * Drops the buckets that are full again, at most once every {@link #SWEEP_INTERVAL_NANOS}. Only called by the
+     * acceptor thread.
+     *
+     * @param now the current {@link System#nanoTime()}
+     */
+    void sweep(long now) {
+        if (now - nextSweep < 0) {
+            return;
+        }
+        nextSweep = now + SWEEP_INTERVAL_NANOS;
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    /**
+     * Returns the number of handshakes currently in progress.
+     *
+     * @return the number of reserved handshake slots
+     */
+    int getPendingHandshakes() {
+        return pendingHandshakes.get();
+    }
+
+    /**
+     * Returns the number of addresses currently tracked by the per-address limit.
+     *
+     * @return the number of buckets
+     */
+    int getTrackedAddresses() {
+        return buckets.size();
+    }
+}
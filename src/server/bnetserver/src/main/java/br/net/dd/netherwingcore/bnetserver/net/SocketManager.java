@@ -1,39 +1,76 @@
 package br.net.dd.netherwingcore.bnetserver.net;
 
+import br.net.dd.netherwingcore.common.configuration.Config;
+import br.net.dd.netherwingcore.common.configuration.ConfigListener;
+import br.net.dd.netherwingcore.common.configuration.ConfigSnapshot;
 import br.net.dd.netherwingcore.common.cryptography.SSLContextImpl;
+import br.net.dd.netherwingcore.bnetserver.server.HandshakeExecutor;
 import br.net.dd.netherwingcore.bnetserver.server.Session;
+import br.net.dd.netherwingcore.bnetserver.services.ServiceDispatcher;
 import br.net.dd.netherwingcore.common.logging.Log;
-import br.net.dd.netherwingcore.shared.networking.SocketReadCallbackResult;
+import br.net.dd.netherwingcore.common.metric.Counter;
+import br.net.dd.netherwingcore.common.metric.Metric;
+import br.net.dd.netherwingcore.shared.networking.connectioninitializers.IpBanCheckConnectionInitializer;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.nio.ByteBuffer;
 import java.nio.channels.*;
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Iterator;
 
 /**
  * Manages socket connections for the server, including accepting new connections,
  * reading from and writing to sockets, and handling SSL encryption.
+ *
+ * <p>The manager follows a boss/worker reactor model: a single acceptor selector accepts connections and pins
+ * each new {@link Session} to one of {@code Network.Threads} {@link SocketWorker}s, which perform all further
+ * I/O, SSL and dispatch work for that session on their own selector thread.</p>
+ *
+ * <p>Before any SSL state is created for a connection, the acceptor drops it if its address is banned (with
+ * {@code Network.IpBanCheck} enabled), opens connections faster than {@code Network.ConnectionRate}, or if
+ * {@code Network.MaxPendingHandshakes} handshakes are already in progress. See {@link ConnectionThrottle}.</p>
  */
 public class SocketManager {
 
     private static final Log logger = Log.getLogger(SocketManager.class.getSimpleName());
 
-    private final Map<SocketChannel, Session> sessions;
+    private static final Counter ACCEPTED = Metric.counter("bnet.accept.accepted");
+    private static final Counter REJECTED_BANNED = Metric.counter("bnet.accept.rejected_banned");
+    private static final Counter REJECTED_RATE = Metric.counter("bnet.accept.rejected_rate");
+    private static final Counter REJECTED_HANDSHAKES = Metric.counter("bnet.accept.rejected_handshakes");
+    private static final String SESSIONS_GAUGE = "bnet.sessions";
+    private static final String PENDING_HANDSHAKES_GAUGE = "bnet.accept.pending_handshakes";
+
     private Selector selector;
     private ServerSocketChannel serverChannel;
     private SSLContext sslContext;
+    private SSLParameters serverParameters;
+    private BufferPool bufferPool;
+    private ConnectionThrottle throttle;
+    private IpBanCheckConnectionInitializer ipBanCheck;
+    private SocketWorker[] workers;
+    private int nextWorker;
     private volatile boolean running;
 
+    // Applies new connection limits from a configuration reload.
+    private final ConfigListener throttleListener = change -> {
+        ConfigSnapshot config = change.current();
+        throttle.reconfigure(
+                config.getInt("Network.ConnectionRate", 5),
+                config.getInt("Network.ConnectionBurst", 10),
+                config.getInt("Network.MaxPendingHandshakes", 256));
+        logger.info("Connection limits changed by the configuration");
+    };
+
     /**
      * Constructs a new SocketManager instance.
      */
     public SocketManager() {
-        this.sessions = new ConcurrentHashMap<>();
+        this.workers = new SocketWorker[0];
         this.running = false;
     }
 
@@ -44,9 +81,20 @@ public class SocketManager {
      */
     private void initSSL() throws Exception {
         sslContext = SSLContextImpl.get();
+        serverParameters = SSLContextImpl.getServerParameters();
         logger.debug("SSL context initialized successfully");
         logger.debug("Supported protocols: {}", String.join(", ", sslContext.getSupportedSSLParameters().getProtocols()));
         logger.debug("Supported cipher suites: {}", sslContext.getSupportedSSLParameters().getCipherSuites().length);
+        logger.debug("Enabled protocols: {}", String.join(", ", serverParameters.getProtocols()));
+        logger.debug("Using cipher suites: {}", String.join(", ", serverParameters.getCipherSuites()));
+        logger.debug("Session cache: {} sessions, {} seconds", sslContext.getServerSessionContext().getSessionCacheSize(),
+                sslContext.getServerSessionContext().getSessionTimeout());
+
+        // Pooled buffers must hold a full TLS record, plus a decrypted record behind a partially received frame.
+        SSLSession sslSession = sslContext.createSSLEngine().getSession();
+        int bufferSize = sslSession.getPacketBufferSize() + sslSession.getApplicationBufferSize();
+        bufferPool = new BufferPool(bufferSize, Config.get("Network.BufferPoolSize", 1024));
+        logger.debug("Buffer pool initialized with {} byte buffers", bufferSize);
     }
 
     /**
@@ -62,6 +110,34 @@ public class SocketManager {
             // Initialize SSL context before starting the server.
             initSSL();
 
+            // Start the worker reactors before accepting any connection.
+            int workerCount = Config.get("Network.Threads", 0);
+            if (workerCount <= 0) {
+                workerCount = Runtime.getRuntime().availableProcessors();
+            }
+
+            workers = new SocketWorker[workerCount];
+            for (int i = 0; i < workerCount; i++) {
+                workers[i] = new SocketWorker(i);
+                workers[i].start();
+            }
+
+            throttle = new ConnectionThrottle(
+                    Config.get("Network.ConnectionRate", 5),
+                    Config.get("Network.ConnectionBurst", 10),
+                    Config.get("Network.MaxPendingHandshakes", 256));
+            Config.addListener(throttleListener,
+                    "Network.ConnectionRate", "Network.ConnectionBurst", "Network.MaxPendingHandshakes");
+
+            Metric.gauge(SESSIONS_GAUGE, this::getSessionCount);
+            Metric.gauge(PENDING_HANDSHAKES_GAUGE, throttle::getPendingHandshakes);
+
+            if (Config.get("Network.IpBanCheck", 0) == 1) {
+                ipBanCheck = new IpBanCheckConnectionInitializer(Config.get("Network.IpBanRefreshInterval", 60));
+                ipBanCheck.start();
+                logger.info("IP ban check enabled ({} bans cached)", ipBanCheck.getBanCount());
+            }
+
             // Open the selector and server socket channel.
             selector = Selector.open();
 
@@ -75,9 +151,9 @@ public class SocketManager {
             serverChannel.register(selector, java.nio.channels.SelectionKey.OP_ACCEPT);
 
             running = true;
-            logger.info("BnetServer listening on {}:{}", bindIp, port);
+            logger.info("BnetServer listening on {}:{} with {} network worker(s)", bindIp, port, workerCount);
 
-            new Thread(this::run, "SocketManager-Thread").start();
+            new Thread(this::run, "SocketManager-Acceptor").start();
 
             return  true;
         } catch (Exception e) {
@@ -88,16 +164,13 @@ public class SocketManager {
     }
 
     /**
-     * Main loop for handling socket events, including accepting new connections,
-     * reading from and writing to sockets, and updating session states.
+     * Main loop of the acceptor reactor. It only handles accept readiness; every other socket event is processed
+     * by the {@link SocketWorker} the session was pinned to.
      */
     private void run() {
-        ByteBuffer tempBuffer = ByteBuffer.allocate(8192);
-
         while (running) {
             try {
-                // Wait for events with a timeout to allow periodic session updates.
-                int readyChannels = selector.select(50);
+                int readyChannels = selector.select();
 
                 if (readyChannels == 0) {
                     continue;
@@ -116,36 +189,25 @@ public class SocketManager {
                     try {
                         if (key.isAcceptable()) {
                             handleAccept(key);
-                        } else if (key.isReadable()) {
-                            handleRead(key, tempBuffer);
-                        } else if (key.isWritable()) {
-                            handleWrite(key);
                         }
                     } catch (CancelledKeyException e) {
                         logger.trace("Key cancelled: {}", e);
                     } catch (Exception e) {
-                        // ✅ FULL ERROR LOG
-                        logger.error("Error handling key: {}", e);
-                        try {
-                            closeSession(key);
-                        } catch (Exception ex) {
-                            logger.error("Error closing session after error: {}", ex);
-                        }
+                        logger.error("Error accepting connection: {}", e);
                     }
                 }
 
-                // Periodically update sessions (e.g., for timeouts or cleanup).
-                updateSessions();
-
+            } catch (ClosedSelectorException e) {
+                break;
             } catch (IOException e) {
-                logger.error("Error while reading sessions: " + e.getMessage());
+                logger.error("Error while accepting sessions: " + e.getMessage());
             }
         }
     }
 
     /**
-     * Handles accepting a new client connection, setting up SSL, and registering
-     * the new session with the selector.
+     * Handles accepting a new client connection, setting up SSL, and handing
+     * the new session over to one of the workers.
      *
      * @param key the selection key representing the accept event
      * @throws IOException if there is an error accepting the connection or setting up SSL
@@ -154,240 +216,102 @@ public class SocketManager {
         ServerSocketChannel serverSocketChannel = (ServerSocketChannel) key.channel();
         SocketChannel clientChannel = serverSocketChannel.accept();
 
-        if (clientChannel != null) {
-            clientChannel.configureBlocking(false);
-
-            // Configure socket options for better performance and reliability.
-            clientChannel.socket().setKeepAlive(true);
-            clientChannel.socket().setTcpNoDelay(true); // Disable Nagle's algorithm for lower latency.
-            clientChannel.socket().setSoTimeout(0);     // No timeout, we will handle idle connections ourselves.
-
-            logger.info("{} Accepted connection from {}", getClass().getSimpleName(), clientChannel.getRemoteAddress());
-
-            // Create an SSL engine for the new connection.
-            SSLEngine sslEngine = sslContext.createSSLEngine();
-            sslEngine.setUseClientMode(false);  // SERVER (not client)
-            sslEngine.setNeedClientAuth(false); // We can set this to true if we want to require client certificates.
-            sslEngine.setWantClientAuth(false); // We can set this to true if we want to request client certificates but not require them.
-
-            // Disable hostname verification since we're not using client certificates and this is a server-side SSL engine.
-            SSLParameters sslParams = sslEngine.getSSLParameters();
-            sslParams.setEndpointIdentificationAlgorithm(null);
-            sslEngine.setSSLParameters(sslParams);
-
-            // Enable only secure TLS protocols (TLSv1.2 and TLSv1.3) and disable older, less secure versions.
-            sslEngine.setEnabledProtocols(new String[]{"TLSv1.2", "TLSv1.3"});
-
-            // Log the enabled protocols for debugging purposes.
-            logger.debug("Enabled protocols: {}",
-                    String.join(", ", sslEngine.getEnabledProtocols()));
-
-            // Use cipher suites compatible with Battle.net.
-            String[] preferredCiphers = {
-                    "TLS_ECDHE_RSA_WITH_AES_256_GCM_SHA384",
-                    "TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256",
-                    "TLS_RSA_WITH_AES_256_GCM_SHA384",
-                    "TLS_RSA_WITH_AES_128_GCM_SHA256"
-            };
-
-            String[] supportedCiphers = sslEngine.getSupportedCipherSuites();
-            List<String> enabledCiphers = new ArrayList<>();
-            for (String preferred : preferredCiphers) {
-                if (Arrays.asList(supportedCiphers).contains(preferred)) {
-                    enabledCiphers.add(preferred);
-                }
-            }
-
-            if (!enabledCiphers.isEmpty()) {
-                sslEngine.setEnabledCipherSuites(enabledCiphers.toArray(new String[0]));
-                logger.debug("Using cipher suites: {}", String.join(", ", enabledCiphers));
-            }
-
-            // Create a new session for the accepted connection and register it with the selector.
-            Session session = new Session(clientChannel, sslEngine);
-            sessions.put(clientChannel, session);
-
-            // Register the client channel for read operations.
-            clientChannel.register(selector, SelectionKey.OP_READ | SelectionKey.OP_WRITE, session);
-
-            session.start();
-
+        if (clientChannel == null) {
+            return;
         }
-    }
-
-    /**
-     * Handles reading data from a client socket, processing it through the session's
-     * read handler, and managing the selection key's interest ops based on whether
-     * there is more data to write.
-     *
-     * @param key        the selection key representing the read event
-     * @param tempBuffer a temporary buffer for reading data from the socket
-     * @throws IOException if there is an error reading from the socket or processing the session
-     */
-    private void handleRead(SelectionKey key, ByteBuffer tempBuffer) throws IOException {
 
-        SocketChannel channel = (SocketChannel) key.channel();
-        Session session = sessions.get(channel);
-
-        if (session == null) {
-            logger.warn("Session not found for channel");
-            closeSession(key);
+        if (!admit(clientChannel)) {
+            clientChannel.close();
             return;
         }
-
-        logger.debug("Received data from channel: " + session.getClientInfo());
+        ACCEPTED.increment();
 
         try {
-            tempBuffer.clear();
-
-            // Check how many bytes are available for reading.
-            logger.debug("{} SocketManager.handleRead() called", session.getClientInfo());
-
-            int bytesRead = session.readFromSocket();
-
-            logger.debug("{} SocketManager.handleRead() bytes read, bytesRead: {}", session.getClientInfo(), bytesRead);
-
-            if (bytesRead == -1) {
-                // Customer disconnected
-                logger.debug("{} Client disconnected during read", session.getClientInfo());
-                closeSession(key);
-                //return;
-            }
-
-            logger.debug("{} Read {} bytes from socket", session.getClientInfo(), bytesRead);
-
-            if (bytesRead > 0) {
-                logger.debug("{} Read {} bytes, processing...",
-                        session.getClientInfo(), bytesRead);
-
-                // Processes received data.
-                SocketReadCallbackResult result = session.readHandler();
-
-                if (result == SocketReadCallbackResult.STOP) {
-                    logger.warn("{} Read handler requested stop", session.getClientInfo());
-                    closeSession(key);
-                    return;
-                }
-            }
-
-            logger.debug("{} Read complete, bytesRead: {}, checking write queue...",
-                    session.getClientInfo(), bytesRead);
-
-            // If there is data in the write queue, register interest in WRITE.
-            try {
-                if (session.hasDataToWrite()) {
-                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
-                } else {
-                    key.interestOps(SelectionKey.OP_READ); // No data to write, only interested in reading.
-                }
-                logger.debug("{} Updated interestOps after read, bytesRead: {}, current interestOps: {}",
-                        session.getClientInfo(), bytesRead, key.interestOps());
-            } catch (CancelledKeyException e) {
-                // Key was canceled, session closed.
-                logger.debug("{} Key cancelled, closing session", session.getClientInfo());
-                closeSession(key);
-            }
-
-            logger.debug("{} Finished handleRead, bytesRead: {}, current interestOps: {}",
-                    session.getClientInfo(), bytesRead, key.interestOps());
-
-        } catch (IOException e) {
-            logger.error("{} IOException during read: {}",
-                    session.getClientInfo(), e.getMessage());
-            closeSession(key);
+            openSession(clientChannel);
+        } catch (IOException | RuntimeException e) {
+            throttle.endHandshake();
+            clientChannel.close();
+            throw e;
         }
-
     }
 
     /**
-     * Handles writing data to a client socket based on the session's write queue,
-     * and manages the selection key's interest ops based on whether there are
-     * more writes to process.
+     * Sets up SSL for an admitted connection and hands the new session over to one of the workers.
      *
-     * @param key the selection key representing the write event
-     * @throws IOException if there is an error writing to the socket or processing the session
+     * @param clientChannel the admitted channel
+     * @throws IOException if the channel cannot be configured
      */
-    private void handleWrite(SelectionKey key) throws IOException {
-        SocketChannel channel = (SocketChannel) key.channel();
-        Session session = sessions.get(channel);
+    private void openSession(SocketChannel clientChannel) throws IOException {
+        clientChannel.configureBlocking(false);
 
-        if (session == null) {
-            logger.log("No session found for channel: " + channel.getRemoteAddress());
-            return;
-        }
+        // Configure socket options for better performance and reliability.
+        clientChannel.socket().setKeepAlive(true);
+        clientChannel.socket().setTcpNoDelay(true); // Disable Nagle's algorithm for lower latency.
+        clientChannel.socket().setSoTimeout(0);     // No timeout, we will handle idle connections ourselves.
 
-        try {
+        logger.info("{} Accepted connection from {}", getClass().getSimpleName(), clientChannel.getRemoteAddress());
 
-            boolean allWritten = session.processWriteQueue();
-            if (allWritten && !session.hasDataToWrite()) {
-                key.interestOps(SelectionKey.OP_READ);
-            }
+        // Create an SSL engine for the new connection; protocols and cipher suites are computed once by SSLContextImpl.
+        SSLEngine sslEngine = sslContext.createSSLEngine();
+        sslEngine.setUseClientMode(false);  // SERVER (not client)
+        sslEngine.setSSLParameters(serverParameters);
 
-            logger.debug("{} Finished handleWrite, allWritten: {}, hasDataToWrite: {}, current interestOps: {}",
-                    session.getClientInfo(), allWritten, session.hasDataToWrite(), key.interestOps());
-
-        } catch (IOException e) {
-            logger.error("Error during write operation: {}", e.getMessage());
-            closeSession(key);
-        }
+        // Create a new session for the accepted connection and pin it to the next worker.
+        Session session = new Session(clientChannel, sslEngine, bufferPool, throttle::endHandshake);
+        SocketWorker worker = workers[Math.floorMod(nextWorker++, workers.length)];
+        worker.register(session, clientChannel);
     }
 
     /**
-     * Updates the sessions by checking for idle timeouts and closed connections,
-     * removing any sessions that are no longer active.
+     * Applies the ban check, the per-address rate and the handshake cap to a just accepted connection. On success a
+     * handshake slot is reserved, which the session releases once its handshake completes or it is closed.
+     *
+     * @param clientChannel the accepted channel
+     * @return true if the connection may proceed, false if it must be closed right away
+     * @throws IOException if the remote address cannot be read
      */
-    private void updateSessions() {
+    private boolean admit(SocketChannel clientChannel) throws IOException {
+        if (!(clientChannel.getRemoteAddress() instanceof InetSocketAddress remoteAddress)) {
+            return false;
+        }
 
-        sessions.values().removeIf(session -> {
-            if (!session.isOpen()) {
-                logger.debug("{} Session closed, removing", session.getClientInfo());
-                return true;
-            }
+        InetAddress address = remoteAddress.getAddress();
+        long now = System.nanoTime();
+        throttle.sweep(now);
 
-            if (session.isIdle()) {
-                logger.debug("{} Session idle for too long, closing", session.getClientInfo());
-                session.closeSocket();
-                return true;
-            }
+        if (ipBanCheck != null && ipBanCheck.isBanned(address)) {
+            REJECTED_BANNED.increment();
+            logger.debug("Rejected connection from banned address {}", address.getHostAddress());
+            return false;
+        }
 
+        if (!throttle.tryAcquire(address, now)) {
+            REJECTED_RATE.increment();
+            logger.debug("Rejected connection from {}: connection rate exceeded", address.getHostAddress());
             return false;
-        });
+        }
+
+        if (!throttle.tryBeginHandshake()) {
+            REJECTED_HANDSHAKES.increment();
+            logger.debug("Rejected connection from {}: {} handshakes in progress",
+                    address.getHostAddress(), throttle.getPendingHandshakes());
+            return false;
+        }
+
+        return true;
     }
 
     /**
-     * Closes a session associated with the given selection key, removing it from
-     * the sessions map and canceling the selection key.
+     * Returns the number of sessions currently handled by all workers.
      *
-     * @param key the selection key representing the session to close
+     * @return the total number of sessions
      */
-    private void closeSession(SelectionKey key) {
-        Session session = null;
-        SocketChannel channel = null;
-
-        try {
-            channel = (SocketChannel) key.channel();
-            session = sessions.remove(channel);
-
-            String clientInfo = (session != null) ? session.getClientInfo() :
-                    (channel != null && channel.isOpen() ? channel.getRemoteAddress().toString() : "unknown");
-
-            if (session != null) {
-                session.closeSocket();
-            }
-
-            key.cancel();
-
-            if (channel != null && channel.isOpen()) {
-                channel.close();
-            }
-
-            logger.debug("{} Session closed and removed from manager", clientInfo);
-
-        } catch (IOException e) {
-            logger.error("Error closing session: {}", e.getMessage());
-        } catch (Exception e) {
-            logger.error("Unexpected error closing session: {}", e.getMessage(), e);
+    public int getSessionCount() {
+        int count = 0;
+        for (SocketWorker worker : workers) {
+            count += worker.getSessionCount();
         }
+        return count;
     }
 
     /**
@@ -398,9 +322,20 @@ public class SocketManager {
     public void stop() {
         running = false;
 
+        int sessionCount = getSessionCount();
+
         // Close all sessions and the server channel.
-        sessions.values().forEach(Session::closeSocket);
-        sessions.clear();
+        for (SocketWorker worker : workers) {
+            worker.stop();
+        }
+        HandshakeExecutor.getInstance().shutdown();
+        ServiceDispatcher.getInstance().shutdown();
+        Config.removeListener(throttleListener);
+        Metric.removeGauge(SESSIONS_GAUGE);
+        Metric.removeGauge(PENDING_HANDSHAKES_GAUGE);
+        if (ipBanCheck != null) {
+            ipBanCheck.stop();
+        }
 
         try {
 
@@ -416,6 +351,8 @@ public class SocketManager {
             logger.error("Error closing server: {}", e.getMessage());
         }
 
-        logger.info("Battle.net Service stopped, Sessions: {}", sessions.size());
+        logger.info("Battle.net Service stopped, Sessions: {}", sessionCount);
+        Metric.getHistograms().values().forEach(histogram -> logger.info("{}", histogram));
+        Metric.getCounters().values().forEach(counter -> logger.info("{}", counter));
     }
 }
@@ -0,0 +1,422 @@
+package br.net.dd.netherwingcore.bnetserver.net;
+
+import br.net.dd.netherwingcore.bnetserver.server.Session;
+import br.net.dd.netherwingcore.common.logging.Log;
+import br.net.dd.netherwingcore.shared.networking.SocketReadCallbackResult;
+
+import java.io.IOException;
+import java.nio.channels.*;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A worker reactor owned by the {@link SocketManager}. Each worker runs its own {@link Selector} on a dedicated thread
+ * and handles every read, write and SSL operation for the sessions pinned to it. Sessions are handed over by the
+ * acceptor through {@link #register(Session, SocketChannel)} and never migrate between workers, so a session's state
+ * is only ever touched by a single thread.
+ */
+final class SocketWorker implements Runnable {
+
+    private static final Log logger = Log.getLogger(SocketWorker.class.getSimpleName());
+
+    private static final long TIMEOUT_TICK_MS = 100;
+    private static final int TIMEOUT_WHEEL_SLOTS = 1024;
+
+    private final int id;
+    private final Selector selector;
+    private final Map<SocketChannel, Session> sessions;
+    private final Queue<Session> pendingSessions;
+    private final Queue<Session> resumedSessions;
+    private final TimingWheel<Session> timeouts;
+    private final Thread thread;
+    private volatile boolean running;
+
+    /**
+     * Constructs a new worker with its own selector.
+     *
+     * @param id the index of this worker, used to name its thread
+     * @throws IOException if the selector cannot be opened
+     */
+    SocketWorker(int id) throws IOException {
+        this.id = id;
+        this.selector = Selector.open();
+        this.sessions = new ConcurrentHashMap<>();
+        this.pendingSessions = new ConcurrentLinkedQueue<>();
+        this.resumedSessions = new ConcurrentLinkedQueue<>();
+        this.timeouts = new TimingWheel<>(TIMEOUT_TICK_MS, TIMEOUT_WHEEL_SLOTS, Session.monotonicMillis());
+        this.thread = new Thread(this, "SocketManager-Worker-" + id);
+        this.running = false;
+    }
+
+    /**
+     * Starts the worker thread.
+     */
+    void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Hands a freshly accepted session over to this worker. The channel is registered with the worker's selector
+     * on the worker thread itself, so the selector is woken up to pick the new session immediately.
+     *
+     * @param session the session created for the accepted connection
+     * @param channel the client channel of the session
+     */
+    void register(Session session, SocketChannel channel) {
+        sessions.put(channel, session);
+        pendingSessions.offer(session);
+        selector.wakeup();
+    }
+
+    /**
+     * Queues a session whose handshake tasks have finished on the handshake executor, so this worker resumes it on
+     * its own thread. Safe to call from any thread.
+     *
+     * @param session the session to resume
+     */
+    void wakeup(Session session) {
+        resumedSessions.offer(session);
+        selector.wakeup();
+    }
+
+    /**
+     * Returns the number of sessions currently pinned to this worker.
+     *
+     * @return the number of sessions
+     */
+    int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Main loop of the worker, handling read and write readiness for its sessions.
+     */
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                // Wait for events at most one timeout tick, so expired sessions are handled even without traffic.
+                int readyChannels = selector.select(TIMEOUT_TICK_MS);
+
+                registerPendingSessions();
+                resumeSessions();
+
+                if (readyChannels > 0) {
+                    handleSelectedKeys();
+                }
+
+                // Close the sessions whose timeout deadline passed since the last tick.
+                timeouts.advance(Session.monotonicMillis(), this::checkTimeout);
+
+            } catch (ClosedSelectorException e) {
+                break;
+            } catch (IOException e) {
+                logger.error("Worker {} error while reading sessions: {}", id, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Handles the read and write readiness of the keys selected by the last select.
+     */
+    private void handleSelectedKeys() {
+        Iterator<SelectionKey> keyIterator = selector.selectedKeys().iterator();
+
+        while (keyIterator.hasNext()) {
+            SelectionKey key = keyIterator.next();
+            keyIterator.remove();
+
+            if (!key.isValid()) {
+                continue;
+            }
+
+            try {
+                if (key.isReadable()) {
+                    handleRead(key);
+                } else if (key.isWritable()) {
+                    handleWrite(key);
+                }
+            } catch (CancelledKeyException e) {
+                logger.trace("Key cancelled: {}", e);
+            } catch (Exception e) {
+                logger.error("Error handling key: {}", e);
+                try {
+                    closeSession(key);
+                } catch (Exception ex) {
+                    logger.error("Error closing session after error: {}", ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Registers the sessions queued by the acceptor with this worker's selector and starts their SSL handshake.
+     */
+    private void registerPendingSessions() {
+        Session session;
+        while ((session = pendingSessions.poll()) != null) {
+            try {
+                Session registered = session;
+                session.setResumeCallback(() -> wakeup(registered));
+                session.getSocketChannel().register(selector, SelectionKey.OP_READ | SelectionKey.OP_WRITE, session);
+                session.start();
+                timeouts.schedule(session, session.getTimeoutDeadline(Session.monotonicMillis()));
+            } catch (ClosedChannelException e) {
+                logger.debug("{} Channel closed before registration", session.getClientInfo());
+                sessions.remove(session.getSocketChannel());
+                session.closeSocket();
+            }
+        }
+    }
+
+    /**
+     * Picks up the sessions whose delegated handshake tasks have completed: the network data buffered while the
+     * tasks ran is decrypted and the selection key is re-armed.
+     */
+    private void resumeSessions() {
+        Session session;
+        while ((session = resumedSessions.poll()) != null) {
+            SelectionKey key = session.getSocketChannel().keyFor(selector);
+            if (key == null || !key.isValid()) {
+                // Closed from another thread, e.g. by a service call.
+                if (!session.isOpen() && sessions.remove(session.getSocketChannel()) != null) {
+                    session.releaseBuffers();
+                }
+                continue;
+            }
+
+            try {
+                if (processBufferedData(key, session)) {
+                    updateInterestOps(key, session);
+                }
+            } catch (CancelledKeyException e) {
+                closeSession(key);
+            }
+        }
+    }
+
+    /**
+     * Decrypts whatever network data the session still holds and runs its read handler on the result.
+     *
+     * @param key     the selection key of the session
+     * @param session the session to process
+     * @return true if the session is still open, false if it was closed
+     */
+    private boolean processBufferedData(SelectionKey key, Session session) {
+        if (session.processBufferedData() < 0 || session.readHandler() == SocketReadCallbackResult.STOP) {
+            closeSession(key);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sets the interest ops of a session's key from its current state. A session waiting on handshake tasks gets no
+     * interest at all until it is resumed; otherwise reads are wanted unless the session has too many calls in flight,
+     * and writes only while data is pending.
+     *
+     * @param key     the selection key of the session
+     * @param session the session owning the key
+     */
+    private void updateInterestOps(SelectionKey key, Session session) {
+        int ops = 0;
+        if (!session.isHandshakeTaskPending()) {
+            if (!session.isReadSuspended()) {
+                ops = SelectionKey.OP_READ;
+            }
+            if (session.hasDataToWrite()) {
+                ops |= SelectionKey.OP_WRITE;
+            }
+        }
+        key.interestOps(ops);
+    }
+
+    /**
+     * Handles reading data from a client socket, processing it through the session's
+     * read handler, and managing the selection key's interest ops based on whether
+     * there is more data to write.
+     *
+     * @param key the selection key representing the read event
+     * @throws IOException if there is an error reading from the socket or processing the session
+     */
+    private void handleRead(SelectionKey key) throws IOException {
+
+        SocketChannel channel = (SocketChannel) key.channel();
+        Session session = sessions.get(channel);
+
+        if (session == null) {
+            logger.warn("Session not found for channel");
+            closeSession(key);
+            return;
+        }
+
+        logger.debug("Received data from channel: " + session.getClientInfo());
+
+        try {
+            int bytesRead = session.readFromSocket();
+
+            logger.debug("{} SocketWorker.handleRead() bytes read, bytesRead: {}", session.getClientInfo(), bytesRead);
+
+            if (bytesRead == -1) {
+                // Customer disconnected
+                logger.debug("{} Client disconnected during read", session.getClientInfo());
+                closeSession(key);
+                return;
+            }
+
+            if (bytesRead > 0) {
+                logger.debug("{} Read {} bytes, processing...",
+                        session.getClientInfo(), bytesRead);
+
+                // Processes received data.
+                SocketReadCallbackResult result = session.readHandler();
+
+                if (result == SocketReadCallbackResult.STOP) {
+                    logger.warn("{} Read handler requested stop", session.getClientInfo());
+                    closeSession(key);
+                    return;
+                }
+            }
+
+            // If there is data in the write queue, register interest in WRITE.
+            try {
+                updateInterestOps(key, session);
+                logger.debug("{} Updated interestOps after read, bytesRead: {}, current interestOps: {}",
+                        session.getClientInfo(), bytesRead, key.interestOps());
+            } catch (CancelledKeyException e) {
+                // Key was canceled, session closed.
+                logger.debug("{} Key cancelled, closing session", session.getClientInfo());
+                closeSession(key);
+            }
+
+        } catch (IOException e) {
+            logger.error("{} IOException during read: {}",
+                    session.getClientInfo(), e.getMessage());
+            closeSession(key);
+        }
+
+    }
+
+    /**
+     * Handles writing data to a client socket based on the session's write queue,
+     * and manages the selection key's interest ops based on whether there are
+     * more writes to process.
+     *
+     * @param key the selection key representing the write event
+     * @throws IOException if there is an error writing to the socket or processing the session
+     */
+    private void handleWrite(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Session session = sessions.get(channel);
+
+        if (session == null) {
+            logger.log("No session found for channel: " + channel.getRemoteAddress());
+            return;
+        }
+
+        try {
+
+            boolean allWritten = session.processWriteQueue();
+
+            // A handshake flight may have left client records buffered that can only be unwrapped now.
+            if (!processBufferedData(key, session)) {
+                return;
+            }
+
+            updateInterestOps(key, session);
+
+            logger.debug("{} Finished handleWrite, allWritten: {}, hasDataToWrite: {}, current interestOps: {}",
+                    session.getClientInfo(), allWritten, session.hasDataToWrite(), key.interestOps());
+
+        } catch (IOException e) {
+            logger.error("Error during write operation: {}", e.getMessage());
+            closeSession(key);
+        }
+    }
+
+    /**
+     * Called by the timing wheel when a session's timeout deadline has passed. Sessions that are already closed are
+     * dropped, idle sessions are closed, and sessions that saw activity since they were scheduled are scheduled again
+     * at their new deadline.
+     *
+     * @param session the session whose deadline expired
+     */
+    private void checkTimeout(Session session) {
+        if (!session.isOpen()) {
+            logger.debug("{} Session closed, removing", session.getClientInfo());
+            if (sessions.remove(session.getSocketChannel()) != null) {
+                session.releaseBuffers();
+            }
+            return;
+        }
+
+        long now = Session.monotonicMillis();
+
+        if (session.isIdle(now)) {
+            logger.debug("{} Session idle for too long, closing", session.getClientInfo());
+            session.closeSocket();
+            sessions.remove(session.getSocketChannel());
+            session.releaseBuffers();
+            return;
+        }
+
+        timeouts.schedule(session, session.getTimeoutDeadline(now));
+    }
+
+    /**
+     * Closes a session associated with the given selection key, removing it from
+     * the sessions map and canceling the selection key.
+     *
+     * @param key the selection key representing the session to close
+     */
+    private void closeSession(SelectionKey key) {
+        Session session = null;
+        SocketChannel channel = null;
+
+        try {
+            channel = (SocketChannel) key.channel();
+            session = sessions.remove(channel);
+
+            String clientInfo = (session != null) ? session.getClientInfo() :
+                    (channel != null && channel.isOpen() ? channel.getRemoteAddress().toString() : "unknown");
+
+            if (session != null) {
+                session.closeSocket();
+                session.releaseBuffers();
+            }
+
+            key.cancel();
+
+            if (channel != null && channel.isOpen()) {
+                channel.close();
+            }
+
+            logger.debug("{} Session closed and removed from worker {}", clientInfo, id);
+
+        } catch (IOException e) {
+            logger.error("Error closing session: {}", e.getMessage());
+        } catch (Exception e) {
+            logger.error("Unexpected error closing session: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Stops the worker, closing all of its sessions and its selector.
+     */
+    void stop() {
+        running = false;
+
+        sessions.values().forEach(Session::closeSocket);
+        sessions.clear();
+
+        try {
+            selector.close();
+        } catch (IOException e) {
+            logger.error("Error closing worker {} selector: {}", id, e.getMessage());
+        }
+    }
+}
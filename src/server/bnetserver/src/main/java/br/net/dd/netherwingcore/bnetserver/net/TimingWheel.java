@@ -0,0 +1,106 @@
+package br.net.dd.netherwingcore.bnetserver.net;
+
+import br.net.dd.netherwingcore.bnetserver.server.Session;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * A hashed timing wheel tracking deadlines for the items of a single {@link SocketWorker}.
+ *
+ * <p>Time is divided into ticks of {@code tickMs} milliseconds and every deadline lands in the slot of the tick it
+ * expires in, modulo the number of slots. Advancing the wheel only visits the slots of the ticks that elapsed, so the
+ * cost of an advance is proportional to the number of entries that are due (plus the few scheduled a full wheel
+ * rotation or more ahead), not to the number of tracked items.</p>
+ *
+ * <p>Times must come from a clock that never goes backwards, such as {@link Session#monotonicMillis()}: the wheel
+ * never moves back to a tick it already left.</p>
+ *
+ * <p>Entries cannot be cancelled: owners are expected to re-check the item when it fires and schedule it again if
+ * its real deadline moved. The wheel is not thread-safe and must only be used from the worker thread.</p>
+ *
+ * @param <T> the type of the tracked items
+ */
+final class TimingWheel<T> {
+
+    private final long tickMs;
+    private final int mask;
+    private final ArrayDeque<Entry<T>>[] slots;
+    private long currentTick;
+    private int size;
+
+    /**
+     * Constructs an empty wheel.
+     *
+     * @param tickMs    the duration of one tick in milliseconds
+     * @param slotCount the number of slots, rounded up to a power of two
+     * @param now       the current time in milliseconds
+     */
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMs, int slotCount, long now) {
+        int slots = Integer.highestOneBit(Math.max(1, slotCount - 1)) << 1;
+
+        this.tickMs = tickMs;
+        this.mask = slots - 1;
+        this.slots = new ArrayDeque[slots];
+        for (int i = 0; i < slots; i++) {
+            this.slots[i] = new ArrayDeque<>();
+        }
+        this.currentTick = now / tickMs;
+        this.size = 0;
+    }
+
+    /**
+     * Schedules an item to expire at the given deadline. Deadlines in the past expire on the next tick.
+     *
+     * @param item     the item to track
+     * @param deadline the time in milliseconds at which the item expires
+     */
+    void schedule(T item, long deadline) {
+        long tick = Math.max((deadline + tickMs - 1) / tickMs, currentTick + 1);
+        slots[(int) (tick & mask)].addLast(new Entry<>(item, deadline));
+        size++;
+    }
+
+    /**
+     * Advances the wheel to the given time, handing every item whose deadline has passed to the callback. Items
+     * scheduled from within the callback are never handed out during the same advance.
+     *
+     * @param now       the current time in milliseconds
+     * @param onExpired the callback receiving the expired items
+     */
+    void advance(long now, Consumer<T> onExpired) {
+        long targetTick = now / tickMs;
+
+        while (currentTick < targetTick) {
+            currentTick++;
+
+            ArrayDeque<Entry<T>> slot = slots[(int) (currentTick & mask)];
+            for (int pending = slot.size(); pending > 0; pending--) {
+                Entry<T> entry = slot.pollFirst();
+                if (entry.deadline <= now) {
+                    size--;
+                    onExpired.accept(entry.item);
+                } else {
+                    // Due on a later rotation of the wheel.
+                    slot.addLast(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of entries currently scheduled.
+     *
+     * @return the number of entries
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * A scheduled item and its deadline.
+     */
+    private record Entry<T>(T item, long deadline) {
+    }
+}
@@ -60,6 +60,11 @@ public class LoginRESTService {
 
             server.createContext("/bnetserver/refreshLoginTicket/", new HandlerPostRefreshLoginTicket());
             logger.info("Registered endpoint: /bnetserver/refreshLoginTicket/");
+
+            if (Config.get("Metric.PrometheusEndpoint", 0) == 1) {
+                server.createContext("/bnetserver/metrics/", new HandlerGetMetrics());
+                logger.info("Registered endpoint: /bnetserver/metrics/");
+            }
             logger.info("");
 
             // Sets a thread pool executor for handling incoming requests
@@ -0,0 +1,42 @@
+package br.net.dd.netherwingcore.bnetserver.rest.handlers;
+
+import br.net.dd.netherwingcore.common.logging.Log;
+import br.net.dd.netherwingcore.common.metric.MetricFormat;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HandlerGetMetrics serves every registered metric at the /bnetserver/metrics/ endpoint, in the Prometheus text
+ * exposition format, for Prometheus to scrape.
+ */
+public class HandlerGetMetrics implements HttpHandler {
+
+    private static final Log logger = Log.getLogger(HandlerGetMetrics.class.getSimpleName());
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+
+        logger.debug("HandlerGetMetrics called");
+
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1); // Method Not Allowed
+            return;
+        }
+
+        StringBuilder text = new StringBuilder(8192);
+        MetricFormat.appendPrometheus(text);
+        byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+
+    }
+
+}
@@ -2,6 +2,7 @@ package br.net.dd.netherwingcore.bnetserver.rest.handlers;
 
 import br.net.dd.netherwingcore.bnetserver.utilities.SOAPUtil;
 import br.net.dd.netherwingcore.common.configuration.Config;
+import br.net.dd.netherwingcore.common.configuration.IntSetting;
 import br.net.dd.netherwingcore.common.logging.Log;
 import br.net.dd.netherwingcore.proto.login.LoginProto.FormInputs;
 import br.net.dd.netherwingcore.proto.login.LoginProto.FormInput;
@@ -22,6 +23,8 @@ public class HandlerLogin implements HttpHandler {
 
     private static final Log logger = Log.getLogger(HandlerLogin.class.getSimpleName());
 
+    private static final IntSetting LOGIN_REST_PORT = Config.intSetting("LoginREST.Port", 8081);
+
     private FormInputs formInputs;
 
     /**
@@ -39,7 +42,7 @@ public class HandlerLogin implements HttpHandler {
         switch (exchange.getRequestMethod()) {
             case "GET":
                 initializeFormInputs();
-                Integer loginRESTPort = Config.get("LoginREST.Port", 8081);
+                int loginRESTPort = LOGIN_REST_PORT.get();
                 this.formInputs.toBuilder().setSrpUrl("https://127.0.0.1:" + loginRESTPort + "/bnetserver/login/srp/");
                 this.formInputs.toBuilder().build();
                 logger.log("Received GET request for /bnetserver/login/ > LoginRESTService::HandleGetForm");
@@ -0,0 +1,120 @@
+package br.net.dd.netherwingcore.bnetserver.server;
+
+import br.net.dd.netherwingcore.common.configuration.Config;
+import br.net.dd.netherwingcore.common.logging.Log;
+import br.net.dd.netherwingcore.common.metric.Histogram;
+import br.net.dd.netherwingcore.common.metric.Metric;
+
+import javax.net.ssl.SSLEngine;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongConsumer;
+
+/**
+ * Runs the delegated tasks of {@link SSLEngine} handshakes (key agreement, certificate signing) away from the
+ * network worker threads, so a burst of new connections does not stall reads for established sessions.
+ *
+ * <p>By default every batch of delegated tasks runs on its own virtual thread. Setting
+ * {@code Network.HandshakeThreads} to a positive value bounds the work to a fixed pool of platform threads
+ * instead, which caps the CPU a handshake storm can take.</p>
+ *
+ * <p>The JVM only measures the CPU time of platform threads, so the time reported for the tasks is their CPU time on
+ * the platform pool, and their elapsed time on virtual threads.</p>
+ */
+public final class HandshakeExecutor {
+
+    private static final Log logger = Log.getLogger(HandshakeExecutor.class.getSimpleName());
+
+    private static final Histogram TASK_LATENCY = Metric.histogram("bnet.handshake.task_us");
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static final HandshakeExecutor INSTANCE = new HandshakeExecutor();
+
+    private final ExecutorService executor;
+
+    /**
+     * Creates the executor according to {@code Network.HandshakeThreads}.
+     */
+    private HandshakeExecutor() {
+        int threads = Config.get("Network.HandshakeThreads", 0);
+        if (threads > 0) {
+            this.executor = Executors.newFixedThreadPool(threads,
+                    Thread.ofPlatform().name("Handshake-", 0).daemon(true).factory());
+        } else {
+            this.executor = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("Handshake-", 0).factory());
+        }
+        logger.debug("Handshake executor started ({})", threads > 0 ? threads + " threads" : "virtual threads");
+    }
+
+    /**
+     * Returns the singleton instance of the HandshakeExecutor.
+     *
+     * @return the singleton instance
+     */
+    public static HandshakeExecutor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Runs every pending delegated task of the given engine off the calling thread, then invokes the completion
+     * callback from the executor thread with the time the tasks took, in nanoseconds: their CPU time on a platform
+     * thread, their elapsed time on a virtual thread. The callback runs even if a task fails, so the owner can observe
+     * the failure on its next {@code wrap}/{@code unwrap}.
+     *
+     * @param sslEngine  the engine whose delegated tasks should run
+     * @param onComplete the callback invoked once all tasks have finished
+     */
+    public void runDelegatedTasks(SSLEngine sslEngine, LongConsumer onComplete) {
+        try {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                long cpuStart = threadCpuTime();
+                try {
+                    runTasks(sslEngine);
+                } catch (RuntimeException e) {
+                    logger.error("Delegated handshake task failed: {}", e.getMessage());
+                } finally {
+                    long elapsed = System.nanoTime() - start;
+                    TASK_LATENCY.record(elapsed / 1000);
+                    onComplete.accept(cpuStart < 0 ? elapsed : threadCpuTime() - cpuStart);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Handshake executor rejected task, running inline: {}", e.getMessage());
+            long start = System.nanoTime();
+            long cpuStart = threadCpuTime();
+            runTasks(sslEngine);
+            onComplete.accept(cpuStart < 0 ? System.nanoTime() - start : threadCpuTime() - cpuStart);
+        }
+    }
+
+    /**
+     * Runs the pending delegated tasks of an engine on the calling thread.
+     */
+    private static void runTasks(SSLEngine sslEngine) {
+        Runnable task;
+        while ((task = sslEngine.getDelegatedTask()) != null) {
+            task.run();
+        }
+    }
+
+    /**
+     * Returns the CPU time of the calling thread in nanoseconds, or -1 if the JVM cannot measure it, as for every
+     * virtual thread.
+     */
+    private static long threadCpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    /**
+     * Stops accepting new handshake work.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
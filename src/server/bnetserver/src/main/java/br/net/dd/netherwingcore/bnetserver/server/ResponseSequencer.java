@@ -0,0 +1,106 @@
+package br.net.dd.netherwingcore.bnetserver.server;
+
+import br.net.dd.netherwingcore.common.utilities.MessageBuffer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Keeps the responses of a session in request order while its RPCs run concurrently.
+ *
+ * <p>Every request dispatched asynchronously opens a call, keyed by its token, in arrival order. Responses sent for
+ * that token are held on the call until it completes; completed calls are then released to the write queue from the
+ * oldest one onwards, so a slow call holds back the responses of the calls that arrived after it but never reorders
+ * them. A call that completes without sending anything simply stops holding back its successors. A token can only be
+ * used by one open call at a time; reusing it is refused, since the first call could otherwise never complete.</p>
+ */
+final class ResponseSequencer {
+
+    private final ArrayDeque<PendingCall> calls;
+    private final Map<Integer, PendingCall> callsByToken;
+
+    /**
+     * Constructs an empty sequencer.
+     */
+    ResponseSequencer() {
+        this.calls = new ArrayDeque<>();
+        this.callsByToken = new HashMap<>();
+    }
+
+    /**
+     * Opens a call for a request that is about to be dispatched, unless a call with the same token is still open.
+     *
+     * @param token the token of the request
+     * @return true if the call was opened, false if the token is already in use by an open call
+     */
+    synchronized boolean begin(int token) {
+        if (callsByToken.containsKey(token)) {
+            return false;
+        }
+        PendingCall call = new PendingCall();
+        calls.addLast(call);
+        callsByToken.put(token, call);
+        return true;
+    }
+
+    /**
+     * Holds a response on the open call with the same token.
+     *
+     * @param token  the token of the request being answered
+     * @param packet the serialized response
+     * @return true if the response is held by an open call, false if no call is open for that token and the caller
+     * should send it right away
+     */
+    synchronized boolean offer(int token, MessageBuffer packet) {
+        PendingCall call = callsByToken.get(token);
+        if (call == null) {
+            return false;
+        }
+        call.packets.add(packet);
+        return true;
+    }
+
+    /**
+     * Marks a call as completed and moves the responses of every leading completed call to the write queue, in order.
+     *
+     * @param token      the token of the completed request
+     * @param writeQueue the queue receiving the released responses
+     */
+    synchronized void complete(int token, Queue<MessageBuffer> writeQueue) {
+        PendingCall call = callsByToken.remove(token);
+        if (call == null) {
+            return;
+        }
+        call.completed = true;
+
+        while (!calls.isEmpty() && calls.peekFirst().completed) {
+            writeQueue.addAll(calls.pollFirst().packets);
+        }
+    }
+
+    /**
+     * Returns the number of calls that are open or waiting on an earlier call.
+     *
+     * @return the number of calls in flight
+     */
+    synchronized int size() {
+        return calls.size();
+    }
+
+    /**
+     * A dispatched request and the responses sent for it so far.
+     */
+    private static final class PendingCall {
+        private final List<MessageBuffer> packets;
+        private boolean completed;
+
+        private PendingCall() {
+            this.packets = new ArrayList<>(1);
+            this.completed = false;
+        }
+    }
+}
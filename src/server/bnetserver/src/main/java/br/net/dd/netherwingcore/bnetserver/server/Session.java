@@ -1,7 +1,14 @@
 package br.net.dd.netherwingcore.bnetserver.server;
 
+import br.net.dd.netherwingcore.bnetserver.net.BufferPool;
 import br.net.dd.netherwingcore.bnetserver.services.ServiceDispatcher;
+import br.net.dd.netherwingcore.common.configuration.Config;
+import br.net.dd.netherwingcore.common.configuration.IntSetting;
+import br.net.dd.netherwingcore.common.configuration.LongSetting;
 import br.net.dd.netherwingcore.common.logging.Log;
+import br.net.dd.netherwingcore.common.metric.Counter;
+import br.net.dd.netherwingcore.common.metric.Histogram;
+import br.net.dd.netherwingcore.common.metric.Metric;
 import br.net.dd.netherwingcore.common.utilities.MessageBuffer;
 import br.net.dd.netherwingcore.proto.client.RpcTypesProto.Header;
 import br.net.dd.netherwingcore.shared.networking.SocketReadCallbackResult;
@@ -14,8 +21,11 @@ import javax.net.ssl.SSLSession;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
-import java.util.Optional;
+import java.util.Arrays;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Represents a client session in the BNet server. This class manages the state of a single client connection,
@@ -26,71 +36,107 @@ public class Session {
 
     private static final Log logger = Log.getLogger(Session.class.getSimpleName());
 
+    private static final Histogram HANDSHAKE_LATENCY = Metric.histogram("bnet.handshake.latency_us");
+    private static final Histogram FULL_HANDSHAKE_TASKS = Metric.histogram("bnet.handshake.full_task_us");
+    private static final Histogram RESUMED_HANDSHAKE_TASKS = Metric.histogram("bnet.handshake.resumed_task_us");
+    private static final Histogram RECORDS_PER_FLUSH = Metric.histogram("bnet.write.records_per_flush");
+    private static final Counter FLUSHES = Metric.counter("bnet.write.flushes");
+    private static final Counter RECORDS = Metric.counter("bnet.write.records");
+    private static final Counter READ_SUSPENSIONS = Metric.counter("bnet.rpc.read_suspensions");
+    private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+    private static final int MAX_NET_BUFFERS = 8;      // Encrypted buffers gathered into a single write
+    private static final int MAX_PACKET_SOURCES = 64;  // Queued packets offered to a single wrap
+
+    // Handles rather than constants, so that a configuration reload applies to the open sessions.
+    private static final IntSetting MAX_IN_FLIGHT_CALLS = Config.intSetting("Network.MaxInFlightRequests", 32);
+    private static final LongSetting IDLE_TIMEOUT_MS = Config.longSetting("Network.IdleTimeout", 30000);
+    private static final LongSetting POST_HANDSHAKE_TIMEOUT_MS = Config.longSetting("Network.PostHandshakeTimeout", 5000);
+
+    // Origin of monotonicMillis(), so the values stay positive like those of the wall clock.
+    private static final long CLOCK_ORIGIN_NANOS = System.nanoTime();
+
     private final SocketChannel socketChannel;
     private final SSLEngine sslEngine;
     private final ServiceDispatcher serviceDispatcher;
+    private final BufferPool bufferPool;
 
-    // Protocol Buffer processing buffers
-    private final MessageBuffer headerLengthBuffer;
-    private final MessageBuffer headerBuffer;
-    private final MessageBuffer packetBuffer;
-    private final MessageBuffer readBuffer;
-
-    // SSL/TLS buffers
-    private final ByteBuffer myAppData;
-    private ByteBuffer myNetData;
+    // SSL/TLS buffers, leased from the pool only while they hold data (null otherwise).
+    // peerNetData: encrypted bytes read from the socket, not yet unwrapped (write mode).
+    // peerAppData: decrypted bytes not yet framed into requests (write mode).
+    // netBuffers:  encrypted records not yet written to the socket, gathered into one write (read mode).
+    private ByteBuffer peerNetData;
     private ByteBuffer peerAppData;
-    private final ByteBuffer peerNetData;
+    private final ByteBuffer[] netBuffers;
+    private int netBufferIndex;
+    private int netBufferCount;
+    private final int appBufferSize;
 
+    // Queued packets being packed into TLS records; the first ones may be partially consumed.
     private final ConcurrentLinkedQueue<MessageBuffer> writeQueue;
+    private final ResponseSequencer responseSequencer;
+    private final Executor callExecutor;
+    private final ByteBuffer[] packetSources;
+    private int packetSourceCount;
 
     // Session state
     private volatile boolean authenticated;
     private volatile boolean initialHandshakeDone;
     private volatile boolean closed;
+    // Both on the monotonic clock (see monotonicMillis()), so a wall clock step cannot expire or pin a session.
     private volatile long lastActivityTime;
     private volatile long handshakeCompletedTime;
+    private volatile boolean handshakeTaskPending;
+    private volatile Runnable resumeCallback;
+    private long handshakeStartTime;
+    // Time spent in delegated handshake tasks, CPU time on platform threads and elapsed time on virtual threads (see
+    // HandshakeExecutor); written before handshakeTaskPending is cleared, read by the worker after.
+    private long handshakeTaskNanos;
+    private long applicationBytesReceived;
+
+    // Releases the handshake slot reserved by the acceptor; cleared once run.
+    private final AtomicReference<Runnable> handshakeSlot;
+
+    // Header of the frame whose payload is still being received; the header bytes are already consumed.
+    private Header pendingHeader;
+
+    // Set while decoding is held back because too many calls are in flight (async dispatch only).
+    private boolean readSuspended;
 
     private String accountName;
     private int accountId;
 
-    private static final long IDLE_TIMEOUT_MS = 30000; // 30 seconds
-    private static final long POST_HANDSHAKE_TIMEOUT_MS = 5000; // 5 seconds
-
     /**
      * Constructs a new Session for a given SocketChannel and SSLEngine.
      *
      * @param socketChannel The SocketChannel associated with this session.
      * @param sslEngine     The SSLEngine for handling SSL encryption/decryption for this session.
+     * @param bufferPool    The pool the session leases its SSL and framing buffers from.
+     * @param handshakeSlot Runs once the initial handshake completes or the session is closed, whichever comes first.
      */
-    public Session(SocketChannel socketChannel, SSLEngine sslEngine) {
-
-        logger.setDebugEnabled(true);
+    public Session(SocketChannel socketChannel, SSLEngine sslEngine, BufferPool bufferPool, Runnable handshakeSlot) {
 
         this.socketChannel = socketChannel;
         this.sslEngine = sslEngine;
         this.serviceDispatcher = ServiceDispatcher.getInstance();
+        this.bufferPool = bufferPool;
 
-        this.headerLengthBuffer = new MessageBuffer(2);
-        this.headerBuffer = new MessageBuffer();
-        this.packetBuffer = new MessageBuffer();
-        this.readBuffer = new MessageBuffer(16384);
-
-        // Allocate SSL buffers according to SSLSession
-        int appBufferSize = sslEngine.getSession().getApplicationBufferSize();
-        int netBufferSize = sslEngine.getSession().getPacketBufferSize();
-
-        this.myAppData = ByteBuffer.allocate(appBufferSize);
-        this.myNetData = ByteBuffer.allocate(netBufferSize);
-        this.peerAppData = ByteBuffer.allocate(appBufferSize);
-        this.peerNetData = ByteBuffer.allocate(netBufferSize);
+        // Buffers are leased lazily; only the decrypted record size is needed up front.
+        this.appBufferSize = sslEngine.getSession().getApplicationBufferSize();
+        this.netBuffers = new ByteBuffer[MAX_NET_BUFFERS];
+        this.packetSources = new ByteBuffer[MAX_PACKET_SOURCES];
 
         this.writeQueue = new ConcurrentLinkedQueue<>();
+        this.responseSequencer = new ResponseSequencer();
+        this.callExecutor = serviceDispatcher.newSessionExecutor();
         this.authenticated = false;
         this.initialHandshakeDone = false;
         this.closed = false;
-        this.lastActivityTime = System.currentTimeMillis();
+        this.lastActivityTime = monotonicMillis();
         this.handshakeCompletedTime = -1;
+        this.handshakeTaskPending = false;
+        this.applicationBytesReceived = 0;
+        this.handshakeSlot = new AtomicReference<>(handshakeSlot);
 
         logger.info("New session created for {}", getClientInfo());
     }
@@ -103,6 +149,7 @@ public class Session {
 
         try {
             logger.debug("{} Starting SSL handshake", getClientInfo());
+            handshakeStartTime = System.nanoTime();
             sslEngine.beginHandshake();
             logger.debug("{} Handshake status: {}", getClientInfo(), sslEngine.getHandshakeStatus());
         } catch (SSLException e) {
@@ -115,7 +162,7 @@ public class Session {
 
     /**
      * Reads data from the socket and processes it through the SSL engine. This method handles reading encrypted data from the network,
-     * decrypting it using the SSLEngine, and storing the decrypted application data in the read buffer. It also manages the SSL handshake state
+     * decrypting it using the SSLEngine, and keeping the decrypted application data until it is framed by {@link #readHandler()}. It also manages the SSL handshake state
      * and logs relevant information about the connection and received data. If the peer closes the connection or if there is an SSL error, this method will handle those cases appropriately.
      *
      * @return The number of bytes read from the socket, or -1 if the connection was closed by the peer.
@@ -123,16 +170,78 @@ public class Session {
      */
     public int readFromSocket() throws IOException {
         // Read encrypted data from network
+        if (peerNetData == null) {
+            peerNetData = bufferPool.acquire();
+        }
         int bytesRead = socketChannel.read(peerNetData);
 
         if (bytesRead > 0) {
-            lastActivityTime = System.currentTimeMillis();
+            lastActivityTime = monotonicMillis();
             logger.debug("{} Read {} bytes from network", getClientInfo(), bytesRead);
-            peerNetData.flip();
 
-            // Process the data
-            while (peerNetData.hasRemaining()) {
-                peerAppData.clear();
+            if (unwrapNetData() < 0) {
+                return -1;
+            }
+
+        } else if (bytesRead == 0) {
+            logger.trace("{} No data available to read", getClientInfo());
+            releaseDrainedBuffers();
+            return 0;
+
+        } else { // bytesRead < 0
+            if (initialHandshakeDone && handshakeCompletedTime > 0) {
+                long timeSinceHandshake = monotonicMillis() - handshakeCompletedTime;
+                if (applicationBytesReceived == 0) {
+                    logger.warn("╔══════════════════════════════════════════════════════");
+                    logger.warn("║ {} ❌ Client Disconnected", getClientInfo());
+                    logger.warn("╠══════════════════════════════════════════════════════");
+                    logger.warn("║ Time since handshake: {}ms", timeSinceHandshake);
+                    logger.warn("║ Data received: 0 bytes");
+                    logger.warn("║ Reason: Client closed connection without sending data");
+                    logger.warn("║ Likely causes:");
+                    logger.warn("║   - Testing SSL connectivity only");
+                    logger.warn("║   - Certificate not trusted");
+                    logger.warn("║   - Not a real Battle.net client");
+                    logger.warn("╚══════════════════════════════════════════════════════");
+                } else {
+                    logger.info("{} Client disconnected after sending {} bytes",
+                            getClientInfo(), applicationBytesReceived);
+                }
+            } else {
+                logger.warn("{} Client disconnected before handshake completed",
+                        getClientInfo());
+            }
+            closeSocket();
+            return -1;
+        }
+
+        return bytesRead;
+    }
+
+    /**
+     * Resumes decrypting the network data that was left buffered when the handshake was suspended for its delegated
+     * tasks. Called by the network worker once the {@link HandshakeExecutor} reports the tasks as done.
+     *
+     * @return 0 if the buffered data was processed, or -1 if the peer closed the connection.
+     */
+    public int processBufferedData() {
+        return peerNetData == null ? 0 : unwrapNetData();
+    }
+
+    /**
+     * Decrypts the encrypted data currently held in the network buffer straight into the application buffer, behind
+     * any partial frame still waiting there. Unwrapping stops early when the handshake hands off delegated tasks, leaving the remaining
+     * bytes in place until {@link #processBufferedData()} is called.
+     *
+     * @return 0 if the data was processed (or more data is needed), or -1 if the peer closed the connection.
+     */
+    private int unwrapNetData() {
+        peerNetData.flip();
+
+        try {
+            while (peerNetData.hasRemaining() && !handshakeTaskPending) {
+                ensureApplicationSpace();
+                int appDataStart = peerAppData.position();
 
                 SSLEngineResult result;
                 try {
@@ -140,8 +249,7 @@ public class Session {
                 } catch (SSLException e) {
                     logger.error("{} SSLException during unwrap: {}",
                             getClientInfo(), e.getMessage(), e);
-                    peerNetData.compact();
-                    return bytesRead;
+                    return 0;
                 }
 
                 logger.debug("{} unwrap: status={}, hsStatus={}, consumed={}, produced={}",
@@ -153,11 +261,9 @@ public class Session {
 
                 switch (result.getStatus()) {
                     case OK:
-                        peerAppData.flip();
-
-                        // Process handshake if needed
+                        // Hand the expensive handshake steps over to the handshake executor.
                         if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK) {
-                            runDelegatedTasks();
+                            scheduleDelegatedTasks();
                         }
 
                         // Check if handshake completed (during unwrap)
@@ -167,24 +273,26 @@ public class Session {
                             markHandshakeComplete();
                         }
 
-                        // If we have application data, store it
-                        if (peerAppData.hasRemaining()) {
-                            byte[] data = new byte[peerAppData.remaining()];
-                            peerAppData.get(data);
-                            readBuffer.write(data);
+                        // Application data stays in peerAppData until readHandler() frames it.
+                        if (result.bytesProduced() > 0) {
+                            applicationBytesReceived += result.bytesProduced();
 
                             logger.info("╔══════════════════════════════════════════════════════");
                             logger.info("║ {} 📦 Received Application Data", getClientInfo());
                             logger.info("╠══════════════════════════════════════════════════════");
-                            logger.info("║ Size: {} bytes", data.length);
+                            logger.info("║ Size: {} bytes", result.bytesProduced());
 
-                            if (logger.isDebugEnabled() && data.length > 0) {
-                                logger.info("║ Hex dump:");
-                                logger.info("║   {}", formatHexDump(data, 128));
-                            }
+                            int produced = result.bytesProduced();
+                            logger.debug("║ Hex dump:");
+                            logger.debug("║   {}", () -> formatHexDump(peerAppData, appDataStart, produced, 128));
 
                             logger.info("╚══════════════════════════════════════════════════════");
                         }
+
+                        // The engine wants to wrap before it can consume more input.
+                        if (result.bytesConsumed() == 0 && result.bytesProduced() == 0) {
+                            return 0;
+                        }
                         break;
 
                     case BUFFER_OVERFLOW:
@@ -195,8 +303,7 @@ public class Session {
                     case BUFFER_UNDERFLOW:
                         // Need more network data
                         logger.debug("{} Buffer underflow, waiting for more data", getClientInfo());
-                        peerNetData.compact();
-                        return bytesRead;
+                        return 0;
 
                     case CLOSED:
                         logger.info("{} Peer closed SSL connection cleanly", getClientInfo());
@@ -204,41 +311,42 @@ public class Session {
                         return -1;
                 }
             }
+        } finally {
+            if (peerNetData != null) {
+                peerNetData.compact();
+            }
+            releaseDrainedBuffers();
+        }
 
-            peerNetData.compact();
-
-        } else if (bytesRead == 0) {
-            logger.trace("{} No data available to read", getClientInfo());
-            return 0;
+        return 0;
+    }
 
-        } else { // bytesRead < 0
-            if (initialHandshakeDone && handshakeCompletedTime > 0) {
-                long timeSinceHandshake = System.currentTimeMillis() - handshakeCompletedTime;
-                if (readBuffer.getActiveSize() == 0) {
-                    logger.warn("╔══════════════════════════════════════════════════════");
-                    logger.warn("║ {} ❌ Client Disconnected", getClientInfo());
-                    logger.warn("╠══════════════════════════════════════════════════════");
-                    logger.warn("║ Time since handshake: {}ms", timeSinceHandshake);
-                    logger.warn("║ Data received: 0 bytes");
-                    logger.warn("║ Reason: Client closed connection without sending data");
-                    logger.warn("║ Likely causes:");
-                    logger.warn("║   - Testing SSL connectivity only");
-                    logger.warn("║   - Certificate not trusted");
-                    logger.warn("║   - Not a real Battle.net client");
-                    logger.warn("╚══════════════════════════════════════════════════════");
-                } else {
-                    logger.info("{} Client disconnected after sending {} bytes",
-                            getClientInfo(), readBuffer.getActiveSize());
-                }
-            } else {
-                logger.warn("{} Client disconnected before handshake completed",
-                        getClientInfo());
-            }
-            closeSocket();
-            return -1;
+    /**
+     * Makes sure the application buffer is leased and has room for a full decrypted record behind the data it
+     * already holds, growing it when a partial frame leaves too little space.
+     */
+    private void ensureApplicationSpace() {
+        if (peerAppData == null) {
+            peerAppData = bufferPool.acquire();
         }
+        if (peerAppData.remaining() < appBufferSize) {
+            peerAppData = enlargeApplicationBuffer(peerAppData);
+        }
+    }
 
-        return bytesRead;
+    /**
+     * Gives the inbound buffers back to the pool once they no longer hold any pending bytes, so idle sessions do not
+     * pin buffer memory.
+     */
+    private void releaseDrainedBuffers() {
+        if (peerNetData != null && peerNetData.position() == 0) {
+            bufferPool.release(peerNetData);
+            peerNetData = null;
+        }
+        if (peerAppData != null && peerAppData.position() == 0) {
+            bufferPool.release(peerAppData);
+            peerAppData = null;
+        }
     }
 
     /**
@@ -246,12 +354,25 @@ public class Session {
      * This method is called when the handshake process finishes successfully,
      * and it retrieves details from the SSLSession to log information such as the protocol, cipher suite, session ID, and peer certificates.
      * It also logs that the session is ready to receive application data from the client.
+     *
+     * <p>A session created before this handshake started was resumed from the session cache or a session ticket; the
+     * CPU time of the handshake tasks is recorded separately for resumed and full handshakes.</p>
      */
     private void markHandshakeComplete() {
         initialHandshakeDone = true;
-        handshakeCompletedTime = System.currentTimeMillis();
+        handshakeCompletedTime = monotonicMillis();
+        long elapsedNanos = System.nanoTime() - handshakeStartTime;
+        HANDSHAKE_LATENCY.record(elapsedNanos / 1000);
+        releaseHandshakeSlot();
 
         SSLSession sslSession = sslEngine.getSession();
+        // The creation time of the SSL session is on the wall clock.
+        boolean resumed = sslSession.getCreationTime() < System.currentTimeMillis() - elapsedNanos / 1_000_000;
+        if (resumed) {
+            RESUMED_HANDSHAKE_TASKS.record(handshakeTaskNanos / 1000);
+        } else {
+            FULL_HANDSHAKE_TASKS.record(handshakeTaskNanos / 1000);
+        }
         logger.info("╔══════════════════════════════════════════════════════");
         logger.info("║ {} ✅ SSL Handshake Completed", getClientInfo());
         logger.info("╠══════════════════════════════════════════════════════");
@@ -261,6 +382,7 @@ public class Session {
                 bytesToHex(sslSession.getId()).substring(0,
                         Math.min(32, bytesToHex(sslSession.getId()).length())));
         logger.info("║ Valid:         {}", sslSession.isValid());
+        logger.info("║ Resumed:       {}", resumed);
 
         try {
             var peerCerts = sslSession.getPeerCertificates();
@@ -276,150 +398,274 @@ public class Session {
 
     /**
      * Processes the write queue by encrypting and sending any pending application data to the client.
-     * This method handles SSL wrapping of the application data and manages the SSL handshake state if necessary.
-     * It will attempt to send all queued messages, handling buffer resizing as needed. If the handshake is not yet complete,
-     * it will prioritize completing the handshake before sending application data.
+     * Queued packets are packed together into as few TLS records as possible (one wrap consumes as many packets as
+     * fit into a record), the records of a batch are collected into several buffers and the whole batch is sent with
+     * a single gathering write. Encrypted bytes the socket cannot take right away are kept and flushed first on the
+     * next call, so the worker never spins on a full socket buffer. If the handshake is not yet complete, it will
+     * prioritize completing the handshake before sending application data.
      *
      * @return true if all data in the write queue was successfully sent, false if there is still data pending to be sent.
      * @throws IOException If an I/O error occurs during the SSL wrapping or socket writing process.
      */
     public boolean processWriteQueue() throws IOException {
 
-        // Handle handshake wrapping if needed
-        SSLEngineResult.HandshakeStatus hsStatus = sslEngine.getHandshakeStatus();
-
-        if (!initialHandshakeDone && hsStatus == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
-            logger.trace("{} Handshake needs WRAP", getClientInfo());
+        // The engine belongs to the handshake executor until its delegated tasks are done.
+        if (handshakeTaskPending || !flushNetData()) {
+            return false;
+        }
 
-            myAppData.clear();
-            myNetData.clear();
+        // Handle handshake wrapping if needed. This also covers post-handshake messages such as TLS 1.3 session
+        // tickets, which the engine asks to wrap right after the handshake completes.
+        if (sslEngine.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+            while (!handshakeTaskPending
+                    && sslEngine.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+                logger.trace("{} Handshake needs WRAP", getClientInfo());
 
-            SSLEngineResult result = sslEngine.wrap(myAppData, myNetData);
+                ByteBuffer netBuffer = nextNetBuffer();
+                if (netBuffer == null) {
+                    break;
+                }
 
-            logger.debug("{} wrap: status={}, hsStatus={}, produced={}",
-                    getClientInfo(),
-                    result.getStatus(),
-                    result.getHandshakeStatus(),
-                    result.bytesProduced());
+                SSLEngineResult result = sslEngine.wrap(EMPTY_BUFFER, netBuffer);
 
-            if (result.getStatus() == SSLEngineResult.Status.OK) {
-                myNetData.flip();
+                logger.debug("{} wrap: status={}, hsStatus={}, produced={}",
+                        getClientInfo(),
+                        result.getStatus(),
+                        result.getHandshakeStatus(),
+                        result.bytesProduced());
 
-                while (myNetData.hasRemaining()) {
-                    socketChannel.write(myNetData);
+                if (!handleWrapResult(result)) {
+                    return false;
                 }
 
-                if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK) {
-                    runDelegatedTasks();
-                }
+                if (result.getStatus() == SSLEngineResult.Status.OK) {
+                    if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                        scheduleDelegatedTasks();
+                    }
 
-                // Check if handshake completed (during wrap)
-                if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.FINISHED ||
-                        result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING) {
-                    markHandshakeComplete();
+                    // Check if handshake completed (during wrap)
+                    if (!initialHandshakeDone &&
+                            (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.FINISHED ||
+                                    result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING)) {
+                        markHandshakeComplete();
+                    }
                 }
             }
 
-            return false; // Keep trying
+            flipNetBuffers();
+            if (!flushNetData() || handshakeTaskPending) {
+                return false;
+            }
         }
 
         // Don't send application data until handshake is done
         if (!initialHandshakeDone) {
-            return hsStatus == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING;
+            return sslEngine.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING;
         }
 
-        // Process application data queue
-        while (!writeQueue.isEmpty()) {
-            MessageBuffer packet = writeQueue.peek();
+        // Process application data queue, one gathered batch of records at a time.
+        while (refillPacketSources()) {
+            int records = 0;
+            int packetBytes = 0;
 
-            myAppData.clear();
-            myAppData.put(packet.toArray());
-            myAppData.flip();
+            while (packetSourceCount > 0) {
+                ByteBuffer netBuffer = nextNetBuffer();
+                if (netBuffer == null) {
+                    break; // Batch is full, send it first
+                }
 
-            myNetData.clear();
+                SSLEngineResult result = sslEngine.wrap(packetSources, 0, packetSourceCount, netBuffer);
 
-            SSLEngineResult result = sslEngine.wrap(myAppData, myNetData);
+                if (!handleWrapResult(result)) {
+                    return false;
+                }
 
-            switch (result.getStatus()) {
-                case OK:
-                    myNetData.flip();
+                if (result.getStatus() == SSLEngineResult.Status.OK) {
+                    records++;
+                    packetBytes += result.bytesConsumed();
+                    refillPacketSources();
+                }
+            }
 
-                    while (myNetData.hasRemaining()) {
-                        int written = socketChannel.write(myNetData);
-                        if (written == 0) {
-                            // Can't write more now
-                            return false;
-                        }
-                    }
+            RECORDS_PER_FLUSH.record(records);
+            RECORDS.add(records);
+            FLUSHES.increment();
 
-                    logger.trace("{} Sent encrypted packet: {} bytes",
-                            getClientInfo(), result.bytesProduced());
+            logger.trace("{} Sending {} bytes of packets in {} TLS record(s)",
+                    getClientInfo(), packetBytes, records);
 
-                    writeQueue.poll(); // Successfully sent
-                    break;
+            flipNetBuffers();
+            if (!flushNetData()) {
+                // Can't write more now
+                return false;
+            }
+        }
 
-                case BUFFER_OVERFLOW:
-                    myNetData = enlargePacketBuffer(myNetData);
-                    break;
+        return true;
 
-                case BUFFER_UNDERFLOW:
-                    throw new SSLException("Buffer underflow during wrap");
+    }
 
-                case CLOSED:
-                    logger.warn("{} SSL closed, can't send data", getClientInfo());
-                    closeSocket();
-                    return false;
+    /**
+     * Checks the status of a wrap. A buffer overflow only means the engine now needs larger records than the current
+     * buffer can take, in which case the next {@link #nextNetBuffer()} picks a bigger one.
+     *
+     * @param result The result of the wrap.
+     * @return true if wrapping can go on, false if the SSL connection was closed.
+     * @throws SSLException If the engine reports an underflow, which cannot happen for a wrap.
+     */
+    private boolean handleWrapResult(SSLEngineResult result) throws SSLException {
+        switch (result.getStatus()) {
+            case BUFFER_OVERFLOW:
+                netBuffers[netBufferCount - 1].limit(netBuffers[netBufferCount - 1].position());
+                return true;
+
+            case BUFFER_UNDERFLOW:
+                throw new SSLException("Buffer underflow during wrap");
+
+            case CLOSED:
+                logger.warn("{} SSL closed, can't send data", getClientInfo());
+                closeSocket();
+                return false;
+
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Drops the packets the engine has fully consumed from the front of the source array and fills the free slots
+     * with packets from the write queue.
+     *
+     * @return true if there is at least one packet left to wrap, false otherwise.
+     */
+    private boolean refillPacketSources() {
+        int live = 0;
+        for (int i = 0; i < packetSourceCount; i++) {
+            if (packetSources[i].hasRemaining()) {
+                packetSources[live++] = packetSources[i];
             }
         }
+        for (int i = live; i < packetSourceCount; i++) {
+            packetSources[i] = null;
+        }
+        packetSourceCount = live;
 
-        return true;
+        MessageBuffer packet;
+        while (packetSourceCount < MAX_PACKET_SOURCES && (packet = writeQueue.poll()) != null) {
+            packetSources[packetSourceCount++] = packet.asByteBuffer();
+        }
+
+        return packetSourceCount > 0;
+    }
+
+    /**
+     * Returns the buffer the next TLS record should be wrapped into. Records are appended to the last leased buffer
+     * while it can hold a full record; otherwise a new buffer is leased from the pool. Only called once every pending
+     * encrypted byte has been flushed, so leased buffers are in write mode.
+     *
+     * @return the buffer to wrap into, or null if the batch already uses every buffer slot.
+     */
+    private ByteBuffer nextNetBuffer() {
+        int packetBufferSize = sslEngine.getSession().getPacketBufferSize();
 
+        if (netBufferCount > 0 && netBuffers[netBufferCount - 1].remaining() >= packetBufferSize) {
+            return netBuffers[netBufferCount - 1];
+        }
+
+        if (netBufferCount == MAX_NET_BUFFERS) {
+            return null;
+        }
+
+        ByteBuffer netBuffer = packetBufferSize <= bufferPool.getBufferSize()
+                ? bufferPool.acquire()
+                : ByteBuffer.allocateDirect(packetBufferSize);
+        netBuffers[netBufferCount++] = netBuffer;
+        return netBuffer;
     }
 
     /**
-     * Runs any delegated tasks required by the SSLEngine during the handshake process. This is necessary to complete the SSL handshake,
-     * as some steps may require additional processing that is delegated to separate tasks. This method will execute all pending tasks
-     * until there are no more tasks to run.
+     * Switches the buffers of a freshly wrapped batch from write mode to read mode, ready for {@link #flushNetData()}.
      */
-    private void runDelegatedTasks() {
-        Runnable task;
-        while ((task = sslEngine.getDelegatedTask()) != null) {
-            task.run();
+    private void flipNetBuffers() {
+        for (int i = 0; i < netBufferCount; i++) {
+            netBuffers[i].flip();
         }
     }
 
     /**
-     * Enlarges the application buffer if the decrypted data exceeds the current buffer size. This method checks the required size for the application buffer
-     * based on the SSL session and creates a new buffer if necessary, copying any existing data into it.
+     * Writes the encrypted records held in {@code netBuffers} to the socket with gathering writes, stopping as soon as
+     * the socket buffer is full. Fully written buffers are given back to the pool.
      *
-     * @param buffer The current application ByteBuffer that may need to be enlarged.
-     * @return A ByteBuffer that is large enough to hold the decrypted application data.
+     * @return true if every pending byte was written, false if some are still waiting for the socket to become writable.
+     * @throws IOException If an I/O error occurs while writing to the socket.
      */
-    private ByteBuffer enlargeApplicationBuffer(ByteBuffer buffer) {
-        int newSize = sslEngine.getSession().getApplicationBufferSize();
-        if (newSize > buffer.capacity()) {
-            ByteBuffer newBuffer = ByteBuffer.allocate(newSize);
-            buffer.flip();
-            newBuffer.put(buffer);
-            return newBuffer;
-        } else {
-            return buffer;
+    private boolean flushNetData() throws IOException {
+        if (netBufferCount == 0) {
+            return true;
         }
+
+        while (netBufferIndex < netBufferCount) {
+            long written = socketChannel.write(netBuffers, netBufferIndex, netBufferCount - netBufferIndex);
+
+            while (netBufferIndex < netBufferCount && !netBuffers[netBufferIndex].hasRemaining()) {
+                bufferPool.release(netBuffers[netBufferIndex]);
+                netBuffers[netBufferIndex++] = null;
+            }
+
+            if (written == 0 && netBufferIndex < netBufferCount) {
+                return false;
+            }
+        }
+
+        netBufferIndex = 0;
+        netBufferCount = 0;
+        return true;
     }
 
     /**
-     * Enlarges the packet buffer if the encrypted data to be sent exceeds the current buffer size. This method checks the required size for the packet buffer
-     * based on the SSL session and creates a new buffer if necessary, copying any existing data into it.
+     * Hands the delegated tasks of the SSLEngine over to the {@link HandshakeExecutor}. Until they finish, the session
+     * neither wraps nor unwraps; the executor then clears the pending flag and invokes the resume callback so the
+     * owning worker can pick the handshake up where it stopped.
+     */
+    private void scheduleDelegatedTasks() {
+        if (handshakeTaskPending) {
+            return;
+        }
+        handshakeTaskPending = true;
+
+        HandshakeExecutor.getInstance().runDelegatedTasks(sslEngine, taskNanos -> {
+            handshakeTaskNanos += taskNanos;
+            handshakeTaskPending = false;
+            wakeUpWorker();
+        });
+    }
+
+    /**
+     * Asks the owning worker to resume this session from its own thread: buffered data is processed again and the
+     * interest ops are re-armed, which also picks up responses queued by other threads.
+     */
+    private void wakeUpWorker() {
+        Runnable callback = resumeCallback;
+        if (callback != null) {
+            callback.run();
+        }
+    }
+
+    /**
+     * Enlarges the application buffer so that a full decrypted record fits behind the data it already holds. The
+     * larger buffer is allocated outside of the pool, the pending bytes are copied over and the old buffer is given
+     * back to the pool.
      *
-     * @param buffer The current packet ByteBuffer that may need to be enlarged.
-     * @return A ByteBuffer that is large enough to hold the encrypted data to be sent.
+     * @param buffer The current application ByteBuffer, in write mode, that may need to be enlarged.
+     * @return A ByteBuffer that is large enough to hold the decrypted application data.
      */
-    private ByteBuffer enlargePacketBuffer(ByteBuffer buffer) {
-        int newSize = sslEngine.getSession().getPacketBufferSize();
+    private ByteBuffer enlargeApplicationBuffer(ByteBuffer buffer) {
+        int newSize = buffer.position() + sslEngine.getSession().getApplicationBufferSize();
         if (newSize > buffer.capacity()) {
-            ByteBuffer newBuffer = ByteBuffer.allocate(newSize);
+            ByteBuffer newBuffer = ByteBuffer.allocateDirect(newSize);
             buffer.flip();
             newBuffer.put(buffer);
+            bufferPool.release(buffer);
             return newBuffer;
         } else {
             return buffer;
@@ -427,9 +673,11 @@ public class Session {
     }
 
     /**
-     * Handles reading data from the session's read buffer. This method processes incoming data in stages:
-     * reading the header length, reading the header, and reading the payload. It uses helper methods to
-     * manage each stage and returns appropriate results based on the processing state.
+     * Handles the decrypted application data held by the session. Every frame (a 2-byte big-endian header length, the
+     * protobuf header, then the payload) is decoded straight from the application buffer: the header is parsed exactly
+     * once and kept on the session until its payload is complete, and the payload is handed to the service as a
+     * {@code CodedInputStream} over the buffer itself, without any intermediate copy. A trailing partial frame is kept
+     * for the next read.
      *
      * @return A SocketReadCallbackResult indicating whether to keep reading or if processing is complete.
      */
@@ -439,210 +687,126 @@ public class Session {
             return SocketReadCallbackResult.KEEP_READING;
         }
 
-        int availableData = readBuffer.getActiveSize();
+        readSuspended = false;
 
-        if (availableData == 0) {
+        if (peerAppData == null || peerAppData.position() == 0) {
             logger.trace("{} No application data to process yet", getClientInfo());
             return SocketReadCallbackResult.KEEP_READING;
         }
 
         logger.debug("{} 🔄 Processing {} bytes of application data",
-                getClientInfo(), availableData);
+                getClientInfo(), peerAppData.position());
 
-        while (readBuffer.getActiveSize() > 0) {
+        peerAppData.flip();
 
-            // STEP 1: Read 2-byte header length
-            Optional<SocketReadCallbackResult> result1 =
-                    partialProcessPacket(this::readHeaderLengthHandler, headerLengthBuffer);
-            if (result1.isPresent()) {
-                return result1.get();
-            }
+        try {
+            while (peerAppData.hasRemaining()) {
 
-            // STEP 2: Read Protocol Buffer header
-            Optional<SocketReadCallbackResult> result2 =
-                    partialProcessPacket(this::readHeaderHandler, headerBuffer);
-            if (result2.isPresent()) {
-                return result2.get();
-            }
+                // STEP 1: Read the 2-byte header length and the Protocol Buffer header, once per frame
+                if (pendingHeader == null && !readHeader()) {
+                    if (closed) {
+                        return SocketReadCallbackResult.STOP;
+                    }
+                    break;
+                }
 
-            // STEP 3: Read Protocol Buffer payload
-            Optional<SocketReadCallbackResult> result3 =
-                    partialProcessPacket(this::readDataHandler, packetBuffer);
-            if (result3.isPresent()) {
-                return result3.get();
-            }
+                // STEP 2: Wait for the complete Protocol Buffer payload
+                int payloadSize = pendingHeader.getSize();
+                if (peerAppData.remaining() < payloadSize) {
+                    logger.debug("{} Waiting for complete payload (need {} more bytes)",
+                            getClientInfo(), payloadSize - peerAppData.remaining());
+                    break;
+                }
+
+                // STEP 3: Hold the request back while too many calls are in flight. The worker stops reading until a
+                // call completes and wakes it up again.
+                if (serviceDispatcher.isAsync() && responseSequencer.size() >= MAX_IN_FLIGHT_CALLS.get()) {
+                    logger.debug("{} {} calls in flight, suspending reads", getClientInfo(), responseSequencer.size());
+                    readSuspended = true;
+                    READ_SUSPENSIONS.increment();
+                    break;
+                }
 
-            headerLengthBuffer.reset();
-            headerBuffer.reset();
+                // STEP 4: Dispatch the request over the payload bytes
+                Header header = pendingHeader;
+                int payloadStart = peerAppData.position();
+                pendingHeader = null;
+
+                logger.debug("{} Request: service=0x{}, method={}, token={}, size={}",
+                        getClientInfo(),
+                        Integer.toHexString(header.getServiceHash()).toUpperCase(),
+                        header.getMethodId(),
+                        header.getToken(),
+                        payloadSize);
+
+                serviceDispatcher.dispatch(this, header.getServiceHash(), header.getToken(), header.getMethodId(),
+                        peerAppData.slice(payloadStart, payloadSize));
+
+                if (closed) {
+                    return SocketReadCallbackResult.STOP;
+                }
+
+                peerAppData.position(payloadStart + payloadSize);
+            }
+        } finally {
+            if (peerAppData != null) {
+                peerAppData.compact();
+            }
+            releaseDrainedBuffers();
         }
 
         return SocketReadCallbackResult.KEEP_READING;
     }
 
     /**
-     * Reads the header length from the headerLengthBuffer. This method checks if there are at least 2 bytes available to read the header length,
-     * and if so, it reads the length, resizes the headerBuffer accordingly, and marks the bytes as read. If there are not enough bytes to read the header length,
-     * it returns false, indicating that more data is needed before processing can continue.
+     * Decodes the header of the next frame from the application buffer and keeps it in {@code pendingHeader}, consuming
+     * the header bytes. Nothing is consumed while the header is still incomplete.
      *
-     * @return true if the header length was successfully read and processed, false if more data is needed.
+     * @return true if the header was decoded, false if more data is needed or the header is invalid (the session is
+     * then closed).
      */
-    private boolean readHeaderLengthHandler() {
-        if (headerLengthBuffer.getActiveSize() < 2) {
+    private boolean readHeader() {
+        if (peerAppData.remaining() < 2) {
             logger.debug("{} Waiting for header length (have {} bytes)",
-                    getClientInfo(), headerLengthBuffer.getActiveSize());
+                    getClientInfo(), peerAppData.remaining());
             return false;
         }
 
-        byte[] lengthBytes = headerLengthBuffer.getReadPointer(2);
+        int frameStart = peerAppData.position();
 
         // ✅ BIG-ENDIAN (Battle.net protocol)
-        int headerLength = ((lengthBytes[0] & 0xFF) << 8) | (lengthBytes[1] & 0xFF);
-
-        logger.debug("{} Header length: {} bytes", getClientInfo(), headerLength);
-
-        headerBuffer.resize(headerLength);
-        headerLengthBuffer.readCompleted(2);
-        return true;
-    }
-
-    /**
-     * Reads the header from the headerBuffer. This method attempts to parse the header using the protobuf Header message.
-     * If parsing is successful, it resizes the packetBuffer to the size specified in the header and returns true.
-     * If parsing fails due to an InvalidProtocolBufferException, it logs an error and returns false, indicating that more data is needed or that there was a parsing error.
-     *
-     * @return true if the header was successfully read and processed, false if there was a parsing error or more data is needed.
-     */
-    private boolean readHeaderHandler() {
+        int headerLength = ((peerAppData.get(frameStart) & 0xFF) << 8) | (peerAppData.get(frameStart + 1) & 0xFF);
 
-        if (headerBuffer.getRemainingSpace() > 0) {
+        if (peerAppData.remaining() < 2 + headerLength) {
             logger.debug("{} Waiting for complete header (need {} more bytes)",
-                    getClientInfo(), headerBuffer.getRemainingSpace());
+                    getClientInfo(), 2 + headerLength - peerAppData.remaining());
             return false;
         }
 
         try {
-            byte[] headerData = headerBuffer.toArray();
-
-            // ✅ Log of header bytes before parsing.
-            if (logger.isDebugEnabled()) {
-                logger.debug("{} Header bytes ({}): {}",
-                        getClientInfo(), headerData.length, bytesToHex(headerData));
-            }
-
-            Header header = Header.parseFrom(headerData);
-
-            logger.debug("{} Header parsed: service=0x{}, method={}, token={}, size={}",
-                    getClientInfo(),
-                    Integer.toHexString(header.getServiceHash()).toUpperCase(),
-                    header.getMethodId(),
-                    header.getToken(),
-                    header.getSize());
-
-            packetBuffer.resize(header.getSize());
-            return true;
+            pendingHeader = Header.parseFrom(peerAppData.slice(frameStart + 2, headerLength));
         } catch (InvalidProtocolBufferException e) {
             logger.error("{} Failed to parse header: {}", getClientInfo(), e.getMessage(), e);
 
-            // ✅ Full buffet logo in case of error.
-            byte[] errorData = headerBuffer.toArray();
+            // ✅ Full buffer logged in case of error.
+            byte[] errorData = new byte[headerLength];
+            peerAppData.get(frameStart + 2, errorData);
             logger.error("{} Header buffer content (hex): {}",
                     getClientInfo(), bytesToHex(errorData));
 
-            return false;
-        } catch (Exception e) {
-            logger.error("{} Unexpected error parsing header: {}",
-                    getClientInfo(), e.getMessage(), e);
-            return false;
-        }
-    }
-
-    /**
-     * Reads the data payload from the packetBuffer. This method attempts to parse the header again to extract information about the service, method, token, and size.
-     * It then logs the request details and dispatches the request to the appropriate service using the ServiceDispatcher. If parsing fails due to an InvalidProtocolBufferException,
-     * it logs an error and returns false, indicating that there was a parsing error with the data.
-     *
-     * @return true if the data was successfully read and dispatched, false if there was a parsing error.
-     */
-    private boolean readDataHandler() {
-        if (packetBuffer.getRemainingSpace() > 0) {
-            logger.debug("{} Waiting for complete payload (need {} more bytes)",
-                    getClientInfo(), packetBuffer.getRemainingSpace());
+            closeSocket();
             return false;
         }
 
-        try {
-            Header header = Header.parseFrom(headerBuffer.toArray());
-
-            logger.debug("{} Request: service=0x{}, method={}, token={}, size={}",
-                    getClientInfo(),
-                    Integer.toHexString(header.getServiceHash()).toUpperCase(),
-                    header.getMethodId(),
-                    header.getToken(),
-                    header.getSize());
+        logger.debug("{} Header parsed: service=0x{}, method={}, token={}, size={}",
+                getClientInfo(),
+                Integer.toHexString(pendingHeader.getServiceHash()).toUpperCase(),
+                pendingHeader.getMethodId(),
+                pendingHeader.getToken(),
+                pendingHeader.getSize());
 
-            serviceDispatcher.dispatch(this, header.getServiceHash(),
-                    header.getToken(), header.getMethodId(), packetBuffer);
-
-            return true;
-        } catch (InvalidProtocolBufferException e) {
-            logger.error("{} Failed to parse data: {}", getClientInfo(), e.getMessage());
-            return false;
-        }
-    }
-
-    /**
-     * A helper method to process a stage of packet handling. This method takes a ProcessMethod functional interface, which represents the logic for processing a specific stage
-     * (e.g., reading header length, reading header, reading data). It attempts to process the stage and manages the output buffer accordingly. If the output buffer still has remaining space after processing,
-     * it returns a result indicating that more data is needed. If processing fails, it closes the socket and returns a result indicating that processing should stop. If processing is successful and complete,
-     * it returns an empty Optional, allowing the caller to continue to the next stage.
-     *
-     * @param method       The ProcessMethod representing the logic for processing a specific stage of packet handling.
-     * @param outputBuffer The MessageBuffer used for storing data during this stage of processing.
-     * @return An Optional containing a SocketReadCallbackResult if processing is not complete or if there was an error, or an empty Optional if processing was successful and complete.
-     */
-    private Optional<SocketReadCallbackResult> partialProcessPacket(
-            ProcessMethod method, MessageBuffer outputBuffer) {
-
-        if (outputBuffer.getRemainingSpace() > 0) {
-            int bytesToRead = Math.min(readBuffer.getActiveSize(),
-                    outputBuffer.getRemainingSpace());
-
-            if (bytesToRead > 0) {
-                byte[] data = readBuffer.read(bytesToRead);
-
-                // ✅ Log in before writing.
-                logger.trace("{} Writing {} bytes to buffer (capacity={}, limit={}, writePos={}, remaining={})",
-                        getClientInfo(), data.length,
-                        outputBuffer.getCapacity(),
-                        outputBuffer.getLimit(),
-                        outputBuffer.getWritePos(),
-                        outputBuffer.getRemainingSpace());
-
-                try {
-                    outputBuffer.write(data);
-                } catch (Exception e) {
-                    logger.error("{} Error writing to buffer: {}",
-                            getClientInfo(), e.getMessage(), e);
-                    logger.error("{} Buffer state: capacity={}, writePos={}, dataLength={}",
-                            getClientInfo(),
-                            outputBuffer.getCapacity(),
-                            outputBuffer.getWritePos(),
-                            data.length);
-                    throw e;
-                }
-            }
-        }
-
-        if (outputBuffer.getRemainingSpace() > 0) {
-            return Optional.of(SocketReadCallbackResult.KEEP_READING);
-        }
-
-        if (!method.process()) {
-            closeSocket();
-            return Optional.of(SocketReadCallbackResult.STOP);
-        }
-
-        return Optional.empty();
+        peerAppData.position(frameStart + 2 + headerLength);
+        return true;
     }
 
     /**
@@ -667,7 +831,7 @@ public class Session {
         packet.write(header.toByteArray());
         packet.write(response.toByteArray());
 
-        writeQueue.offer(packet);
+        queuePacket(token, packet);
     }
 
     /**
@@ -690,7 +854,64 @@ public class Session {
         packet.writeShortLE(headerSize);
         packet.write(header.toByteArray());
 
-        writeQueue.offer(packet);
+        queuePacket(token, packet);
+    }
+
+    /**
+     * Queues a serialized response for sending. While the call it answers is in flight on the async dispatcher, the
+     * response is held back so that responses leave in request order.
+     *
+     * @param token  The token of the request being answered.
+     * @param packet The serialized response.
+     */
+    private void queuePacket(int token, MessageBuffer packet) {
+        if (!responseSequencer.offer(token, packet)) {
+            writeQueue.offer(packet);
+        }
+    }
+
+    /**
+     * Registers a request that is about to run on the async dispatcher. Called on the network worker, in the order the
+     * requests were received.
+     *
+     * @param token The token of the request.
+     * @return true if the call was registered, false if an earlier call with the same token is still in flight, in
+     * which case the request must not be run.
+     */
+    public boolean beginCall(int token) {
+        return responseSequencer.begin(token);
+    }
+
+    /**
+     * Returns the executor running the calls of this session on the async dispatcher, one at a time and in the order
+     * they were received, so services never see two calls of the same session at once.
+     *
+     * @return the executor of this session, or null in inline mode.
+     */
+    public Executor getCallExecutor() {
+        return callExecutor;
+    }
+
+    /**
+     * Completes a request that ran on the async dispatcher, releasing its responses (and those of any later request
+     * that already completed) to the write queue, and wakes up the worker to send them. Called from the virtual thread
+     * that ran the call.
+     *
+     * @param token The token of the request.
+     */
+    public void completeCall(int token) {
+        responseSequencer.complete(token, writeQueue);
+        wakeUpWorker();
+    }
+
+    /**
+     * Checks if the session stopped decoding requests because too many calls are in flight. The worker must not
+     * read from the socket until the session is woken up again.
+     *
+     * @return true if reading is suspended, false otherwise.
+     */
+    public boolean isReadSuspended() {
+        return readSuspended;
     }
 
     /**
@@ -699,10 +920,33 @@ public class Session {
      * @return true if there is data in the write queue or if the SSL handshake requires a wrap operation, false otherwise.
      */
     public boolean hasDataToWrite() {
+        if (netBufferIndex < netBufferCount || packetSourceCount > 0) {
+            return true;
+        }
         SSLEngineResult.HandshakeStatus hsStatus = sslEngine.getHandshakeStatus();
         return hsStatus == SSLEngineResult.HandshakeStatus.NEED_WRAP || !writeQueue.isEmpty();
     }
 
+    /**
+     * Checks if the handshake is currently suspended while its delegated tasks run on the {@link HandshakeExecutor}.
+     * The owning worker must not read from or write to the session until the resume callback fires.
+     *
+     * @return true if delegated tasks are still running, false otherwise.
+     */
+    public boolean isHandshakeTaskPending() {
+        return handshakeTaskPending;
+    }
+
+    /**
+     * Sets the callback invoked from other threads (handshake executor, async calls) when the owning worker has to
+     * resume this session.
+     *
+     * @param resumeCallback the callback that wakes up the owning worker.
+     */
+    public void setResumeCallback(Runnable resumeCallback) {
+        this.resumeCallback = resumeCallback;
+    }
+
     /**
      * Closes the socket and the SSL connection associated with this session. This method ensures that the SSL engine is properly closed before closing the underlying SocketChannel.
      * It also logs the closure of the session and handles any IOException that may occur during the closing process.
@@ -712,6 +956,7 @@ public class Session {
             return; // Prevent multiple close attempts
         }
         closed = true;
+        releaseHandshakeSlot();
 
         // Log the client info before closing, since socketChannel will be closed and may not provide remote address afterward
         String clientInfo = getClientInfo();
@@ -727,6 +972,36 @@ public class Session {
         }
     }
 
+    /**
+     * Releases the handshake slot of this session, if not released yet.
+     */
+    private void releaseHandshakeSlot() {
+        Runnable release = handshakeSlot.getAndSet(null);
+        if (release != null) {
+            release.run();
+        }
+    }
+
+    /**
+     * Gives every buffer leased by this session back to the pool. Must only be called by the owning worker once the
+     * session is closed and removed, since a session may be closed from another thread while the worker still uses
+     * its buffers.
+     */
+    public void releaseBuffers() {
+        bufferPool.release(peerNetData);
+        bufferPool.release(peerAppData);
+        peerNetData = null;
+        peerAppData = null;
+        for (int i = netBufferIndex; i < netBufferCount; i++) {
+            bufferPool.release(netBuffers[i]);
+            netBuffers[i] = null;
+        }
+        netBufferIndex = 0;
+        netBufferCount = 0;
+        Arrays.fill(packetSources, null);
+        packetSourceCount = 0;
+    }
+
     /**
      * Checks if the underlying SocketChannel is still open. This is important for determining if the session is still active
      * and can be used for communication with the client.
@@ -756,15 +1031,15 @@ public class Session {
      * If the handshake is completed but no data has been received, it uses a shorter timeout to determine idleness.
      * This helps to identify clients that connect but do not send any data after the handshake.
      *
+     * @param now The current time in milliseconds, as returned by {@link #monotonicMillis()}.
      * @return true if the session is considered idle, false otherwise.
      */
-    public boolean isIdle() {
-        long now = System.currentTimeMillis();
+    public boolean isIdle(long now) {
 
         // If handshake completed but no data received, use short timeout
         if (initialHandshakeDone && handshakeCompletedTime > 0) {
             long timeSinceHandshake = now - handshakeCompletedTime;
-            if (timeSinceHandshake > POST_HANDSHAKE_TIMEOUT_MS && readBuffer.getActiveSize() == 0) {
+            if (timeSinceHandshake > POST_HANDSHAKE_TIMEOUT_MS.get() && applicationBytesReceived == 0) {
                 logger.warn("{} No data received {}ms after handshake completion",
                         getClientInfo(), timeSinceHandshake);
                 return true;
@@ -772,7 +1047,40 @@ public class Session {
         }
 
         // General timeout
-        return (now - lastActivityTime) > IDLE_TIMEOUT_MS;
+        return (now - lastActivityTime) > IDLE_TIMEOUT_MS.get();
+    }
+
+    /**
+     * Returns the next time at which {@link #isIdle(long)} may become true, so the owning worker can schedule its
+     * timeout check without polling the session. Activity only ever moves the deadline later; until the first request
+     * arrives, the session is re-checked at least every {@code POST_HANDSHAKE_TIMEOUT_MS} so that a handshake completing
+     * in the meantime is noticed in time.
+     *
+     * @param now The current time in milliseconds, as returned by {@link #monotonicMillis()}.
+     * @return The time in milliseconds, on the same clock, at which the session should be checked again.
+     */
+    public long getTimeoutDeadline(long now) {
+        long deadline = lastActivityTime + IDLE_TIMEOUT_MS.get();
+
+        if (applicationBytesReceived == 0) {
+            long postHandshakeDeadline = initialHandshakeDone
+                    ? handshakeCompletedTime + POST_HANDSHAKE_TIMEOUT_MS.get()
+                    : now + POST_HANDSHAKE_TIMEOUT_MS.get();
+            deadline = Math.min(deadline, postHandshakeDeadline);
+        }
+
+        return deadline + 1; // isIdle() uses a strict comparison
+    }
+
+    /**
+     * Returns the time used for the activity and timeout deadlines of the sessions: milliseconds elapsed on the
+     * monotonic clock since this class was loaded. Unlike {@link System#currentTimeMillis()}, it never jumps when the
+     * system clock is adjusted.
+     *
+     * @return the current time in milliseconds on the monotonic clock
+     */
+    public static long monotonicMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - CLOCK_ORIGIN_NANOS);
     }
 
     /**
@@ -793,36 +1101,39 @@ public class Session {
     }
 
     /**
-     * Formats a byte array into a hex dump string for logging purposes. This method formats the byte array in a structured way, showing the hexadecimal values of the bytes.
+     * Formats a region of a buffer into a hex dump string for logging purposes. This method formats the bytes in a structured way, showing their hexadecimal values.
      * It also limits the output to a specified maximum number of bytes, and indicates if there are additional bytes that were not included in the dump.
+     * The buffer's position and limit are left untouched.
      *
-     * @param data     The byte array to be formatted as a hex dump.
-     * @param maxBytes The maximum number of bytes to include in the hex dump. If the data exceeds this length, it will indicate how many additional bytes are not shown.
-     * @return A string containing the formatted hex dump of the input byte array.
+     * @param data     The buffer holding the bytes to be formatted as a hex dump.
+     * @param offset   The absolute index of the first byte to format.
+     * @param length   The number of bytes in the region.
+     * @param maxBytes The maximum number of bytes to include in the hex dump. If the region exceeds this length, it will indicate how many additional bytes are not shown.
+     * @return A string containing the formatted hex dump of the region.
      */
-    private String formatHexDump(byte[] data, int maxBytes) {
+    private String formatHexDump(ByteBuffer data, int offset, int length, int maxBytes) {
         StringBuilder sb = new StringBuilder();
-        int length = Math.min(data.length, maxBytes);
+        int shown = Math.min(length, maxBytes);
 
-        for (int i = 0; i < length; i++) {
+        for (int i = 0; i < shown; i++) {
             if (i > 0 && i % 16 == 0) {
                 sb.append("\n║   ");
             } else if (i > 0 && i % 8 == 0) {
                 sb.append("  ");
             }
-            sb.append(String.format("%02X ", data[i]));
+            sb.append(String.format("%02X ", data.get(offset + i)));
         }
 
-        if (data.length > maxBytes) {
-            sb.append("... (").append(data.length - maxBytes).append(" more bytes)");
+        if (length > maxBytes) {
+            sb.append("... (").append(length - maxBytes).append(" more bytes)");
         }
 
         return sb.toString();
     }
 
     // Getters and setters for session state and buffers.
-    public MessageBuffer getReadBuffer() {
-        return readBuffer;
+    public SocketChannel getSocketChannel() {
+        return socketChannel;
     }
 
     public boolean isAuthenticated() {
@@ -848,13 +1159,4 @@ public class Session {
     public void setAccountId(int accountId) {
         this.accountId = accountId;
     }
-
-    /**
-     * Functional interface for processing a stage of packet handling. This is used in the partialProcessPacket method
-     * to allow for different processing logic at each stage (e.g., reading header length, reading header, reading payload).
-     */
-    @FunctionalInterface
-    private interface ProcessMethod {
-        boolean process();
-    }
 }
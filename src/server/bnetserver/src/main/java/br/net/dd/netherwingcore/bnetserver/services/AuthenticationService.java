@@ -2,7 +2,6 @@ package br.net.dd.netherwingcore.bnetserver.services;
 
 import br.net.dd.netherwingcore.bnetserver.server.Session;
 import br.net.dd.netherwingcore.common.logging.Log;
-import br.net.dd.netherwingcore.common.utilities.MessageBuffer;
 
 import java.security.SecureRandom;
 
@@ -26,38 +25,20 @@ public class AuthenticationService extends ServiceBase {
 
     private final SecureRandom random = new SecureRandom();
 
-    @Override
-    public int getServiceHash() {
-        return SERVICE_HASH;
+    public AuthenticationService() {
+        registerMethod(METHOD_LOGON, "Logon", LogonRequest.parser(), this::handleLogon);
+        registerMethod(METHOD_VERIFY_WEB_CREDENTIALS, "VerifyWebCredentials", VerifyWebCredentialsRequest.parser(), this::handleVerifyWebCredentials);
+        registerMethod(METHOD_GENERATE_WEB_CREDENTIALS, "GenerateWebCredentials", GenerateWebCredentialsRequest.parser(), this::handleGenerateWebCredentials);
     }
 
     @Override
-    public void callServerMethod(Session session, int token, int methodId, MessageBuffer buffer) {
-        switch (methodId) {
-            case METHOD_LOGON:
-                handleLogon(session, token, buffer);
-                break;
-
-            case METHOD_VERIFY_WEB_CREDENTIALS:
-                handleVerifyWebCredentials(session, token, buffer);
-                break;
-
-            case METHOD_GENERATE_WEB_CREDENTIALS:
-                handleGenerateWebCredentials(session, token, buffer);
-                break;
-
-            default:
-                logger.warn("{} Unknown method ID {} for AuthenticationService",
-                        session.getClientInfo(), methodId);
-                sendErrorResponse(session, token, ERROR_RPC_NOT_IMPLEMENTED);
-        }
+    public int getServiceHash() {
+        return SERVICE_HASH;
     }
 
-    private void handleLogon(Session session, int token, MessageBuffer buffer) {
+    private void handleLogon(Session session, int token, LogonRequest request) {
         logger.debug("{} Logging on", session.getClientInfo());
 
-        LogonRequest request = parseMessage(buffer, LogonRequest.newBuilder(), "Logon");
-
         logger.debug("Program: {}, Platform: {}, Locale: {}", request.getProgram(), request.getPlatform(), request.getLocale());
 
         if (!request.getProgram().equals("WoW")) {
@@ -67,11 +48,11 @@ public class AuthenticationService extends ServiceBase {
 
     }
 
-    private void handleVerifyWebCredentials(Session session, int token, MessageBuffer buffer) {
+    private void handleVerifyWebCredentials(Session session, int token, VerifyWebCredentialsRequest request) {
         logger.debug("{} Verifying Web Credentials", session.getClientInfo());
     }
 
-    private void handleGenerateWebCredentials(Session session, int token, MessageBuffer buffer) {
+    private void handleGenerateWebCredentials(Session session, int token, GenerateWebCredentialsRequest request) {
         logger.debug("{} Generating Web Credentials", session.getClientInfo());
     }
 
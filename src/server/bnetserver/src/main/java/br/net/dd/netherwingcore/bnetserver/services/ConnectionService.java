@@ -2,10 +2,8 @@ package br.net.dd.netherwingcore.bnetserver.services;
 
 import br.net.dd.netherwingcore.bnetserver.server.Session;
 import br.net.dd.netherwingcore.common.logging.Log;
-import br.net.dd.netherwingcore.common.utilities.MessageBuffer;
 import br.net.dd.netherwingcore.common.utilities.Util;
 
-import static br.net.dd.netherwingcore.proto.BattlenetRpcErrorCode.*;
 import static br.net.dd.netherwingcore.proto.client.ConnectionServiceProto.*;
 import static br.net.dd.netherwingcore.proto.client.RpcTypesProto.*;
 
@@ -19,36 +17,18 @@ public class ConnectionService extends ServiceBase {
     private static final int METHOD_KEEP_ALIVE = 5;
     private static final int METHOD_REQUEST_DISCONNECT = 7;
 
-    @Override
-    public int getServiceHash() {
-        return SERVICE_HASH;
+    public ConnectionService() {
+        registerMethod(METHOD_CONNECT, "Connect", ConnectRequest.parser(), this::handleConnect);
+        registerMethod(METHOD_KEEP_ALIVE, "KeepAlive", NoData.parser(), this::handleKeepAlive);
+        registerMethod(METHOD_REQUEST_DISCONNECT, "RequestDisconnect", DisconnectRequest.parser(), this::handleRequestDisconnect);
     }
 
     @Override
-    public void callServerMethod(Session session, int token, int methodId, MessageBuffer buffer) {
-        switch (methodId) {
-            case METHOD_CONNECT:
-                handleConnect(session, token, buffer);
-                break;
-
-            case METHOD_KEEP_ALIVE:
-                handleKeepAlive(session, token);
-                break;
-
-            case METHOD_REQUEST_DISCONNECT:
-                handleRequestDisconnect(session, token, buffer);
-                break;
-
-            default:
-                logger.warn("{} Unknown method ID {} for ConnectionService",
-                        session.getClientInfo(), methodId);
-                sendErrorResponse(session, token, ERROR_RPC_NOT_IMPLEMENTED);
-        }
+    public int getServiceHash() {
+        return SERVICE_HASH;
     }
 
-    private void handleConnect(Session session, int token, MessageBuffer buffer) {
-        ConnectRequest request = parseMessage(buffer, ConnectRequest.newBuilder(), "Connect");
-
+    private void handleConnect(Session session, int token, ConnectRequest request) {
         ConnectResponse.Builder response = ConnectResponse.newBuilder();
 
         if (request.hasClientId()){
@@ -68,7 +48,7 @@ public class ConnectionService extends ServiceBase {
                 session.getClientInfo(), request.getUseBindlessRpc(), response.getServerTime());
     }
 
-    private void handleKeepAlive(Session session, int token) {
+    private void handleKeepAlive(Session session, int token, NoData request) {
         NoData.Builder noData = NoData.newBuilder();
 
         sendResponse(session, token, noData.build());
@@ -77,8 +57,7 @@ public class ConnectionService extends ServiceBase {
 
     }
 
-    private void handleRequestDisconnect(Session session, int token, MessageBuffer buffer) {
-        DisconnectRequest request = parseMessage(buffer, DisconnectRequest.newBuilder(), "Disconnect");
+    private void handleRequestDisconnect(Session session, int token, DisconnectRequest request) {
         DisconnectNotification.Builder response = DisconnectNotification.newBuilder();
         response.setErrorCode(request.getErrorCode());
 
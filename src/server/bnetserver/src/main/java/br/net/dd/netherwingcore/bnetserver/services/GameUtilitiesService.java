@@ -2,8 +2,8 @@ package br.net.dd.netherwingcore.bnetserver.services;
 
 import br.net.dd.netherwingcore.bnetserver.server.Session;
 import br.net.dd.netherwingcore.common.logging.Log;
-import br.net.dd.netherwingcore.common.utilities.MessageBuffer;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
 
 import java.nio.charset.StandardCharsets;
 import java.util.zip.Deflater;
@@ -24,6 +24,14 @@ public class GameUtilitiesService extends ServiceBase {
     private static final int METHOD_PROCESS_CLIENT_REQUEST = 1;
     private static final int METHOD_GET_ALL_VALUES_FOR_ATTRIBUTE = 10;
 
+    /**
+     * Registers the methods of the GameUtilitiesService.
+     */
+    public GameUtilitiesService() {
+        registerMethod(METHOD_PROCESS_CLIENT_REQUEST, "ProcessClientRequest", ClientRequest.parser(), this::handleProcessClientRequest);
+        registerMethod(METHOD_GET_ALL_VALUES_FOR_ATTRIBUTE, "GetAllValuesForAttribute", GetAllValuesForAttributeRequest.parser(), this::handleGetAllValuesForAttribute);
+    }
+
     /**
      * Returns the unique service hash for the GameUtilitiesService.
      *
@@ -35,31 +43,21 @@ public class GameUtilitiesService extends ServiceBase {
     }
 
     /**
-     * Handles incoming RPC calls to the GameUtilitiesService.
+     * Rejects calls from sessions that are not authenticated yet, then routes the call through the method table.
      *
      * @param session The session of the client making the call.
      * @param token The unique token for the RPC call.
      * @param methodId The ID of the method being called.
-     * @param buffer The message buffer containing any parameters for the call.
+     * @param input The stream over the serialized parameters of the call.
      */
     @Override
-    public void callServerMethod(Session session, int token, int methodId, MessageBuffer buffer) {
+    public void callServerMethod(Session session, int token, int methodId, CodedInputStream input) {
         if (!session.isAuthenticated()) {
             sendErrorResponse(session, token, ERROR_DENIED);
             return;
         }
 
-        switch (methodId) {
-            case METHOD_PROCESS_CLIENT_REQUEST:
-                handleProcessClientRequest(session, token, buffer);
-                break;
-            case METHOD_GET_ALL_VALUES_FOR_ATTRIBUTE:
-                handleGetAllValuesForAttribute(session, token, buffer);
-                break;
-            default:
-                logger.warn("Unknown method ID {} for GameUtilitiesService", String.valueOf(methodId));
-                sendErrorResponse(session, token, ERROR_RPC_NOT_IMPLEMENTED);
-        }
+        super.callServerMethod(session, token, methodId, input);
     }
 
     /**
@@ -67,15 +65,9 @@ public class GameUtilitiesService extends ServiceBase {
      *
      * @param session The session of the client making the request.
      * @param token The unique token for the RPC call.
-     * @param buffer The message buffer containing the ClientRequest parameters.
+     * @param request The parsed ClientRequest parameters.
      */
-    private void handleProcessClientRequest(Session session, int token, MessageBuffer buffer) {
-        ClientRequest request = parseMessage(buffer, ClientRequest.newBuilder(), "ProcessClientRequest");
-        if (request == null) {
-            sendErrorResponse(session, token, ERROR_RPC_MALFORMED_REQUEST);
-            return;
-        }
-
+    private void handleProcessClientRequest(Session session, int token, ClientRequest request) {
         // TODO: Implement logic to process the client request based on the command type and parameters.
         // Here you would process different commands:
         // - Command_RealmListRequest_v1
@@ -105,15 +97,9 @@ public class GameUtilitiesService extends ServiceBase {
      *
      * @param session The session of the client making the request.
      * @param token The unique token for the RPC call.
-     * @param buffer The message buffer containing the GetAllValuesForAttributeRequest parameters.
+     * @param request The parsed GetAllValuesForAttributeRequest parameters.
      */
-    private void handleGetAllValuesForAttribute(Session session, int token, MessageBuffer buffer) {
-        GetAllValuesForAttributeRequest request = parseMessage(buffer, GetAllValuesForAttributeRequest.newBuilder(), "GetAllValuesForAttribute");
-        if (request == null) {
-            sendErrorResponse(session, token, ERROR_RPC_MALFORMED_REQUEST);
-            return;
-        }
-
+    private void handleGetAllValuesForAttribute(Session session, int token, GetAllValuesForAttributeRequest request) {
         GetAllValuesForAttributeResponse.Builder responseBuilder = GetAllValuesForAttributeResponse.newBuilder();
 
         // Example: return sub-regions
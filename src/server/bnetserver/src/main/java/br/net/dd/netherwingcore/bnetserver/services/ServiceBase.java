@@ -2,53 +2,93 @@ package br.net.dd.netherwingcore.bnetserver.services;
 
 import br.net.dd.netherwingcore.bnetserver.server.Session;
 import br.net.dd.netherwingcore.common.logging.Log;
-import br.net.dd.netherwingcore.common.utilities.MessageBuffer;
+import br.net.dd.netherwingcore.common.metric.Counter;
+import br.net.dd.netherwingcore.common.metric.Histogram;
+import br.net.dd.netherwingcore.common.metric.Metric;
 import br.net.dd.netherwingcore.proto.BattlenetRpcErrorCode;
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
 
+import java.util.Arrays;
+
+import static br.net.dd.netherwingcore.proto.BattlenetRpcErrorCode.*;
+
+/**
+ * Base class for all services. Each service must implement the getServiceHash method to return its unique hash,
+ * and register its methods from its constructor with {@link #registerMethod(int, String, Parser, MethodHandler)}.
+ *
+ * <p>Registered methods are kept in a table indexed by method ID, so routing a call is a single array load. Each
+ * entry holds the {@link Parser} of its request type, which is shared by every call, along with the counters and the
+ * latency histogram of the method, published as {@code bnet.rpc.<Service>.<Method>.*}.</p>
+ */
 public abstract class ServiceBase {
 
     private static final Log logger = Log.getLogger(ServiceBase.class.getSimpleName());
 
+    private static final Counter UNKNOWN_METHOD_CALLS = Metric.counter("bnet.rpc.unknown_method");
+
+    private ServiceMethod<?>[] methods = new ServiceMethod<?>[0];
+
     /**
-     * Base class for all services. Each service must implement the getServiceHash method to return its unique hash,
-     * and the callServerMethod to handle incoming RPC calls.
+     * Returns the unique hash identifying this service on the wire.
+     *
+     * @return the service hash
      */
     public abstract int getServiceHash();
 
     /**
-     * Handles an incoming RPC call for this service. The methodId identifies which method is being called,
-     * and the buffer contains the serialized request data.
+     * Registers a method of this service. Must only be called from the constructor of the service, before it is
+     * handed to the {@link ServiceDispatcher}.
      *
-     * @param session the session from which the call originated
-     * @param token   the authentication token associated with the call
-     * @param methodId the ID of the method being called
-     * @param buffer  the buffer containing the serialized request data
+     * @param methodId the ID of the method, as sent by the client
+     * @param name     the name of the method, used in logs and metric names
+     * @param parser   the parser of the request message
+     * @param handler  the handler invoked with the parsed request
+     * @param <T>      the type of the request message
      */
-    public abstract void callServerMethod(Session session, int token, int methodId, MessageBuffer buffer);
+    protected final <T extends Message> void registerMethod(int methodId, String name, Parser<T> parser,
+                                                            MethodHandler<T> handler) {
+        if (methodId < 0) {
+            throw new IllegalArgumentException("Invalid method ID " + methodId + " for " + name);
+        }
+        if (methodId >= methods.length) {
+            methods = Arrays.copyOf(methods, methodId + 1);
+        }
+        if (methods[methodId] != null) {
+            throw new IllegalStateException("Method ID " + methodId + " registered twice (" + methods[methodId].name + ", " + name + ")");
+        }
+
+        String metricPrefix = "bnet.rpc." + getClass().getSimpleName() + "." + name;
+        methods[methodId] = new ServiceMethod<>(name, parser, handler,
+                Metric.counter(metricPrefix + ".calls"),
+                Metric.counter(metricPrefix + ".malformed"),
+                Metric.histogram(metricPrefix + ".latency_us"));
+    }
 
     /**
-     * Utility method to parse a protobuf message from a MessageBuffer. It takes a protobuf Message.Builder
-     * and attempts to merge the data from the buffer into it. If successful, it builds and returns the message.
-     * If parsing fails, it logs an error and returns null.
+     * Handles an incoming RPC call for this service. The methodId identifies which method is being called,
+     * and the input stream reads the serialized request data straight from the session's receive buffer.
+     * Calls to methods that are not registered are answered with {@code ERROR_RPC_NOT_IMPLEMENTED}, and requests
+     * that cannot be parsed with {@code ERROR_RPC_MALFORMED_REQUEST}.
      *
-     * @param buffer the buffer containing the serialized message data
-     * @param builder the protobuf Message.Builder to use for parsing
-     * @param methodName the name of the method being parsed (for logging purposes)
-     * @param <T> the type of protobuf message being parsed
-     * @return the parsed protobuf message, or null if parsing failed
+     * @param session the session from which the call originated
+     * @param token   the authentication token associated with the call
+     * @param methodId the ID of the method being called
+     * @param input   the stream over the serialized request data, only valid for the duration of the call
      */
-    protected <T extends Message> T parseMessage(MessageBuffer buffer, Message.Builder builder, String methodName) {
-        try {
-            builder.mergeFrom(buffer.toArray());
-            @SuppressWarnings("unchecked")
-            T message = (T) builder.build();
-            return message;
-        } catch (InvalidProtocolBufferException e) {
-            logger.log("Failed to parse " + methodName + " request: " + e.getMessage());
-            return null;
+    public void callServerMethod(Session session, int token, int methodId, CodedInputStream input) {
+        ServiceMethod<?>[] table = methods;
+        ServiceMethod<?> method = methodId >= 0 && methodId < table.length ? table[methodId] : null;
+        if (method == null) {
+            UNKNOWN_METHOD_CALLS.increment();
+            logger.warn("{} Unknown method ID {} for {}", session.getClientInfo(), methodId, getClass().getSimpleName());
+            sendErrorResponse(session, token, ERROR_RPC_NOT_IMPLEMENTED);
+            return;
         }
+
+        method.call(this, session, token, input);
     }
 
     /**
@@ -76,4 +116,60 @@ public abstract class ServiceBase {
         session.sendResponse(token, errorCode.getValue());
     }
 
+    /**
+     * Handles a parsed request for a registered method.
+     *
+     * @param <T> the type of the request message
+     */
+    @FunctionalInterface
+    protected interface MethodHandler<T extends Message> {
+        void handle(Session session, int token, T request);
+    }
+
+    /**
+     * An entry of the method table: the request parser, the handler and the metrics of one method.
+     *
+     * @param <T> the type of the request message
+     */
+    private static final class ServiceMethod<T extends Message> {
+        private final String name;
+        private final Parser<T> parser;
+        private final MethodHandler<T> handler;
+        private final Counter calls;
+        private final Counter malformed;
+        private final Histogram latency;
+
+        private ServiceMethod(String name, Parser<T> parser, MethodHandler<T> handler,
+                              Counter calls, Counter malformed, Histogram latency) {
+            this.name = name;
+            this.parser = parser;
+            this.handler = handler;
+            this.calls = calls;
+            this.malformed = malformed;
+            this.latency = latency;
+        }
+
+        /**
+         * Parses the request and runs the handler, recording the call and its latency.
+         */
+        private void call(ServiceBase service, Session session, int token, CodedInputStream input) {
+            long start = System.nanoTime();
+            calls.increment();
+            try {
+                T request;
+                try {
+                    request = parser.parseFrom(input);
+                } catch (InvalidProtocolBufferException e) {
+                    malformed.increment();
+                    logger.warn("{} Failed to parse {} request: {}", session.getClientInfo(), name, e.getMessage());
+                    service.sendErrorResponse(session, token, ERROR_RPC_MALFORMED_REQUEST);
+                    return;
+                }
+
+                handler.handle(session, token, request);
+            } finally {
+                latency.record((System.nanoTime() - start) / 1000);
+            }
+        }
+    }
 }
@@ -1,34 +1,81 @@
 package br.net.dd.netherwingcore.bnetserver.services;
 
 import br.net.dd.netherwingcore.bnetserver.server.Session;
+import br.net.dd.netherwingcore.common.configuration.Config;
 import br.net.dd.netherwingcore.common.logging.Log;
-import br.net.dd.netherwingcore.common.utilities.MessageBuffer;
+import br.net.dd.netherwingcore.common.metric.Counter;
+import br.net.dd.netherwingcore.common.metric.Metric;
+import br.net.dd.netherwingcore.proto.BattlenetRpcErrorCode;
+import com.google.protobuf.CodedInputStream;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The ServiceDispatcher is responsible for routing incoming RPC calls to the appropriate service based on the service hash.
- * It maintains a mapping of service hashes to ServiceMethod instances, which are functional interfaces that call the appropriate
- * method on the service. When a call is dispatched, it looks up the service method using the service hash and invokes it with
- * the session, token, method ID, and packet buffer.
+ * Services are registered once at startup into a small open-addressed table keyed by their hash, so routing a call is a
+ * probe into that table followed by a lookup in the method table of the service (see {@link ServiceBase}).
+ *
+ * <p>With {@code Network.AsyncDispatch} enabled, calls run on virtual threads instead of the network worker, so a
+ * service blocking on the database only parks its own virtual thread. The calls of a session still run one at a time,
+ * in the order they were received (see {@link Session#getCallExecutor()}), so services can keep treating the session
+ * state as single-threaded. The session keeps the responses in request order (see {@link Session#beginCall(int)}) and
+ * stops reading new requests while too many calls are in flight.</p>
  */
 public class ServiceDispatcher {
 
     private static final Log logger = Log.getLogger(ServiceDispatcher.class.getSimpleName());
 
+    private static final Counter UNKNOWN_SERVICE_CALLS = Metric.counter("bnet.rpc.unknown_service");
+    private static final Counter DISPATCHED_CALLS = Metric.counter("bnet.rpc.dispatched");
+    private static final Counter REJECTED_CALLS = Metric.counter("bnet.rpc.rejected");
+    private static final Counter DUPLICATE_TOKEN_CALLS = Metric.counter("bnet.rpc.duplicate_token");
+
     private static final ServiceDispatcher INSTANCE = new ServiceDispatcher();
 
-    private final Map<Integer, ServiceMethod> dispatchers;
+    private final int[] serviceHashes;
+    private final ServiceBase[] services;
+    private final int serviceMask;
+    private final boolean asyncDispatch;
+    private final ExecutorService executor;
+    private final AtomicInteger runningCalls;
 
     /**
-     * The ServiceDispatcher is initialized as a singleton instance. During initialization, it creates a concurrent hash map to store
-     * the service dispatchers and registers all available services by calling the registerServices method.
-     * Each service is added to the dispatchers map with its unique service hash as the key and a lambda that
+     * The ServiceDispatcher is initialized as a singleton instance. During initialization, it creates every available
+     * service and builds the service table, sized to a power of two at least twice the number of services so probes
+     * stay short.
      */
     private ServiceDispatcher() {
-        this.dispatchers = new ConcurrentHashMap<>();
-        registerServices();
+        List<ServiceBase> available = createServices();
+
+        int capacity = Integer.highestOneBit(Math.max(1, available.size() * 2 - 1)) << 1;
+        this.serviceHashes = new int[capacity];
+        this.services = new ServiceBase[capacity];
+        this.serviceMask = capacity - 1;
+        this.asyncDispatch = Config.get("Network.AsyncDispatch", 0) == 1;
+        this.executor = asyncDispatch
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("Rpc-", 0).factory())
+                : null;
+        this.runningCalls = new AtomicInteger();
+        Metric.gauge("bnet.rpc.running", runningCalls::get);
+
+        int registered = 0;
+        for (ServiceBase service : available) {
+            if (addService(service)) {
+                registered++;
+            }
+        }
+
+        logger.info("Registered services: {} services ({} dispatch)", registered, asyncDispatch ? "async" : "inline");
     }
 
     /**
@@ -41,64 +88,206 @@ public class ServiceDispatcher {
     }
 
     /**
-     * Registers all available services by creating instances of each service and adding them to the dispatchers map.
-     * Each service is added with its unique service hash as the key and a lambda that calls the service's callServerMethod
-     * as the value. This allows for efficient routing of incoming RPC calls to the appropriate service based on the service hash.
+     * Creates the executor that runs the calls of a new session in async mode.
+     *
+     * @return an executor running the tasks given to it one at a time, in order, or null in inline mode
+     */
+    public Executor newSessionExecutor() {
+        return asyncDispatch ? new SerialExecutor(executor) : null;
+    }
+
+    /**
+     * Creates an instance of every available service.
+     *
+     * @return the services to register
      */
-    private void registerServices() {
+    private static List<ServiceBase> createServices() {
+        List<ServiceBase> available = new ArrayList<>();
 
-        addService(new AuthenticationService());
-        addService(new ConnectionService());
-        addService(new GameUtilitiesService());
+        available.add(new AuthenticationService());
+        available.add(new ConnectionService());
+        available.add(new GameUtilitiesService());
 
-        logger.info("Registered services: {} services", dispatchers.size());
+        return available;
     }
 
     /**
-     * Adds a service to the dispatchers map. It takes a service instance, retrieves its unique service hash, and adds a lambda
-     * that calls the service's callServerMethod to the dispatchers map with the service hash as the key. This allows for efficient
-     * routing of incoming RPC calls to the appropriate service based on the service hash.
+     * Adds a service to the service table, in the first free slot starting from the one its hash maps to.
      *
-     * @param service the service instance to add to the dispatchers map
-     * @param <T> the type of the service being added
+     * @param service the service instance to add to the service table
+     * @return true if the service was added, false if another service already uses the same hash
      */
-    private <T extends ServiceBase> void addService(T service) {
+    private boolean addService(ServiceBase service) {
         int serviceHash = service.getServiceHash();
-        dispatchers.put(serviceHash, service::callServerMethod);
+        int index = slotOf(serviceHash);
+        while (services[index] != null) {
+            if (serviceHashes[index] == serviceHash) {
+                logger.error("Service {} uses the same hash as {} (0x{}), ignoring it", service.getClass().getSimpleName(),
+                        services[index].getClass().getSimpleName(), Integer.toHexString(serviceHash));
+                return false;
+            }
+            index = (index + 1) & serviceMask;
+        }
+
+        serviceHashes[index] = serviceHash;
+        services[index] = service;
 
         logger.debug("Registered service: {} (hash: 0x{})", service.getClass().getSimpleName(), Integer.toHexString(serviceHash));
+        return true;
+    }
+
+    /**
+     * Looks up the service registered under the given hash.
+     *
+     * @param serviceHash the hash of the service
+     * @return the service, or null if none is registered under that hash
+     */
+    private ServiceBase findService(int serviceHash) {
+        int index = slotOf(serviceHash);
+        ServiceBase service;
+        while ((service = services[index]) != null) {
+            if (serviceHashes[index] == serviceHash) {
+                return service;
+            }
+            index = (index + 1) & serviceMask;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the preferred slot of a service hash in the service table.
+     */
+    private int slotOf(int serviceHash) {
+        return (serviceHash ^ (serviceHash >>> 16)) & serviceMask;
     }
 
     /**
      * Dispatches an incoming RPC call to the appropriate service based on the service hash. It takes the session from which the call
-     * originated, the authentication token associated with the call, the method ID of the method being called, and the buffer containing
-     * the serialized request data. It looks up the service method using the service hash and invokes it with the session, token, method ID,
-     * and packet buffer. If no service is found for the given service hash, it logs an error message.
+     * originated, the authentication token associated with the call, the method ID of the method being called, and the payload
+     * holding the serialized request data. It looks up the service method using the service hash and invokes it with the session, token,
+     * method ID, and a stream over the payload. If no service is found for the given service hash, the call is answered with
+     * {@code ERROR_RPC_INVALID_SERVICE}.
+     *
+     * <p>In inline mode the service reads the payload in place before this method returns. In async mode the payload is copied, since
+     * the session reuses its buffer as soon as this method returns, and the call runs on a virtual thread after the earlier calls of the
+     * session. A request reusing the token of a call still in flight is dropped, unanswered, and counted.</p>
      *
      * @param session the session from which the call originated
      * @param serviceHash the unique hash of the service being called
      * @param token   the authentication token associated with the call
      * @param methodId the ID of the method being called
-     * @param buffer  the buffer containing the serialized request data
+     * @param payload the serialized request data, only valid until this method returns
      */
-    public void dispatch(Session session, int serviceHash, int token, int methodId, MessageBuffer buffer) {
-        ServiceMethod method = dispatchers.get(serviceHash);
-        if (method != null) {
-            logger.debug("Dispatching call to service with hash: 0x{} (method ID: {})", Integer.toHexString(serviceHash), methodId);
-            method.call(session, token, methodId, buffer);
-        } else {
+    public void dispatch(Session session, int serviceHash, int token, int methodId, ByteBuffer payload) {
+        if (asyncDispatch && !session.beginCall(token)) {
+            // Not answered: a response with that token would be taken for the answer to the call in flight.
+            DUPLICATE_TOKEN_CALLS.increment();
+            logger.debug("{} Token {} is already in use by a call in flight, dropping call (method ID: {})",
+                    session.getClientInfo(), token, methodId);
+            return;
+        }
+
+        ServiceBase service = findService(serviceHash);
+        if (service == null) {
+            UNKNOWN_SERVICE_CALLS.increment();
             logger.debug("Received call for unknown service hash: 0x{} (method ID: {})", Integer.toHexString(serviceHash), methodId);
+            session.sendResponse(token, BattlenetRpcErrorCode.ERROR_RPC_INVALID_SERVICE.getValue());
+            if (asyncDispatch) {
+                session.completeCall(token);
+            }
+            return;
+        }
+
+        logger.debug("Dispatching call to service with hash: 0x{} (method ID: {})", Integer.toHexString(serviceHash), methodId);
+        DISPATCHED_CALLS.increment();
+
+        if (!asyncDispatch) {
+            service.callServerMethod(session, token, methodId, CodedInputStream.newInstance(payload));
+            return;
+        }
+
+        byte[] request = new byte[payload.remaining()];
+        payload.get(request);
+
+        runningCalls.incrementAndGet();
+        try {
+            session.getCallExecutor().execute(() -> {
+                try {
+                    service.callServerMethod(session, token, methodId, CodedInputStream.newInstance(request));
+                } catch (RuntimeException e) {
+                    logger.error("{} Error in call to service 0x{} (method ID: {}): {}",
+                            session.getClientInfo(), Integer.toHexString(serviceHash), methodId, e.getMessage(), e);
+                } finally {
+                    runningCalls.decrementAndGet();
+                    session.completeCall(token);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            REJECTED_CALLS.increment();
+            runningCalls.decrementAndGet();
+            logger.warn("{} Dispatcher is shutting down, dropping call (method ID: {})", session.getClientInfo(), methodId);
+            session.completeCall(token);
+        }
+    }
+
+    /**
+     * Returns whether calls run on virtual threads rather than on the network worker that received them.
+     *
+     * @return true in async mode, false in inline mode
+     */
+    public boolean isAsync() {
+        return asyncDispatch;
+    }
+
+    /**
+     * Stops accepting new calls in async mode. Calls already running are left to finish.
+     */
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
         }
     }
 
     /**
-     * The ServiceDispatcher is responsible for routing incoming RPC calls to the appropriate service based on the service hash.
-     * It maintains a mapping of service hashes to ServiceMethod instances, which are functional interfaces that call the appropriate
-     * method on the service. When a call is dispatched, it looks up the service method using the service hash and invokes it with
-     * the session, token, method ID, and packet buffer.
+     * Runs the tasks given to it one at a time, in order, on a virtual thread of the shared executor that is only
+     * started while tasks are waiting.
      */
-    @FunctionalInterface
-    private interface ServiceMethod {
-        void call(Session session, int token, int methodId, MessageBuffer buffer);
+    private static final class SerialExecutor implements Executor {
+        private final Executor executor;
+        private final Queue<Runnable> tasks;
+        private final AtomicBoolean scheduled;
+
+        private SerialExecutor(Executor executor) {
+            this.executor = executor;
+            this.tasks = new ConcurrentLinkedQueue<>();
+            this.scheduled = new AtomicBoolean();
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    tasks.remove(task);
+                    throw e;
+                }
+            }
+        }
+
+        /**
+         * Runs the waiting tasks, and keeps running those given to it before it lets go of the session.
+         */
+        private void drain() {
+            do {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                scheduled.set(false);
+            } while (!tasks.isEmpty() && scheduled.compareAndSet(false, true));
+        }
     }
 }
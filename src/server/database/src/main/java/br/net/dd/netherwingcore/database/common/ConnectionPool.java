@@ -55,6 +55,15 @@ public class ConnectionPool {
         }
     }
 
+    /**
+     * Returns the number of connections waiting in the pool, not handed out.
+     *
+     * @return the number of idle connections
+     */
+    public int getIdleCount() {
+        return pool.size();
+    }
+
     public void closeAllConnections() {
         pool.forEach(conn -> {
             try {
@@ -1,5 +1,9 @@
 package br.net.dd.netherwingcore.database.common;
 
+import br.net.dd.netherwingcore.common.metric.Counter;
+import br.net.dd.netherwingcore.common.metric.Histogram;
+import br.net.dd.netherwingcore.common.metric.Metric;
+
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -11,12 +15,19 @@ import java.util.Map;
  * It manages the connection pool and provides methods for connecting, disconnecting,
  * preparing statements, and executing queries.
  *
+ * <p>Every database publishes {@code db.<Class>.statements}, {@code db.<Class>.failures},
+ * {@code db.<Class>.latency_us} and {@code db.<Class>.idle_connections}. Implementations report each statement
+ * they run with {@link #recordStatement(long, boolean)}.</p>
+ *
  * @param <T> The type of database statement used in execute and query methods.
  */
 public abstract class GenericDatabase<T> {
 
     private final ConnectionInfos connectionInfos;
-    private ConnectionPool connectionPool;
+    private volatile ConnectionPool connectionPool;
+    private final Counter statements;
+    private final Counter failures;
+    private final Histogram latency;
 
     /**
      * Constructs a GenericDatabase instance with the provided connection information string.
@@ -30,6 +41,15 @@ public abstract class GenericDatabase<T> {
             throw new IllegalArgumentException("Connection info string cannot be null or empty");
         }
         this.connectionInfos = new ConnectionInfos(infoString);
+
+        String metricPrefix = "db." + getClass().getSimpleName();
+        this.statements = Metric.counter(metricPrefix + ".statements");
+        this.failures = Metric.counter(metricPrefix + ".failures");
+        this.latency = Metric.histogram(metricPrefix + ".latency_us");
+        Metric.gauge(metricPrefix + ".idle_connections", () -> {
+            ConnectionPool pool = this.connectionPool;
+            return pool != null ? pool.getIdleCount() : 0;
+        });
     }
 
     /**
@@ -83,6 +103,20 @@ public abstract class GenericDatabase<T> {
         return this.connectionPool.getConnection();
     }
 
+    /**
+     * Records a statement run against the database, for the metrics of this database.
+     *
+     * @param startNanos The {@link System#nanoTime()} at which the statement started.
+     * @param success    Whether the statement succeeded.
+     */
+    protected final void recordStatement(long startNanos, boolean success) {
+        statements.increment();
+        if (!success) {
+            failures.increment();
+        }
+        latency.record((System.nanoTime() - startNanos) / 1000);
+    }
+
     /**
      * Counts the number of parameter placeholders ('?') in the given SQL query.
      *
@@ -1,6 +1,7 @@
 package br.net.dd.netherwingcore.database.implementation;
 
 import br.net.dd.netherwingcore.common.configuration.Config;
+import br.net.dd.netherwingcore.common.metric.Metric;
 import br.net.dd.netherwingcore.database.common.GenericDatabase;
 
 import java.sql.PreparedStatement;
@@ -22,6 +23,9 @@ public class LoginDatabase extends GenericDatabase<LoginDatabaseStatements> {
 
     private static LoginDatabase instance;
 
+    // Runs the asynchronous statements; resized when LoginDatabase.WorkerThreads changes.
+    private final ThreadPoolExecutor asyncExecutor;
+
     /**
      * Private constructor to enforce singleton pattern.
      * Initializes the LoginDatabase with connection information from the configuration cache.
@@ -29,8 +33,32 @@ public class LoginDatabase extends GenericDatabase<LoginDatabaseStatements> {
     private LoginDatabase() {
         String loginDatabaseInfo = Config.get("LoginDatabaseInfo", "127.0.0.1;3306;trinity;trinity;auth");
         super(loginDatabaseInfo);
-        this.aSyncTheadPoolSize = Config.get("LoginDatabase.WorkerThreads", 1);
+        this.aSyncTheadPoolSize = Math.max(1, Config.get("LoginDatabase.WorkerThreads", 1));
         this.syncTheadPoolSize = Config.get("LoginDatabase.SynchThreads", 1);
+        this.asyncExecutor = new ThreadPoolExecutor(aSyncTheadPoolSize, aSyncTheadPoolSize,
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                Thread.ofPlatform().name("LoginDatabase-Worker-", 1).daemon(true).factory());
+        Config.addListener(change -> resizeAsyncPool(change.current().getInt("LoginDatabase.WorkerThreads", 1)),
+                "LoginDatabase.WorkerThreads");
+        Metric.gauge("db.LoginDatabase.async_queue", () -> asyncExecutor.getQueue().size());
+    }
+
+    /**
+     * Changes the number of threads running the asynchronous statements. Statements already queued are kept.
+     *
+     * @param size The new number of threads, at least 1.
+     */
+    public synchronized void resizeAsyncPool(int size) {
+        size = Math.max(1, size);
+        // The core size may never exceed the maximum, so the order depends on the direction.
+        if (size > asyncExecutor.getMaximumPoolSize()) {
+            asyncExecutor.setMaximumPoolSize(size);
+            asyncExecutor.setCorePoolSize(size);
+        } else {
+            asyncExecutor.setCorePoolSize(size);
+            asyncExecutor.setMaximumPoolSize(size);
+        }
+        this.aSyncTheadPoolSize = size;
     }
 
     /**
@@ -74,17 +102,7 @@ public class LoginDatabase extends GenericDatabase<LoginDatabaseStatements> {
     @SafeVarargs
     @Override
     protected final boolean syncExecute(LoginDatabaseStatements statement, Map<Integer, Object>... params) {
-        PreparedStatement preparedStatement = getPreparedStatement(statement.getQuery(), params);
-        if (preparedStatement != null) {
-            try {
-                preparedStatement.execute();
-                preparedStatement.close();
-                return true;
-            } catch (Exception e) {
-                return false;
-            }
-        }
-        return false;
+        return runStatement(statement, params);
     }
 
     /**
@@ -99,21 +117,7 @@ public class LoginDatabase extends GenericDatabase<LoginDatabaseStatements> {
     @Override
     protected final boolean asyncExecute(LoginDatabaseStatements statement, Map<Integer, Object>... params) {
 
-        ExecutorService executorService = Executors.newFixedThreadPool(this.aSyncTheadPoolSize);
-
-        CompletableFuture<Boolean> future = CompletableFuture.supplyAsync(() -> {
-            PreparedStatement preparedStatement = getPreparedStatement(statement.getQuery(), params);
-            if (preparedStatement != null) {
-                try {
-                    preparedStatement.execute();
-                    preparedStatement.close();
-                    return true;
-                } catch (Exception e) {
-                    return false;
-                }
-            }
-            return false;
-        }, executorService);
+        CompletableFuture<Boolean> future = CompletableFuture.supplyAsync(() -> runStatement(statement, params), asyncExecutor);
 
         try {
             return future.get();
@@ -152,25 +156,7 @@ public class LoginDatabase extends GenericDatabase<LoginDatabaseStatements> {
     @SafeVarargs
     @Override
     protected final ResultSet syncQuery(LoginDatabaseStatements statement, Map<Integer, Object>... params) {
-        PreparedStatement preparedStatement;
-        if (params.length != 0) {
-            preparedStatement = getPreparedStatement(statement.getQuery(), params);
-        } else {
-            try {
-                preparedStatement = getConnection().prepareStatement(statement.getQuery());
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
-            }
-        }
-
-        if (preparedStatement != null) {
-            try {
-                return preparedStatement.executeQuery();
-            } catch (Exception e) {
-                return null;
-            }
-        }
-        return null;
+        return runQuery(statement, params);
     }
 
     /**
@@ -185,19 +171,7 @@ public class LoginDatabase extends GenericDatabase<LoginDatabaseStatements> {
     @Override
     protected final ResultSet asyncQuery(LoginDatabaseStatements statement, Map<Integer, Object>... params) {
 
-        ExecutorService executorService = Executors.newFixedThreadPool(this.aSyncTheadPoolSize);
-
-        CompletableFuture<ResultSet> future = CompletableFuture.supplyAsync(() -> {
-            PreparedStatement preparedStatement = getPreparedStatement(statement.getQuery(), params);
-            if (preparedStatement != null) {
-                try {
-                    return preparedStatement.executeQuery();
-                } catch (Exception e) {
-                    return null;
-                }
-            }
-            return null;
-        }, executorService);
+        CompletableFuture<ResultSet> future = CompletableFuture.supplyAsync(() -> runQuery(statement, params), asyncExecutor);
 
         try {
             return future.get();
@@ -207,6 +181,63 @@ public class LoginDatabase extends GenericDatabase<LoginDatabaseStatements> {
 
     }
 
+    /**
+     * Runs a statement on the calling thread and records it in the metrics of the database.
+     *
+     * @return true if the execution was successful, false otherwise.
+     */
+    @SafeVarargs
+    private boolean runStatement(LoginDatabaseStatements statement, Map<Integer, Object>... params) {
+        long start = System.nanoTime();
+        boolean success = false;
+        PreparedStatement preparedStatement = getPreparedStatement(statement.getQuery(), params);
+        if (preparedStatement != null) {
+            try {
+                preparedStatement.execute();
+                preparedStatement.close();
+                success = true;
+            } catch (Exception e) {
+                // Reported as a failed statement below.
+            }
+        }
+        recordStatement(start, success);
+        return success;
+    }
+
+    /**
+     * Runs a query on the calling thread and records it in the metrics of the database.
+     *
+     * @return A ResultSet containing the results of the query, or null if it failed.
+     */
+    @SafeVarargs
+    private ResultSet runQuery(LoginDatabaseStatements statement, Map<Integer, Object>... params) {
+        long start = System.nanoTime();
+        ResultSet resultSet = null;
+        try {
+            PreparedStatement preparedStatement;
+            if (params.length != 0) {
+                preparedStatement = getPreparedStatement(statement.getQuery(), params);
+            } else {
+                try {
+                    preparedStatement = getConnection().prepareStatement(statement.getQuery());
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+
+            if (preparedStatement != null) {
+                try {
+                    resultSet = preparedStatement.executeQuery();
+                } catch (Exception e) {
+                    // Reported as a failed statement below.
+                }
+            }
+            return resultSet;
+        } finally {
+            recordStatement(start, resultSet != null);
+        }
+    }
+
     /**
      * Retrieves account information from the database based on the provided email.
      *
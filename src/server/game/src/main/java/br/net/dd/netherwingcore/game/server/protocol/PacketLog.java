@@ -1,4 +1,448 @@
 package br.net.dd.netherwingcore.game.server.protocol;
 
-public class PacketLog {
+import br.net.dd.netherwingcore.common.configuration.BooleanSetting;
+import br.net.dd.netherwingcore.common.configuration.Config;
+import br.net.dd.netherwingcore.common.configuration.ConfigListener;
+import br.net.dd.netherwingcore.common.configuration.IntSetting;
+import br.net.dd.netherwingcore.common.configuration.TextSetting;
+import br.net.dd.netherwingcore.common.logging.Log;
+import br.net.dd.netherwingcore.common.metric.Counter;
+import br.net.dd.netherwingcore.common.metric.Metric;
+import br.net.dd.netherwingcore.common.utilities.Util;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Captures world packets to files in the PKT 3.1 format written by TrinityCore, which sniff parsers such as
+ * WowPacketParser read as they read a client sniff.
+ *
+ * <p>The network threads only check the filters and copy the sampled packets into a bounded queue; a packet that finds
+ * the queue full is dropped and counted rather than holding up its connection. A writer thread copies the packets
+ * into a file mapped in memory over {@code PacketLog.FileSize} megabytes, and starts a new file when one is full. The
+ * mapping does not allocate disk space up front: on most file systems the file is sparse until written. A file is
+ * unmapped and trimmed to its content when it is closed, so a file still being written ends with zeros.</p>
+ *
+ * <p>Capture can be limited to a list of accounts ({@code PacketLog.Accounts}) and of opcodes
+ * ({@code PacketLog.Opcodes}), and to one packet out of {@code PacketLog.SampleRate}. It is switched with
+ * {@code PacketLog.Enabled} or {@link #setEnabled(boolean)}, and the settings are applied again whenever the
+ * configuration is reloaded, so none of it needs a restart. Turning capture off closes the current file; turning it
+ * back on starts a new one, named {@code <PacketLog.File>-<date>-<time>-<sequence>.pkt} in the logs directory.</p>
+ */
+public final class PacketLog {
+
+    private static final Log logger = Log.getLogger(PacketLog.class.getSimpleName());
+
+    private static final BooleanSetting ENABLED = Config.booleanSetting("PacketLog.Enabled", false);
+    private static final TextSetting FILE = Config.textSetting("PacketLog.File", "World");
+    private static final IntSetting FILE_SIZE_MB = Config.intSetting("PacketLog.FileSize", 256);
+    private static final TextSetting ACCOUNTS = Config.textSetting("PacketLog.Accounts", "");
+    private static final TextSetting OPCODES = Config.textSetting("PacketLog.Opcodes", "");
+    private static final IntSetting SAMPLE_RATE = Config.intSetting("PacketLog.SampleRate", 1);
+    private static final IntSetting QUEUE_SIZE = Config.intSetting("PacketLog.QueueSize", 8192);
+    private static final TextSetting LOGS_DIR = Config.textSetting("LogsDir", "");
+
+    private static final Counter CAPTURED_PACKETS = Metric.counter("game.packetlog.captured");
+    private static final Counter DROPPED_PACKETS = Metric.counter("game.packetlog.dropped");
+
+    private static final DateTimeFormatter FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String EXTENSION = ".pkt";
+    private static final long IDLE_POLL_MS = 100;
+
+    // PKT 3.1 layout, see the TrinityCore PacketLog
+    private static final short FORMAT_VERSION = 0x0301;
+    private static final byte SNIFFER_ID = 'T';
+    private static final byte[] LOCALE = "enUS".getBytes(StandardCharsets.US_ASCII);
+    private static final int SESSION_KEY_SIZE = 40;
+    private static final int FILE_HEADER_SIZE = 3 + 2 + 1 + 4 + 4 + SESSION_KEY_SIZE + 4 + 4 + 4;
+    private static final int SOCKET_DATA_SIZE = 16 + 4;
+    private static final int PACKET_HEADER_SIZE = 4 * 5 + SOCKET_DATA_SIZE + 4;
+    private static final byte[] ADDRESS_PADDING = new byte[16];
+    private static final byte[] NO_ADDRESS = new byte[0];
+
+    /**
+     * The direction of a packet, written as its tag in the file.
+     */
+    public enum Direction {
+        CLIENT_TO_SERVER(0x47534D43), // "CMSG"
+        SERVER_TO_CLIENT(0x47534D53); // "SMSG"
+
+        private final int tag;
+
+        Direction(int tag) {
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * The settings deciding which packets are captured, replaced as a whole so a network thread reads them at once.
+     *
+     * @param enabled    whether capture is on
+     * @param accounts   the accounts to capture, sorted, or empty for all
+     * @param opcodes    the opcodes to capture, sorted, or empty for all
+     * @param sampleRate one packet out of this many is captured
+     */
+    private record Filter(boolean enabled, long[] accounts, int[] opcodes, int sampleRate) {
+    }
+
+    /**
+     * A packet waiting for the writer, with its payload copied out of the network buffer. The address holds the 4 or
+     * 16 bytes of the client IP, or none if it is unknown.
+     */
+    private record CapturedPacket(Direction direction, int connectionId, int arrivalTicks, byte[] address, int port,
+                                  int opcode, byte[] data) {
+    }
+
+    private static final class Holder {
+        private static final PacketLog INSTANCE = new PacketLog();
+    }
+
+    private final long startNanos;
+    private final ConfigListener listener;
+    private volatile Filter filter;
+    private BlockingQueue<CapturedPacket> queue;
+    private Thread writer;
+    private volatile boolean running;
+    private int build;
+
+    // Only touched by the writer thread. The arena owns the mapping, so closing it unmaps the file at once.
+    private FileChannel channel;
+    private Arena arena;
+    private MemorySegment mapping;
+    private ByteBuffer file;
+    private Path filePath;
+    private int sequence;
+
+    private PacketLog() {
+        this.startNanos = System.nanoTime();
+        this.filter = new Filter(false, new long[0], new int[0], 1);
+        this.listener = change -> applySettings();
+    }
+
+    /**
+     * Returns the singleton instance of the PacketLog.
+     *
+     * @return the singleton instance
+     */
+    public static PacketLog getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Applies the {@code PacketLog.*} settings, follows their changes on reload and starts the writer thread.
+     *
+     * @param build the client build served by the world server, written in the header of every file
+     */
+    public synchronized void initialize(int build) {
+        if (running) {
+            return;
+        }
+
+        this.build = build;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, QUEUE_SIZE.get()));
+        this.running = true;
+        this.writer = Thread.ofPlatform().name("PacketLogWriter").daemon(true).start(this::run);
+
+        applySettings();
+        Config.addListener(listener, "PacketLog.Enabled", "PacketLog.Accounts", "PacketLog.Opcodes",
+                "PacketLog.SampleRate");
+    }
+
+    /**
+     * Stops the writer thread once the queued packets are written, and closes the current file.
+     */
+    public void shutdown() {
+        Thread stopping;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            stopping = writer;
+            Config.removeListener(listener);
+        }
+
+        try {
+            stopping.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Turns capture on or off, until the next change of {@code PacketLog.Enabled} in the configuration.
+     *
+     * @param enabled whether packets should be captured
+     */
+    public void setEnabled(boolean enabled) {
+        Filter current = filter;
+        filter = new Filter(enabled, current.accounts(), current.opcodes(), current.sampleRate());
+        logger.info("Packet capture {}", enabled ? "enabled" : "disabled");
+    }
+
+    /**
+     * Returns whether capture is on.
+     *
+     * @return true if packets passing the filters are captured
+     */
+    public boolean isEnabled() {
+        return filter.enabled() && running;
+    }
+
+    /**
+     * Tells whether a packet would be captured. Callers may use it to skip preparing a packet for
+     * {@link #logPacket(ByteBuffer, int, Direction, InetSocketAddress, int, long)}, which checks it again.
+     *
+     * @param accountId the account of the connection, or 0 before it is authenticated
+     * @param opcode    the opcode of the packet
+     * @return true if the packet passes the filters and the sampling
+     */
+    public boolean canLogPacket(long accountId, int opcode) {
+        Filter current = filter;
+        if (!current.enabled() || !running) {
+            return false;
+        }
+        if (current.accounts().length > 0 && Arrays.binarySearch(current.accounts(), accountId) < 0) {
+            return false;
+        }
+        if (current.opcodes().length > 0 && Arrays.binarySearch(current.opcodes(), opcode) < 0) {
+            return false;
+        }
+        return current.sampleRate() <= 1 || ThreadLocalRandom.current().nextInt(current.sampleRate()) == 0;
+    }
+
+    /**
+     * Captures a packet if it passes the filters. The payload is copied, so the caller may reuse its buffer as soon
+     * as this method returns.
+     *
+     * @param payload      the packet content after its opcode, between its position and limit, which are left as is
+     * @param opcode       the opcode of the packet
+     * @param direction    whether the packet was received or sent
+     * @param address      the address of the client
+     * @param connectionId the connection of the client the packet went through, 0 for the realm and 1 for the
+     *                     instance connection
+     * @param accountId    the account of the connection, or 0 before it is authenticated
+     */
+    public void logPacket(ByteBuffer payload, int opcode, Direction direction, InetSocketAddress address,
+                          int connectionId, long accountId) {
+        if (!canLogPacket(accountId, opcode)) {
+            return;
+        }
+
+        byte[] data = new byte[payload.remaining()];
+        payload.get(payload.position(), data);
+
+        InetAddress ip = address.getAddress();
+        CapturedPacket packet = new CapturedPacket(direction, connectionId, getMSTime(),
+                ip == null ? NO_ADDRESS : ip.getAddress(), address.getPort(), opcode, data);
+        if (queue.offer(packet)) {
+            CAPTURED_PACKETS.increment();
+        } else {
+            DROPPED_PACKETS.increment();
+        }
+    }
+
+    private void applySettings() {
+        Filter applied = new Filter(ENABLED.get(), parseAccounts(ACCOUNTS.get()), parseOpcodes(OPCODES.get()),
+                Math.max(1, SAMPLE_RATE.get()));
+        filter = applied;
+
+        if (applied.enabled()) {
+            logger.info("Packet capture enabled: accounts {}, opcodes {}, 1 packet out of {}",
+                    applied.accounts().length == 0 ? "all" : Arrays.toString(applied.accounts()),
+                    applied.opcodes().length == 0 ? "all" : Arrays.toString(applied.opcodes()),
+                    applied.sampleRate());
+        }
+    }
+
+    /**
+     * Parses a comma or space separated list of account ids. Invalid entries are reported and skipped.
+     */
+    private static long[] parseAccounts(String list) {
+        return Arrays.stream(list.split("[,\\s]+"))
+                .filter(entry -> !entry.isEmpty())
+                .mapToLong(entry -> {
+                    try {
+                        return Long.parseLong(entry);
+                    } catch (NumberFormatException e) {
+                        logger.error("PacketLog.Accounts: invalid account id '{}', ignored", entry);
+                        return -1;
+                    }
+                })
+                .filter(id -> id >= 0)
+                .sorted().distinct().toArray();
+    }
+
+    /**
+     * Parses a comma or space separated list of opcodes, in decimal or in hexadecimal with a {@code 0x} prefix.
+     * Invalid entries are reported and skipped.
+     */
+    private static int[] parseOpcodes(String list) {
+        return Arrays.stream(list.split("[,\\s]+"))
+                .filter(entry -> !entry.isEmpty())
+                .mapToLong(entry -> {
+                    try {
+                        return entry.startsWith("0x") || entry.startsWith("0X")
+                                ? Long.parseLong(entry.substring(2), 16)
+                                : Long.parseLong(entry);
+                    } catch (NumberFormatException e) {
+                        logger.error("PacketLog.Opcodes: invalid opcode '{}', ignored", entry);
+                        return -1;
+                    }
+                })
+                .filter(opcode -> opcode >= 0 && opcode <= 0xFFFFFFFFL)
+                .mapToInt(opcode -> (int) opcode)
+                .sorted().distinct().toArray();
+    }
+
+    /**
+     * Returns the milliseconds elapsed since the server started, wrapping like the tick counts of the file.
+     */
+    private int getMSTime() {
+        return (int) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Writes the queued packets until the log is shut down, closing the file whenever capture is turned off.
+     */
+    private void run() {
+        while (true) {
+            CapturedPacket packet;
+            try {
+                packet = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                packet = null;
+                running = false;
+            }
+
+            if (packet != null) {
+                write(packet);
+            } else if (!running) {
+                break;
+            } else if (file != null && !filter.enabled()) {
+                closeFile();
+            }
+        }
+        closeFile();
+    }
+
+    /**
+     * Appends a packet to the current file, starting a new file if it does not fit. Packets larger than a whole file
+     * are dropped.
+     */
+    private void write(CapturedPacket packet) {
+        int size = PACKET_HEADER_SIZE + packet.data().length;
+        long fileSize = Math.clamp(FILE_SIZE_MB.get(), 1, 1024) * 1024L * 1024L;
+
+        try {
+            if (file != null && size > file.remaining()) {
+                closeFile();
+            }
+            if (file == null) {
+                if (size > fileSize - FILE_HEADER_SIZE) {
+                    DROPPED_PACKETS.increment();
+                    return;
+                }
+                openFile(fileSize);
+            }
+        } catch (IOException e) {
+            DROPPED_PACKETS.increment();
+            logger.error("Failed to create packet log file {}: {}", filePath, e.getMessage());
+            closeFile();
+            return;
+        }
+
+        file.putInt(packet.direction().tag)
+                .putInt(packet.connectionId())
+                .putInt(packet.arrivalTicks())
+                .putInt(SOCKET_DATA_SIZE)
+                .putInt(packet.data().length + Integer.BYTES)
+                .put(packet.address())
+                .put(ADDRESS_PADDING, 0, ADDRESS_PADDING.length - packet.address().length)
+                .putInt(packet.port())
+                .putInt(packet.opcode())
+                .put(packet.data());
+    }
+
+    /**
+     * Creates and maps a new file, and writes its header.
+     */
+    private void openFile(long fileSize) throws IOException {
+        String prefix = FILE.get().isEmpty() ? "World" : FILE.get();
+        filePath = resolve(prefix + "-" + LocalDateTime.now().format(FILE_DATE_FORMAT) + "-" + (++sequence) + EXTENSION);
+
+        channel = FileChannel.open(filePath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        arena = Arena.ofConfined();
+        mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize, arena);
+        file = mapping.asByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+
+        file.put((byte) 'P').put((byte) 'K').put((byte) 'T')
+                .putShort(FORMAT_VERSION)
+                .put(SNIFFER_ID)
+                .putInt(build)
+                .put(LOCALE)
+                .put(new byte[SESSION_KEY_SIZE])
+                .putInt((int) (System.currentTimeMillis() / 1000))
+                .putInt(getMSTime())
+                .putInt(0);
+
+        logger.info("Capturing packets to {}", filePath);
+    }
+
+    /**
+     * Writes the current file to disk, unmaps it and trims it to its content, so parsers do not read the unused space.
+     * The mapping must be gone before the file is truncated, which Windows refuses for a mapped file.
+     */
+    private void closeFile() {
+        if (channel == null) {
+            return;
+        }
+
+        long length = file != null ? file.position() : 0;
+        if (arena != null) {
+            if (mapping != null) {
+                mapping.force();
+            }
+            arena.close();
+        }
+        try {
+            channel.truncate(length);
+        } catch (IOException e) {
+            logger.error("Failed to trim packet log file {}: {}", filePath, e.getMessage());
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // The content was forced to disk above.
+        }
+        channel = null;
+        arena = null;
+        mapping = null;
+        file = null;
+    }
+
+    /**
+     * Resolves a file name against {@code LogsDir}, or the location of the running jar if it is not set.
+     */
+    private static Path resolve(String fileName) {
+        String logsDir = LOGS_DIR.get();
+        return Path.of(logsDir.isEmpty() ? Util.getJarLocation() : logsDir).resolve(fileName);
+    }
 }
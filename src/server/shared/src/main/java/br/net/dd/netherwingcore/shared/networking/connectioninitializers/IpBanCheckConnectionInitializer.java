@@ -1,4 +1,163 @@
 package br.net.dd.netherwingcore.shared.networking.connectioninitializers;
 
+import br.net.dd.netherwingcore.common.logging.Log;
+import br.net.dd.netherwingcore.database.implementation.LoginDatabase;
+import br.net.dd.netherwingcore.database.implementation.LoginDatabaseStatements;
+
+import java.net.InetAddress;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects connections coming from banned IP addresses before any work is spent on them.
+ *
+ * <p>Instead of querying {@code ip_banned} for every new connection, the active bans are loaded once into an
+ * in-memory set and reloaded every {@code refreshIntervalSeconds} in the background. Checking an address is then a
+ * single map lookup on the accepting thread. Temporary bans carry their unban time, so a ban that expires between two
+ * reloads stops applying right away; bans added in the meantime apply from the next reload on.</p>
+ *
+ * <p>Bans are keyed by {@link InetAddress} rather than by their text, so an address matches however it is written:
+ * an IPv6 address in full or compressed form, or an IPv4 address written as {@code ::ffff:a.b.c.d}.</p>
+ */
 public class IpBanCheckConnectionInitializer {
+
+    private static final Log logger = Log.getLogger(IpBanCheckConnectionInitializer.class.getSimpleName());
+
+    // Unban time stored for bans that never expire (bandate = unbandate).
+    private static final long PERMANENT = Long.MAX_VALUE;
+
+    private final long refreshIntervalSeconds;
+    private ScheduledExecutorService scheduler;
+
+    // Banned IP -> unban time in epoch seconds. Replaced as a whole on every reload, never modified in place.
+    private volatile Map<InetAddress, Long> bannedIps;
+
+    /**
+     * Constructs an initializer with an empty ban set.
+     *
+     * @param refreshIntervalSeconds the interval between two reloads of the ban set
+     */
+    public IpBanCheckConnectionInitializer(long refreshIntervalSeconds) {
+        this.refreshIntervalSeconds = Math.max(1, refreshIntervalSeconds);
+        this.bannedIps = Map.of();
+    }
+
+    /**
+     * Loads the ban set and schedules its periodic reload.
+     */
+    public void start() {
+        LoginDatabase.getInstance().connect();
+        refresh();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("IpBanCheck").daemon(true).factory());
+        scheduler.scheduleWithFixedDelay(this::refresh, refreshIntervalSeconds, refreshIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops reloading the ban set. The last loaded set keeps being used.
+     */
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Reloads the ban set from the login database. If the query fails, the previous set is kept.
+     */
+    public void refresh() {
+        ResultSet result;
+        try {
+            result = LoginDatabase.getInstance().query(LoginDatabaseStatements.LOGIN_SEL_IP_BANNED_ALL);
+        } catch (RuntimeException e) {
+            result = null;
+        }
+
+        if (result == null) {
+            logger.error("Failed to load IP bans, keeping {} cached bans", bannedIps.size());
+            return;
+        }
+
+        try {
+            Map<InetAddress, Long> loaded = new HashMap<>();
+            while (result.next()) {
+                InetAddress ip = parseAddress(result.getString("ip"));
+                if (ip == null) {
+                    continue;
+                }
+                long banDate = result.getLong("bandate");
+                long unbanDate = result.getLong("unbandate");
+                loaded.merge(ip, banDate == unbanDate ? PERMANENT : unbanDate, Math::max);
+            }
+
+            bannedIps = Map.copyOf(loaded);
+            logger.debug("Loaded {} IP bans", loaded.size());
+        } catch (SQLException e) {
+            logger.error("Failed to load IP bans: {}", e.getMessage());
+        } finally {
+            close(result);
+        }
+    }
+
+    /**
+     * Checks whether connections from the given address must be rejected. This never touches the database.
+     *
+     * @param address the remote address of the connection
+     * @return true if the address is banned
+     */
+    public boolean isBanned(InetAddress address) {
+        Long unbanDate = bannedIps.get(address);
+        return unbanDate != null && unbanDate > System.currentTimeMillis() / 1000;
+    }
+
+    /**
+     * Parses a banned IP without any name lookup. IPv4-mapped IPv6 addresses come back as IPv4 addresses, as the
+     * addresses of accepted connections do.
+     *
+     * @return the address, or null if the text is not an IP address
+     */
+    private static InetAddress parseAddress(String ip) {
+        if (ip == null) {
+            return null;
+        }
+        try {
+            return InetAddress.ofLiteral(ip.strip());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring IP ban on '{}', not an IP address", ip);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the number of bans currently cached.
+     *
+     * @return the size of the ban set
+     */
+    public int getBanCount() {
+        return bannedIps.size();
+    }
+
+    /**
+     * Closes a result set along with its statement, and gives its connection back to the pool.
+     */
+    private static void close(ResultSet result) {
+        try {
+            Statement statement = result.getStatement();
+            Connection connection = statement.getConnection();
+            result.close();
+            statement.close();
+            connection.close();
+        } catch (SQLException e) {
+            logger.warn("Failed to close IP ban query: {}", e.getMessage());
+        }
+    }
 }
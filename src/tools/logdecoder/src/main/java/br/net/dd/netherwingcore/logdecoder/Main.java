@@ -0,0 +1,270 @@
+package br.net.dd.netherwingcore.logdecoder;
+
+import br.net.dd.netherwingcore.common.logging.BinaryLogFormat;
+import br.net.dd.netherwingcore.common.logging.BinaryLogReader;
+import br.net.dd.netherwingcore.common.logging.BinaryLogRecord;
+import br.net.dd.netherwingcore.common.logging.Level;
+import br.net.dd.netherwingcore.common.utilities.DataFormat;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Decodes the binary log segments written by the servers with {@code Log.Binary} enabled, and prints their events
+ * as text, in the layout of the text logs, or as JSON, one object per line.
+ *
+ * <p>Usage: {@code logdecoder [options] <segment or directory>...}. Directories are searched for segments, which
+ * are read in name order, that is in the order they were written.</p>
+ */
+public class Main {
+
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern(DataFormat.REGEX_DATE_LOG_EVENT).withZone(ZoneId.systemDefault());
+
+    private static final String USAGE = """
+            Usage: logdecoder [options] <segment or directory>...
+              --json              Print one JSON object per event instead of text.
+              --level <level>     Only print events of this LogLevel (1-6) or name, or more severe.
+              --logger <name>     Only print events of this logger. May be repeated.
+              --contains <text>   Only print events whose message contains the text.
+              --since <time>      Only print events at or after the time (ISO-8601, e.g. 2025-01-31T18:00:00).
+              --until <time>      Only print events before the time.
+            """;
+
+    private boolean json;
+    private int minimumSeverity;
+    private final Set<String> loggers = new HashSet<>();
+    private String contains;
+    private Instant since;
+    private Instant until;
+    private final List<Path> inputs = new ArrayList<>();
+
+    public static void main(String[] args) {
+        Main decoder = new Main();
+        try {
+            decoder.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            if (!e.getMessage().isEmpty()) {
+                System.err.println(e.getMessage());
+            }
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+
+        try {
+            System.exit(decoder.run());
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Failed to decode: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads the options and inputs from the command line.
+     *
+     * @param args the command line arguments
+     * @throws IllegalArgumentException if the command line is not valid
+     */
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--json" -> json = true;
+                case "--level" -> minimumSeverity = parseLevel(value(args, ++i, arg));
+                case "--logger" -> loggers.add(value(args, ++i, arg));
+                case "--contains" -> contains = value(args, ++i, arg);
+                case "--since" -> since = parseTime(value(args, ++i, arg));
+                case "--until" -> until = parseTime(value(args, ++i, arg));
+                case "-h", "--help" -> throw new IllegalArgumentException("");
+                default -> {
+                    if (arg.startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                    }
+                    inputs.add(Path.of(arg));
+                }
+            }
+        }
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("No segment or directory given.");
+        }
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[index];
+    }
+
+    private static int parseLevel(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            switch (value.toLowerCase()) {
+                case "trace" -> { return Level.TRACE.getSeverity(); }
+                case "debug" -> { return Level.DEBUG.getSeverity(); }
+                case "info" -> { return Level.INFORMATION.getSeverity(); }
+                case "warn" -> { return Level.WARNING.getSeverity(); }
+                case "error" -> { return Level.ERROR.getSeverity(); }
+                case "fatal" -> { return Level.FATAL_ERROR.getSeverity(); }
+                default -> { }
+            }
+            for (Level level : Level.values()) {
+                if (level.name().equalsIgnoreCase(value)) {
+                    return level.getSeverity();
+                }
+            }
+            throw new IllegalArgumentException("Unknown level " + value);
+        }
+    }
+
+    private static Instant parseTime(String value) {
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(value).atZone(ZoneId.systemDefault()).toInstant();
+            } catch (DateTimeParseException ignored) {
+                throw new IllegalArgumentException("Invalid time " + value);
+            }
+        }
+    }
+
+    /**
+     * Decodes every input and prints the events that pass the filters.
+     *
+     * @return the exit status: 0, or 1 if a segment could not be read
+     */
+    private int run() throws IOException {
+        int status = 0;
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+
+        for (Path segment : segments()) {
+            try {
+                BinaryLogReader.read(segment, record -> {
+                    if (matches(record)) {
+                        out.println(json ? toJson(record) : toText(record));
+                    }
+                });
+            } catch (IOException e) {
+                out.flush();
+                System.err.println("Skipping " + segment + ": " + e.getMessage());
+                status = 1;
+            }
+        }
+
+        out.flush();
+        return status;
+    }
+
+    /**
+     * Lists the segments to read, expanding directories.
+     */
+    private List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        for (Path input : inputs) {
+            if (Files.isDirectory(input)) {
+                try (Stream<Path> files = Files.list(input)) {
+                    files.filter(file -> file.getFileName().toString().endsWith(BinaryLogFormat.EXTENSION))
+                            .sorted()
+                            .forEach(segments::add);
+                }
+            } else {
+                segments.add(input);
+            }
+        }
+        return segments;
+    }
+
+    private boolean matches(BinaryLogRecord record) {
+        if (minimumSeverity > 0 && (record.level() == null || record.level().getSeverity() < minimumSeverity)) {
+            return false;
+        }
+        if (!loggers.isEmpty() && !loggers.contains(record.logger())) {
+            return false;
+        }
+        if (since != null || until != null) {
+            Instant timestamp = record.timestamp();
+            if ((since != null && timestamp.isBefore(since)) || (until != null && !timestamp.isBefore(until))) {
+                return false;
+            }
+        }
+        return contains == null || record.message().contains(contains);
+    }
+
+    private static String toText(BinaryLogRecord record) {
+        return DATE_FORMAT.format(record.timestamp()) + " - [ " + record.level() + " ][" + record.logger() + "] - "
+                + record.message();
+    }
+
+    private static String toJson(BinaryLogRecord record) {
+        StringBuilder builder = new StringBuilder(128);
+        builder.append("{\"time\":\"").append(record.timestamp()).append('"');
+        builder.append(",\"level\":");
+        appendJson(builder, record.level() == null ? null : record.level().name());
+        builder.append(",\"logger\":");
+        appendJson(builder, record.logger());
+        builder.append(",\"template\":");
+        appendJson(builder, record.template());
+        builder.append(",\"message\":");
+        appendJson(builder, record.message());
+        builder.append(",\"args\":[");
+        Object[] arguments = record.arguments();
+        for (int i = 0; i < arguments.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            Object argument = arguments[i];
+            if (argument == null || argument instanceof Long || argument instanceof Boolean) {
+                builder.append(argument);
+            } else if (argument instanceof Double value && Double.isFinite(value)) {
+                builder.append(value);
+            } else {
+                appendJson(builder, BinaryLogRecord.argumentText(argument));
+            }
+        }
+        return builder.append("]}").toString();
+    }
+
+    private static void appendJson(StringBuilder builder, String value) {
+        if (value == null) {
+            builder.append("null");
+            return;
+        }
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+                }
+            }
+        }
+        builder.append('"');
+    }
+}